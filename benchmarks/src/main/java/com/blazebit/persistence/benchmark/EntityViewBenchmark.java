@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.benchmark;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.PagedList;
+import com.blazebit.persistence.PaginatedCriteriaBuilder;
+import com.blazebit.persistence.benchmark.model.Document;
+import com.blazebit.persistence.benchmark.view.DocumentView;
+import com.blazebit.persistence.view.EntityViewSetting;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the materialization of an entity view with a subview, a correlated path and two collections of subviews.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EntityViewBenchmark {
+
+    private static CriteriaBuilder<Document> createQuery(PersistenceState state) {
+        return state.cbf.create(state.em, Document.class, "d")
+            .orderByAsc("d.name")
+            .orderByAsc("d.id");
+    }
+
+    @Benchmark
+    public List<DocumentView> materializeAll(PersistenceState state) {
+        EntityViewSetting<DocumentView, CriteriaBuilder<DocumentView>> setting = EntityViewSetting.create(DocumentView.class);
+        return state.evm.applySetting(setting, createQuery(state)).getResultList();
+    }
+
+    @Benchmark
+    public PagedList<DocumentView> materializePage(PersistenceState state) {
+        EntityViewSetting<DocumentView, PaginatedCriteriaBuilder<DocumentView>> setting = EntityViewSetting.create(DocumentView.class, state.documentCount / 2, PersistenceState.PAGE_SIZE);
+        return state.evm.applySetting(setting, createQuery(state)).getResultList();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.benchmark;
+
+import com.blazebit.persistence.impl.expression.Expression;
+import com.blazebit.persistence.impl.expression.ExpressionFactory;
+import com.blazebit.persistence.impl.expression.ExpressionFactoryImpl;
+import com.blazebit.persistence.impl.expression.SimpleCachingExpressionFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of typical path, arithmetic and case when expressions with the plain parser and with the caching expression factory.
+ * The cold variants parse the expression every time, the cached variants only copy the cached expression tree.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ExpressionParsingBenchmark {
+
+    private static final String PATH_EXPRESSION = "d.owner.friend.name";
+    private static final String ARITHMETIC_EXPRESSION = "d.age + 1 * SIZE(d.versions)";
+    private static final String CASE_WHEN_EXPRESSION = "CASE WHEN d.age > 10 AND d.owner.name LIKE 'Owner%' THEN d.name ELSE COALESCE(d.owner.friend.name, 'none') END";
+
+    private ExpressionFactory coldExpressionFactory;
+    private ExpressionFactory cachedExpressionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        coldExpressionFactory = new ExpressionFactoryImpl();
+        cachedExpressionFactory = new SimpleCachingExpressionFactory(new ExpressionFactoryImpl());
+        cachedExpressionFactory.createPathExpression(PATH_EXPRESSION);
+        cachedExpressionFactory.createArithmeticExpression(ARITHMETIC_EXPRESSION);
+        cachedExpressionFactory.createSimpleExpression(CASE_WHEN_EXPRESSION);
+    }
+
+    @Benchmark
+    public Expression parsePathCold() {
+        return coldExpressionFactory.createPathExpression(PATH_EXPRESSION);
+    }
+
+    @Benchmark
+    public Expression parseArithmeticCold() {
+        return coldExpressionFactory.createArithmeticExpression(ARITHMETIC_EXPRESSION);
+    }
+
+    @Benchmark
+    public Expression parseCaseWhenCold() {
+        return coldExpressionFactory.createSimpleExpression(CASE_WHEN_EXPRESSION);
+    }
+
+    @Benchmark
+    public Expression parsePathCached() {
+        return cachedExpressionFactory.createPathExpression(PATH_EXPRESSION);
+    }
+
+    @Benchmark
+    public Expression parseArithmeticCached() {
+        return cachedExpressionFactory.createArithmeticExpression(ARITHMETIC_EXPRESSION);
+    }
+
+    @Benchmark
+    public Expression parseCaseWhenCached() {
+        return cachedExpressionFactory.createSimpleExpression(CASE_WHEN_EXPRESSION);
+    }
+}
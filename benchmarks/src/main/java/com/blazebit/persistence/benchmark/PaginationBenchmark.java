@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.benchmark;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.KeySet;
+import com.blazebit.persistence.PagedList;
+import com.blazebit.persistence.benchmark.model.Document;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares offset based pagination with key set pagination for a page in the middle of the result.
+ * The key set variant navigates to the next page from the key set of the previous page like a client would do.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PaginationBenchmark {
+
+    private int firstResult;
+    private KeySet previousKeySet;
+    private KeySet previousCollectionKeySet;
+
+    @Setup(Level.Trial)
+    public void setUp(PersistenceState state) {
+        firstResult = state.documentCount / 2;
+        previousKeySet = createQuery(state).page(firstResult - PersistenceState.PAGE_SIZE, PersistenceState.PAGE_SIZE)
+            .getResultList()
+            .getKeySet();
+        previousCollectionKeySet = createCollectionQuery(state).page(firstResult - PersistenceState.PAGE_SIZE, PersistenceState.PAGE_SIZE)
+            .getResultList()
+            .getKeySet();
+        state.em.clear();
+    }
+
+    private static CriteriaBuilder<Tuple> createQuery(PersistenceState state) {
+        return state.cbf.create(state.em, Tuple.class)
+            .from(Document.class, "d")
+            .select("d.id")
+            .select("d.name")
+            .select("d.owner.name")
+            .orderByAsc("d.name")
+            .orderByAsc("d.id");
+    }
+
+    private static CriteriaBuilder<Tuple> createCollectionQuery(PersistenceState state) {
+        return createQuery(state)
+            .select("partners.name")
+            .leftJoin("d.partners", "partners");
+    }
+
+    @Benchmark
+    public PagedList<Tuple> offset(PersistenceState state) {
+        return createQuery(state).page(firstResult, PersistenceState.PAGE_SIZE).getResultList();
+    }
+
+    @Benchmark
+    public PagedList<Tuple> keySet(PersistenceState state) {
+        return createQuery(state).page(previousKeySet, firstResult, PersistenceState.PAGE_SIZE).getResultList();
+    }
+
+    @Benchmark
+    public PagedList<Tuple> offsetWithCollection(PersistenceState state) {
+        return createCollectionQuery(state).page(firstResult, PersistenceState.PAGE_SIZE).getResultList();
+    }
+
+    @Benchmark
+    public PagedList<Tuple> keySetWithCollection(PersistenceState state) {
+        return createCollectionQuery(state).page(previousCollectionKeySet, firstResult, PersistenceState.PAGE_SIZE).getResultList();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.benchmark;
+
+import com.blazebit.persistence.Criteria;
+import com.blazebit.persistence.CriteriaBuilderFactory;
+import com.blazebit.persistence.benchmark.model.Document;
+import com.blazebit.persistence.benchmark.model.Person;
+import com.blazebit.persistence.benchmark.model.Version;
+import com.blazebit.persistence.benchmark.view.DocumentView;
+import com.blazebit.persistence.benchmark.view.PersonView;
+import com.blazebit.persistence.benchmark.view.VersionView;
+import com.blazebit.persistence.view.EntityViewManager;
+import com.blazebit.persistence.view.EntityViews;
+import com.blazebit.persistence.view.spi.EntityViewConfiguration;
+import java.util.Properties;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Persistence;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The persistence unit, the factories and the data that are shared by the benchmarks that run queries against H2 in memory.
+ * Every owner has {@link #DOCUMENTS_PER_OWNER} documents and every document has two partners and three versions.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class PersistenceState {
+
+    public static final int DOCUMENTS_PER_OWNER = 10;
+    public static final int PAGE_SIZE = 20;
+
+    @Param("1000")
+    public int documentCount;
+
+    public EntityManagerFactory emf;
+    public EntityManager em;
+    public CriteriaBuilderFactory cbf;
+    public EntityViewManager evm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        properties.put("javax.persistence.jdbc.user", "admin");
+        properties.put("javax.persistence.jdbc.password", "admin");
+        properties.put("javax.persistence.jdbc.driver", "org.h2.Driver");
+        properties.put("javax.persistence.sharedCache.mode", "NONE");
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create-drop");
+
+        emf = Persistence.createEntityManagerFactory("Benchmark", properties);
+        em = emf.createEntityManager();
+        cbf = Criteria.getDefault().createCriteriaBuilderFactory();
+
+        EntityViewConfiguration cfg = EntityViews.createDefaultConfiguration();
+        cfg.addEntityView(DocumentView.class);
+        cfg.addEntityView(PersonView.class);
+        cfg.addEntityView(VersionView.class);
+        evm = cfg.createEntityViewManager();
+
+        insertData();
+    }
+
+    private void insertData() {
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+
+        Person owner = null;
+
+        for (int i = 0; i < documentCount; i++) {
+            if (i % DOCUMENTS_PER_OWNER == 0) {
+                Person friend = new Person("Friend " + i, 20 + i % 50);
+                owner = new Person("Owner " + i, 18 + i % 60);
+                owner.setFriend(friend);
+                em.persist(friend);
+                em.persist(owner);
+            }
+
+            Document document = new Document("Document " + i, i % 100, owner);
+            em.persist(document);
+
+            for (int j = 0; j < 2; j++) {
+                Person partner = new Person("Partner " + i + "-" + j, 30 + j);
+                partner.setPartnerDocument(document);
+                em.persist(partner);
+            }
+
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Version(j, document));
+            }
+
+            if (i % 100 == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+
+        tx.commit();
+        em.clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        em.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+}
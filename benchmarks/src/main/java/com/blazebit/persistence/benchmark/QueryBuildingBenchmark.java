@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.benchmark;
+
+import com.blazebit.persistence.Criteria;
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.CriteriaBuilderFactory;
+import com.blazebit.persistence.PaginatedCriteriaBuilder;
+import com.blazebit.persistence.benchmark.model.Document;
+import com.blazebit.persistence.impl.ConfigurationProperties;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures building a typical query with five joins, predicates and paging and rendering it to JPQL.
+ * No query is executed, so these numbers only contain the overhead of the builders.
+ * Every benchmark runs with the query template cache enabled and disabled, since with the cache enabled
+ * the rendering of the repeatedly built query is a cache hit.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBuildingBenchmark {
+
+    @Param({ "1024", "0" })
+    public int queryTemplateCacheMaximumSize;
+
+    private CriteriaBuilderFactory cbf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CriteriaBuilderConfiguration config = Criteria.getDefault();
+        config.setProperty(ConfigurationProperties.QUERY_TEMPLATE_CACHE_MAXIMUM_SIZE, Integer.toString(queryTemplateCacheMaximumSize));
+        cbf = config.createCriteriaBuilderFactory();
+    }
+
+    static CriteriaBuilder<Tuple> createQuery(CriteriaBuilderFactory cbf, EntityManager em) {
+        return cbf.create(em, Tuple.class)
+            .from(Document.class, "d")
+            .select("d.name")
+            .select("d.owner.friend.name")
+            .select("partners.name")
+            .select("partners.friend.name")
+            .select("versions.idx")
+            .leftJoin("d.partners", "partners")
+            .leftJoin("d.versions", "versions")
+            .where("d.age").ge(10L)
+            .where("d.owner.name").like().value("Owner%").noEscape()
+            .whereOr()
+                .where("partners.age").gt(30L)
+                .where("versions.idx").eq(0)
+            .endOr()
+            .orderByAsc("d.name")
+            .orderByAsc("d.id");
+    }
+
+    @Benchmark
+    public CriteriaBuilder<Tuple> build(PersistenceState state) {
+        return createQuery(cbf, state.em);
+    }
+
+    @Benchmark
+    public String buildAndRender(PersistenceState state) {
+        return createQuery(cbf, state.em).getQueryString();
+    }
+
+    @Benchmark
+    public void buildAndRenderPaginated(PersistenceState state, Blackhole blackhole) {
+        PaginatedCriteriaBuilder<Tuple> cb = createQuery(cbf, state.em).page(0, PersistenceState.PAGE_SIZE);
+        blackhole.consume(cb.getPageCountQueryString());
+        blackhole.consume(cb.getPageIdQueryString());
+        blackhole.consume(cb.getQueryString());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import java.util.List;
+
+/**
+ * An object builder that folds multiple consecutive result tuples into a single object, e.g. to assemble the collections of an object.
+ * When such an object builder is used with a {@link ScrollableResult}, the tuples are collected group by group and every group is
+ * passed to {@link #buildGroup(java.util.List)} as soon as it is complete, so at most one group has to be held in memory.
+ *
+ * <p>
+ * Since groups are detected by comparing consecutive tuples, a query that is scrolled must be ordered so that the tuples of a group
+ * are returned consecutively, e.g. by ordering by a unique attribute of the root entity last.
+ * </p>
+ *
+ * @param <T> The type that this builder produces
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface FoldingObjectBuilder<T> extends ObjectBuilder<T> {
+
+    /**
+     * Returns true if the given tuples belong to the same group and thus have to be folded into the same object.
+     *
+     * @param groupTuple The first tuple of the current group
+     * @param tuple The tuple to check
+     * @return True if the tuple belongs to the group of the given group tuple, false otherwise
+     */
+    public boolean isSameGroup(Object[] groupTuple, Object[] tuple);
+
+    /**
+     * Builds the objects of the target type {@linkplain T} from the given group of tuples.
+     *
+     * @param tuples The tuples of a single group
+     * @return The resulting objects
+     */
+    public List<T> buildGroup(List<Object[]> tuples);
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+/**
+ * The strategies a {@link PaginatedCriteriaBuilder} can use to determine the total size of a {@link PagedList}.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public enum PageCountMode {
+
+    /**
+     * Executes a separate count query before the page is fetched. This is the default.
+     */
+    QUERY,
+    /**
+     * Fetches the total size together with the page through a <code>COUNT(...) OVER()</code> window function.
+     * If the dbms does not support window functions or the page is fetched via key set pagination
+     * or by a reference entity id, this falls back to {@link #QUERY}.
+     */
+    INLINE,
+    /**
+     * Does not determine the total size. The resulting paged list reports a total size of <code>-1</code>.
+     * If the page is fetched by a reference entity id, the count query is executed nevertheless
+     * because it also determines the page position.
+     */
+    NONE;
+}
@@ -35,9 +35,10 @@ public interface PagedList<T> extends List<T> {
     public int getSize();
     
     /**
-     * Returns the total size of the list.
+     * Returns the total size of the list or <code>-1</code> if the total size was not determined.
      *
-     * @return The total size
+     * @see PageCountMode#NONE
+     * @return The total size or <code>-1</code>
      */
     public long getTotalSize();
     
@@ -49,9 +50,9 @@ public interface PagedList<T> extends List<T> {
     public int getPage();
     
     /**
-     * Returns the number of total pages.
+     * Returns the number of total pages or <code>-1</code> if the total size was not determined.
      * 
-     * @return The number of total pages
+     * @return The number of total pages or <code>-1</code>
      */
     public int getTotalPages();
     
@@ -15,6 +15,8 @@
  */
 package com.blazebit.persistence;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A builder for paginated criteria queries.
  *
@@ -38,6 +40,28 @@ public interface PaginatedCriteriaBuilder<T> extends QueryBuilder<T, PaginatedCr
      */
     public String getPageIdQueryString();
 
+    /**
+     * Sets the strategy that is used to determine the total size of the paged list.
+     * Note that {@link PageCountMode#INLINE} silently falls back to {@link PageCountMode#QUERY} if the dbms does not
+     * support window functions, i.e. it is only inlined on Oracle, Microsoft SQL Server, PostgreSQL and DB2,
+     * or if the page is fetched via key set pagination or by a reference entity id.
+     *
+     * @param countMode The count mode
+     * @return This paginated criteria builder
+     */
+    public PaginatedCriteriaBuilder<T> withCountMode(PageCountMode countMode);
+
+    /**
+     * Reuses the total size of previous executions of the same count query with the same parameter values
+     * if it is not older than the given time to live. A time to live of <code>0</code> disables the reuse.
+     * The total sizes are shared by all builders of a persistence unit.
+     *
+     * @param timeToLive The time to live of a total size
+     * @param timeUnit The unit of the time to live
+     * @return This paginated criteria builder
+     */
+    public PaginatedCriteriaBuilder<T> withCachedCount(long timeToLive, TimeUnit timeUnit);
+
     /*
      * Covariant overrides
      */
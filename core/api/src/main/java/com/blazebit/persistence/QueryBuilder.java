@@ -17,9 +17,12 @@ package com.blazebit.persistence;
 
 import java.lang.reflect.Constructor;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import javax.persistence.EntityManager;
 import javax.persistence.Parameter;
 import javax.persistence.TemporalType;
 import javax.persistence.TypedQuery;
@@ -119,6 +122,39 @@ public interface QueryBuilder<T, X extends QueryBuilder<T, X>> extends BaseQuery
      */
     public List<T> getResultList();
     
+    /**
+     * Execute the query and return a scrollable result that fetches the results lazily.
+     * Like {@link QueryBuilder#scroll(int)} but uses the default fetch size of the JPA provider.
+     * Note that the results are only fetched lazily if a JPA provider integration is registered,
+     * see {@link QueryBuilder#scroll(int)} for details.
+     *
+     * @return The scrollable result
+     */
+    public ScrollableResult<T> getResultStream();
+
+    /**
+     * Execute the query and return a scrollable result that fetches the results lazily with the given fetch size.
+     * The {@link ObjectBuilder#build(java.lang.Object[])} method of the object builder is applied to each result when it is fetched,
+     * but {@link ObjectBuilder#buildList(java.util.List)} is never invoked since the results are never materialized as a whole.
+     * A {@link FoldingObjectBuilder} is instead applied to every group of consecutive tuples as soon as the group is complete.
+     *
+     * <p>
+     * Please note that entities that are fetched are still managed by the entity manager.
+     * When scrolling through a large number of entities, the entity manager should be cleared regularly.
+     * </p>
+     *
+     * <p>
+     * Scrolling is implemented by the JPA provider integration, i.e. the last registered
+     * {@link com.blazebit.persistence.spi.QueryTransformer}. If no integration is registered, the results are
+     * fetched via {@link javax.persistence.TypedQuery#getResultList()} as a whole and no object builder is applied.
+     * Paginated queries are always fetched as a whole since a page is already bounded.
+     * </p>
+     *
+     * @param fetchSize The number of rows that should be fetched from the database at once or 0 for the default fetch size
+     * @return The scrollable result
+     */
+    public ScrollableResult<T> scroll(int fetchSize);
+
     /**
      * Execute the query expecting a single result.
      *
@@ -126,6 +162,27 @@ public interface QueryBuilder<T, X extends QueryBuilder<T, X>> extends BaseQuery
      */
     public T getSingleResult();
 
+    /**
+     * Execute the query for every given value of the parameter with the given name and return the results partitioned by value.
+     * The returned map iterates in the order of the given values and contains an empty list for every value without results.
+     * The value of the parameter that is set on this query builder is neither used nor changed.
+     *
+     * <p>
+     * If the parameter is only used in a top level equality predicate like <code>d.owner.id = :ownerId</code>, the query
+     * neither groups nor aggregates and all values are of the exact integral, floating point, boolean or enum type of the compared
+     * attribute, all values are bound to a single query. The equality predicate is replaced by an IN predicate and its left hand side
+     * is additionally selected to partition the results with {@link Object#equals(java.lang.Object)}. Other values like strings,
+     * decimals or dates might be equal in SQL but not in Java, so for them and for all other queries the query is generated
+     * once and executed for every value with the parameter rebound.
+     * </p>
+     *
+     * @param <K>           The type of the parameter values
+     * @param parameterName The name of the parameter that discriminates the results
+     * @param values        The values for the parameter
+     * @return The results of the query per parameter value
+     */
+    public <K> Map<K, List<T>> getResultLists(String parameterName, Collection<K> values);
+
     /**
      * Returns the JPA {@link Metamodel} of the persistence unit which is used by this query builder.
      *
@@ -133,6 +190,21 @@ public interface QueryBuilder<T, X extends QueryBuilder<T, X>> extends BaseQuery
      */
     public Metamodel getMetamodel();
 
+    /**
+     * Returns the entity manager which is used by this query builder.
+     *
+     * @return The entity manager
+     */
+    public EntityManager getEntityManager();
+
+    /**
+     * Returns the criteria builder factory which created this query builder.
+     * This can be used to create further queries in the same context, e.g. to fetch associated data.
+     *
+     * @return The criteria builder factory
+     */
+    public CriteriaBuilderFactory getCriteriaBuilderFactory();
+
     /**
      * Paginates the results of this query.
      *
@@ -188,17 +260,16 @@ public interface QueryBuilder<T, X extends QueryBuilder<T, X>> extends BaseQuery
      * Key set pagination is possible if and only if the following condition is met:
      * <ul>
      * <li>This query builder and the one with which the key set was obtained are equal AND</li>
-     * 
-     * <li>{@link KeySet#getMaxResults()} and <code>maxResults</code> evaluate to the same value AND</li>
-     * <li>One of the following conditions is met:
-     *  <ul>
-     *      <li>The absolute value of {@link KeySet#getFirstResults()}<code> - firstResult</code> is 0</li>
-     *      <li>The absolute value of {@link KeySet#getFirstResults()}<code> - firstResult</code> is equal to the value of <code>maxResults</code></li>
-     *  </ul>
-     * </li>
+     * <li>The requested page does not overlap the page of the key set unless both start at the same position</li>
      * </ul>
      * </p>
      *
+     * <p>
+     * Pages after the key set are fetched by seeking past the highest key and skipping only the pages in between.
+     * Pages before the key set are fetched by seeking before the lowest key in inverse order, which is only done
+     * if that skips less rows than an offset from the start. The results are always returned in the natural order.
+     * </p>
+     *
      * @param keySet      The key set from a previous result
      * @param firstResult The position of the first result to retrieve, numbered from 0
      * @param maxResults  The maximum number of results to retrieve
@@ -225,6 +296,21 @@ public interface QueryBuilder<T, X extends QueryBuilder<T, X>> extends BaseQuery
      */
     public PaginatedCriteriaBuilder<T> page(KeySet keySet, Object entityId, int maxResults);
 
+    /**
+     * Paginates the results of this query and navigates to the last page.
+     * The last page is fetched in inverse order so that no preceding rows have to be skipped.
+     * Since the position of the last page depends on the total size, the count query is always executed.
+     * The key set of the last page is extracted so that the previous pages can be fetched
+     * with {@link QueryBuilder#page(com.blazebit.persistence.KeySet, int, int)}.
+     *
+     * Beware that the same limitations like for {@link QueryBuilder#page(int, int)} apply.
+     *
+     * @param maxResults The maximum number of results to retrieve
+     * @return This query builder as paginated query builder
+     * @see PagedList#getKeySet()
+     */
+    public PaginatedCriteriaBuilder<T> pageLast(int maxResults);
+
     /*
      * Join methods
      */
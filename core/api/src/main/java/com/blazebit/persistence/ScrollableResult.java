@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import java.util.Iterator;
+
+/**
+ * An iterator over the results of a query that fetches the results from the database lazily while iterating.
+ * The object builder of the query is applied to every result when it is fetched, so in contrast to
+ * {@link QueryBuilder#getResultList()} the results are never materialized as a whole.
+ *
+ * Since a scrollable result holds database resources, it must be closed when it is not needed anymore.
+ * It is closed automatically when the last element has been fetched.
+ *
+ * @param <T> The query result type
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface ScrollableResult<T> extends Iterator<T> {
+
+    /**
+     * Releases the database resources held by this scrollable result.
+     * Invoking this method on an already closed scrollable result has no effect.
+     */
+    public void close();
+}
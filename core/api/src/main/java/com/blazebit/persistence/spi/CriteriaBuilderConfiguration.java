@@ -42,6 +42,22 @@ public interface CriteriaBuilderConfiguration {
      * @return A list of registered query transformers
      */
     public List<QueryTransformer> getQueryTransformers();
+
+    /**
+     * Sets the query metrics that should be notified about the phases of building and executing queries.
+     * By default no metrics are recorded.
+     *
+     * @param queryMetrics The query metrics
+     * @return this for method chaining
+     */
+    public CriteriaBuilderConfiguration setQueryMetrics(QueryMetrics queryMetrics);
+
+    /**
+     * Returns the query metrics of this configuration.
+     *
+     * @return The query metrics
+     */
+    public QueryMetrics getQueryMetrics();
     
     /**
      * Registers the given jpql function under the given name in the configuration.
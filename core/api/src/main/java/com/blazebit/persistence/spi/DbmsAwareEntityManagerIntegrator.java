@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.spi;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Optional extension of {@link EntityManagerIntegrator} for integrators that can determine the dbms of an entity manager.
+ *
+ * Integrators that don't implement this interface are still supported. If no integrator determines the dbms,
+ * it is derived from the JDBC url of the persistence unit.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface DbmsAwareEntityManagerIntegrator extends EntityManagerIntegrator {
+
+    /**
+     * Returns the identifier of the dbms the given entity manager is connected to or null if it is unknown.
+     * The identifier is the key that is used for dbms specific functions, e.g. <code>mysql</code> or <code>oracle</code>.
+     * 
+     * @param entityManager The entity manager which should be queried
+     * @return The dbms identifier or null
+     */
+    public String getDbms(EntityManager entityManager);
+}
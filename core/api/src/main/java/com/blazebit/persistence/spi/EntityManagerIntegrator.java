@@ -34,6 +34,10 @@ public interface EntityManagerIntegrator {
      * Registers the given functions under the given names on the given entity manager.
      * The dbmsFunctions map the function name to a map of dbms specific functions.
      * The dbms specific functions map uses a dbms identifier as key.
+     * This method is invoked only once per entity manager factory, so implementations don't have to guard against repeated registration.
+     * Implementations that wrap the entity manager should implement {@link WrappingEntityManagerIntegrator}.
+     * For compatibility, an implementation that returns a different entity manager than the given one without implementing
+     * {@link WrappingEntityManagerIntegrator} is invoked again for every entity manager that is used to create a query builder.
      *
      * @param entityManager The entity manager which should be enriched
      * @param dbmsFunctions The functions for various dbms
@@ -43,6 +47,7 @@ public interface EntityManagerIntegrator {
     
     /**
      * Returns the names of all registered functions.
+     * The result is copied and memoized by the caller, so implementations may return a view of their internal function registry.
      * 
      * @param entityManager The entity manager which should be queried
      * @return The set of function names
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.spi;
+
+/**
+ * The metrics that are recorded by a {@link QueryMetrics} instance.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public enum QueryMetric {
+
+    /**
+     * The time in nanoseconds it took to parse an expression that was not cached.
+     */
+    EXPRESSION_PARSING,
+    /**
+     * Counts the expressions that were found in the expression cache.
+     */
+    EXPRESSION_CACHE_HIT,
+    /**
+     * Counts the expressions that were not found in the expression cache.
+     */
+    EXPRESSION_CACHE_MISS,
+    /**
+     * The time in nanoseconds it took to apply implicit joins and expression transformers before a query string is generated.
+     */
+    BUILDER_FINALIZATION,
+    /**
+     * The time in nanoseconds it took to generate a JPQL query string.
+     */
+    QUERY_STRING_GENERATION,
+    /**
+     * The length of a generated JPQL query string.
+     */
+    QUERY_STRING_LENGTH,
+    /**
+     * The time in nanoseconds it took to execute the count query of a paginated query, including the page position queries.
+     */
+    PAGE_COUNT_QUERY,
+    /**
+     * The time in nanoseconds it took to execute the id query of a paginated query.
+     */
+    PAGE_ID_QUERY,
+    /**
+     * The time in nanoseconds it took to execute the object query of a paginated query.
+     */
+    PAGE_OBJECT_QUERY,
+    /**
+     * The time in nanoseconds it took an object builder to build the object of a single tuple.
+     */
+    OBJECT_BUILDER_BUILD,
+    /**
+     * The time in nanoseconds it took an object builder to transform the list of built objects.
+     */
+    OBJECT_BUILDER_BUILD_LIST;
+}
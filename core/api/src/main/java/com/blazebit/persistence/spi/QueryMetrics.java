@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.spi;
+
+/**
+ * Interface implemented by the criteria provider user to collect metrics about the phases of building and executing queries.
+ * Implementations are shared by all builders of a criteria builder factory and must therefore be thread safe.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface QueryMetrics {
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param metric The metric
+     * @param nanos  The duration in nanoseconds
+     */
+    public void recordTime(QueryMetric metric, long nanos);
+
+    /**
+     * Records a value like the length of a query string.
+     *
+     * @param metric The metric
+     * @param value  The value
+     */
+    public void recordValue(QueryMetric metric, long value);
+
+    /**
+     * Increments the counter of the given metric by one.
+     *
+     * @param metric The metric
+     */
+    public void increment(QueryMetric metric);
+}
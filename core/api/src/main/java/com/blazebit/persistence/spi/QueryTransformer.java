@@ -16,6 +16,7 @@
 package com.blazebit.persistence.spi;
 
 import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.ScrollableResult;
 import javax.persistence.TypedQuery;
 
 /**
@@ -37,4 +38,16 @@ public interface QueryTransformer {
      * @return The transformed query
      */
     public <T> TypedQuery<T> transformQuery(TypedQuery<?> query, ObjectBuilder<T> objectBuilder);
+
+    /**
+     * Executes the query and returns a scrollable result that fetches the results lazily.
+     * If an object builder is given, its build method is applied to every result when it is fetched.
+     *
+     * @param <T>           The query result type
+     * @param query         The original query
+     * @param objectBuilder The object build that should be used to transform the results or null
+     * @param fetchSize     The number of rows that should be fetched at once or 0 for the default fetch size
+     * @return The scrollable result
+     */
+    public <T> ScrollableResult<T> scroll(TypedQuery<?> query, ObjectBuilder<T> objectBuilder, int fetchSize);
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.spi;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Optional extension of {@link EntityManagerIntegrator} for integrators that enrich an entity manager by wrapping it.
+ *
+ * The functions are registered only once per entity manager factory through
+ * {@link EntityManagerIntegrator#registerFunctions(javax.persistence.EntityManager, java.util.Map)},
+ * which should return the given entity manager. Every entity manager that is used to create a query builder is then
+ * passed to {@link #wrap(javax.persistence.EntityManager)}.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface WrappingEntityManagerIntegrator extends EntityManagerIntegrator {
+
+    /**
+     * Wraps the given entity manager. This method is invoked for every query builder, so it should be cheap.
+     *
+     * @param entityManager The entity manager which should be wrapped
+     * @return The wrapped entity manager
+     */
+    public EntityManager wrap(EntityManager entityManager);
+}
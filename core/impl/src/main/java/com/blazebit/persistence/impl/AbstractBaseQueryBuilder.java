@@ -20,6 +20,7 @@ import com.blazebit.persistence.CaseWhenStarterBuilder;
 import com.blazebit.persistence.HavingOrBuilder;
 import com.blazebit.persistence.JoinOnBuilder;
 import com.blazebit.persistence.JoinType;
+import com.blazebit.persistence.ObjectBuilder;
 import com.blazebit.persistence.RestrictionBuilder;
 import com.blazebit.persistence.SimpleCaseWhenStarterBuilder;
 import com.blazebit.persistence.SubqueryInitiator;
@@ -29,6 +30,8 @@ import com.blazebit.persistence.impl.expression.ExpressionFactory;
 import com.blazebit.persistence.impl.expression.SubqueryExpressionFactory;
 import com.blazebit.persistence.impl.expression.VisitorAdapter;
 import com.blazebit.persistence.internal.OrderByBuilderExperimental;
+import com.blazebit.persistence.spi.QueryMetric;
+import com.blazebit.persistence.spi.QueryMetrics;
 import com.blazebit.persistence.spi.QueryTransformer;
 import java.util.Arrays;
 import java.util.EnumSet;
@@ -84,9 +87,15 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
 
     private boolean needsCheck = true;
     private boolean implicitJoinsApplied = false;
+    // Only builders that were never prepared can be rendered into a template key
+    private boolean queryTemplateApplicable = true;
 
     // Cache
     protected String cachedQueryString;
+    // The names of the parameters of the cached query string if it was taken from a query template
+    protected Set<String> cachedQueryParameterNames;
+    private String cachedQueryTemplateKey;
+    private final QueryTemplateCache queryTemplateCache;
 
     /**
      * Create flat copy of builder
@@ -114,9 +123,12 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
         this.resultType = builder.resultType;
         this.sizeSelectToCountTransformer = builder.sizeSelectToCountTransformer;
         this.sizeSelectToSubqueryTransformer = builder.sizeSelectToSubqueryTransformer;
+        // The copy shares the managers and prepares them on its own, so none of both can use query templates anymore
+        this.queryTemplateCache = null;
+        builder.queryTemplateApplicable = false;
     }
 
-    protected AbstractBaseQueryBuilder(CriteriaBuilderFactoryImpl cbf, EntityManager em, Class<T> resultClazz, String alias, ParameterManager parameterManager, AliasManager aliasManager, JoinManager parentJoinManager, ExpressionFactory expressionFactory, Set<String> registeredFunctions) {
+    protected AbstractBaseQueryBuilder(CriteriaBuilderFactoryImpl cbf, EntityManager em, Class<T> resultClazz, String alias, ParameterManager parameterManager, AliasManager aliasManager, JoinManager parentJoinManager, ExpressionFactory expressionFactory, JPAInfo jpaInfo, Set<String> registeredFunctions, QueryTemplateCache queryTemplateCache) {
         if (cbf == null) {
             throw new NullPointerException("criteriaBuilderFactory");
         }
@@ -128,14 +140,14 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
         }
 
         this.cbf = cbf;
-        this.jpaInfo = new JPAInfo(em);
+        this.jpaInfo = jpaInfo;
         this.aliasManager = new AliasManager(aliasManager);
         this.expressionFactory = expressionFactory;
 
         this.parameterManager = parameterManager;
 
         this.registeredFunctions = registeredFunctions;
-        this.queryGenerator = new ResolvingQueryGenerator(this.aliasManager, this.jpaInfo, registeredFunctions);
+        this.queryGenerator = new ResolvingQueryGenerator(this.aliasManager, this.jpaInfo, registeredFunctions, cbf.getInListChunkSize());
 
         this.joinManager = new JoinManager(queryGenerator, parameterManager, null, expressionFactory, jpaInfo, this.aliasManager, em.getMetamodel(),
                 parentJoinManager);
@@ -148,7 +160,7 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
             this.fromClazz = null;
         }
 
-        this.subqueryInitFactory = new SubqueryInitiatorFactory(cbf, em, parameterManager, this.aliasManager, joinManager, new SubqueryExpressionFactory(), registeredFunctions);
+        this.subqueryInitFactory = new SubqueryInitiatorFactory(cbf, em, parameterManager, this.aliasManager, joinManager, new SubqueryExpressionFactory(), jpaInfo, registeredFunctions);
 
         this.joinManager.setSubqueryInitFactory(subqueryInitFactory);
 
@@ -166,10 +178,11 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
         this.sizeSelectToCountTransformer = new SizeSelectToCountTransformer(joinManager, groupByManager, orderByManager);
         this.sizeSelectToSubqueryTransformer = new SizeSelectToSubqueryTransformer(subqueryInitFactory, this.aliasManager);
         this.resultType = resultClazz;
+        this.queryTemplateCache = queryTemplateCache;
     }
 
-    public AbstractBaseQueryBuilder(CriteriaBuilderFactoryImpl cbf, EntityManager em, Class<T> clazz, String alias, Set<String> registeredFunctions) {
-        this(cbf, em, clazz, alias, new ParameterManager(), null, null, cbf.getExpressionFactory(), registeredFunctions);
+    public AbstractBaseQueryBuilder(CriteriaBuilderFactoryImpl cbf, EntityManager em, Class<T> clazz, String alias, JPAInfo jpaInfo, Set<String> registeredFunctions, QueryTemplateCache queryTemplateCache) {
+        this(cbf, em, clazz, alias, new ParameterManager(), null, null, cbf.getExpressionFactory(), jpaInfo, registeredFunctions, queryTemplateCache);
     }
 
     @Override
@@ -686,6 +699,77 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
 
     @Override
     public String getQueryString() {
+        if (cachedQueryString == null && queryTemplateCache != null) {
+            String templateKey = getQueryTemplateKey();
+
+            if (templateKey != null) {
+                QueryTemplate template = queryTemplateCache.get(templateKey);
+
+                if (template == null) {
+                    prepareAndCheck();
+                    template = new QueryTemplate(getQueryString1());
+                    queryTemplateCache.put(templateKey, template);
+                }
+
+                // The builder stays unprepared on a hit, everything that needs the prepared managers has to prepare
+                // the builder itself and the parameters are bound by the names of the template
+                cachedQueryString = template.getQueryString();
+                cachedQueryParameterNames = template.getParameterNames();
+                return cachedQueryString;
+            }
+        }
+
+        prepareAndCheck();
+        return getQueryString0();
+    }
+
+    /**
+     * Returns the structural key of this builder for the query template cache or null if the query string of this
+     * builder can't be reused. The key must be computed before implicit joins and transformations are applied
+     * and is kept until the builder is mutated.
+     *
+     * @return The template key or null
+     */
+    private String getQueryTemplateKey() {
+        if (!queryTemplateApplicable || fromClazz == null) {
+            return null;
+        }
+        if (cachedQueryTemplateKey != null) {
+            return cachedQueryTemplateKey;
+        }
+
+        verifyBuilderEnded();
+        StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            QueryTemplateKeyGenerator generator = new QueryTemplateKeyGenerator(sb, cbf.getInListChunkSize());
+
+            sb.append(resultType.getName()).append(' ');
+            selectManager.buildTemplateKey(generator);
+            joinManager.buildTemplateKey(generator);
+            whereManager.buildTemplateKey(generator);
+            groupByManager.buildTemplateKey(generator);
+            havingManager.buildTemplateKey(generator);
+            orderByManager.buildTemplateKey(generator);
+
+            if (!generator.isCacheable()) {
+                queryTemplateApplicable = false;
+                return null;
+            }
+
+            cachedQueryTemplateKey = sb.toString();
+            return cachedQueryTemplateKey;
+        } finally {
+            StringBuilderProvider.release(sb);
+        }
+    }
+
+    /**
+     * Like {@link #getQueryString()} but makes sure that implicit joins and expression transformations are applied
+     * to the managers of this builder even if the query string is taken from the query template cache.
+     *
+     * @return The query string
+     */
+    protected String getPreparedQueryString() {
         prepareAndCheck();
         return getQueryString0();
     }
@@ -701,6 +785,8 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
     protected void clearCache() {
         needsCheck = true;
         cachedQueryString = null;
+        cachedQueryParameterNames = null;
+        cachedQueryTemplateKey = null;
         implicitJoinsApplied = false;
     }
 
@@ -719,24 +805,41 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
         // so where("b.c").join("a.b") but also
         // join("a.b", "b").where("b.c")
         // in the first case
+        long start = startTime();
         applyImplicitJoins();
         applyExpressionTransformers();
+        recordTime(QueryMetric.BUILDER_FINALIZATION, start);
+        queryTemplateApplicable = false;
 
         // No need to do all that stuff again if no mutation occurs
         needsCheck = false;
     }
 
     private String getQueryString1() {
-        StringBuilder sbSelectFrom = new StringBuilder();
+        long start = startTime();
+        StringBuilder sbSelectFrom = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            selectManager.buildSelect(sbSelectFrom, joinManager.getRootAlias());
+            buildFromToOrderBy(sbSelectFrom);
+            return recordQueryString(start, sbSelectFrom.toString());
+        } finally {
+            StringBuilderProvider.release(sbSelectFrom);
+        }
+    }
 
-        sbSelectFrom.append(selectManager.buildSelect(joinManager.getRootAlias()));
-        sbSelectFrom.append(" FROM ")
+    /**
+     * Renders all clauses of the query after the select clause.
+     *
+     * @param sb The string builder to render to
+     */
+    protected void buildFromToOrderBy(StringBuilder sb) {
+        sb.append(" FROM ")
                 .append(fromClazz.getName())
                 .append(' ')
                 .append(joinManager.getRootAlias());
 
-        joinManager.buildJoins(sbSelectFrom, EnumSet.noneOf(ClauseType.class), null);
-        whereManager.buildClause(sbSelectFrom);
+        joinManager.buildJoins(sb, EnumSet.noneOf(ClauseType.class), null);
+        whereManager.buildClause(sb);
 
         Set<String> clauses = new LinkedHashSet<String>();
         clauses.addAll(groupByManager.buildGroupByClauses());
@@ -744,22 +847,47 @@ public class AbstractBaseQueryBuilder<T, X extends BaseQueryBuilder<T, X>> imple
             clauses.addAll(selectManager.buildGroupByClauses(em.getMetamodel()));
             clauses.addAll(orderByManager.buildGroupByClauses());
         }
-        groupByManager.buildGroupBy(sbSelectFrom, clauses);
+        groupByManager.buildGroupBy(sb, clauses);
 
-        havingManager.buildClause(sbSelectFrom);
+        havingManager.buildClause(sb);
         queryGenerator.setResolveSelectAliases(false);
-            orderByManager.buildOrderBy(sbSelectFrom, false, false);
+            orderByManager.buildOrderBy(sb, false, false);
         queryGenerator.setResolveSelectAliases(true);
-        return sbSelectFrom.toString();
     }
 
     protected <T> TypedQuery<T> transformQuery(TypedQuery<T> query) {
         TypedQuery<T> currentQuery = query;
+        ObjectBuilder<?> objectBuilder = cbf.getMeasuredObjectBuilder(selectManager.getSelectObjectBuilder());
         for (QueryTransformer transformer : cbf.getQueryTransformers()) {
-            currentQuery = (TypedQuery<T>) transformer.transformQuery(query, selectManager.getSelectObjectBuilder());
+            currentQuery = (TypedQuery<T>) transformer.transformQuery(query, objectBuilder);
         }
         return currentQuery;
     }
 
+    /**
+     * Returns the start time of a measurement. The clock is only read if query metrics are configured.
+     *
+     * @return The current time as returned by {@link System#nanoTime()} or 0 if no query metrics are configured
+     */
+    protected long startTime() {
+        return cbf.isQueryMetricsEnabled() ? System.nanoTime() : 0L;
+    }
+
+    protected void recordTime(QueryMetric metric, long startNanos) {
+        if (cbf.isQueryMetricsEnabled()) {
+            cbf.getQueryMetrics().recordTime(metric, System.nanoTime() - startNanos);
+        }
+    }
+
+    protected String recordQueryString(long startNanos, String queryString) {
+        if (cbf.isQueryMetricsEnabled()) {
+            QueryMetrics queryMetrics = cbf.getQueryMetrics();
+            queryMetrics.recordTime(QueryMetric.QUERY_STRING_GENERATION, System.nanoTime() - startNanos);
+            queryMetrics.recordValue(QueryMetric.QUERY_STRING_LENGTH, queryString.length());
+        }
+
+        return queryString;
+    }
+
     // TODO: needs equals-hashCode implementation
 }
@@ -16,25 +16,46 @@
 package com.blazebit.persistence.impl;
 
 import com.blazebit.persistence.CaseWhenBuilder;
+import com.blazebit.persistence.CriteriaBuilderFactory;
+import com.blazebit.persistence.FoldingObjectBuilder;
 import com.blazebit.persistence.JoinType;
 import com.blazebit.persistence.KeySet;
 import com.blazebit.persistence.ObjectBuilder;
 import com.blazebit.persistence.PaginatedCriteriaBuilder;
 import com.blazebit.persistence.QueryBuilder;
+import com.blazebit.persistence.ScrollableResult;
 import com.blazebit.persistence.SelectObjectBuilder;
 import com.blazebit.persistence.SimpleCaseWhenBuilder;
 import com.blazebit.persistence.SubqueryInitiator;
+import com.blazebit.persistence.impl.expression.ParameterExpression;
+import com.blazebit.persistence.impl.expression.PathExpression;
+import com.blazebit.persistence.impl.predicate.EqPredicate;
+import com.blazebit.persistence.impl.predicate.InPredicate;
+import com.blazebit.persistence.impl.predicate.Predicate;
+import com.blazebit.persistence.spi.QueryTransformer;
+import com.blazebit.reflection.ReflectionUtils;
 import java.lang.reflect.Constructor;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.persistence.EntityManager;
 import javax.persistence.Parameter;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
 import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
 import javax.persistence.metamodel.Metamodel;
 
 /**
@@ -48,6 +69,9 @@ import javax.persistence.metamodel.Metamodel;
 public abstract class AbstractQueryBuilder<T, X extends QueryBuilder<T, X>> extends AbstractBaseQueryBuilder<T, X> implements
     QueryBuilder<T, X> {
 
+    private static final Set<Class<?>> BATCH_PARTITION_TYPES = Collections.<Class<?>>unmodifiableSet(new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+        Boolean.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class)));
+
     /**
      * This flag indicates whether the current builder has been used to create a
      * PaginatedCriteriaBuilder. In this case we must not allow any calls to
@@ -66,8 +90,8 @@ public abstract class AbstractQueryBuilder<T, X extends QueryBuilder<T, X>> exte
         super(builder);
     }
 
-    public AbstractQueryBuilder(CriteriaBuilderFactoryImpl cbf, EntityManager em, Class<T> clazz, String alias, Set<String> registeredFunctions) {
-        super(cbf, em, clazz, alias, registeredFunctions);
+    public AbstractQueryBuilder(CriteriaBuilderFactoryImpl cbf, EntityManager em, Class<T> clazz, String alias, JPAInfo jpaInfo, Set<String> registeredFunctions, QueryTemplateCache queryTemplateCache) {
+        super(cbf, em, clazz, alias, jpaInfo, registeredFunctions, queryTemplateCache);
     }
 
     @Override
@@ -81,27 +105,276 @@ public abstract class AbstractQueryBuilder<T, X extends QueryBuilder<T, X>> exte
     }
 
     @Override
-    public PaginatedCriteriaBuilder<T> page(int firstRow, int pageSize) {
-        clearCache();
-        if (selectManager.isDistinct()) {
-            throw new IllegalStateException("Cannot paginate a DISTINCT query");
+    public <K> Map<K, List<T>> getResultLists(String parameterName, Collection<K> values) {
+        if (values == null) {
+            throw new NullPointerException("values");
         }
-        if (!groupByManager.getGroupByInfos().isEmpty()) {
-            throw new IllegalStateException("Cannot paginate a GROUP BY query");
+        if (!containsParameter(parameterName)) {
+            throw new IllegalArgumentException(String.format("Parameter name \"%s\" does not exist", parameterName));
+        }
+
+        Map<K, List<T>> results = new LinkedHashMap<K, List<T>>();
+
+        if (values.isEmpty()) {
+            return results;
+        }
+
+        // The where clause must be finalized before we can inspect its predicates
+        String queryString = getPreparedQueryString();
+        int batchPredicateIndex = getBatchPredicateIndex(queryString, parameterName, values);
+
+        if (batchPredicateIndex == -1) {
+            TypedQuery<T> query = (TypedQuery) em.createQuery(queryString, Object[].class);
+            if (selectManager.getSelectObjectBuilder() != null) {
+                query = transformQuery(query);
+            }
+
+            parameterizeQuery(query, parameterName);
+
+            for (K value : values) {
+                if (!results.containsKey(value)) {
+                    query.setParameter(parameterName, value);
+                    results.put(value, query.getResultList());
+                }
+            }
+
+            return results;
+        }
+
+        List<Object> distinctValues = new ArrayList<Object>(new LinkedHashSet<Object>(values));
+        for (Object value : distinctValues) {
+            results.put((K) value, new ArrayList<T>());
+        }
+
+        int chunkSize = cbf.getInListChunkSize();
+        int chunks = InListParameters.getChunkCount(distinctValues.size(), chunkSize);
+        TypedQuery<Object[]> query = null;
+
+        for (int i = 0; i < chunks; i++) {
+            Collection<?> chunkValues = chunks == 1 ? distinctValues : InListParameters.getChunkValues(distinctValues, i, chunkSize);
+            if (cbf.isInListPadding()) {
+                chunkValues = InListParameters.pad(chunkValues, chunkSize == 0 ? Integer.MAX_VALUE : chunkSize);
+            }
+
+            if (query == null) {
+                // The first chunk is the largest one, so brackets are rendered for the parameter if any chunk needs them
+                query = em.createQuery(getBatchQueryString(batchPredicateIndex, parameterName, chunkValues), Object[].class);
+                parameterizeQuery(query, parameterName);
+            }
+
+            query.setParameter(parameterName, chunkValues);
+            partitionBatchResults(query.getResultList(), parameterName, results);
+        }
+
+        ObjectBuilder<T> objectBuilder = cbf.getMeasuredObjectBuilder(selectManager.getSelectObjectBuilder());
+        if (objectBuilder != null) {
+            for (Map.Entry<K, List<T>> entry : results.entrySet()) {
+                entry.setValue(objectBuilder.buildList(entry.getValue()));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the index of the top level where predicate that compares a path with the given parameter if the query can
+     * be executed for all values at once by replacing it with an IN predicate, otherwise -1.
+     * The parameter must not be used anywhere else and the results are partitioned by the selected path with Java equality,
+     * so all values must have exactly the type of the path and that type must compare in Java like in SQL.
+     */
+    private int getBatchPredicateIndex(String queryString, String parameterName, Collection<?> values) {
+        if (groupByManager.hasGroupBys() || selectManager.hasAggregateFunctions() || havingManager.hasPredicates()) {
+            return -1;
+        }
+        if (getParameterOccurrences(queryString, parameterName) != 1) {
+            return -1;
+        }
+
+        List<Predicate> wherePredicates = whereManager.getRootPredicates();
+        for (int i = 0; i < wherePredicates.size(); i++) {
+            Predicate predicate = wherePredicates.get(i);
+
+            if (predicate instanceof EqPredicate) {
+                EqPredicate eqPredicate = (EqPredicate) predicate;
+
+                if (!eqPredicate.isNegated() && eqPredicate.getLeft() instanceof PathExpression && eqPredicate.getRight() instanceof ParameterExpression
+                    && parameterName.equals(((ParameterExpression) eqPredicate.getRight()).getName())) {
+                    return areValuesOfType(values, getPathType((PathExpression) eqPredicate.getLeft())) ? i : -1;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private static int getParameterOccurrences(String queryString, String parameterName) {
+        String parameter = ":" + parameterName;
+        int occurrences = 0;
+        int index = queryString.indexOf(parameter);
+
+        while (index != -1) {
+            int end = index + parameter.length();
+
+            if (end == queryString.length() || !Character.isJavaIdentifierPart(queryString.charAt(end))) {
+                occurrences++;
+            }
+
+            index = queryString.indexOf(parameter, end);
+        }
+
+        return occurrences;
+    }
+
+    /**
+     * Returns the java type of the attribute the given path refers to or null if it can't be determined.
+     */
+    private Class<?> getPathType(PathExpression path) {
+        if (path.getField() == null || path.isCollectionKeyPath() || !(path.getBaseNode() instanceof JoinNode)) {
+            return null;
+        }
+
+        try {
+            Metamodel metamodel = em.getMetamodel();
+            ManagedType<?> type = metamodel.managedType(((JoinNode) path.getBaseNode()).getPropertyClass());
+            Attribute<?, ?> attribute = null;
+
+            // The field may traverse embeddables
+            for (String property : path.getField().split("\\.")) {
+                if (attribute != null) {
+                    type = metamodel.managedType(attribute.getJavaType());
+                }
+
+                attribute = type.getAttribute(property);
+            }
+
+            return attribute.isCollection() ? null : attribute.getJavaType();
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static boolean areValuesOfType(Collection<?> values, Class<?> type) {
+        if (type == null) {
+            return false;
+        }
+
+        if (type.isPrimitive()) {
+            type = ReflectionUtils.getObjectClassOfPrimitve(type);
+        }
+
+        // Strings may be compared with a case or accent insensitive collation, decimals regardless of their scale
+        // and dates are returned as subtypes that are not equal to the values
+        if (!type.isEnum() && !BATCH_PARTITION_TYPES.contains(type)) {
+            return false;
+        }
+
+        for (Object value : values) {
+            if (value == null || value.getClass() != type) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Renders the query with the batch predicate replaced by an IN predicate and the left hand side of the batch predicate
+     * as additional last select item.
+     */
+    private String getBatchQueryString(int batchPredicateIndex, String parameterName, Collection<?> values) {
+        long start = startTime();
+        List<Predicate> wherePredicates = whereManager.getRootPredicates();
+        EqPredicate batchPredicate = (EqPredicate) wherePredicates.get(batchPredicateIndex);
+        ParameterExpression parameter = new ParameterExpression(new ArrayList<Object>(values));
+        parameter.setName(parameterName);
+
+        StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+        StringBuilder previousQueryBuffer = queryGenerator.getQueryBuffer();
+        wherePredicates.set(batchPredicateIndex, new InPredicate(batchPredicate.getLeft(), parameter));
+        try {
+            selectManager.buildSelect(sb, joinManager.getRootAlias());
+            sb.append(", ");
+            queryGenerator.setQueryBuffer(sb);
+            batchPredicate.getLeft().accept(queryGenerator);
+            buildFromToOrderBy(sb);
+            return recordQueryString(start, sb.toString());
+        } finally {
+            wherePredicates.set(batchPredicateIndex, batchPredicate);
+            // Don't leave the pooled buffer referenced by the shared generator
+            queryGenerator.setQueryBuffer(previousQueryBuffer);
+            StringBuilderProvider.release(sb);
+        }
+    }
+
+    private <K> void partitionBatchResults(List<Object[]> tuples, String parameterName, Map<K, List<T>> results) {
+        ObjectBuilder<T> objectBuilder = cbf.getMeasuredObjectBuilder(selectManager.getSelectObjectBuilder());
+
+        for (Object[] tuple : tuples) {
+            int keyIndex = tuple.length - 1;
+            List<T> partition = results.get(tuple[keyIndex]);
+
+            if (partition == null) {
+                throw new IllegalStateException("The query returned the value '" + tuple[keyIndex] + "' for the parameter '" + parameterName
+                    + "' which is not equal to any of the given values");
+            }
+
+            Object[] resultTuple = new Object[keyIndex];
+            System.arraycopy(tuple, 0, resultTuple, 0, keyIndex);
+
+            if (objectBuilder != null) {
+                partition.add(objectBuilder.build(resultTuple));
+            } else if (keyIndex == 1) {
+                partition.add((T) resultTuple[0]);
+            } else {
+                partition.add((T) resultTuple);
+            }
         }
+    }
+
+    @Override
+    public ScrollableResult<T> getResultStream() {
+        return scroll(0);
+    }
+
+    @Override
+    public ScrollableResult<T> scroll(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("fetchSize may not be negative");
+        }
+
+        TypedQuery<T> query = (TypedQuery) em.createQuery(getQueryString(), Object[].class);
+        parameterizeQueryString(query);
+        List<QueryTransformer> queryTransformers = cbf.getQueryTransformers();
+
+        if (queryTransformers.isEmpty()) {
+            // Without an integration we can't scroll and there is also no object builder support
+            return new ResultListScrollableResult<T>(query.getResultList());
+        }
+
+        // A scrollable result can only be created by a single transformer, so like for the transformation of a query,
+        // the last registered transformer takes precedence
+        QueryTransformer queryTransformer = queryTransformers.get(queryTransformers.size() - 1);
+        ObjectBuilder<T> objectBuilder = selectManager.getSelectObjectBuilder();
+
+        if (objectBuilder instanceof FoldingObjectBuilder<?>) {
+            // Folding object builders need the raw tuples to be able to group them
+            ScrollableResult<Object[]> tuples = queryTransformer.scroll(query, FoldingScrollableResult.TUPLE_OBJECT_BUILDER, fetchSize);
+            return new FoldingScrollableResult<T>(tuples, (FoldingObjectBuilder<T>) objectBuilder);
+        }
+
+        return queryTransformer.scroll(query, cbf.getMeasuredObjectBuilder(objectBuilder), fetchSize);
+    }
+
+    @Override
+    public PaginatedCriteriaBuilder<T> page(int firstRow, int pageSize) {
+        preparePagination(null);
         createdPaginatedBuilder = true;
         return new PaginatedCriteriaBuilderImpl<T>(this, false, null, firstRow, pageSize);
     }
 
     @Override
     public PaginatedCriteriaBuilder<T> page(Object entityId, int pageSize) {
-        clearCache();
-        if (selectManager.isDistinct()) {
-            throw new IllegalStateException("Cannot paginate a DISTINCT query");
-        }
-        if (!groupByManager.getGroupByInfos().isEmpty()) {
-            throw new IllegalStateException("Cannot paginate a GROUP BY query");
-        }
+        preparePagination(null);
         checkEntityId(entityId);
         createdPaginatedBuilder = true;
         return new PaginatedCriteriaBuilderImpl<T>(this, false, null, entityId, pageSize);
@@ -109,22 +382,28 @@ public abstract class AbstractQueryBuilder<T, X extends QueryBuilder<T, X>> exte
 
     @Override
     public PaginatedCriteriaBuilder<T> page(KeySet keySet, int firstRow, int pageSize) {
-        clearCache();
-        if (selectManager.isDistinct()) {
-            throw new IllegalStateException("Cannot paginate a DISTINCT query");
-        }
-        if (!groupByManager.getGroupByInfos().isEmpty()) {
-            throw new IllegalStateException("Cannot paginate a GROUP BY query");
-        }
-        if (keySet != null && !(keySet instanceof KeySetImpl)) {
-            throw new IllegalArgumentException("Invalid key set given. Only key sets of paged lists are allowed.");
-        }
+        KeySetImpl keySetImpl = preparePagination(keySet);
         createdPaginatedBuilder = true;
-        return new PaginatedCriteriaBuilderImpl<T>(this, true, (KeySetImpl) keySet, firstRow, pageSize);
+        return new PaginatedCriteriaBuilderImpl<T>(this, true, keySetImpl, firstRow, pageSize);
     }
 
     @Override
     public PaginatedCriteriaBuilder<T> page(KeySet keySet, Object entityId, int pageSize) {
+        KeySetImpl keySetImpl = preparePagination(keySet);
+        checkEntityId(entityId);
+        createdPaginatedBuilder = true;
+        return new PaginatedCriteriaBuilderImpl<T>(this, true, keySetImpl, entityId, pageSize);
+    }
+    
+    @Override
+    public PaginatedCriteriaBuilder<T> pageLast(int pageSize) {
+        preparePagination(null);
+        createdPaginatedBuilder = true;
+        // The last page is fetched without seeking, so the key set is only extracted to allow navigating to previous pages
+        return new PaginatedCriteriaBuilderImpl<T>(this, true, pageSize);
+    }
+
+    private KeySetImpl preparePagination(KeySet keySet) {
         clearCache();
         if (selectManager.isDistinct()) {
             throw new IllegalStateException("Cannot paginate a DISTINCT query");
@@ -135,9 +414,8 @@ public abstract class AbstractQueryBuilder<T, X extends QueryBuilder<T, X>> exte
         if (keySet != null && !(keySet instanceof KeySetImpl)) {
             throw new IllegalArgumentException("Invalid key set given. Only key sets of paged lists are allowed.");
         }
-        checkEntityId(entityId);
-        createdPaginatedBuilder = true;
-        return new PaginatedCriteriaBuilderImpl<T>(this, true, (KeySetImpl) keySet, entityId, pageSize);
+
+        return (KeySetImpl) keySet;
     }
     
     private void checkEntityId(Object entityId) {
@@ -291,25 +569,76 @@ public abstract class AbstractQueryBuilder<T, X extends QueryBuilder<T, X>> exte
             query = transformQuery(query);
         }
 
-        parameterizeQuery(query);
+        parameterizeQueryString(query);
         return query;
     }
 
+    /**
+     * Binds the parameters of a query that was created for the string returned by {@link #getQueryString()}.
+     * If the query string was taken from a query template, the parameter names of the template are used since the
+     * builder is not prepared in that case.
+     *
+     * @param q The query to parameterize
+     */
+    private void parameterizeQueryString(Query q) {
+        if (cachedQueryParameterNames == null) {
+            parameterizeQuery(q, null);
+        } else {
+            for (String parameterName : cachedQueryParameterNames) {
+                parameterizeQuery(q, parameterName, null);
+            }
+        }
+    }
+
     void parameterizeQuery(Query q) {
+        parameterizeQuery(q, null);
+    }
+
+    /**
+     * Binds the values of all parameters of the given query except for the skipped parameter, which is bound by the caller.
+     *
+     * @param q                    The query to parameterize
+     * @param skippedParameterName The name of the parameter that should not be bound or null
+     */
+    void parameterizeQuery(Query q, String skippedParameterName) {
         for (Parameter<?> p : q.getParameters()) {
-            if (!isParameterSet(p.getName())) {
-                throw new IllegalStateException("Unsatisfied parameter " + p.getName());
-            }
-            Object paramValue = parameterManager.getParameterValue(p.getName());
-            if (paramValue instanceof ParameterManager.TemporalCalendarParameterWrapper) {
-                ParameterManager.TemporalCalendarParameterWrapper wrappedValue = (ParameterManager.TemporalCalendarParameterWrapper) paramValue;
-                q.setParameter(p.getName(), wrappedValue.getValue(), wrappedValue.getType());
-            } else if (paramValue instanceof ParameterManager.TemporalDateParameterWrapper) {
-                ParameterManager.TemporalDateParameterWrapper wrappedValue = (ParameterManager.TemporalDateParameterWrapper) paramValue;
-                q.setParameter(p.getName(), wrappedValue.getValue(), wrappedValue.getType());
-            } else {
-                q.setParameter(p.getName(), paramValue);
-            }
+            parameterizeQuery(q, p.getName(), skippedParameterName);
+        }
+    }
+
+    private void parameterizeQuery(Query q, String parameterName, String skippedParameterName) {
+        if (parameterName.equals(skippedParameterName)) {
+            return;
+        }
+
+        Object paramValue;
+        String inListParameterName = parameterName;
+        String chunkedParameterName = InListParameters.getChunkedParameterName(parameterName);
+
+        if (chunkedParameterName != null && isParameterSet(chunkedParameterName) && parameterManager.getParameterValue(chunkedParameterName) instanceof Collection<?>) {
+            Collection<?> values = (Collection<?>) parameterManager.getParameterValue(chunkedParameterName);
+            paramValue = InListParameters.getChunkValues(values, InListParameters.getChunk(parameterName), cbf.getInListChunkSize());
+            inListParameterName = chunkedParameterName;
+        } else if (!isParameterSet(parameterName)) {
+            throw new IllegalStateException("Unsatisfied parameter " + parameterName);
+        } else {
+            paramValue = parameterManager.getParameterValue(parameterName);
+        }
+
+        // Collection valued parameters that are not used in an IN predicate must not be padded with duplicates
+        if (paramValue instanceof Collection<?> && cbf.isInListPadding() && parameterManager.isInListParameter(inListParameterName)) {
+            int chunkSize = cbf.getInListChunkSize();
+            paramValue = InListParameters.pad((Collection<?>) paramValue, chunkSize == 0 ? Integer.MAX_VALUE : chunkSize);
+        }
+
+        if (paramValue instanceof ParameterManager.TemporalCalendarParameterWrapper) {
+            ParameterManager.TemporalCalendarParameterWrapper wrappedValue = (ParameterManager.TemporalCalendarParameterWrapper) paramValue;
+            q.setParameter(parameterName, wrappedValue.getValue(), wrappedValue.getType());
+        } else if (paramValue instanceof ParameterManager.TemporalDateParameterWrapper) {
+            ParameterManager.TemporalDateParameterWrapper wrappedValue = (ParameterManager.TemporalDateParameterWrapper) paramValue;
+            q.setParameter(parameterName, wrappedValue.getValue(), wrappedValue.getType());
+        } else {
+            q.setParameter(parameterName, paramValue);
         }
     }
 
@@ -343,6 +672,16 @@ public abstract class AbstractQueryBuilder<T, X extends QueryBuilder<T, X>> exte
         return em.getMetamodel();
     }
 
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    @Override
+    public CriteriaBuilderFactory getCriteriaBuilderFactory() {
+        return cbf;
+    }
+
     @Override
     public X groupBy(String expression) {
         if (createdPaginatedBuilder) {
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A concurrent map that compares keys by identity and only holds them weakly, so that lookups never block.
+ * Entries of keys that were garbage collected are removed on the next modification of the map.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ * @author Christian Beikov
+ * @since 1.0
+ */
+final class ConcurrentWeakIdentityMap<K, V> {
+
+    private final ConcurrentMap<Object, V> map = new ConcurrentHashMap<Object, V>();
+    private final ReferenceQueue<K> queue = new ReferenceQueue<K>();
+
+    public V get(K key) {
+        return map.get(new LookupKey(key));
+    }
+
+    public V putIfAbsent(K key, V value) {
+        expungeStaleEntries();
+        return map.putIfAbsent(new WeakKey<K>(key, queue), value);
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends K> reference;
+
+        while ((reference = queue.poll()) != null) {
+            map.remove(reference);
+        }
+    }
+
+    /**
+     * A strong key that is only used for lookups so that no reference has to be allocated.
+     */
+    private static final class LookupKey {
+
+        private final Object referent;
+
+        public LookupKey(Object referent) {
+            this.referent = referent;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(referent);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof WeakKey<?>) {
+                return referent == ((WeakKey<?>) obj).get();
+            }
+
+            return obj instanceof LookupKey && referent == ((LookupKey) obj).referent;
+        }
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> {
+
+        private final int hash;
+
+        public WeakKey(K referent, ReferenceQueue<K> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            Object referent = get();
+
+            if (referent == null) {
+                return false;
+            }
+            if (obj instanceof LookupKey) {
+                return referent == ((LookupKey) obj).referent;
+            }
+
+            return obj instanceof WeakKey<?> && referent == ((WeakKey<?>) obj).get();
+        }
+    }
+}
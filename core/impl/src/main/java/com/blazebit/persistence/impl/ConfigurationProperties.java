@@ -22,4 +22,52 @@ package com.blazebit.persistence.impl;
  */
 public interface ConfigurationProperties {
 
+    /**
+     * The maximum number of parsed expressions that are cached per expression cache.
+     * The maximum size of a single cache can be overridden by a property with the name of the cache followed by
+     * <code>.maximum_size</code> e.g. <code>com.blazebit.persistence.parser.expression.cache.PathExpression.maximum_size</code>.
+     * By default every cache holds up to 1024 expressions.
+     */
+    public static final String EXPRESSION_CACHE_MAXIMUM_SIZE = "com.blazebit.persistence.parser.expression.cache.maximum_size";
+
+    /**
+     * The suffix that is appended to the name of an expression cache to configure its maximum size.
+     */
+    public static final String EXPRESSION_CACHE_MAXIMUM_SIZE_SUFFIX = ".maximum_size";
+
+    /**
+     * An instance or the fully qualified class name of an implementation of {@link com.blazebit.persistence.impl.expression.ExpressionCache}.
+     * A class must provide a public no-arg constructor. If this property is set, the maximum size properties are ignored.
+     */
+    public static final String EXPRESSION_CACHE = "com.blazebit.persistence.parser.expression.cache";
+
+    /**
+     * The maximum number of query strings that are cached per persistence unit by the structure of the query builder they were generated for.
+     * Builders with the same structure that only differ in parameter values reuse the cached query string.
+     * Builders that contain subqueries are never cached. A value of 0 disables the cache. By default up to 1024 query strings are cached.
+     */
+    public static final String QUERY_TEMPLATE_CACHE_MAXIMUM_SIZE = "com.blazebit.persistence.query_template_cache.maximum_size";
+
+    /**
+     * If set to <code>true</code>, collection valued parameters that are bound to IN predicates are padded to the next power of two
+     * by repeating the last value. This limits the number of distinct SQL strings that the JPA provider generates for IN predicates,
+     * so the query plan cache of the provider and the statement cache of the database stay effective. By default this is <code>false</code>.
+     */
+    public static final String IN_LIST_PADDING = "com.blazebit.persistence.in_list_padding";
+
+    /**
+     * The maximum number of values of a single IN predicate. IN predicates with a parameter of more values are split
+     * into multiple IN predicates that are combined with OR, or AND for NOT IN predicates, e.g. to stay below the limit of 1000 elements of Oracle.
+     * This applies to the values given to {@link com.blazebit.persistence.RestrictionBuilder#in(java.util.List)} and to the id query of paginated
+     * criteria builders. By default IN predicates are not split.
+     */
+    public static final String IN_LIST_CHUNK_SIZE = "com.blazebit.persistence.in_list_chunk_size";
+
+    /**
+     * If set to <code>true</code>, the page of a reference entity for {@link com.blazebit.persistence.QueryBuilder#page(java.lang.Object, int)}
+     * is determined by reading the order by values of the reference entity and counting the rows that sort before it with a key set predicate,
+     * which can be served by an index on the order by columns. By default the position is determined by numbering all rows
+     * with the <code>PAGE_POSITION</code> function. Queries that order by complex select expressions always use the function.
+     */
+    public static final String KEYSET_PAGE_POSITION = "com.blazebit.persistence.keyset_page_position";
 }
@@ -16,13 +16,16 @@
 package com.blazebit.persistence.impl;
 
 import com.blazebit.persistence.CriteriaBuilderFactory;
+import com.blazebit.persistence.impl.function.countover.CountOverFunction;
 import com.blazebit.persistence.impl.function.pageposition.MySQLPagePositionFunction;
 import com.blazebit.persistence.impl.function.pageposition.OraclePagePositionFunction;
 import com.blazebit.persistence.impl.function.pageposition.PagePositionFunction;
 import com.blazebit.persistence.impl.function.pageposition.TransactSQLPagePositionFunction;
+import com.blazebit.persistence.impl.metrics.NoopQueryMetrics;
 import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
 import com.blazebit.persistence.spi.EntityManagerIntegrator;
 import com.blazebit.persistence.spi.JpqlFunction;
+import com.blazebit.persistence.spi.QueryMetrics;
 import com.blazebit.persistence.spi.QueryTransformer;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -44,6 +47,7 @@ public class CriteriaBuilderConfigurationImpl implements CriteriaBuilderConfigur
     private final Map<String, Map<String, JpqlFunction>> functions = new HashMap<String, Map<String, JpqlFunction>>();
     private final List<EntityManagerIntegrator> entityManagerEnrichers = new ArrayList<EntityManagerIntegrator>();
     private Properties properties = new Properties();
+    private QueryMetrics queryMetrics = NoopQueryMetrics.INSTANCE;
 
     public CriteriaBuilderConfigurationImpl() {
         loadDefaultProperties();
@@ -60,6 +64,10 @@ public class CriteriaBuilderConfigurationImpl implements CriteriaBuilderConfigur
         jpqlFunctions.put("sybase", new TransactSQLPagePositionFunction());
         jpqlFunctions.put("microsoft", new TransactSQLPagePositionFunction());
         functions.put("page_position", jpqlFunctions);
+
+        jpqlFunctions = new HashMap<String, JpqlFunction>();
+        jpqlFunctions.put(null, new CountOverFunction());
+        functions.put("count_over", jpqlFunctions);
     }
 
     private void loadDefaultProperties() {
@@ -123,6 +131,21 @@ public class CriteriaBuilderConfigurationImpl implements CriteriaBuilderConfigur
         return queryTransformers;
     }
 
+    @Override
+    public CriteriaBuilderConfiguration setQueryMetrics(QueryMetrics queryMetrics) {
+        if (queryMetrics == null) {
+            throw new NullPointerException("queryMetrics");
+        }
+
+        this.queryMetrics = queryMetrics;
+        return this;
+    }
+
+    @Override
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
     @Override
     public CriteriaBuilderConfiguration registerEntityManagerIntegrator(EntityManagerIntegrator entityManagerEnricher) {
         entityManagerEnrichers.add(entityManagerEnricher);
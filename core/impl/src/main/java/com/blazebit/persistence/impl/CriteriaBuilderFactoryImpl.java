@@ -17,20 +17,34 @@ package com.blazebit.persistence.impl;
 
 import com.blazebit.persistence.CriteriaBuilder;
 import com.blazebit.persistence.CriteriaBuilderFactory;
+import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.impl.expression.AbstractCachingExpressionFactory;
+import com.blazebit.persistence.impl.expression.BoundedExpressionCache;
+import com.blazebit.persistence.impl.expression.ExpressionCache;
 import com.blazebit.persistence.impl.expression.ExpressionFactory;
 import com.blazebit.persistence.impl.expression.ExpressionFactoryImpl;
 import com.blazebit.persistence.impl.expression.SimpleCachingExpressionFactory;
+import com.blazebit.persistence.impl.metrics.MetricsExpressionCache;
+import com.blazebit.persistence.impl.metrics.MetricsExpressionFactory;
+import com.blazebit.persistence.impl.metrics.MetricsObjectBuilder;
+import com.blazebit.persistence.impl.metrics.NoopQueryMetrics;
+import com.blazebit.persistence.spi.DbmsAwareEntityManagerIntegrator;
 import com.blazebit.persistence.spi.EntityManagerIntegrator;
 import com.blazebit.persistence.spi.JpqlFunction;
+import com.blazebit.persistence.spi.QueryMetrics;
 import com.blazebit.persistence.spi.QueryTransformer;
+import com.blazebit.persistence.spi.WrappingEntityManagerIntegrator;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.logging.Logger;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
 /**
  *
@@ -39,18 +53,37 @@ import javax.persistence.EntityManager;
  */
 public class CriteriaBuilderFactoryImpl implements CriteriaBuilderFactory {
 
+    private static final Logger LOG = Logger.getLogger(CriteriaBuilderFactoryImpl.class.getName());
+
     private final List<QueryTransformer> queryTransformers;
     private final Map<String, Map<String, JpqlFunction>> functions;
     private final List<EntityManagerIntegrator> entityManagerIntegrators;
     private final ExpressionFactory expressionFactory;
+    private final QueryMetrics queryMetrics;
+    private final boolean queryMetricsEnabled;
     private final Map<String, Object> properties;
+    private final ConcurrentWeakIdentityMap<EntityManagerFactory, PersistenceUnitContext> persistenceUnitContexts = new ConcurrentWeakIdentityMap<EntityManagerFactory, PersistenceUnitContext>();
+    private final int queryTemplateCacheMaximumSize;
+    private final boolean inListPadding;
+    private final int inListChunkSize;
+    private final boolean keySetPagePosition;
 
     public CriteriaBuilderFactoryImpl(CriteriaBuilderConfigurationImpl config) {
         this.queryTransformers = new ArrayList<QueryTransformer>(config.getQueryTransformers());
         this.functions = new HashMap<String, Map<String, JpqlFunction>>(config.getFunctions());
         this.entityManagerIntegrators = new ArrayList<EntityManagerIntegrator>(config.getEntityManagerIntegrators());
-        this.expressionFactory = new SimpleCachingExpressionFactory(new ExpressionFactoryImpl());
         this.properties = copyProperties(config.getProperties());
+        this.queryMetrics = config.getQueryMetrics();
+        this.queryMetricsEnabled = queryMetrics != NoopQueryMetrics.INSTANCE;
+        this.expressionFactory = createExpressionFactory(properties);
+        this.queryTemplateCacheMaximumSize = getIntProperty(properties, ConfigurationProperties.QUERY_TEMPLATE_CACHE_MAXIMUM_SIZE, QueryTemplateCache.DEFAULT_MAXIMUM_SIZE);
+        this.inListPadding = Boolean.valueOf(String.valueOf(properties.get(ConfigurationProperties.IN_LIST_PADDING)));
+        this.inListChunkSize = getIntProperty(properties, ConfigurationProperties.IN_LIST_CHUNK_SIZE, 0);
+        this.keySetPagePosition = Boolean.valueOf(String.valueOf(properties.get(ConfigurationProperties.KEYSET_PAGE_POSITION)));
+
+        if (inListChunkSize < 0) {
+            throw new IllegalArgumentException("Invalid value for property '" + ConfigurationProperties.IN_LIST_CHUNK_SIZE + "': " + inListChunkSize);
+        }
     }
 
     public List<QueryTransformer> getQueryTransformers() {
@@ -69,6 +102,41 @@ public class CriteriaBuilderFactoryImpl implements CriteriaBuilderFactory {
         return properties;
     }
 
+    public boolean isInListPadding() {
+        return inListPadding;
+    }
+
+    public int getInListChunkSize() {
+        return inListChunkSize;
+    }
+
+    public boolean isKeySetPagePosition() {
+        return keySetPagePosition;
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    public boolean isQueryMetricsEnabled() {
+        return queryMetricsEnabled;
+    }
+
+    /**
+     * Returns the given object builder wrapped so that the time it takes to build objects is recorded, or the object builder itself
+     * if no query metrics are configured.
+     *
+     * @param objectBuilder The object builder or null
+     * @return The object builder that should be used
+     */
+    public <T> ObjectBuilder<T> getMeasuredObjectBuilder(ObjectBuilder<T> objectBuilder) {
+        if (objectBuilder == null || !queryMetricsEnabled) {
+            return objectBuilder;
+        }
+
+        return new MetricsObjectBuilder<T>(objectBuilder, queryMetrics);
+    }
+
     @Override
     public <T> CriteriaBuilder<T> create(EntityManager entityManager, Class<T> resultClass) {
         return create(entityManager, resultClass, resultClass.getSimpleName().toLowerCase());
@@ -76,16 +144,183 @@ public class CriteriaBuilderFactoryImpl implements CriteriaBuilderFactory {
     
     @Override
     public <T> CriteriaBuilder<T> create(EntityManager entityManager, Class<T> resultClass, String alias) {
-        Set<String> registeredFunctions = new HashSet<String>();
-        EntityManager em = entityManager;
+        PersistenceUnitContext context = getPersistenceUnitContext(entityManager);
+        EntityManager em = context.enrich(entityManager);
+        CriteriaBuilderImpl<T> cb = new CriteriaBuilderImpl<T>(this, em, resultClass, alias, context.getJpaInfo(), context.getRegisteredFunctions(), context.getQueryTemplateCache());
+        return cb;
+    }
+
+    /**
+     * Returns the names of the functions that are registered in the persistence unit of the given entity manager.
+     *
+     * @param em The entity manager
+     * @return The immutable set of registered function names
+     */
+    public Set<String> getRegisteredFunctions(EntityManager em) {
+        return getPersistenceUnitContext(em).getRegisteredFunctions();
+    }
+
+    /**
+     * Returns the {@link JPAInfo} for the entity manager factory of the given entity manager.
+     *
+     * @param em The entity manager
+     * @return The JPA info of the persistence unit
+     */
+    public JPAInfo getJpaInfo(EntityManager em) {
+        return getPersistenceUnitContext(em).getJpaInfo();
+    }
+
+    /**
+     * Returns the query template cache for the entity manager factory of the given entity manager
+     * or null if query templates are disabled.
+     *
+     * @param em The entity manager
+     * @return The query template cache of the persistence unit or null
+     */
+    public QueryTemplateCache getQueryTemplateCache(EntityManager em) {
+        return getPersistenceUnitContext(em).getQueryTemplateCache();
+    }
+
+    /**
+     * Returns the cache for the total sizes of paginated queries of the persistence unit of the given entity manager.
+     *
+     * @param em The entity manager
+     * @return The page count cache of the persistence unit
+     */
+    public PageCountCache getPageCountCache(EntityManager em) {
+        return getPersistenceUnitContext(em).getPageCountCache();
+    }
+
+    /**
+     * Returns the context of the persistence unit of the given entity manager.
+     * The context is created only the first time an entity manager of a persistence unit is encountered,
+     * all further lookups are lock free.
+     *
+     * @param em The entity manager
+     * @return The context of the persistence unit
+     */
+    private PersistenceUnitContext getPersistenceUnitContext(EntityManager em) {
+        EntityManagerFactory emf = em.getEntityManagerFactory();
+        PersistenceUnitContext context = persistenceUnitContexts.get(emf);
+
+        if (context == null) {
+            // Only serialize the creation so that the functions are registered once per persistence unit
+            synchronized (persistenceUnitContexts) {
+                context = persistenceUnitContexts.get(emf);
+
+                if (context == null) {
+                    context = createPersistenceUnitContext(em);
+                    persistenceUnitContexts.putIfAbsent(emf, context);
+                }
+            }
+        }
+
+        return context;
+    }
+
+    private PersistenceUnitContext createPersistenceUnitContext(EntityManager em) {
+        Set<String> functionNames = new HashSet<String>();
+        List<EntityManagerIntegrator> wrappingIntegrators = new ArrayList<EntityManagerIntegrator>();
+        EntityManager enrichedEm = em;
+
         for (int i = 0; i < entityManagerIntegrators.size(); i++) {
             EntityManagerIntegrator integrator = entityManagerIntegrators.get(i);
-            em = integrator.registerFunctions(em, functions);
-            registeredFunctions.addAll(integrator.getRegisteredFunctions(em));
+            EntityManager integratedEm = integrator.registerFunctions(enrichedEm, functions);
+
+            if (integrator instanceof WrappingEntityManagerIntegrator) {
+                wrappingIntegrators.add(integrator);
+                integratedEm = ((WrappingEntityManagerIntegrator) integrator).wrap(integratedEm);
+            } else if (integratedEm != enrichedEm) {
+                LOG.warning("The entity manager integrator '" + integrator.getClass().getName() + "' wraps the entity manager without implementing "
+                    + WrappingEntityManagerIntegrator.class.getName() + ", so its functions have to be registered for every query builder!");
+                wrappingIntegrators.add(integrator);
+            }
+
+            enrichedEm = integratedEm;
+            functionNames.addAll(integrator.getRegisteredFunctions(enrichedEm));
+        }
+
+        String dbms = null;
+
+        for (int i = 0; i < entityManagerIntegrators.size(); i++) {
+            EntityManagerIntegrator integrator = entityManagerIntegrators.get(i);
+
+            if (integrator instanceof DbmsAwareEntityManagerIntegrator) {
+                dbms = ((DbmsAwareEntityManagerIntegrator) integrator).getDbms(enrichedEm);
+
+                if (dbms != null) {
+                    break;
+                }
+            }
+        }
+
+        if (dbms == null) {
+            dbms = JPAInfo.getDbms(em.getEntityManagerFactory().getProperties());
+        }
+
+        QueryTemplateCache queryTemplateCache = null;
+
+        if (queryTemplateCacheMaximumSize > 0) {
+            queryTemplateCache = new QueryTemplateCache(queryTemplateCacheMaximumSize);
+        }
+
+        return new PersistenceUnitContext(new JPAInfo(enrichedEm, dbms), Collections.unmodifiableSet(functionNames), wrappingIntegrators, functions,
+            queryTemplateCache, new PageCountCache(PageCountCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    private ExpressionFactory createExpressionFactory(Map<String, Object> properties) {
+        ExpressionFactory parser = new ExpressionFactoryImpl();
+        ExpressionCache cache = createExpressionCache(properties);
+
+        if (queryMetricsEnabled) {
+            parser = new MetricsExpressionFactory(parser, queryMetrics);
+            cache = new MetricsExpressionCache(cache, queryMetrics);
         }
+
+        return new SimpleCachingExpressionFactory(parser, cache);
+    }
+
+    private static ExpressionCache createExpressionCache(Map<String, Object> properties) {
+        Object cache = properties.get(ConfigurationProperties.EXPRESSION_CACHE);
         
-        CriteriaBuilderImpl<T> cb = new CriteriaBuilderImpl<T>(this, em, resultClass, alias, registeredFunctions);
-        return cb;
+        if (cache instanceof ExpressionCache) {
+            return (ExpressionCache) cache;
+        } else if (cache != null) {
+            try {
+                return (ExpressionCache) Class.forName(cache.toString()).newInstance();
+            } catch (Exception ex) {
+                throw new IllegalArgumentException("Could not instantiate the expression cache '" + cache + "'", ex);
+            }
+        }
+        
+        int defaultMaximumSize = getIntProperty(properties, ConfigurationProperties.EXPRESSION_CACHE_MAXIMUM_SIZE, BoundedExpressionCache.DEFAULT_MAXIMUM_SIZE);
+        Map<String, Integer> maximumSizes = new HashMap<String, Integer>();
+        
+        for (String cacheName : AbstractCachingExpressionFactory.CACHE_NAMES) {
+            String propertyName = cacheName + ConfigurationProperties.EXPRESSION_CACHE_MAXIMUM_SIZE_SUFFIX;
+            
+            if (properties.containsKey(propertyName)) {
+                maximumSizes.put(cacheName, getIntProperty(properties, propertyName, defaultMaximumSize));
+            }
+        }
+        
+        return new BoundedExpressionCache(defaultMaximumSize, maximumSizes);
+    }
+    
+    private static int getIntProperty(Map<String, Object> properties, String propertyName, int defaultValue) {
+        Object value = properties.get(propertyName);
+        
+        if (value == null) {
+            return defaultValue;
+        } else if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid value for property '" + propertyName + "': " + value, ex);
+        }
     }
 
     private Map<String, Object> copyProperties(Properties properties) {
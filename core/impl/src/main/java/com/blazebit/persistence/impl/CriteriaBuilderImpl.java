@@ -34,8 +34,8 @@ import javax.persistence.EntityManager;
  */
 public class CriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, CriteriaBuilder<T>> implements CriteriaBuilder<T> {
 
-    public CriteriaBuilderImpl(CriteriaBuilderFactoryImpl cbf, EntityManager em, Class<T> clazz, String alias, Set<String> registeredFunctions) {
-        super(cbf, em, clazz, alias, registeredFunctions);
+    public CriteriaBuilderImpl(CriteriaBuilderFactoryImpl cbf, EntityManager em, Class<T> clazz, String alias, JPAInfo jpaInfo, Set<String> registeredFunctions, QueryTemplateCache queryTemplateCache) {
+        super(cbf, em, clazz, alias, jpaInfo, registeredFunctions, queryTemplateCache);
     }
 
     @Override
@@ -358,21 +358,41 @@ public class ExpressionUtils {
             @Override
             public void visit(CompositeExpression expression) {
                 super.visit(expression);
-                List<Expression> transformed = new ArrayList<Expression>();
-                for (Expression expr : expression.getExpressions()) {
-                    transformed.add(replacementTransformer.transform(expr, null));
+                List<Expression> expressions = expression.getExpressions();
+                int size = expressions.size();
+                
+                // Expressions might share immutable sub expressions, so only write when something was replaced
+                for (int i = 0; i < size; i++) {
+                    Expression expr = expressions.get(i);
+                    Expression transformed = replacementTransformer.transform(expr, null);
+                    
+                    if (transformed != expr) {
+                        expressions.set(i, transformed);
+                    }
                 }
-                expression.getExpressions().clear();
-                expression.getExpressions().addAll(transformed);
             }
 
             @Override
             public void visit(FunctionExpression expression) {
-                List<Expression> transformed = new ArrayList<Expression>();
-                for (Expression expr : expression.getExpressions()) {
-                    transformed.add(replacementTransformer.transform(expr, null));
+                List<? extends Expression> expressions = expression.getExpressions();
+                List<Expression> transformed = null;
+                int size = expressions.size();
+                
+                for (int i = 0; i < size; i++) {
+                    Expression expr = expressions.get(i);
+                    Expression transformedExpr = replacementTransformer.transform(expr, null);
+                    
+                    if (transformed == null && transformedExpr != expr) {
+                        transformed = new ArrayList<Expression>(expressions.subList(0, i));
+                    }
+                    if (transformed != null) {
+                        transformed.add(transformedExpr);
+                    }
+                }
+                
+                if (transformed != null) {
+                    expression.setExpressions(transformed);
                 }
-                expression.setExpressions(transformed);
             }
 
         };
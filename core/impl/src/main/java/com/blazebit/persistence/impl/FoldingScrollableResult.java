@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import com.blazebit.persistence.FoldingObjectBuilder;
+import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.ScrollableResult;
+import com.blazebit.persistence.SelectBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A scrollable result that collects consecutive tuples of the underlying scrollable result into groups
+ * and builds the results of a group with a {@link FoldingObjectBuilder} as soon as the group is complete.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class FoldingScrollableResult<T> implements ScrollableResult<T> {
+
+    /**
+     * An object builder that passes through the raw tuples so that they can be grouped.
+     */
+    public static final ObjectBuilder<Object[]> TUPLE_OBJECT_BUILDER = new ObjectBuilder<Object[]>() {
+
+        @Override
+        public void applySelects(SelectBuilder<?, ?> selectBuilder) {
+            // The select items are applied by the folding object builder
+        }
+
+        @Override
+        public Object[] build(Object[] tuple) {
+            return tuple;
+        }
+
+        @Override
+        public List<Object[]> buildList(List<Object[]> list) {
+            return list;
+        }
+    };
+
+    private final ScrollableResult<Object[]> tuples;
+    private final FoldingObjectBuilder<T> objectBuilder;
+    private Object[] nextGroupTuple;
+    private Iterator<T> currentGroup = Collections.<T>emptyList().iterator();
+
+    public FoldingScrollableResult(ScrollableResult<Object[]> tuples, FoldingObjectBuilder<T> objectBuilder) {
+        this.tuples = tuples;
+        this.objectBuilder = objectBuilder;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentGroup.hasNext()) {
+            if (!nextGroup()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return currentGroup.next();
+    }
+
+    private boolean nextGroup() {
+        Object[] groupTuple = nextGroupTuple;
+        nextGroupTuple = null;
+
+        if (groupTuple == null) {
+            if (!tuples.hasNext()) {
+                return false;
+            }
+
+            groupTuple = tuples.next();
+        }
+
+        List<Object[]> group = new ArrayList<Object[]>();
+        group.add(groupTuple);
+
+        while (tuples.hasNext()) {
+            Object[] tuple = tuples.next();
+
+            if (objectBuilder.isSameGroup(groupTuple, tuple)) {
+                group.add(tuple);
+            } else {
+                // The tuple starts the next group, so the current group is complete
+                nextGroupTuple = tuple;
+                break;
+            }
+        }
+
+        currentGroup = objectBuilder.buildGroup(group).iterator();
+        return true;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Scrollable results are read only");
+    }
+
+    @Override
+    public void close() {
+        nextGroupTuple = null;
+        currentGroup = Collections.<T>emptyList().iterator();
+        tuples.close();
+    }
+}
@@ -17,9 +17,11 @@ package com.blazebit.persistence.impl;
 
 import com.blazebit.persistence.impl.expression.Expression;
 import com.blazebit.persistence.impl.expression.Expression.Visitor;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -41,21 +43,55 @@ public class GroupByManager extends AbstractManager {
         registerParameterExpressions(expr);
     }
 
+    boolean hasGroupBys() {
+        return !groupByInfos.isEmpty();
+    }
+
     Set<String> buildGroupByClauses() {
         if (groupByInfos.isEmpty()) {
             return Collections.EMPTY_SET;
         }
         
         Set<String> groupByClauses = new HashSet<String>();
-        for(NodeInfo info : groupByInfos){
-            StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
-            queryGenerator.setQueryBuffer(sb);
-            info.getExpression().accept(queryGenerator);
-            groupByClauses.add(sb.toString());
+        StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            for(NodeInfo info : groupByInfos){
+                sb.setLength(0);
+                queryGenerator.setQueryBuffer(sb);
+                info.getExpression().accept(queryGenerator);
+                groupByClauses.add(sb.toString());
+            }
+        } finally {
+            StringBuilderProvider.release(sb);
         }
         return groupByClauses;
     }
     
+    void buildTemplateKey(QueryTemplateKeyGenerator generator) {
+        StringBuilder sb = generator.getQueryBuffer();
+        sb.append(" GROUP BY ");
+
+        if (groupByInfos.isEmpty()) {
+            return;
+        }
+
+        // The group bys are held in a hash set, so we sort them to get a stable key
+        List<String> groupBys = new ArrayList<String>(groupByInfos.size());
+        int start = sb.length();
+
+        for (NodeInfo info : groupByInfos) {
+            info.getExpression().accept(generator);
+            groupBys.add(sb.substring(start));
+            sb.setLength(start);
+        }
+
+        Collections.sort(groupBys);
+
+        for (String groupBy : groupBys) {
+            sb.append(groupBy).append(", ");
+        }
+    }
+
     void buildGroupBy(StringBuilder sb, Set<String> clauses) {
         if(!clauses.isEmpty()){
             sb.append(" GROUP BY ");
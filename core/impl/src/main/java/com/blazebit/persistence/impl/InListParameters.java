@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helper for padding and chunking collection valued parameters of IN predicates.
+ * A chunked parameter is rendered as multiple parameters whose names consist of the name of the original parameter,
+ * the chunk suffix and the chunk number. The values of such a parameter are resolved from the original parameter when it is bound.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+final class InListParameters {
+
+    static final String CHUNK_SUFFIX = "_chunk";
+
+    private InListParameters() {
+    }
+
+    /**
+     * Returns the number of chunks that are needed for the given number of values.
+     *
+     * @param size      The number of values
+     * @param chunkSize The maximum number of values per chunk or 0 if chunking is disabled
+     * @return The number of chunks
+     */
+    static int getChunkCount(int size, int chunkSize) {
+        if (chunkSize < 1 || size <= chunkSize) {
+            return 1;
+        }
+
+        return (size + chunkSize - 1) / chunkSize;
+    }
+
+    static String getChunkParameterName(String parameterName, int chunk) {
+        return parameterName + CHUNK_SUFFIX + chunk;
+    }
+
+    /**
+     * Renders the given left hand side expression and parameter as predicate that consists of
+     * one IN predicate per chunk of the parameter.
+     *
+     * @param sb            The string builder to render to
+     * @param left          The left hand side expression
+     * @param negated       Whether the predicate is a NOT IN predicate
+     * @param parameterName The name of the original parameter
+     * @param chunks        The number of chunks
+     * @param brackets      Whether the parameters should be wrapped in brackets
+     */
+    static void renderChunkedInPredicate(StringBuilder sb, String left, boolean negated, String parameterName, int chunks, boolean brackets) {
+        sb.append('(');
+
+        for (int i = 0; i < chunks; i++) {
+            if (i != 0) {
+                sb.append(negated ? " AND " : " OR ");
+            }
+
+            sb.append(left);
+
+            if (negated) {
+                sb.append(" NOT");
+            }
+
+            sb.append(" IN ");
+
+            if (brackets) {
+                sb.append('(');
+            }
+
+            sb.append(':').append(getChunkParameterName(parameterName, i));
+
+            if (brackets) {
+                sb.append(')');
+            }
+        }
+
+        sb.append(')');
+    }
+
+    /**
+     * Returns the name of the original parameter if the given parameter name is the name of a chunk parameter, otherwise null.
+     *
+     * @param parameterName The parameter name
+     * @return The name of the original parameter or null
+     */
+    static String getChunkedParameterName(String parameterName) {
+        int index = parameterName.lastIndexOf(CHUNK_SUFFIX);
+
+        if (index < 1 || index + CHUNK_SUFFIX.length() == parameterName.length()) {
+            return null;
+        }
+
+        for (int i = index + CHUNK_SUFFIX.length(); i < parameterName.length(); i++) {
+            if (!Character.isDigit(parameterName.charAt(i))) {
+                return null;
+            }
+        }
+
+        return parameterName.substring(0, index);
+    }
+
+    static int getChunk(String chunkParameterName) {
+        return Integer.parseInt(chunkParameterName.substring(chunkParameterName.lastIndexOf(CHUNK_SUFFIX) + CHUNK_SUFFIX.length()));
+    }
+
+    /**
+     * Returns the values of the given chunk. Chunks beyond the given values consist of the last value so that
+     * a predicate that was rendered for more values than there are still is valid.
+     *
+     * @param values    The values
+     * @param chunk     The chunk number
+     * @param chunkSize The maximum number of values per chunk
+     * @return The values of the chunk
+     */
+    static List<Object> getChunkValues(Collection<?> values, int chunk, int chunkSize) {
+        List<Object> list = new ArrayList<Object>(values);
+        int fromIndex = chunk * chunkSize;
+
+        if (fromIndex >= list.size()) {
+            if (list.isEmpty()) {
+                return list;
+            }
+
+            return Collections.singletonList(list.get(list.size() - 1));
+        }
+
+        return list.subList(fromIndex, Math.min(list.size(), fromIndex + chunkSize));
+    }
+
+    /**
+     * Pads the given values to the next power of two by repeating the last value, so that the JPA provider
+     * and the database see only a few different lengths of IN lists.
+     *
+     * @param values  The values
+     * @param maxSize The maximum size of the padded list
+     * @return The padded values
+     */
+    static Collection<?> pad(Collection<?> values, int maxSize) {
+        int size = values.size();
+
+        if (size < 2) {
+            return values;
+        }
+
+        int paddedSize = Math.min(Integer.highestOneBit(size - 1) << 1, maxSize);
+
+        if (paddedSize <= size) {
+            return values;
+        }
+
+        List<Object> padded = new ArrayList<Object>(paddedSize);
+        padded.addAll(values);
+        Object last = padded.get(size - 1);
+
+        for (int i = size; i < paddedSize; i++) {
+            padded.add(last);
+        }
+
+        return padded;
+    }
+}
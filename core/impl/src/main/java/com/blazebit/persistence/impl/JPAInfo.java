@@ -15,9 +15,15 @@
  */
 package com.blazebit.persistence.impl;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import javax.persistence.EntityManager;
 
 /**
+ * Describes the capabilities of the JPA provider and the dbms of a persistence unit.
+ * Since the detection is rather expensive, instances are cached per entity manager factory by {@link CriteriaBuilderFactoryImpl}.
  *
  * @author Christian Beikov
  * @author Moritz Becker
@@ -25,11 +31,28 @@ import javax.persistence.EntityManager;
  */
 public class JPAInfo {
 
+    private static final Set<String> WINDOW_FUNCTION_DBMS = new HashSet<String>(Arrays.asList("oracle", "microsoft", "postgresql", "db2"));
+    private static final String[] JDBC_URL_PROPERTIES = {
+        "javax.persistence.jdbc.url",
+        "hibernate.connection.url",
+        "eclipselink.jdbc.url",
+        "openjpa.ConnectionURL",
+        "datanucleus.ConnectionURL"
+    };
+
     public final boolean isJPA21;
     public final boolean isHibernate;
     public final boolean isEclipseLink24;
+    public final String dbms;
+    private final String onClause;
+    private final String collectionValueFunction;
+    private final boolean windowFunctions;
 
     public JPAInfo(EntityManager em) {
+        this(em, null);
+    }
+
+    public JPAInfo(EntityManager em, String dbms) {
         boolean jpa21 = false;
         boolean hibernate = false;
         boolean eclipseLink24 = false;
@@ -67,22 +90,88 @@ public class JPAInfo {
         this.isJPA21 = jpa21;
         this.isHibernate = hibernate;
         this.isEclipseLink24 = eclipseLink24;
+        this.dbms = dbms;
+
+        if (jpa21 || eclipseLink24) {
+            this.onClause = "ON";
+        } else if (hibernate) {
+            this.onClause = "WITH";
+        } else {
+            this.onClause = null;
+        }
+
+        this.collectionValueFunction = eclipseLink24 ? "VALUE" : null;
+        this.windowFunctions = dbms != null && WINDOW_FUNCTION_DBMS.contains(dbms);
     }
 
     public String getOnClause() {
-        if (isJPA21 || isEclipseLink24) {
-            return "ON";
-        } else if (isHibernate) {
-            return "WITH";
-        } else {
+        if (onClause == null) {
             throw new UnsupportedOperationException("Unsupported JPA provider");
         }
+
+        return onClause;
     }
 
     public String getCollectionValueFunction() {
-        if (isEclipseLink24) {
-            return "VALUE";
+        return collectionValueFunction;
+    }
+
+    /**
+     * Returns the dbms identifier for the JDBC url that is configured in the given persistence unit properties or null if it is unknown.
+     *
+     * @param properties The properties of the entity manager factory
+     * @return The dbms identifier or null
+     */
+    public static String getDbms(Map<String, Object> properties) {
+        for (String property : JDBC_URL_PROPERTIES) {
+            Object url = properties.get(property);
+
+            if (url instanceof String) {
+                return getDbmsForJdbcUrl((String) url);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the dbms identifier for the given JDBC url or null if it is unknown.
+     *
+     * @param url The JDBC url
+     * @return The dbms identifier or null
+     */
+    public static String getDbmsForJdbcUrl(String url) {
+        if (!url.startsWith("jdbc:")) {
+            return null;
         }
+
+        String subUrl = url.substring("jdbc:".length());
+
+        if (subUrl.startsWith("mysql:") || subUrl.startsWith("mariadb:")) {
+            return "mysql";
+        } else if (subUrl.startsWith("oracle:")) {
+            return "oracle";
+        } else if (subUrl.startsWith("sqlserver:") || subUrl.startsWith("jtds:sqlserver:")) {
+            return "microsoft";
+        } else if (subUrl.startsWith("sybase:") || subUrl.startsWith("jtds:sybase:")) {
+            return "sybase";
+        } else if (subUrl.startsWith("postgresql:")) {
+            return "postgresql";
+        } else if (subUrl.startsWith("db2:")) {
+            return "db2";
+        } else if (subUrl.startsWith("h2:")) {
+            return "h2";
+        }
+
         return null;
     }
+
+    /**
+     * Returns whether the dbms supports window functions like <code>COUNT(*) OVER()</code>.
+     *
+     * @return true if window functions are supported, otherwise false
+     */
+    public boolean supportsWindowFunctions() {
+        return windowFunctions;
+    }
 }
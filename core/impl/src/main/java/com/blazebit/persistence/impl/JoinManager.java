@@ -102,9 +102,15 @@ public class JoinManager extends AbstractManager {
     void setRoot(EntityType<?> clazz, String rootAlias){
         if (rootAlias == null) {
             // TODO: not sure if other JPA providers support case sensitive queries like hibernate
-            StringBuilder sb = new StringBuilder(clazz.getName());
-            sb.setCharAt(0, Character.toLowerCase(sb.charAt(0)));
-            String alias = sb.toString();
+            StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+            String alias;
+            try {
+                sb.append(clazz.getName());
+                sb.setCharAt(0, Character.toLowerCase(sb.charAt(0)));
+                alias = sb.toString();
+            } finally {
+                StringBuilderProvider.release(sb);
+            }
             
             if (aliasManager.getAliasInfo(alias) == null) {
                 rootAlias = alias;
@@ -152,6 +158,11 @@ public class JoinManager extends AbstractManager {
         joinOnBuilderListener.verifyBuilderEnded();
     }
 
+    void buildTemplateKey(QueryTemplateKeyGenerator generator) {
+        generator.getQueryBuffer().append(" FROM ");
+        rootNode.accept(generator);
+    }
+
     void acceptVisitor(JoinNodeVisitor v) {
         rootNode.accept(v);
     }
@@ -707,28 +718,33 @@ public class JoinManager extends AbstractManager {
     }
 
     private String getJoinAlias(ArrayExpression expr) {
-        StringBuilder sb = new StringBuilder(expr.getBase().toString());
-        Expression indexExpr = expr.getIndex();
-
-        if (indexExpr instanceof ParameterExpression) {
-            ParameterExpression indexParamExpr = (ParameterExpression) indexExpr;
-            sb.append('_');
-            sb.append(indexParamExpr.getName());
-        } else if (indexExpr instanceof PathExpression) {
-            PathExpression indexPathExpr = (PathExpression) indexExpr;
-            sb.append('_');
-            sb.append(((JoinNode) indexPathExpr.getBaseNode()).getAliasInfo().getAlias());
-
-            if (indexPathExpr.getField() != null) {
+        StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            sb.append(expr.getBase().toString());
+            Expression indexExpr = expr.getIndex();
+
+            if (indexExpr instanceof ParameterExpression) {
+                ParameterExpression indexParamExpr = (ParameterExpression) indexExpr;
+                sb.append('_');
+                sb.append(indexParamExpr.getName());
+            } else if (indexExpr instanceof PathExpression) {
+                PathExpression indexPathExpr = (PathExpression) indexExpr;
+                sb.append('_');
+                sb.append(((JoinNode) indexPathExpr.getBaseNode()).getAliasInfo().getAlias());
+
+                if (indexPathExpr.getField() != null) {
+                    sb.append('_');
+                    sb.append(indexPathExpr.getField().replaceAll("\\.", "_"));
+                }
+            } else {
                 sb.append('_');
-                sb.append(indexPathExpr.getField().replaceAll("\\.", "_"));
+                sb.append(indexExpr.toString().replaceAll("\\.", "_"));
             }
-        } else {
-            sb.append('_');
-            sb.append(indexExpr.toString().replaceAll("\\.", "_"));
-        }
 
-        return sb.toString();
+            return sb.toString();
+        } finally {
+            StringBuilderProvider.release(sb);
+        }
     }
 
     private EqPredicate getArrayExpressionPredicate(JoinNode joinNode, ArrayExpression arrayExpr) {
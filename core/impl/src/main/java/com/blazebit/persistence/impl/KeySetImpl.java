@@ -28,13 +28,15 @@ public class KeySetImpl implements KeySet {
 
     private final int firstResult;
     private final int maxResults;
+    private final int size;
     private final List<OrderByExpression> orderByExpressions;
     private final Serializable[] lowest;
     private final Serializable[] highest;
 
-    public KeySetImpl(int firstResult, int maxResults, List<OrderByExpression> orderByExpressions, Serializable[] lowest, Serializable[] highest) {
+    public KeySetImpl(int firstResult, int maxResults, int size, List<OrderByExpression> orderByExpressions, Serializable[] lowest, Serializable[] highest) {
         this.firstResult = firstResult;
         this.maxResults = maxResults;
+        this.size = size;
         this.orderByExpressions = orderByExpressions;
         this.lowest = lowest;
         this.highest = highest;
@@ -50,6 +52,15 @@ public class KeySetImpl implements KeySet {
         return maxResults;
     }
 
+    /**
+     * Returns the actual number of results of the page from which this key set was extracted.
+     *
+     * @return The number of results
+     */
+    public int getSize() {
+        return size;
+    }
+
     @Override
     public Serializable[] getLowest() {
         return lowest;
@@ -25,5 +25,9 @@ public enum KeySetMode {
     NONE,
     SAME,
     NEXT,
-    PREVIOUS;
+    PREVIOUS,
+    /**
+     * The last page is fetched by inverting the order instead of skipping all preceding rows.
+     */
+    LAST;
 }
@@ -38,44 +38,64 @@ public class KeySetPaginationHelper {
         if (!extractKeySet || keySet == null) {
             return KeySetMode.NONE;
         }
-        // The last page size must equal the current page size
-        if (keySet.getMaxResults() != pageSize) {
-            return KeySetMode.NONE;
-        }
         // Ordering has changed
         if (!keySet.getOrderByExpressions().equals(orderByExpressions)) {
             return KeySetMode.NONE;
         }
 
-        int offset = keySet.getFirstResult() - firstRow;
+        int keySetFirstRow = keySet.getFirstResult();
 
-        if (offset == pageSize) {
-            // We went to the previous page
+        if (firstRow == keySetFirstRow) {
+            // Same page again
             if (isValidKey(keySet.getLowest(), orderByExpressions)) {
-                return KeySetMode.PREVIOUS;
+                return KeySetMode.SAME;
             } else {
                 return KeySetMode.NONE;
             }
-        } else if (offset == -pageSize) {
-            // We went to the next page
+        } else if (firstRow >= keySetFirstRow + keySet.getSize()) {
+            // We went forward, possibly skipping pages after the key set
             if (isValidKey(keySet.getHighest(), orderByExpressions)) {
                 return KeySetMode.NEXT;
             } else {
                 return KeySetMode.NONE;
             }
-        } else if (offset == 0) {
-            // Same page again
-            if (isValidKey(keySet.getLowest(), orderByExpressions)) {
-                return KeySetMode.SAME;
+        } else if (firstRow + pageSize <= keySetFirstRow) {
+            // We went backwards, but only seek from the key set if that skips less rows than an offset from the start
+            if (keySetFirstRow - (firstRow + pageSize) <= firstRow && isValidKey(keySet.getLowest(), orderByExpressions)) {
+                return KeySetMode.PREVIOUS;
             } else {
                 return KeySetMode.NONE;
             }
         } else {
-            // The last key set is away more than one page
+            // The requested page overlaps the page of the key set
             return KeySetMode.NONE;
         }
     }
 
+    /**
+     * Returns the number of rows that have to be skipped after applying the key set predicate for the given key set mode.
+     * This is what makes jumping over multiple pages relative to a key set possible.
+     *
+     * @param keySetMode The key set mode
+     * @param keySet The key set
+     * @param firstRow The position of the first row of the requested page
+     * @param pageSize The page size
+     * @return The number of rows to skip
+     */
+    public static int getKeySetOffset(KeySetMode keySetMode, KeySetImpl keySet, int firstRow, int pageSize) {
+        switch (keySetMode) {
+            case NONE:
+                return firstRow;
+            case NEXT:
+                return firstRow - (keySet.getFirstResult() + keySet.getSize());
+            case PREVIOUS:
+                // Since the order is inverted, the rows between the requested page and the key set are skipped
+                return keySet.getFirstResult() - (firstRow + pageSize);
+            default:
+                return 0;
+        }
+    }
+
     private static boolean isValidKey(Serializable[] key, List<OrderByExpression> orderByExpressions) {
         return key != null && key.length == orderByExpressions.size();
     }
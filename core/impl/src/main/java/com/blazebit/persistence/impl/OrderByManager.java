@@ -158,29 +158,45 @@ public class OrderByManager extends AbstractManager {
         Set<String> groupByClauses = new LinkedHashSet<String>();
         Iterator<OrderByInfo> iter = orderByInfos.iterator();
         OrderByInfo orderByInfo;
-
-        while (iter.hasNext()) {
-            StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
-            queryGenerator.setQueryBuffer(sb);
-            orderByInfo = iter.next();
-            String potentialSelectAlias = orderByInfo.getExpression().toString();
-            AliasInfo aliasInfo = aliasManager.getAliasInfo(potentialSelectAlias);
-            if (aliasInfo != null && aliasInfo instanceof SelectInfo) {
-                SelectInfo selectInfo = (SelectInfo) aliasInfo;
-                String expressionString = selectInfo.getExpression().toString().toUpperCase();
-                if (!expressionString.startsWith("COUNT(") && !expressionString.startsWith("AVG(") && !expressionString.startsWith("SUM(") 
-                    && !expressionString.startsWith("MIN(") && !expressionString.startsWith("MAX(")) {
-                    selectInfo.getExpression().accept(queryGenerator);
+        StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+
+        try {
+            while (iter.hasNext()) {
+                sb.setLength(0);
+                queryGenerator.setQueryBuffer(sb);
+                orderByInfo = iter.next();
+                String potentialSelectAlias = orderByInfo.getExpression().toString();
+                AliasInfo aliasInfo = aliasManager.getAliasInfo(potentialSelectAlias);
+                if (aliasInfo != null && aliasInfo instanceof SelectInfo) {
+                    SelectInfo selectInfo = (SelectInfo) aliasInfo;
+                    String expressionString = selectInfo.getExpression().toString().toUpperCase();
+                    if (!expressionString.startsWith("COUNT(") && !expressionString.startsWith("AVG(") && !expressionString.startsWith("SUM(") 
+                        && !expressionString.startsWith("MIN(") && !expressionString.startsWith("MAX(")) {
+                        selectInfo.getExpression().accept(queryGenerator);
+                        groupByClauses.add(sb.toString());
+                    }
+                } else {
+                    orderByInfo.getExpression().accept(queryGenerator);
                     groupByClauses.add(sb.toString());
                 }
-            } else {
-                orderByInfo.getExpression().accept(queryGenerator);
-                groupByClauses.add(sb.toString());
             }
+        } finally {
+            StringBuilderProvider.release(sb);
         }
         return groupByClauses;
     }
 
+    void buildTemplateKey(QueryTemplateKeyGenerator generator) {
+        StringBuilder sb = generator.getQueryBuffer();
+        sb.append(" ORDER BY ");
+
+        for (OrderByInfo orderBy : orderByInfos) {
+            orderBy.getExpression().accept(generator);
+            sb.append(orderBy.ascending ? " ASC" : " DESC");
+            sb.append(orderBy.nullFirst ? " NULLS FIRST, " : " NULLS LAST, ");
+        }
+    }
+
     void buildOrderBy(StringBuilder sb, boolean inverseOrder, boolean resolveSelectAliases) {
         if (orderByInfos.isEmpty()) {
             return;
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache for the total sizes of paginated queries that is keyed by the count query string and its parameter values.
+ * Every entry carries its own expiration time since the time to live is configured per paginated criteria builder.
+ * There is one cache per entity manager factory since the count query depends on the JPA provider and the metamodel.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class PageCountCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final Map<Object, Entry> totalSizes;
+    private final int maximumSize;
+    private long hitCount;
+    private long missCount;
+
+    public PageCountCache(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+        }
+
+        this.maximumSize = maximumSize;
+        this.totalSizes = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > maximumSize;
+            }
+
+        };
+    }
+
+    /**
+     * Returns the total size for the given key or null if there is none or it is expired.
+     *
+     * @param key The key of the count query
+     * @param now The current time as returned by {@link System#nanoTime()}
+     * @return The total size or null
+     */
+    public synchronized Long get(Object key, long now) {
+        Entry entry = totalSizes.get(key);
+
+        if (entry != null && now - entry.expirationTime >= 0) {
+            totalSizes.remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return entry.totalSize;
+    }
+
+    /**
+     * Puts the total size for the given key into the cache.
+     *
+     * @param key The key of the count query
+     * @param totalSize The total size
+     * @param expirationTime The time as returned by {@link System#nanoTime()} at which the entry expires
+     */
+    public synchronized void put(Object key, long totalSize, long expirationTime) {
+        totalSizes.put(key, new Entry(totalSize, expirationTime));
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getSize() {
+        return totalSizes.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    private static final class Entry {
+
+        private final long totalSize;
+        private final long expirationTime;
+
+        public Entry(long totalSize, long expirationTime) {
+            this.totalSize = totalSize;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
@@ -40,7 +40,7 @@ public class PagedListImpl<T> extends ArrayList<T> implements PagedList<T> {
         this.keySet = keySet;
         this.totalSize = totalSize;
         this.page = (int) Math.floor((firstResult == -1 ? 0 : firstResult) * 1d / maxResults) + 1;
-        this.totalPages = (int) Math.ceil(totalSize * 1d / maxResults);
+        this.totalPages = totalSize == -1 ? -1 : (int) Math.ceil(totalSize * 1d / maxResults);
         this.firstResult = firstResult;
         this.maxResults = maxResults;
     }
@@ -50,7 +50,7 @@ public class PagedListImpl<T> extends ArrayList<T> implements PagedList<T> {
         this.keySet = keySet;
         this.totalSize = totalSize;
         this.page = (int) Math.floor((firstResult == -1 ? 0 : firstResult) * 1d / maxResults) + 1;
-        this.totalPages = (int) Math.ceil(totalSize * 1d / maxResults);
+        this.totalPages = totalSize == -1 ? -1 : (int) Math.ceil(totalSize * 1d / maxResults);
         this.firstResult = firstResult;
         this.maxResults = maxResults;
     }
@@ -18,23 +18,35 @@ package com.blazebit.persistence.impl;
 import com.blazebit.persistence.CaseWhenBuilder;
 import com.blazebit.persistence.KeySet;
 import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.PageCountMode;
 import com.blazebit.persistence.PagedList;
 import com.blazebit.persistence.PaginatedCriteriaBuilder;
 import com.blazebit.persistence.QueryBuilder;
+import com.blazebit.persistence.ScrollableResult;
 import com.blazebit.persistence.SelectObjectBuilder;
 import com.blazebit.persistence.SimpleCaseWhenBuilder;
 import com.blazebit.persistence.SubqueryInitiator;
 import com.blazebit.persistence.impl.expression.Expression;
+import com.blazebit.persistence.impl.builder.object.CountExtractionObjectBuilder;
 import com.blazebit.persistence.impl.builder.object.DelegatingKeySetExtractionObjectBuilder;
 import com.blazebit.persistence.impl.builder.object.KeySetExtractionObjectBuilder;
+import com.blazebit.persistence.spi.QueryMetric;
 import com.blazebit.persistence.spi.QueryTransformer;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.Parameter;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.metamodel.EntityType;
@@ -51,6 +63,7 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
     private static final String KEY_SET_PARAMETER_NAME = "_keySetParameter";
     private static final String ENTITY_PAGE_POSITION_PARAMETER_NAME = "_entityPagePositionParameter";
     private static final String PAGE_POSITION_ID_QUERY_ALIAS_PREFIX = "_page_position_";
+    private static final String COUNT_OVER_FUNCTION_NAME = "count_over";
 
     private final boolean extractKeySet;
     private final KeySetImpl keySet;
@@ -62,7 +75,12 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
     private int firstResult;
     private int firstRow;
     private int pageSize;
+    private final boolean lastPage;
+    private PageCountMode countMode = PageCountMode.QUERY;
+    private long countCacheTimeToLive;
     private boolean needsNewIdList;
+    private boolean inlineCount;
+    private boolean keySetPagePosition;
     private KeySetMode keySetMode;
     private List<OrderByExpression> orderByExpressions;
 
@@ -84,6 +102,21 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         this.firstRow = -1;
         this.entityId = entityId;
         this.pageSize = pageSize;
+        this.lastPage = false;
+    }
+
+    public PaginatedCriteriaBuilderImpl(AbstractQueryBuilder<T, ? extends QueryBuilder<T, ?>> baseBuilder, boolean extractKeySet, int pageSize) {
+        super(baseBuilder);
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize may not be zero or negative");
+        }
+        this.extractKeySet = extractKeySet;
+        this.keySet = null;
+        this.firstResult = -1;
+        this.firstRow = -1;
+        this.entityId = null;
+        this.pageSize = pageSize;
+        this.lastPage = true;
     }
 
     public PaginatedCriteriaBuilderImpl(AbstractQueryBuilder<T, ? extends QueryBuilder<T, ?>> baseBuilder, boolean extractKeySet, KeySetImpl keySet, int firstRow, int pageSize) {
@@ -100,27 +133,68 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         this.firstRow = firstRow;
         this.entityId = null;
         this.pageSize = pageSize;
+        this.lastPage = false;
+    }
+
+    @Override
+    public PaginatedCriteriaBuilder<T> withCountMode(PageCountMode countMode) {
+        if (countMode == null) {
+            throw new NullPointerException("countMode");
+        }
+
+        this.countMode = countMode;
+        clearCache();
+        needsCheck = true;
+        return this;
+    }
+
+    @Override
+    public PaginatedCriteriaBuilder<T> withCachedCount(long timeToLive, TimeUnit timeUnit) {
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("timeToLive may not be negative");
+        }
+
+        this.countCacheTimeToLive = timeUnit.toNanos(timeToLive);
+        return this;
     }
 
     @Override
     public PagedList<T> getResultList() {
         prepareAndCheck();
 
-        String countQueryString = getPageCountQueryString0();
-        long totalSize;
+        long totalSize = -1;
         
         if (entityId == null) {
-            // No reference entity id, so just do a simple count query
-            TypedQuery<Long> countQuery = em.createQuery(countQueryString, Long.class);
-            parameterizeQuery(countQuery);
+            // No reference entity id, so just do a simple count query unless the count is fetched with the page or not at all
+            if (lastPage) {
+                // The position of the last page depends on the total size
+                totalSize = getTotalSize();
+                firstResult = firstRow = totalSize == 0 ? 0 : (int) ((totalSize - 1) / pageSize) * pageSize;
+            } else if (!inlineCount && countMode != PageCountMode.NONE) {
+                totalSize = getTotalSize();
+            }
+        } else if (keySetPagePosition) {
+            // There is a reference entity id, so we count the rows that sort before the reference entity
+            totalSize = getTotalSize();
 
-            totalSize = countQuery.getSingleResult();
+            if (totalSize != 0L) {
+                Serializable[] referenceKey = getPagePositionKey();
+
+                if (referenceKey == null) {
+                    // If the reference entity id is not contained (i.e. has no position), we return this special value
+                    firstResult = -1;
+                    firstRow = 0;
+                } else {
+                    int position = (int) getPagePositionCount(referenceKey);
+                    firstResult = firstRow = position - (position % pageSize);
+                }
+            }
         } else {
             // There is a reference entity id, so we need to extract the page position
-            TypedQuery<Object[]> countQuery = em.createQuery(countQueryString, Object[].class);
+            TypedQuery<Object[]> countQuery = em.createQuery(getPageCountQueryString0(), Object[].class);
             parameterizeQuery(countQuery);
             
-            Object[] result = countQuery.getSingleResult();
+            Object[] result = executeCountQuery(countQuery);
             totalSize = (Long) result[0];
             
             if (result[1] == null) {
@@ -145,6 +219,141 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         }
     }
 
+    private Serializable[] getPagePositionKey() {
+        Query keyQuery = em.createQuery(getPagePositionKeyQueryString())
+                .setMaxResults(1);
+        parameterizeQuery(keyQuery);
+        List<?> result = executeQuery(keyQuery, QueryMetric.PAGE_COUNT_QUERY);
+
+        if (result.isEmpty()) {
+            return null;
+        }
+
+        Serializable[] key = new Serializable[orderByExpressions.size()];
+
+        if (key.length == 1) {
+            key[0] = (Serializable) result.get(0);
+        } else {
+            Object[] tuple = (Object[]) result.get(0);
+
+            for (int i = 0; i < key.length; i++) {
+                key[i] = (Serializable) tuple[i];
+            }
+        }
+
+        return key;
+    }
+
+    private long getPagePositionCount(Serializable[] referenceKey) {
+        TypedQuery<Long> countQuery = em.createQuery(getPagePositionCountQueryString(referenceKey), Long.class);
+        parameterizeQuery(countQuery);
+        return executeCountQuery(countQuery);
+    }
+
+    private long getTotalSize() {
+        String countQueryString = getPageCountQueryString0();
+        TypedQuery<Long> countQuery = em.createQuery(countQueryString, Long.class);
+        parameterizeQuery(countQuery);
+
+        if (countCacheTimeToLive == 0) {
+            return executeCountQuery(countQuery);
+        }
+
+        PageCountCache pageCountCache = cbf.getPageCountCache(em);
+        Object key = getPageCountCacheKey(countQueryString, countQuery);
+        long now = System.nanoTime();
+        Long totalSize = pageCountCache.get(key, now);
+
+        if (totalSize == null) {
+            totalSize = executeCountQuery(countQuery);
+            pageCountCache.put(key, totalSize, now + countCacheTimeToLive);
+        }
+
+        return totalSize;
+    }
+
+    private <X> X executeCountQuery(TypedQuery<X> countQuery) {
+        long start = startTime();
+        try {
+            return countQuery.getSingleResult();
+        } finally {
+            recordTime(QueryMetric.PAGE_COUNT_QUERY, start);
+        }
+    }
+
+    private List executeQuery(Query query, QueryMetric metric) {
+        long start = startTime();
+        try {
+            return query.getResultList();
+        } finally {
+            recordTime(metric, start);
+        }
+    }
+
+    private Object getPageCountCacheKey(String countQueryString, Query countQuery) {
+        Map<String, Object> parameterValues = new TreeMap<String, Object>();
+
+        for (Parameter<?> p : countQuery.getParameters()) {
+            parameterValues.put(p.getName(), parameterManager.getParameterValue(p.getName()));
+        }
+
+        return Arrays.asList(countQueryString, parameterValues);
+    }
+
+    private long getTotalSizeForEmptyPage() {
+        if (countMode == PageCountMode.NONE) {
+            return -1;
+        } else if (firstRow == 0) {
+            // The first page is empty so there can't be any results at all
+            return 0;
+        }
+
+        // We scrolled past the last page, so the window function could not tell us the total size
+        return getTotalSize();
+    }
+
+    @Override
+    public <K> Map<K, List<T>> getResultLists(String parameterName, Collection<K> values) {
+        if (values == null) {
+            throw new NullPointerException("values");
+        }
+        if (!containsParameter(parameterName)) {
+            throw new IllegalArgumentException(String.format("Parameter name \"%s\" does not exist", parameterName));
+        }
+
+        // Every value needs its own page, so we can't merge the queries but only reuse the generated query strings
+        Map<K, List<T>> results = new LinkedHashMap<K, List<T>>();
+        boolean parameterSet = parameterManager.isParameterSet(parameterName);
+        Object parameterValue = parameterManager.getParameterValue(parameterName);
+
+        try {
+            for (K value : values) {
+                if (!results.containsKey(value)) {
+                    parameterManager.satisfyParameter(parameterName, value);
+                    results.put(value, getResultList());
+                }
+            }
+        } finally {
+            if (parameterSet) {
+                parameterManager.satisfyParameter(parameterName, parameterValue);
+            } else {
+                parameterManager.unsatisfyParameter(parameterName);
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public ScrollableResult<T> scroll(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("fetchSize may not be negative");
+        }
+
+        // A page is bounded by the page size, so there is no need for a cursor
+        return new ResultListScrollableResult<T>(getResultList());
+    }
+
     @Override
     public String getPageCountQueryString() {
         prepareAndCheck();
@@ -153,7 +362,8 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
 
     private String getPageCountQueryString0() {
         if (cachedCountQueryString == null) {
-            cachedCountQueryString = getPageCountQueryString1();
+            long start = startTime();
+            cachedCountQueryString = recordQueryString(start, getPageCountQueryString1());
         }
 
         return cachedCountQueryString;
@@ -167,7 +377,8 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
 
     private String getPageIdQueryString0() {
         if (cachedIdQueryString == null) {
-            cachedIdQueryString = getPageIdQueryString1();
+            long start = startTime();
+            cachedIdQueryString = recordQueryString(start, getPageIdQueryString1());
         }
 
         return cachedIdQueryString;
@@ -181,10 +392,11 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
 
     private String getQueryString0() {
         if (cachedQueryString == null) {
+            long start = startTime();
             if (!joinManager.hasCollections()) {
-                cachedQueryString = getObjectQueryString1();
+                cachedQueryString = recordQueryString(start, getObjectQueryString1());
             } else {
-                cachedQueryString = getQueryString1();
+                cachedQueryString = recordQueryString(start, getQueryString1());
             }
         }
 
@@ -208,8 +420,10 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
             throw new IllegalStateException("Pagination requires at least one order by item!");
         }
 
+        long start = startTime();
         applyImplicitJoins();
         applyExpressionTransformers();
+        recordTime(QueryMetric.BUILDER_FINALIZATION, start);
 
         Metamodel m = em.getMetamodel();
         orderByExpressions = orderByManager.getOrderByExpressions(m);
@@ -220,7 +434,22 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
 
         needsNewIdList = extractKeySet || orderByManager.hasComplexOrderBys();
         // TODO: checking the order by expressions is only partly sufficient since the result also depends on other parts of the query
-        keySetMode = KeySetPaginationHelper.getKeySetMode(extractKeySet, keySet, firstRow, pageSize, orderByExpressions);
+        if (lastPage) {
+            keySetMode = KeySetMode.LAST;
+        } else {
+            keySetMode = KeySetPaginationHelper.getKeySetMode(extractKeySet, keySet, firstRow, pageSize, orderByExpressions);
+        }
+        // The total size can only be fetched along with the page for offset pagination and if the dbms supports window functions
+        inlineCount = countMode == PageCountMode.INLINE
+                && entityId == null
+                && keySetMode == KeySetMode.NONE
+                && jpaInfo.supportsWindowFunctions()
+                && registeredFunctions.contains(COUNT_OVER_FUNCTION_NAME)
+                && (joinManager.hasCollections() || (!cbf.getQueryTransformers().isEmpty() && !selectManager.hasAggregateFunctions()));
+        // The key set predicate can only be applied in the WHERE clause if no order by item refers to a complex select expression
+        keySetPagePosition = entityId != null
+                && cbf.isKeySetPagePosition()
+                && !orderByManager.hasComplexOrderBys();
         // No need to do the check again if no mutation occurs
         needsCheck = false;
     }
@@ -228,13 +457,11 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
     private PagedList<T> getResultListViaObjectQuery(long totalSize) {
         String queryString = getQueryString0();
         TypedQuery<T> query = (TypedQuery<T>) em.createQuery(queryString, Object[].class)
-                .setMaxResults(pageSize);
-
-        if (keySetMode == KeySetMode.NONE) {
-            query.setFirstResult(firstRow);
-        }
+                .setMaxResults(getMaxResults(totalSize))
+                .setFirstResult(KeySetPaginationHelper.getKeySetOffset(keySetMode, keySet, firstRow, pageSize));
 
         KeySetExtractionObjectBuilder<T> objectBuilder = null;
+        CountExtractionObjectBuilder<T> countObjectBuilder = null;
         ObjectBuilder<T> transformerObjectBuilder = selectManager.getSelectObjectBuilder();
 
         if (extractKeySet) {
@@ -249,14 +476,25 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
             transformerObjectBuilder = objectBuilder;
         }
 
+        if (inlineCount) {
+            countObjectBuilder = new CountExtractionObjectBuilder<T>(transformerObjectBuilder);
+            transformerObjectBuilder = countObjectBuilder;
+        }
+
         if (transformerObjectBuilder != null) {
+            transformerObjectBuilder = cbf.getMeasuredObjectBuilder(transformerObjectBuilder);
+
             for (QueryTransformer transformer : cbf.getQueryTransformers()) {
                 transformer.transformQuery((TypedQuery<T>) query, transformerObjectBuilder);
             }
         }
 
         parameterizeQuery(query);
-        List<T> result = query.getResultList();
+        List<T> result = executeQuery(query, QueryMetric.PAGE_OBJECT_QUERY);
+
+        if (inlineCount) {
+            totalSize = result.isEmpty() ? getTotalSizeForEmptyPage() : countObjectBuilder.getTotalSize();
+        }
 
         if (result.isEmpty()) {
             KeySet newKeySet = null;
@@ -271,9 +509,24 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         KeySet newKeySet = null;
 
         if (extractKeySet) {
-            Serializable[] lowest = objectBuilder.getLowest();
-            Serializable[] highest = objectBuilder.getHighest();
-            newKeySet = new KeySetImpl(firstRow, pageSize, orderByExpressions, lowest, highest);
+            Serializable[] lowest;
+            Serializable[] highest;
+
+            if (isInverseOrder()) {
+                lowest = objectBuilder.getHighest();
+                highest = objectBuilder.getLowest();
+            } else {
+                lowest = objectBuilder.getLowest();
+                highest = objectBuilder.getHighest();
+            }
+
+            newKeySet = new KeySetImpl(firstRow, pageSize, result.size(), orderByExpressions, lowest, highest);
+        }
+
+        if (isInverseOrder()) {
+            // The page was fetched in inverse order, but we want to return it in the natural order
+            result = new ArrayList<T>(result);
+            Collections.reverse(result);
         }
 
         PagedList<T> pagedResultList = new PagedListImpl<T>(result, newKeySet, totalSize, firstResult, pageSize);
@@ -283,14 +536,21 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
     private PagedList<T> getResultListViaIdQuery(long totalSize) {
         String idQueryString = getPageIdQueryString0();
         Query idQuery = em.createQuery(idQueryString)
-                .setMaxResults(pageSize);
-
-        if (keySetMode == KeySetMode.NONE) {
-            idQuery.setFirstResult(firstRow);
-        }
+                .setMaxResults(getMaxResults(totalSize))
+                .setFirstResult(KeySetPaginationHelper.getKeySetOffset(keySetMode, keySet, firstRow, pageSize));
 
         parameterizeQuery(idQuery);
-        List ids = idQuery.getResultList();
+        List ids = executeQuery(idQuery, QueryMetric.PAGE_ID_QUERY);
+
+        if (inlineCount) {
+            if (ids.isEmpty()) {
+                totalSize = getTotalSizeForEmptyPage();
+            } else {
+                Object[] first = (Object[]) ids.get(0);
+                totalSize = ((Number) first[first.length - 1]).longValue();
+                ids = CountExtractionObjectBuilder.stripCount(ids, needsNewIdList);
+            }
+        }
 
         if (ids.isEmpty()) {
             KeySet newKeySet = null;
@@ -302,6 +562,12 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
             return new PagedListImpl<T>(newKeySet, totalSize, firstResult, pageSize);
         }
 
+        if (isInverseOrder()) {
+            // The ids were fetched in inverse order, so the id at the end is the lowest one
+            ids = new ArrayList(ids);
+            Collections.reverse(ids);
+        }
+
         Serializable[] lowest = null;
         Serializable[] highest = null;
 
@@ -321,11 +587,12 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         }
 
         parameterManager.addParameterMapping(idParamName, ids);
+        parameterManager.registerInListParameter(idParamName);
 
         KeySet newKeySet = null;
 
         if (extractKeySet) {
-            newKeySet = new KeySetImpl(firstRow, pageSize, orderByExpressions, lowest, highest);
+            newKeySet = new KeySetImpl(firstRow, pageSize, ids.size(), orderByExpressions, lowest, highest);
         }
 
         List<T> queryResultList = getQueryResultList();
@@ -333,6 +600,23 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         return pagedResultList;
     }
 
+    private int getMaxResults(long totalSize) {
+        if (keySetMode == KeySetMode.LAST) {
+            // Only fetch the elements that are actually on the last page
+            return (int) (totalSize - firstRow);
+        }
+
+        return pageSize;
+    }
+
+    private boolean isInverseOrder() {
+        return keySetMode == KeySetMode.PREVIOUS || keySetMode == KeySetMode.LAST;
+    }
+
+    private boolean hasKeySetPredicate() {
+        return keySetMode != KeySetMode.NONE && keySetMode != KeySetMode.LAST;
+    }
+
     private List<T> getQueryResultList() {
         TypedQuery<T> query = (TypedQuery) em.createQuery(getQueryString0(), Object[].class);
         if (selectManager.getSelectObjectBuilder() != null) {
@@ -340,66 +624,153 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         }
 
         parameterizeQuery(query);
-        return query.getResultList();
+        return executeQuery(query, QueryMetric.PAGE_OBJECT_QUERY);
     }
 
     private String getPageCountQueryString1() {
-        StringBuilder sbSelectFrom = new StringBuilder();
-        Metamodel m = em.getMetamodel();
-        EntityType<?> entityType = fromClazz;
-        String idName = entityType.getId(entityType.getIdType()
-                .getJavaType())
-                .getName();
-
-        String idClause = new StringBuilder(joinManager.getRootAlias())
-                .append('.')
-                .append(idName)
-                .toString();
-
-        sbSelectFrom.append("SELECT COUNT(DISTINCT ").append(idClause).append(')');
+        StringBuilder sbSelectFrom = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            Metamodel m = em.getMetamodel();
+            EntityType<?> entityType = fromClazz;
+            String idName = entityType.getId(entityType.getIdType()
+                    .getJavaType())
+                    .getName();
+
+            sbSelectFrom.append("SELECT COUNT(DISTINCT ")
+                    .append(joinManager.getRootAlias())
+                    .append('.')
+                    .append(idName)
+                    .append(')');
         
-        if (entityId != null) {
-            parameterManager.addParameterMapping(ENTITY_PAGE_POSITION_PARAMETER_NAME, entityId);
+            if (entityId != null && !keySetPagePosition) {
+                parameterManager.addParameterMapping(ENTITY_PAGE_POSITION_PARAMETER_NAME, entityId);
             
-            sbSelectFrom.append(", ");
+                sbSelectFrom.append(", ");
             
-            // TODO: This is JPA Provider specific code that should be abstracted
-            if (jpaInfo.isHibernate) {
-                sbSelectFrom.append("PAGE_POSITION((");
-            } else if (jpaInfo.isEclipseLink24) {
-                sbSelectFrom.append("OPERATOR('PAGE_POSITION',(");
-            } else {
-                sbSelectFrom.append("FUNCTION('PAGE_POSITION',(");
-            }
+                appendFunctionStart(sbSelectFrom, "PAGE_POSITION");
+                sbSelectFrom.append('(');
             
-            appendSimplePageIdQueryString(sbSelectFrom);
-            sbSelectFrom.append("),");
+                appendSimplePageIdQueryString(sbSelectFrom);
+                sbSelectFrom.append("),");
             
-            sbSelectFrom.append(':').append(ENTITY_PAGE_POSITION_PARAMETER_NAME);
-            sbSelectFrom.append(")");
-        }
+                sbSelectFrom.append(':').append(ENTITY_PAGE_POSITION_PARAMETER_NAME);
+                sbSelectFrom.append(")");
+            }
         
-        sbSelectFrom.append(" FROM ")
-                .append(fromClazz.getName())
-                .append(' ')
-                .append(joinManager.getRootAlias());
-        joinManager.buildJoins(sbSelectFrom, EnumSet.of(ClauseType.ORDER_BY, ClauseType.SELECT), null);
-        whereManager.buildClause(sbSelectFrom);
+            sbSelectFrom.append(" FROM ")
+                    .append(fromClazz.getName())
+                    .append(' ')
+                    .append(joinManager.getRootAlias());
+            joinManager.buildJoins(sbSelectFrom, EnumSet.of(ClauseType.ORDER_BY, ClauseType.SELECT), null);
+            whereManager.buildClause(sbSelectFrom);
 
-        return sbSelectFrom.toString();
+            return sbSelectFrom.toString();
+        } finally {
+            StringBuilderProvider.release(sbSelectFrom);
+        }
     }
     
+    private String getPagePositionKeyQueryString() {
+        StringBuilder sbSelectFrom = StringBuilderProvider.getEmptyStringBuilder();
+        StringBuilder previousQueryBuffer = queryGenerator.getQueryBuffer();
+        try {
+            parameterManager.addParameterMapping(ENTITY_PAGE_POSITION_PARAMETER_NAME, entityId);
+            queryGenerator.setQueryBuffer(sbSelectFrom);
+            sbSelectFrom.append("SELECT ");
+
+            for (int i = 0; i < orderByExpressions.size(); i++) {
+                if (i != 0) {
+                    sbSelectFrom.append(", ");
+                }
+
+                orderByExpressions.get(i).getExpression().accept(queryGenerator);
+            }
+
+            sbSelectFrom.append(" FROM ")
+                    .append(fromClazz.getName())
+                    .append(' ')
+                    .append(joinManager.getRootAlias());
+            joinManager.buildJoins(sbSelectFrom, EnumSet.of(ClauseType.SELECT), null);
+            sbSelectFrom.append(" WHERE ")
+                    .append(joinManager.getRootAlias())
+                    .append('.')
+                    .append(joinManager.getRootId())
+                    .append(" = :")
+                    .append(ENTITY_PAGE_POSITION_PARAMETER_NAME);
+
+            if (whereManager.hasPredicates()) {
+                sbSelectFrom.append(" AND ");
+                whereManager.buildClausePredicate(sbSelectFrom);
+            }
+
+            return sbSelectFrom.toString();
+        } finally {
+            // The generator must not keep writing to the buffer after it was returned to the pool
+            queryGenerator.setQueryBuffer(previousQueryBuffer);
+            StringBuilderProvider.release(sbSelectFrom);
+        }
+    }
+
+    private String getPagePositionCountQueryString(Serializable[] referenceKey) {
+        StringBuilder sbSelectFrom = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            sbSelectFrom.append("SELECT COUNT(DISTINCT ")
+                    .append(joinManager.getRootAlias())
+                    .append('.')
+                    .append(joinManager.getRootId())
+                    .append(')');
+            sbSelectFrom.append(" FROM ")
+                    .append(fromClazz.getName())
+                    .append(' ')
+                    .append(joinManager.getRootAlias());
+            joinManager.buildJoins(sbSelectFrom, EnumSet.of(ClauseType.SELECT), null);
+            sbSelectFrom.append(" WHERE ");
+
+            // The rows before the reference entity are the ones that a previous page would seek to
+            applyKeySetClause(sbSelectFrom, KeySetMode.PREVIOUS, referenceKey, ENTITY_PAGE_POSITION_PARAMETER_NAME);
+
+            if (whereManager.hasPredicates()) {
+                sbSelectFrom.append(" AND ");
+                whereManager.buildClausePredicate(sbSelectFrom);
+            }
+
+            return sbSelectFrom.toString();
+        } finally {
+            StringBuilderProvider.release(sbSelectFrom);
+        }
+    }
+
+    private void appendFunctionStart(StringBuilder sb, String functionName) {
+        // TODO: This is JPA Provider specific code that should be abstracted
+        if (jpaInfo.isHibernate) {
+            sb.append(functionName).append('(');
+        } else if (jpaInfo.isEclipseLink24) {
+            sb.append("OPERATOR('").append(functionName).append("',");
+        } else {
+            sb.append("FUNCTION('").append(functionName).append("',");
+        }
+    }
+
+    private void appendCountOver(StringBuilder sb) {
+        sb.append(", ");
+        appendFunctionStart(sb, "COUNT_OVER");
+        sb.append(joinManager.getRootAlias())
+                .append('.')
+                .append(joinManager.getRootId())
+                .append(')');
+    }
+
     private String appendSimplePageIdQueryString(StringBuilder sbSelectFrom) {
         queryGenerator.setAliasPrefix(PAGE_POSITION_ID_QUERY_ALIAS_PREFIX);
         
         String idName = joinManager.getRootId();
-        StringBuilder idClause = new StringBuilder(PAGE_POSITION_ID_QUERY_ALIAS_PREFIX)
+        sbSelectFrom.append("SELECT ");
+        int idClauseStart = sbSelectFrom.length();
+        sbSelectFrom.append(PAGE_POSITION_ID_QUERY_ALIAS_PREFIX)
                 .append(joinManager.getRootAlias())
                 .append('.')
                 .append(idName);
-
-        sbSelectFrom.append("SELECT ")
-                .append(idClause);
+        String idClause = sbSelectFrom.substring(idClauseStart);
         
         sbSelectFrom.append(" FROM ")
                 .append(fromClazz.getName())
@@ -411,7 +782,7 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         whereManager.buildClause(sbSelectFrom);
         
         Set<String> clauses = new LinkedHashSet<String>();
-        clauses.add(idClause.toString());
+        clauses.add(idClause);
         clauses.addAll(orderByManager.buildGroupByClauses());
         groupByManager.buildGroupBy(sbSelectFrom, clauses);
 
@@ -423,141 +794,165 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
     }
 
     private String getPageIdQueryString1() {
-        StringBuilder sbSelectFrom = new StringBuilder();
-        String idName = joinManager.getRootId();
-        StringBuilder idClause = new StringBuilder(joinManager.getRootAlias())
-                .append('.')
-                .append(idName);
+        StringBuilder sbSelectFrom = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            String idName = joinManager.getRootId();
+            sbSelectFrom.append("SELECT ");
+            int idClauseStart = sbSelectFrom.length();
+            sbSelectFrom.append(joinManager.getRootAlias())
+                    .append('.')
+                    .append(idName);
+            String idClause = sbSelectFrom.substring(idClauseStart);
+
+            if (needsNewIdList) {
+                orderByManager.buildSelectClauses(sbSelectFrom, extractKeySet);
+            }
 
-        sbSelectFrom.append("SELECT ")
-                .append(idClause);
+            if (inlineCount) {
+                appendCountOver(sbSelectFrom);
+            }
 
-        if (needsNewIdList) {
-            orderByManager.buildSelectClauses(sbSelectFrom, extractKeySet);
-        }
+            sbSelectFrom.append(" FROM ")
+                    .append(fromClazz.getName())
+                    .append(' ')
+                    .append(joinManager.getRootAlias());
 
-        sbSelectFrom.append(" FROM ")
-                .append(fromClazz.getName())
-                .append(' ')
-                .append(joinManager.getRootAlias());
+            joinManager.buildJoins(sbSelectFrom, EnumSet.of(ClauseType.SELECT), null);
 
-        joinManager.buildJoins(sbSelectFrom, EnumSet.of(ClauseType.SELECT), null);
-
-        if (keySetMode == KeySetMode.NONE) {
-            whereManager.buildClause(sbSelectFrom);
-        } else {
-            sbSelectFrom.append(" WHERE ");
+            if (!hasKeySetPredicate()) {
+                whereManager.buildClause(sbSelectFrom);
+            } else {
+                sbSelectFrom.append(" WHERE ");
 
-            applyKeySetClause(sbSelectFrom);
+                applyKeySetClause(sbSelectFrom);
 
-            if (whereManager.hasPredicates()) {
-                sbSelectFrom.append(" AND ");
-                whereManager.buildClausePredicate(sbSelectFrom);
+                if (whereManager.hasPredicates()) {
+                    sbSelectFrom.append(" AND ");
+                    whereManager.buildClausePredicate(sbSelectFrom);
+                }
             }
-        }
 
-        Set<String> clauses = new LinkedHashSet<String>();
-        clauses.add(idClause.toString());
-        clauses.addAll(orderByManager.buildGroupByClauses());
-        groupByManager.buildGroupBy(sbSelectFrom, clauses);
+            Set<String> clauses = new LinkedHashSet<String>();
+            clauses.add(idClause);
+            clauses.addAll(orderByManager.buildGroupByClauses());
+            groupByManager.buildGroupBy(sbSelectFrom, clauses);
 
-        boolean inverseOrder = keySetMode == KeySetMode.PREVIOUS;
-        orderByManager.buildOrderBy(sbSelectFrom, inverseOrder, true);
+            boolean inverseOrder = isInverseOrder();
+            orderByManager.buildOrderBy(sbSelectFrom, inverseOrder, true);
 
-        // execute illegal collection access check
-        orderByManager.acceptVisitor(new IllegalSubqueryDetector(aliasManager));
+            // execute illegal collection access check
+            orderByManager.acceptVisitor(new IllegalSubqueryDetector(aliasManager));
 
-        return sbSelectFrom.toString();
+            return sbSelectFrom.toString();
+        } finally {
+            StringBuilderProvider.release(sbSelectFrom);
+        }
     }
 
     private String getQueryString1() {
-        StringBuilder sbSelectFrom = new StringBuilder();
-        Metamodel m = em.getMetamodel();
-        EntityType<?> entityType = fromClazz;
-        String idName = entityType.getId(entityType.getIdType()
-                .getJavaType())
-                .getName();
-
-        sbSelectFrom.append(selectManager.buildSelect(joinManager.getRootAlias()));
-        sbSelectFrom.append(" FROM ")
-                .append(fromClazz.getName())
-                .append(' ')
-                .append(joinManager.getRootAlias());
+        StringBuilder sbSelectFrom = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            Metamodel m = em.getMetamodel();
+            EntityType<?> entityType = fromClazz;
+            String idName = entityType.getId(entityType.getIdType()
+                    .getJavaType())
+                    .getName();
+
+            selectManager.buildSelect(sbSelectFrom, joinManager.getRootAlias());
+            sbSelectFrom.append(" FROM ")
+                    .append(fromClazz.getName())
+                    .append(' ')
+                    .append(joinManager.getRootAlias());
+
+            joinManager.buildJoins(sbSelectFrom, EnumSet.complementOf(EnumSet.of(ClauseType.SELECT, ClauseType.ORDER_BY)), null);
+            sbSelectFrom.append(" WHERE ");
+            int chunkCount = InListParameters.getChunkCount(pageSize, cbf.getInListChunkSize());
 
-        joinManager.buildJoins(sbSelectFrom, EnumSet.complementOf(EnumSet.of(ClauseType.SELECT, ClauseType.ORDER_BY)), null);
-        sbSelectFrom.append(" WHERE ")
-                .append(joinManager.getRootAlias())
-                .append('.')
-                .append(idName)
-                .append(" IN :")
-                .append(idParamName)
-                .append("");
+            if (chunkCount > 1) {
+                InListParameters.renderChunkedInPredicate(sbSelectFrom, joinManager.getRootAlias() + "." + idName, false, idParamName, chunkCount, false);
+            } else {
+                sbSelectFrom.append(joinManager.getRootAlias())
+                        .append('.')
+                        .append(idName)
+                        .append(" IN :")
+                        .append(idParamName);
+            }
 
-        Set<String> clauses = new LinkedHashSet<String>();
-        clauses.addAll(groupByManager.buildGroupByClauses());
-        if (selectManager.hasAggregateFunctions()) {
-            clauses.addAll(selectManager.buildGroupByClauses(em.getMetamodel()));
-            clauses.addAll(orderByManager.buildGroupByClauses());
-        }
-        groupByManager.buildGroupBy(sbSelectFrom, clauses);
+            Set<String> clauses = new LinkedHashSet<String>();
+            clauses.addAll(groupByManager.buildGroupByClauses());
+            if (selectManager.hasAggregateFunctions()) {
+                clauses.addAll(selectManager.buildGroupByClauses(em.getMetamodel()));
+                clauses.addAll(orderByManager.buildGroupByClauses());
+            }
+            groupByManager.buildGroupBy(sbSelectFrom, clauses);
         
-        havingManager.buildClause(sbSelectFrom);
-        queryGenerator.setResolveSelectAliases(false);
-            orderByManager.buildOrderBy(sbSelectFrom, false, false);
-        queryGenerator.setResolveSelectAliases(true);
+            havingManager.buildClause(sbSelectFrom);
+            queryGenerator.setResolveSelectAliases(false);
+                orderByManager.buildOrderBy(sbSelectFrom, false, false);
+            queryGenerator.setResolveSelectAliases(true);
         
-        return sbSelectFrom.toString();
+            return sbSelectFrom.toString();
+        } finally {
+            StringBuilderProvider.release(sbSelectFrom);
+        }
     }
 
     private String getObjectQueryString1() {
-        StringBuilder sbSelectFrom = new StringBuilder();
-        sbSelectFrom.append(selectManager.buildSelect(joinManager.getRootAlias()));
+        StringBuilder sbSelectFrom = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            selectManager.buildSelect(sbSelectFrom, joinManager.getRootAlias());
 
-        if (extractKeySet) {
-            orderByManager.buildSelectClauses(sbSelectFrom, true);
-        }
+            if (extractKeySet) {
+                orderByManager.buildSelectClauses(sbSelectFrom, true);
+            }
 
-        sbSelectFrom.append(" FROM ")
-                .append(fromClazz.getName())
-                .append(' ')
-                .append(joinManager.getRootAlias());
+            if (inlineCount) {
+                appendCountOver(sbSelectFrom);
+            }
 
-        joinManager.buildJoins(sbSelectFrom, EnumSet.noneOf(ClauseType.class), null);
+            sbSelectFrom.append(" FROM ")
+                    .append(fromClazz.getName())
+                    .append(' ')
+                    .append(joinManager.getRootAlias());
 
-        if (keySetMode == KeySetMode.NONE) {
-            whereManager.buildClause(sbSelectFrom);
-        } else {
-            sbSelectFrom.append(" WHERE ");
+            joinManager.buildJoins(sbSelectFrom, EnumSet.noneOf(ClauseType.class), null);
 
-            applyKeySetClause(sbSelectFrom);
+            if (!hasKeySetPredicate()) {
+                whereManager.buildClause(sbSelectFrom);
+            } else {
+                sbSelectFrom.append(" WHERE ");
 
-            if (whereManager.hasPredicates()) {
-                sbSelectFrom.append(" AND ");
-                whereManager.buildClausePredicate(sbSelectFrom);
+                applyKeySetClause(sbSelectFrom);
+
+                if (whereManager.hasPredicates()) {
+                    sbSelectFrom.append(" AND ");
+                    whereManager.buildClausePredicate(sbSelectFrom);
+                }
             }
-        }
 
-        Set<String> clauses = new LinkedHashSet<String>();
-        clauses.addAll(groupByManager.buildGroupByClauses());
-        if (selectManager.hasAggregateFunctions()) {
-            clauses.addAll(selectManager.buildGroupByClauses(em.getMetamodel()));
-            clauses.addAll(orderByManager.buildGroupByClauses());
-        }
-        groupByManager.buildGroupBy(sbSelectFrom, clauses);
+            Set<String> clauses = new LinkedHashSet<String>();
+            clauses.addAll(groupByManager.buildGroupByClauses());
+            if (selectManager.hasAggregateFunctions()) {
+                clauses.addAll(selectManager.buildGroupByClauses(em.getMetamodel()));
+                clauses.addAll(orderByManager.buildGroupByClauses());
+            }
+            groupByManager.buildGroupBy(sbSelectFrom, clauses);
 
-        havingManager.buildClause(sbSelectFrom);
+            havingManager.buildClause(sbSelectFrom);
 
-        boolean inverseOrder = keySetMode == KeySetMode.PREVIOUS;
-        orderByManager.buildOrderBy(sbSelectFrom, inverseOrder, false);
+            boolean inverseOrder = isInverseOrder();
+            orderByManager.buildOrderBy(sbSelectFrom, inverseOrder, false);
 
-        // execute illegal collection access check
-        orderByManager.acceptVisitor(new IllegalSubqueryDetector(aliasManager));
+            // execute illegal collection access check
+            orderByManager.acceptVisitor(new IllegalSubqueryDetector(aliasManager));
 
-        return sbSelectFrom.toString();
+            return sbSelectFrom.toString();
+        } finally {
+            StringBuilderProvider.release(sbSelectFrom);
+        }
     }
 
     private void applyKeySetClause(StringBuilder sb) {
-        int expressionCount = orderByExpressions.size();
         Serializable[] key;
 
         if (keySetMode == KeySetMode.NEXT) {
@@ -566,6 +961,11 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
             key = keySet.getLowest();
         }
 
+        applyKeySetClause(sb, keySetMode, key, KEY_SET_PARAMETER_NAME);
+    }
+
+    private void applyKeySetClause(StringBuilder sb, KeySetMode keySetMode, Serializable[] key, String parameterPrefix) {
+        int expressionCount = orderByExpressions.size();
         boolean generateEqualPredicate = true;
         int brackets = 0;
 
@@ -595,17 +995,17 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
                     if (orderByExpr.isNullFirst() == isPrevious) {
                         // Case for previous and null first or not previous and null last
                         sb.append('(');
-                        applyKeySetNotNullableItem(orderByExpr, sb, expr, i, key);
+                        applyKeySetNotNullableItem(orderByExpr, sb, expr, keySetMode, i, key, parameterPrefix);
                         sb.append(" OR ");
                         applyKeySetNullItem(sb, expr, false);
                         sb.append(')');
                     } else {
                         // Case for previous and null last or not previous and null first
-                        applyKeySetNotNullableItem(orderByExpr, sb, expr, i, key);
+                        applyKeySetNotNullableItem(orderByExpr, sb, expr, keySetMode, i, key, parameterPrefix);
                     }
                 }
             } else {
-                applyKeySetNotNullableItem(orderByExpr, sb, expr, i, key);
+                applyKeySetNotNullableItem(orderByExpr, sb, expr, keySetMode, i, key, parameterPrefix);
             }
 
             if (isNotLast) {
@@ -615,7 +1015,7 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
                     if (key[i] == null) {
                         applyKeySetNullItem(sb, expr, false);
                     } else {
-                        applyKeySetItem(sb, expr, "=", i, key[i]);
+                        applyKeySetItem(sb, expr, "=", i, key[i], parameterPrefix);
                     }
                 }
 
@@ -634,7 +1034,7 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
         }
     }
 
-    private void applyKeySetNotNullableItem(OrderByExpression orderByExpr, StringBuilder sb, Expression expr, int i, Serializable[] key) {
+    private void applyKeySetNotNullableItem(OrderByExpression orderByExpr, StringBuilder sb, Expression expr, KeySetMode keySetMode, int i, Serializable[] key, String parameterPrefix) {
         String operator;
         switch (keySetMode) {
             case SAME:
@@ -650,18 +1050,18 @@ public class PaginatedCriteriaBuilderImpl<T> extends AbstractQueryBuilder<T, Pag
                 throw new IllegalArgumentException("Unknown key set mode: " + keySetMode);
         }
 
-        applyKeySetItem(sb, expr, operator, i, key[i]);
+        applyKeySetItem(sb, expr, operator, i, key[i], parameterPrefix);
     }
 
-    private void applyKeySetItem(StringBuilder sb, Expression expr, String operator, int position, Serializable keyElement) {
+    private void applyKeySetItem(StringBuilder sb, Expression expr, String operator, int position, Serializable keyElement, String parameterPrefix) {
         queryGenerator.setQueryBuffer(sb);
         expr.accept(queryGenerator);
         sb.append(" ");
         sb.append(operator);
         sb.append(" :");
-        String parameterName = new StringBuilder(KEY_SET_PARAMETER_NAME).append('_').append(position).toString();
-        sb.append(parameterName);
-        parameterManager.addParameterMapping(parameterName, keyElement);
+        int parameterNameStart = sb.length();
+        sb.append(parameterPrefix).append('_').append(position);
+        parameterManager.addParameterMapping(sb.substring(parameterNameStart), keyElement);
     }
 
     private void applyKeySetNullItem(StringBuilder sb, Expression expr, boolean not) {
@@ -36,6 +36,7 @@ public class ParameterManager {
     private int counter;
     private final Map<Object, String> nameCache = new IdentityHashMap<Object, String>();
     private final Map<String, Object> parameters = new HashMap<String, Object>();
+    private final Set<String> inListParameterNames = new HashSet<String>();
     private static final Object REGISTERED_PLACEHOLDER = new Object();
 
     public Parameter<?> getParameter(String parameterName) {
@@ -121,6 +122,33 @@ public class ParameterManager {
         }
         parameters.put(parameterName, parameterValue);
     }
+
+    public void unsatisfyParameter(String parameterName) {
+        if (parameterName == null) {
+            throw new NullPointerException("parameterName");
+        }
+        if (!parameters.containsKey(parameterName)) {
+            throw new IllegalArgumentException(String.format("Parameter name \"%s\" does not exist", parameterName));
+        }
+        parameters.put(parameterName, REGISTERED_PLACEHOLDER);
+    }
+
+    /**
+     * Records that the parameter with the given name is used as the right hand side of an IN predicate.
+     * Only the values of such parameters are padded.
+     *
+     * @param parameterName The name of the parameter
+     */
+    public void registerInListParameter(String parameterName) {
+        if (parameterName == null) {
+            throw new NullPointerException("parameterName");
+        }
+        inListParameterNames.add(parameterName);
+    }
+
+    public boolean isInListParameter(String parameterName) {
+        return inListParameterNames.contains(parameterName);
+    }
     
     // TODO: needs equals-hashCode implementation
 
@@ -168,6 +196,23 @@ public class ParameterManager {
         public TemporalType getType() {
             return type;
         }
+
+        @Override
+        public int hashCode() {
+            return 31 * value.hashCode() + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TemporalCalendarParameterWrapper)) {
+                return false;
+            }
+            TemporalCalendarParameterWrapper other = (TemporalCalendarParameterWrapper) obj;
+            return value.equals(other.value) && type == other.type;
+        }
     }
 
     static class TemporalDateParameterWrapper {
@@ -187,5 +232,22 @@ public class ParameterManager {
         public TemporalType getType() {
             return type;
         }
+
+        @Override
+        public int hashCode() {
+            return 31 * value.hashCode() + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TemporalDateParameterWrapper)) {
+                return false;
+            }
+            TemporalDateParameterWrapper other = (TemporalDateParameterWrapper) obj;
+            return value.equals(other.value) && type == other.type;
+        }
     }
 }
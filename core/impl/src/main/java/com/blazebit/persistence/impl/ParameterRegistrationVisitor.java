@@ -17,6 +17,7 @@ package com.blazebit.persistence.impl;
 
 import com.blazebit.persistence.impl.expression.ParameterExpression;
 import com.blazebit.persistence.impl.expression.VisitorAdapter;
+import com.blazebit.persistence.impl.predicate.InPredicate;
 
 /**
  *
@@ -45,4 +46,13 @@ public class ParameterRegistrationVisitor extends VisitorAdapter {
             }
         }
     }
+
+    @Override
+    public void visit(InPredicate predicate) {
+        super.visit(predicate);
+
+        if (predicate.getRight() instanceof ParameterExpression) {
+            parameterManager.registerInListParameter(((ParameterExpression) predicate.getRight()).getName());
+        }
+    }
 };
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import com.blazebit.persistence.spi.EntityManagerIntegrator;
+import com.blazebit.persistence.spi.JpqlFunction;
+import com.blazebit.persistence.spi.WrappingEntityManagerIntegrator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+
+/**
+ * Everything a criteria builder factory determines once per entity manager factory.
+ * Instances are immutable apart from the caches, so they can be shared by all threads without locking.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+final class PersistenceUnitContext {
+
+    private final JPAInfo jpaInfo;
+    private final Set<String> registeredFunctions;
+    private final List<EntityManagerIntegrator> wrappingIntegrators;
+    private final Map<String, Map<String, JpqlFunction>> functions;
+    private final QueryTemplateCache queryTemplateCache;
+    private final PageCountCache pageCountCache;
+
+    public PersistenceUnitContext(JPAInfo jpaInfo, Set<String> registeredFunctions, List<EntityManagerIntegrator> wrappingIntegrators, Map<String, Map<String, JpqlFunction>> functions, QueryTemplateCache queryTemplateCache, PageCountCache pageCountCache) {
+        this.jpaInfo = jpaInfo;
+        this.registeredFunctions = registeredFunctions;
+        this.wrappingIntegrators = wrappingIntegrators;
+        this.functions = functions;
+        this.queryTemplateCache = queryTemplateCache;
+        this.pageCountCache = pageCountCache;
+    }
+
+    /**
+     * Returns the entity manager that should be used by query builders for the given entity manager.
+     * The functions are already registered, so only the wrapping integrators are applied since a wrapper belongs to a single entity manager.
+     * Integrators that wrap without implementing {@link WrappingEntityManagerIntegrator} can only be applied by registering the functions again.
+     *
+     * @param entityManager The entity manager of the caller
+     * @return The entity manager that should be used
+     */
+    public EntityManager enrich(EntityManager entityManager) {
+        EntityManager em = entityManager;
+
+        for (int i = 0; i < wrappingIntegrators.size(); i++) {
+            EntityManagerIntegrator integrator = wrappingIntegrators.get(i);
+
+            if (integrator instanceof WrappingEntityManagerIntegrator) {
+                em = ((WrappingEntityManagerIntegrator) integrator).wrap(em);
+            } else {
+                em = integrator.registerFunctions(em, functions);
+            }
+        }
+
+        return em;
+    }
+
+    public JPAInfo getJpaInfo() {
+        return jpaInfo;
+    }
+
+    public Set<String> getRegisteredFunctions() {
+        return registeredFunctions;
+    }
+
+    public QueryTemplateCache getQueryTemplateCache() {
+        return queryTemplateCache;
+    }
+
+    public PageCountCache getPageCountCache() {
+        return pageCountCache;
+    }
+}
@@ -46,6 +46,7 @@ import com.blazebit.persistence.impl.predicate.IsEmptyPredicate;
 import com.blazebit.persistence.impl.predicate.IsNullPredicate;
 import com.blazebit.persistence.impl.predicate.MemberOfPredicate;
 import com.blazebit.persistence.impl.predicate.OrPredicate;
+import java.util.List;
 
 /**
  *
@@ -134,6 +135,15 @@ public abstract class PredicateManager<T> extends AbstractManager {
         rootPredicate.getPredicate().accept(v);
     }
 
+    /**
+     * Returns the live list of the top level predicates which are implicitly combined by AND.
+     *
+     * @return The top level predicates
+     */
+    List<Predicate> getRootPredicates() {
+        return rootPredicate.getPredicate().getChildren();
+    }
+
     boolean hasPredicates() {
         return rootPredicate.getPredicate().getChildren().size() > 0;
     }
@@ -147,6 +157,11 @@ public abstract class PredicateManager<T> extends AbstractManager {
         applyPredicate(queryGenerator, sb);
     }
 
+    void buildTemplateKey(QueryTemplateKeyGenerator generator) {
+        generator.getQueryBuffer().append(' ').append(getClauseName()).append(' ');
+        rootPredicate.getPredicate().accept(generator);
+    }
+
     void buildClausePredicate(StringBuilder sb) {
         queryGenerator.setQueryBuffer(sb);
         applyPredicate(queryGenerator, sb);
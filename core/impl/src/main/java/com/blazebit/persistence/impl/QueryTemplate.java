@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The JPQL query string that was generated for a query builder structure together with the names of the parameters
+ * it contains, so that a builder that reuses the template can bind its parameters without being prepared.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class QueryTemplate {
+
+    private final String queryString;
+    private final Set<String> parameterNames;
+
+    public QueryTemplate(String queryString) {
+        this.queryString = queryString;
+        this.parameterNames = Collections.unmodifiableSet(extractParameterNames(queryString));
+    }
+
+    public String getQueryString() {
+        return queryString;
+    }
+
+    public Set<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    private static Set<String> extractParameterNames(String queryString) {
+        Set<String> parameterNames = new LinkedHashSet<String>();
+        int length = queryString.length();
+        boolean inLiteral = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = queryString.charAt(i);
+
+            if (c == '\'') {
+                // Escaped quotes within a literal toggle twice, so they don't need special handling
+                inLiteral = !inLiteral;
+            } else if (c == ':' && !inLiteral) {
+                int start = i + 1;
+                int end = start;
+
+                while (end < length && Character.isJavaIdentifierPart(queryString.charAt(end))) {
+                    end++;
+                }
+
+                if (end > start && Character.isJavaIdentifierStart(queryString.charAt(start))) {
+                    parameterNames.add(queryString.substring(start, end));
+                }
+
+                i = end - 1;
+            }
+        }
+
+        return parameterNames;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache that maps the structural key of a query builder to the {@link QueryTemplate} that was generated for it.
+ * Query builders of the same shape that only differ in parameter values can reuse the query string without
+ * applying implicit joins, expression transformers and rendering the query again.
+ * There is one cache per entity manager factory since the generated query depends on the JPA provider and the metamodel.
+ * The cache is split into segments that each evict their least recently used entry when they are full,
+ * so lookups of different query shapes rarely contend on the same lock.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class QueryTemplateCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+    private static final int MAXIMUM_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int maximumSize;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public QueryTemplateCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+        }
+
+        int segmentCount = 1;
+        // Only split up the cache if every segment can hold a reasonable amount of entries
+        while (segmentCount < MAXIMUM_SEGMENTS && segmentCount * 2 * MAXIMUM_SEGMENTS <= maximumSize) {
+            segmentCount <<= 1;
+        }
+
+        this.segments = new Segment[segmentCount];
+        this.maximumSize = maximumSize;
+        int segmentSize = maximumSize / segmentCount;
+        int remainder = maximumSize % segmentCount;
+
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(i < remainder ? segmentSize + 1 : segmentSize);
+        }
+    }
+
+    public QueryTemplate get(String key) {
+        QueryTemplate template = segmentFor(key).get(key);
+
+        if (template == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        return template;
+    }
+
+    public void put(String key, QueryTemplate template) {
+        segmentFor(key).put(key, template);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public int getSize() {
+        int size = 0;
+
+        for (int i = 0; i < segments.length; i++) {
+            size += segments[i].size();
+        }
+
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        // Spread the higher bits so that keys with a common prefix end up in different segments
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static final class Segment {
+
+        private final Map<String, QueryTemplate> entries;
+
+        public Segment(final int maximumSize) {
+            this.entries = new LinkedHashMap<String, QueryTemplate>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, QueryTemplate> eldest) {
+                    return size() > maximumSize;
+                }
+
+            };
+        }
+
+        public synchronized QueryTemplate get(String key) {
+            return entries.get(key);
+        }
+
+        public synchronized void put(String key, QueryTemplate template) {
+            entries.put(key, template);
+        }
+
+        public synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import com.blazebit.persistence.impl.expression.ParameterExpression;
+import com.blazebit.persistence.impl.expression.SubqueryExpression;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Renders the structure of a query builder into a key for the {@link QueryTemplateCache}.
+ * Expressions are rendered as they were given by the user, before implicit joins and transformations are applied.
+ * Since subqueries can't be rendered without preparing them, a builder that contains subqueries is marked as not cacheable.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class QueryTemplateKeyGenerator extends SimpleQueryGenerator implements JoinNodeVisitor {
+
+    private final int inListChunkSize;
+    private boolean cacheable = true;
+
+    public QueryTemplateKeyGenerator(StringBuilder sb, int inListChunkSize) {
+        this.sb = sb;
+        this.inListChunkSize = inListChunkSize;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    @Override
+    public void visit(JoinNode node) {
+        JoinTreeNode treeNode = node.getParentTreeNode();
+        sb.append('[');
+
+        if (treeNode == null) {
+            sb.append(node.getPropertyClass().getName());
+        } else {
+            sb.append(node.getParent().getAliasInfo().getAlias())
+                .append('.')
+                .append(treeNode.getRelationName());
+
+            if (treeNode.getDefaultNode() == node) {
+                sb.append(" DEFAULT");
+            }
+        }
+
+        sb.append(' ')
+            .append(node.getAliasInfo().getAlias())
+            .append(' ')
+            .append(node.getType());
+
+        if (node.getAliasInfo().isImplicit()) {
+            sb.append(" IMPLICIT");
+        }
+        if (node.isFetch()) {
+            sb.append(" FETCH");
+        }
+        if (node.getWithPredicate() != null) {
+            sb.append(" ON ");
+            node.getWithPredicate().accept(this);
+        }
+
+        sb.append(']');
+    }
+
+    @Override
+    public void visit(SubqueryExpression expression) {
+        cacheable = false;
+    }
+
+    @Override
+    public void visit(ParameterExpression expression) {
+        // The resolving query generator renders multi-valued inline parameters differently for Hibernate
+        if (expression.getValue() instanceof List<?> && ((List<?>) expression.getValue()).size() > 1) {
+            sb.append("(:").append(expression.getName()).append(')');
+        } else {
+            sb.append(':').append(expression.getName());
+        }
+
+        // IN predicates with many values are split into a predicate per chunk
+        if (expression.getValue() instanceof Collection<?>) {
+            int chunks = InListParameters.getChunkCount(((Collection<?>) expression.getValue()).size(), inListChunkSize);
+
+            if (chunks > 1) {
+                sb.append('{').append(chunks).append('}');
+            }
+        }
+    }
+}
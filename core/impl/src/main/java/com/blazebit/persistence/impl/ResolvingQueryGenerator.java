@@ -19,6 +19,8 @@ import com.blazebit.persistence.impl.expression.ArrayExpression;
 import com.blazebit.persistence.impl.expression.FunctionExpression;
 import com.blazebit.persistence.impl.expression.ParameterExpression;
 import com.blazebit.persistence.impl.expression.PathExpression;
+import com.blazebit.persistence.impl.predicate.InPredicate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -34,11 +36,35 @@ public class ResolvingQueryGenerator extends SimpleQueryGenerator {
     private final JPAInfo jpaInfo;
     protected String aliasPrefix;
     private final Set<String> registeredFunctions;
+    private final int inListChunkSize;
     
-    public ResolvingQueryGenerator(AliasManager aliasManager, JPAInfo jpaInfo, Set<String> registeredFunctions) {
+    public ResolvingQueryGenerator(AliasManager aliasManager, JPAInfo jpaInfo, Set<String> registeredFunctions, int inListChunkSize) {
         this.aliasManager = aliasManager;
         this.jpaInfo = jpaInfo;
         this.registeredFunctions = registeredFunctions;
+        this.inListChunkSize = inListChunkSize;
+    }
+
+    @Override
+    public void visit(InPredicate predicate) {
+        if (predicate.getRight() instanceof ParameterExpression) {
+            Object value = ((ParameterExpression) predicate.getRight()).getValue();
+
+            if (value instanceof Collection<?>) {
+                int chunks = InListParameters.getChunkCount(((Collection<?>) value).size(), inListChunkSize);
+
+                if (chunks > 1) {
+                    int startIndex = sb.length();
+                    predicate.getLeft().accept(this);
+                    String left = sb.substring(startIndex);
+                    sb.setLength(startIndex);
+                    InListParameters.renderChunkedInPredicate(sb, left, predicate.isNegated(), ((ParameterExpression) predicate.getRight()).getName(), chunks, jpaInfo.isHibernate);
+                    return;
+                }
+            }
+        }
+
+        super.visit(predicate);
     }
 
     @Override
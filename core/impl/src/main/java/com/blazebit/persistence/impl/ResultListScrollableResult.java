@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl;
+
+import com.blazebit.persistence.ScrollableResult;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A scrollable result over an already materialized result list.
+ * This is used when no JPA provider integration is available or if the result is bounded anyway like for a page.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class ResultListScrollableResult<T> implements ScrollableResult<T> {
+
+    private Iterator<T> iterator;
+
+    public ResultListScrollableResult(List<T> resultList) {
+        this.iterator = resultList.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterator != null && iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (iterator == null) {
+            throw new IllegalStateException("The scrollable result is already closed");
+        }
+
+        return iterator.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Scrollable results are read only");
+    }
+
+    @Override
+    public void close() {
+        iterator = null;
+    }
+}
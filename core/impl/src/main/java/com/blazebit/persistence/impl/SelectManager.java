@@ -115,19 +115,38 @@ public class SelectManager<T> extends AbstractManager {
         }
     }
 
+    void buildTemplateKey(QueryTemplateKeyGenerator generator) {
+        StringBuilder sb = generator.getQueryBuffer();
+        sb.append(distinct ? "SELECT DISTINCT " : "SELECT ");
+
+        for (SelectInfo selectInfo : selectInfos) {
+            selectInfo.getExpression().accept(generator);
+
+            if (selectInfo.getAlias() != null) {
+                sb.append(" AS ").append(selectInfo.getAlias());
+            }
+
+            sb.append(", ");
+        }
+    }
+
     String buildClausesForAliases(List<String> selectAliases) {
         if (selectAliases.isEmpty()) {
             return "";
         }
-        StringBuilder sb = new StringBuilder();
-        queryGenerator.setQueryBuffer(sb);
-        Iterator<String> iter = selectAliases.iterator();
-        applySelect(queryGenerator, sb, (SelectInfo) aliasManager.getAliasInfo(iter.next()));
-        while (iter.hasNext()) {
-            sb.append(", ");
+        StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            queryGenerator.setQueryBuffer(sb);
+            Iterator<String> iter = selectAliases.iterator();
             applySelect(queryGenerator, sb, (SelectInfo) aliasManager.getAliasInfo(iter.next()));
+            while (iter.hasNext()) {
+                sb.append(", ");
+                applySelect(queryGenerator, sb, (SelectInfo) aliasManager.getAliasInfo(iter.next()));
+            }
+            return sb.toString();
+        } finally {
+            StringBuilderProvider.release(sb);
         }
-        return sb.toString();
     }
 
     /**
@@ -155,19 +174,21 @@ public class SelectManager<T> extends AbstractManager {
             selectInfo.getExpression().accept(resolveVisitor);
         }
         Set<String> groupByClauses = new LinkedHashSet<String>();
-        for (PathExpression pathExpr : resolveVisitor.getPathExpressions()) {
-            StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
-            queryGenerator.setQueryBuffer(sb);
-            pathExpr.accept(queryGenerator);
-            groupByClauses.add(sb.toString());
-
+        StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+        try {
+            for (PathExpression pathExpr : resolveVisitor.getPathExpressions()) {
+                sb.setLength(0);
+                queryGenerator.setQueryBuffer(sb);
+                pathExpr.accept(queryGenerator);
+                groupByClauses.add(sb.toString());
+            }
+        } finally {
+            StringBuilderProvider.release(sb);
         }
         return groupByClauses;
     }
 
-    String buildSelect(String rootAlias
-    ) {
-        StringBuilder sb = new StringBuilder();
+    void buildSelect(StringBuilder sb, String rootAlias) {
         sb.append("SELECT ");
 
         if (distinct) {
@@ -186,8 +207,6 @@ public class SelectManager<T> extends AbstractManager {
                 applySelect(queryGenerator, sb, iter.next());
             }
         }
-
-        return sb.toString();
     }
 
     void applyTransformer(ExpressionTransformer transformer
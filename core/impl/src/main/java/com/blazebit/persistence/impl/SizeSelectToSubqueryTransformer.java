@@ -72,9 +72,20 @@ public class SizeSelectToSubqueryTransformer implements SelectInfoTransformer {
                 if (aliasManager.getAliasInfo(collectionPropertyName) != null) {
                     collectionPropertyAlias = aliasManager.generatePostfixedAlias(collectionPropertyName);
                 }
+                String countExpression;
+                String collectionPath;
+                StringBuilder sb = StringBuilderProvider.getEmptyStringBuilder();
+                try {
+                    countExpression = sb.append("COUNT(").append(collectionPropertyAlias).append(')').toString();
+                    sb.setLength(0);
+                    collectionPath = sb.append(collectionPropertyClassAlias).append('.').append(collectionPropertyName).toString();
+                } finally {
+                    StringBuilderProvider.release(sb);
+                }
+
                 Subquery countSubquery = (Subquery) subqueryInitFactory.createSubqueryInitiator(null, new SubqueryBuilderListenerImpl()).from(collectionPropertyClass, collectionPropertyClassAlias)
-                        .select(new StringBuilder("COUNT(").append(collectionPropertyAlias).append(")").toString())
-                        .leftJoin(new StringBuilder(collectionPropertyClassAlias).append('.').append(collectionPropertyName).toString(), collectionPropertyAlias)
+                        .select(countExpression)
+                        .leftJoin(collectionPath, collectionPropertyAlias)
                         .where(collectionPropertyClassAlias).eqExpression(baseAlias);
 
                 return new SubqueryExpression(countSubquery);
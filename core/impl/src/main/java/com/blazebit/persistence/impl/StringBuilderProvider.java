@@ -16,14 +16,69 @@
 
 package com.blazebit.persistence.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
+ * Provides reusable string builders for query string generation.
+ * Every thread has its own small pool, so concurrent builders never share a buffer.
+ * Since query generation is reentrant, e.g. for subqueries, a builder must be released
+ * via {@link #release(StringBuilder)} when the caller is done with it, preferably in a finally block.
+ * Builders that grew too large are not pooled to keep the memory footprint per thread bounded.
  *
  * @author Moritz Becker
+ * @author Christian Beikov
+ * @since 1.0
  */
-public class StringBuilderProvider {
-    private final static StringBuilder sb = new StringBuilder();
-    public static StringBuilder getEmptyStringBuilder(){
-        sb.setLength(0);
-        return sb;
+public final class StringBuilderProvider {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAXIMUM_POOLED_CAPACITY = 16 * 1024;
+    private static final int MAXIMUM_POOL_SIZE = 8;
+    private static final ThreadLocal<List<StringBuilder>> POOL = new ThreadLocal<List<StringBuilder>>() {
+
+        @Override
+        protected List<StringBuilder> initialValue() {
+            return new ArrayList<StringBuilder>(MAXIMUM_POOL_SIZE);
+        }
+
+    };
+
+    private StringBuilderProvider() {
+    }
+
+    /**
+     * Returns an empty string builder that is exclusively owned by the caller until it is released.
+     *
+     * @return An empty string builder
+     */
+    public static StringBuilder getEmptyStringBuilder() {
+        List<StringBuilder> pool = POOL.get();
+        int size = pool.size();
+
+        if (size == 0) {
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+
+        return pool.remove(size - 1);
+    }
+
+    /**
+     * Returns the given string builder to the pool of the current thread.
+     * The caller must not use the string builder after releasing it.
+     *
+     * @param sb The string builder to release
+     */
+    public static void release(StringBuilder sb) {
+        if (sb.capacity() > MAXIMUM_POOLED_CAPACITY) {
+            return;
+        }
+
+        List<StringBuilder> pool = POOL.get();
+
+        if (pool.size() < MAXIMUM_POOL_SIZE) {
+            sb.setLength(0);
+            pool.add(sb);
+        }
     }
 }
@@ -33,19 +33,21 @@ public class SubqueryInitiatorFactory {
     private final AliasManager aliasManager;
     private final ExpressionFactory expressionFactory;
     private final JoinManager parentJoinManager;
+    private final JPAInfo jpaInfo;
     private final Set<String> registeredFunctions;
 
-    public SubqueryInitiatorFactory(CriteriaBuilderFactoryImpl cbf, EntityManager em, ParameterManager parameterManager, AliasManager aliasManager, JoinManager parentJoinManager, ExpressionFactory expressionFactory, Set<String> registeredFunctions) {
+    public SubqueryInitiatorFactory(CriteriaBuilderFactoryImpl cbf, EntityManager em, ParameterManager parameterManager, AliasManager aliasManager, JoinManager parentJoinManager, ExpressionFactory expressionFactory, JPAInfo jpaInfo, Set<String> registeredFunctions) {
         this.cbf = cbf;
         this.em = em;
         this.parameterManager = parameterManager;
         this.aliasManager = aliasManager;
         this.expressionFactory = expressionFactory;
         this.parentJoinManager = parentJoinManager;
+        this.jpaInfo = jpaInfo;
         this.registeredFunctions = registeredFunctions;
     }
 
     public <T> SubqueryInitiator<T> createSubqueryInitiator(T result, SubqueryBuilderListener<T> listener) {
-        return new SubqueryInitiatorImpl<T>(cbf, em, result, parameterManager, aliasManager, parentJoinManager, listener, expressionFactory, registeredFunctions);
+        return new SubqueryInitiatorImpl<T>(cbf, em, result, parameterManager, aliasManager, parentJoinManager, listener, expressionFactory, jpaInfo, registeredFunctions);
     }
 }
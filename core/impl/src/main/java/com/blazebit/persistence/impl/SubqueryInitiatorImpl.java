@@ -37,9 +37,10 @@ public class SubqueryInitiatorImpl<X> implements SubqueryInitiator<X> {
     private final SubqueryBuilderListener<X> listener;
     private final ExpressionFactory expressionFactory;
     private final JoinManager parentJoinManager;
+    private final JPAInfo jpaInfo;
     private final Set<String> registeredFunctions;
 
-    public SubqueryInitiatorImpl(CriteriaBuilderFactoryImpl cbf, EntityManager em, X result, ParameterManager parameterManager, AliasManager aliasManager, JoinManager parentJoinManager, SubqueryBuilderListener<X> listener, ExpressionFactory expressionFactory, Set<String> registeredFunctions) {
+    public SubqueryInitiatorImpl(CriteriaBuilderFactoryImpl cbf, EntityManager em, X result, ParameterManager parameterManager, AliasManager aliasManager, JoinManager parentJoinManager, SubqueryBuilderListener<X> listener, ExpressionFactory expressionFactory, JPAInfo jpaInfo, Set<String> registeredFunctions) {
         this.cbf = cbf;
         this.em = em;
         this.result = result;
@@ -48,6 +49,7 @@ public class SubqueryInitiatorImpl<X> implements SubqueryInitiator<X> {
         this.listener = listener;
         this.expressionFactory = expressionFactory;
         this.parentJoinManager = parentJoinManager;
+        this.jpaInfo = jpaInfo;
         this.registeredFunctions = registeredFunctions;
     }
 
@@ -59,7 +61,7 @@ public class SubqueryInitiatorImpl<X> implements SubqueryInitiator<X> {
     @Override
     public SubqueryBuilder<X> from(Class<?> clazz, String alias) {
         SubqueryBuilderImpl<X> subqueryBuilder = new SubqueryBuilderImpl<X>(cbf, em, Tuple.class, null, result, parameterManager, aliasManager, parentJoinManager, listener,
-                                                                            expressionFactory, registeredFunctions);
+                                                                            expressionFactory, jpaInfo, registeredFunctions);
         subqueryBuilder.from(clazz, alias);
         listener.onBuilderStarted(subqueryBuilder);
         return subqueryBuilder;
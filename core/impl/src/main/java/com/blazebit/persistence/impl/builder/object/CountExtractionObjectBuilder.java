@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.builder.object;
+
+import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.SelectBuilder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strips the total size that is selected as last element of every tuple via a <code>COUNT(...) OVER()</code>
+ * window function and passes the remaining tuple to the delegate object builder.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class CountExtractionObjectBuilder<T> implements ObjectBuilder<T> {
+
+    private final ObjectBuilder<T> objectBuilder;
+    private long totalSize = -1;
+
+    public CountExtractionObjectBuilder(ObjectBuilder<T> objectBuilder) {
+        this.objectBuilder = objectBuilder;
+    }
+
+    @Override
+    public T build(Object[] tuple) {
+        Object[] newTuple = new Object[tuple.length - 1];
+        System.arraycopy(tuple, 0, newTuple, 0, newTuple.length);
+
+        if (totalSize == -1) {
+            totalSize = ((Number) tuple[newTuple.length]).longValue();
+        }
+
+        if (objectBuilder != null) {
+            return objectBuilder.build(newTuple);
+        } else if (newTuple.length == 1) {
+            return (T) newTuple[0];
+        }
+
+        return (T) newTuple;
+    }
+
+    /**
+     * Returns the total size that was extracted from the first tuple or <code>-1</code> if no tuple was built.
+     *
+     * @return The total size or <code>-1</code>
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Strips the total size that is selected as last element of every tuple of the given rows.
+     * If the tuples are not kept, only the first element of every tuple is returned.
+     *
+     * @param rows The tuples that contain the total size as last element
+     * @param keepTuples Whether to return the stripped tuples or only their first elements
+     * @return The list of stripped tuples or first elements
+     */
+    public static List<Object> stripCount(List<Object[]> rows, boolean keepTuples) {
+        List<Object> newRows = new ArrayList<Object>(rows.size());
+
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+
+            if (keepTuples) {
+                Object[] newRow = new Object[row.length - 1];
+                System.arraycopy(row, 0, newRow, 0, newRow.length);
+                newRows.add(newRow);
+            } else {
+                newRows.add(row[0]);
+            }
+        }
+
+        return newRows;
+    }
+
+    @Override
+    public List<T> buildList(List<T> list) {
+        if (objectBuilder != null) {
+            return objectBuilder.buildList(list);
+        }
+
+        return list;
+    }
+
+    @Override
+    public void applySelects(SelectBuilder<?, ?> selectBuilder) {
+        if (objectBuilder != null) {
+            objectBuilder.applySelects(selectBuilder);
+        }
+    }
+
+}
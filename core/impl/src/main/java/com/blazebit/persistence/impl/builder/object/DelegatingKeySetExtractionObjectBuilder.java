@@ -35,7 +35,7 @@ public class DelegatingKeySetExtractionObjectBuilder<T> extends KeySetExtraction
 
     @Override
     public T build(Object[] tuple) {
-        return objectBuilder.build((Object[]) super.build(tuple));
+        return objectBuilder.build(extractKeySet(tuple));
     }
 
     @Override
@@ -38,6 +38,16 @@ public class KeySetExtractionObjectBuilder<T> implements ObjectBuilder<T> {
 
     @Override
     public T build(Object[] tuple) {
+        Object[] newTuple = extractKeySet(tuple);
+
+        if (newTuple.length == 1) {
+            return (T) newTuple[0];
+        }
+
+        return (T) newTuple;
+    }
+
+    protected Object[] extractKeySet(Object[] tuple) {
         Object[] newTuple = new Object[tuple.length - keySetSize];
         System.arraycopy(tuple, 0, newTuple, 0, newTuple.length);
         
@@ -48,7 +58,7 @@ public class KeySetExtractionObjectBuilder<T> implements ObjectBuilder<T> {
             last = tuple;
         }
         
-        return (T) newTuple;
+        return newTuple;
     }
 
     public Serializable[] getLowest() {
@@ -20,6 +20,7 @@ import com.blazebit.persistence.impl.ParameterManager;
 import com.blazebit.persistence.impl.builder.predicate.PredicateBuilderEndedListenerImpl;
 import com.blazebit.persistence.impl.expression.ParameterExpression;
 import com.blazebit.persistence.impl.predicate.AndPredicate;
+import com.blazebit.persistence.impl.predicate.InPredicate;
 import com.blazebit.persistence.impl.predicate.Predicate;
 import com.blazebit.persistence.impl.predicate.PredicateBuilder;
 import com.blazebit.persistence.impl.expression.VisitorAdapter;
@@ -50,6 +51,15 @@ public class RootPredicate extends PredicateBuilderEndedListenerImpl {
                 }
             }
         }
+
+        @Override
+        public void visit(InPredicate predicate) {
+            super.visit(predicate);
+
+            if (predicate.getRight() instanceof ParameterExpression) {
+                parameterManager.registerInListParameter(((ParameterExpression) predicate.getRight()).getName());
+            }
+        }
     };
 
     public RootPredicate(ParameterManager parameterManager) {
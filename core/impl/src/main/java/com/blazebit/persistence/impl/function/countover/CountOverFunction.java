@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.function.countover;
+
+import com.blazebit.persistence.impl.function.TemplateRenderer;
+import com.blazebit.persistence.spi.FunctionRenderContext;
+import com.blazebit.persistence.spi.JpqlFunction;
+
+/**
+ * Renders a <code>COUNT(...) OVER()</code> window function that returns the number of rows of the whole result
+ * on every row, so that a page and the total size can be fetched with a single query.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class CountOverFunction implements JpqlFunction {
+
+    private final TemplateRenderer renderer;
+
+    public CountOverFunction() {
+        this.renderer = new TemplateRenderer("count(?1) over ()");
+    }
+
+    @Override
+    public void render(FunctionRenderContext context) {
+        if (context.getArgumentsSize() != 1) {
+            throw new RuntimeException("The count over function needs exactly one argument <expression>! args=" + context);
+        }
+
+        renderer.start(context)
+                .addArgument(0)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.metrics;
+
+/**
+ * An immutable snapshot of the values recorded for a metric by {@link HistogramQueryMetrics}.
+ * Values are counted in buckets of powers of two, so percentiles are only accurate up to a factor of two.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public final class Histogram {
+
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+    private final long[] buckets;
+
+    Histogram(long count, long sum, long min, long max, long[] buckets) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Returns the number of recorded values which is the value of a counter.
+     *
+     * @return The number of recorded values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns an upper bound of the value below which the given fraction of the recorded values lie.
+     *
+     * @param fraction The fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return The upper bound of the percentile or 0 if no values were recorded
+     */
+    public long getPercentile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Invalid fraction: " + fraction);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long threshold = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+
+            if (seen >= threshold) {
+                return Math.min(max, HistogramQueryMetrics.getBucketUpperBound(i));
+            }
+        }
+
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max + ", mean=" + getMean()
+            + ", p50=" + getPercentile(0.5) + ", p99=" + getPercentile(0.99) + '}';
+    }
+}
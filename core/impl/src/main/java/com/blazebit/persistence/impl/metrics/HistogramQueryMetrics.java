@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.metrics;
+
+import com.blazebit.persistence.spi.QueryMetric;
+import com.blazebit.persistence.spi.QueryMetrics;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Query metrics that keep an in-memory histogram per metric.
+ * Recording is lock free, so an instance can be shared by all threads of an application.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class HistogramQueryMetrics implements QueryMetrics {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final Map<QueryMetric, Recorder> recorders = new EnumMap<QueryMetric, Recorder>(QueryMetric.class);
+
+    public HistogramQueryMetrics() {
+        for (QueryMetric metric : QueryMetric.values()) {
+            recorders.put(metric, new Recorder());
+        }
+    }
+
+    @Override
+    public void recordTime(QueryMetric metric, long nanos) {
+        recorders.get(metric).record(nanos);
+    }
+
+    @Override
+    public void recordValue(QueryMetric metric, long value) {
+        recorders.get(metric).record(value);
+    }
+
+    @Override
+    public void increment(QueryMetric metric) {
+        recorders.get(metric).record(1L);
+    }
+
+    /**
+     * Returns a snapshot of the values recorded for the given metric.
+     *
+     * @param metric The metric
+     * @return The histogram of the metric
+     */
+    public Histogram getHistogram(QueryMetric metric) {
+        return recorders.get(metric).snapshot();
+    }
+
+    /**
+     * Returns snapshots of the values recorded for all metrics.
+     *
+     * @return The histograms by metric
+     */
+    public Map<QueryMetric, Histogram> getHistograms() {
+        Map<QueryMetric, Histogram> histograms = new EnumMap<QueryMetric, Histogram>(QueryMetric.class);
+
+        for (Map.Entry<QueryMetric, Recorder> entry : recorders.entrySet()) {
+            histograms.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        return histograms;
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        for (Recorder recorder : recorders.values()) {
+            recorder.reset();
+        }
+    }
+
+    static int getBucket(long value) {
+        if (value <= 0) {
+            return 0;
+        }
+
+        return BUCKET_COUNT - Long.numberOfLeadingZeros(value);
+    }
+
+    static long getBucketUpperBound(int bucket) {
+        if (bucket == 0) {
+            return 0;
+        }
+        if (bucket == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+
+        return (1L << bucket) - 1;
+    }
+
+    /**
+     * The values of a single metric. The snapshot is not atomic, so values recorded concurrently may be partly visible.
+     */
+    private static class Recorder {
+
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        void record(long value) {
+            buckets.incrementAndGet(getBucket(value));
+            sum.addAndGet(value);
+
+            long current;
+            while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+                // Retry until the minimum is updated or another thread recorded a smaller value
+            }
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // Retry until the maximum is updated or another thread recorded a bigger value
+            }
+        }
+
+        Histogram snapshot() {
+            long[] bucketCounts = new long[BUCKET_COUNT];
+            long bucketCount = 0;
+
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                bucketCounts[i] = buckets.get(i);
+                bucketCount += bucketCounts[i];
+            }
+
+            if (bucketCount == 0) {
+                return new Histogram(0, 0, 0, 0, bucketCounts);
+            }
+
+            return new Histogram(bucketCount, sum.get(), min.get(), max.get(), bucketCounts);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+
+            sum.set(0);
+            min.set(Long.MAX_VALUE);
+            max.set(Long.MIN_VALUE);
+        }
+    }
+}
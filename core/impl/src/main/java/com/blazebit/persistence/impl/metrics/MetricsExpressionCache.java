@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.metrics;
+
+import com.blazebit.persistence.impl.expression.Expression;
+import com.blazebit.persistence.impl.expression.ExpressionCache;
+import com.blazebit.persistence.impl.expression.ExpressionCacheStatistics;
+import com.blazebit.persistence.spi.QueryMetric;
+import com.blazebit.persistence.spi.QueryMetrics;
+
+/**
+ * An expression cache that counts the hits and misses of the delegate.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class MetricsExpressionCache implements ExpressionCache {
+
+    private final ExpressionCache delegate;
+    private final QueryMetrics queryMetrics;
+
+    public MetricsExpressionCache(ExpressionCache delegate, QueryMetrics queryMetrics) {
+        this.delegate = delegate;
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public <E extends Expression> E get(String cacheName, String expression) {
+        E result = delegate.get(cacheName, expression);
+
+        if (result == null) {
+            queryMetrics.increment(QueryMetric.EXPRESSION_CACHE_MISS);
+        } else {
+            queryMetrics.increment(QueryMetric.EXPRESSION_CACHE_HIT);
+        }
+
+        return result;
+    }
+
+    @Override
+    public <E extends Expression> E putIfAbsent(String cacheName, String expression, E value) {
+        return delegate.putIfAbsent(cacheName, expression, value);
+    }
+
+    @Override
+    public ExpressionCacheStatistics getStatistics(String cacheName) {
+        return delegate.getStatistics(cacheName);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.metrics;
+
+import com.blazebit.persistence.impl.expression.Expression;
+import com.blazebit.persistence.impl.expression.ExpressionFactory;
+import com.blazebit.persistence.impl.expression.PathExpression;
+import com.blazebit.persistence.spi.QueryMetric;
+import com.blazebit.persistence.spi.QueryMetrics;
+
+/**
+ * An expression factory that records the time it takes the delegate to parse an expression.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class MetricsExpressionFactory implements ExpressionFactory {
+
+    private final ExpressionFactory delegate;
+    private final QueryMetrics queryMetrics;
+
+    public MetricsExpressionFactory(ExpressionFactory delegate, QueryMetrics queryMetrics) {
+        this.delegate = delegate;
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public PathExpression createPathExpression(String expression) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createPathExpression(expression);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.EXPRESSION_PARSING, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Expression createSimpleExpression(String expression) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createSimpleExpression(expression);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.EXPRESSION_PARSING, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Expression createCaseOperandExpression(String caseOperandExpression) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createCaseOperandExpression(caseOperandExpression);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.EXPRESSION_PARSING, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Expression createScalarExpression(String expression) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createScalarExpression(expression);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.EXPRESSION_PARSING, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Expression createArithmeticExpression(String expression) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createArithmeticExpression(expression);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.EXPRESSION_PARSING, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Expression createStringExpression(String expression) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createStringExpression(expression);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.EXPRESSION_PARSING, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Expression createOrderByExpression(String expression) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createOrderByExpression(expression);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.EXPRESSION_PARSING, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.metrics;
+
+import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.SelectBuilder;
+import com.blazebit.persistence.spi.QueryMetric;
+import com.blazebit.persistence.spi.QueryMetrics;
+import java.util.List;
+
+/**
+ * An object builder that records the time the delegate takes to build objects.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class MetricsObjectBuilder<T> implements ObjectBuilder<T> {
+
+    private final ObjectBuilder<T> delegate;
+    private final QueryMetrics queryMetrics;
+
+    public MetricsObjectBuilder(ObjectBuilder<T> delegate, QueryMetrics queryMetrics) {
+        this.delegate = delegate;
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public void applySelects(SelectBuilder<?, ?> selectBuilder) {
+        delegate.applySelects(selectBuilder);
+    }
+
+    @Override
+    public T build(Object[] tuple) {
+        long start = System.nanoTime();
+        try {
+            return delegate.build(tuple);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.OBJECT_BUILDER_BUILD, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<T> buildList(List<T> list) {
+        long start = System.nanoTime();
+        try {
+            return delegate.buildList(list);
+        } finally {
+            queryMetrics.recordTime(QueryMetric.OBJECT_BUILDER_BUILD_LIST, System.nanoTime() - start);
+        }
+    }
+}
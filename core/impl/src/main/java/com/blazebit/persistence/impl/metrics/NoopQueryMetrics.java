@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.metrics;
+
+import com.blazebit.persistence.spi.QueryMetric;
+import com.blazebit.persistence.spi.QueryMetrics;
+
+/**
+ * The default query metrics that discard all recordings.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public final class NoopQueryMetrics implements QueryMetrics {
+
+    public static final NoopQueryMetrics INSTANCE = new NoopQueryMetrics();
+
+    private NoopQueryMetrics() {
+    }
+
+    @Override
+    public void recordTime(QueryMetric metric, long nanos) {
+    }
+
+    @Override
+    public void recordValue(QueryMetric metric, long value) {
+    }
+
+    @Override
+    public void increment(QueryMetric metric) {
+    }
+}
@@ -61,6 +61,10 @@ public class SimpleQueryGenerator extends VisitorAdapter {
         this.sb = sb;
     }
 
+    public StringBuilder getQueryBuffer() {
+        return sb;
+    }
+
     @Override
     public void visit(AndPredicate predicate) {
         if (predicate.getChildren().size() == 1) {
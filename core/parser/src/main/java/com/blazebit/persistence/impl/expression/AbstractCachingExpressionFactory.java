@@ -21,22 +21,65 @@ package com.blazebit.persistence.impl.expression;
  * @since 1.0
  */
 public abstract class AbstractCachingExpressionFactory implements ExpressionFactory {
+
+    public static final String PATH_EXPRESSION_CACHE = "com.blazebit.persistence.parser.expression.cache.PathExpression";
+    public static final String SIMPLE_EXPRESSION_CACHE = "com.blazebit.persistence.parser.expression.cache.SimpleExpression";
+    public static final String CASE_OPERAND_EXPRESSION_CACHE = "com.blazebit.persistence.parser.expression.cache.CaseOperandExpression";
+    public static final String SCALAR_EXPRESSION_CACHE = "com.blazebit.persistence.parser.expression.cache.ScalarExpression";
+    public static final String ARITHMETIC_EXPRESSION_CACHE = "com.blazebit.persistence.parser.expression.cache.ArithmeticExpression";
+    public static final String STRING_EXPRESSION_CACHE = "com.blazebit.persistence.parser.expression.cache.StringExpression";
+    public static final String ORDER_BY_EXPRESSION_CACHE = "com.blazebit.persistence.parser.expression.cache.OrderByExpression";
+    public static final String[] CACHE_NAMES = {
+        PATH_EXPRESSION_CACHE,
+        SIMPLE_EXPRESSION_CACHE,
+        CASE_OPERAND_EXPRESSION_CACHE,
+        SCALAR_EXPRESSION_CACHE,
+        ARITHMETIC_EXPRESSION_CACHE,
+        STRING_EXPRESSION_CACHE,
+        ORDER_BY_EXPRESSION_CACHE
+    };
     
     private final ExpressionFactory delegate;
+    private final ExpressionCache cache;
 
     public AbstractCachingExpressionFactory(ExpressionFactory delegate) {
+        this(delegate, new BoundedExpressionCache());
+    }
+
+    public AbstractCachingExpressionFactory(ExpressionFactory delegate, ExpressionCache cache) {
+        if (cache == null) {
+            throw new NullPointerException("cache");
+        }
         this.delegate = delegate;
+        this.cache = cache;
     }
     
     protected static interface Supplier<T> {
         public T get();
     }
+
+    public ExpressionCache getCache() {
+        return cache;
+    }
     
-    protected abstract <E extends Expression> E getOrDefault(String cacheName, String cacheKey, Supplier<E> defaultSupplier);
+    protected <E extends Expression> E getOrDefault(String cacheName, String cacheKey, Supplier<E> defaultSupplier) {
+        E expr = cache.get(cacheName, cacheKey);
+        
+        if (expr == null) {
+            expr = defaultSupplier.get();
+            E oldExpr = cache.putIfAbsent(cacheName, cacheKey, expr);
+            
+            if (oldExpr != null) {
+                expr = oldExpr;
+            }
+        }
+        
+        return expr;
+    }
 
     @Override
     public PathExpression createPathExpression(final String expression) {
-        return getOrDefault("com.blazebit.persistence.parser.expression.cache.PathExpression", expression, new Supplier<PathExpression>() {
+        return getOrDefault(PATH_EXPRESSION_CACHE, expression, new Supplier<PathExpression>() {
 
             @Override
             public PathExpression get() {
@@ -48,7 +91,7 @@ public abstract class AbstractCachingExpressionFactory implements ExpressionFact
 
     @Override
     public Expression createSimpleExpression(final String expression) {
-        return getOrDefault("com.blazebit.persistence.parser.expression.cache.SimpleExpression", expression, new Supplier<Expression>() {
+        return getOrDefault(SIMPLE_EXPRESSION_CACHE, expression, new Supplier<Expression>() {
 
             @Override
             public Expression get() {
@@ -60,7 +103,7 @@ public abstract class AbstractCachingExpressionFactory implements ExpressionFact
 
     @Override
     public Expression createCaseOperandExpression(final String expression) {
-        return getOrDefault("com.blazebit.persistence.parser.expression.cache.CaseOperandExpression", expression, new Supplier<Expression>() {
+        return getOrDefault(CASE_OPERAND_EXPRESSION_CACHE, expression, new Supplier<Expression>() {
 
             @Override
             public Expression get() {
@@ -72,7 +115,7 @@ public abstract class AbstractCachingExpressionFactory implements ExpressionFact
 
     @Override
     public Expression createScalarExpression(final String expression) {
-        return getOrDefault("com.blazebit.persistence.parser.expression.cache.ScalarExpression", expression, new Supplier<Expression>() {
+        return getOrDefault(SCALAR_EXPRESSION_CACHE, expression, new Supplier<Expression>() {
 
             @Override
             public Expression get() {
@@ -84,7 +127,7 @@ public abstract class AbstractCachingExpressionFactory implements ExpressionFact
 
     @Override
     public Expression createArithmeticExpression(final String expression) {
-        return getOrDefault("com.blazebit.persistence.parser.expression.cache.ArithmeticExpression", expression, new Supplier<Expression>() {
+        return getOrDefault(ARITHMETIC_EXPRESSION_CACHE, expression, new Supplier<Expression>() {
 
             @Override
             public Expression get() {
@@ -96,7 +139,7 @@ public abstract class AbstractCachingExpressionFactory implements ExpressionFact
 
     @Override
     public Expression createStringExpression(final String expression) {
-        return getOrDefault("com.blazebit.persistence.parser.expression.cache.StringExpression", expression, new Supplier<Expression>() {
+        return getOrDefault(STRING_EXPRESSION_CACHE, expression, new Supplier<Expression>() {
 
             @Override
             public Expression get() {
@@ -108,7 +151,7 @@ public abstract class AbstractCachingExpressionFactory implements ExpressionFact
 
     @Override
     public Expression createOrderByExpression(final String expression) {
-        return getOrDefault("com.blazebit.persistence.parser.expression.cache.OrderByExpression", expression, new Supplier<Expression>() {
+        return getOrDefault(ORDER_BY_EXPRESSION_CACHE, expression, new Supplier<Expression>() {
 
             @Override
             public Expression get() {
@@ -33,7 +33,14 @@ public class ArrayExpression implements PathElementExpression {
 
     @Override
     public ArrayExpression clone() {
-        return new ArrayExpression(base.clone(), index.clone());
+        Expression newIndex = index.clone();
+        
+        if (newIndex == index) {
+            // We can do this since the index is immutable
+            return this;
+        }
+        
+        return new ArrayExpression(base, newIndex);
     }
 
     @Override
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.expression;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An expression cache that holds at most a configurable number of expressions per cache name.
+ * Every cache is split into segments that each evict their least recently used entry when they are full,
+ * so lookups of different expressions rarely contend on the same lock.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class BoundedExpressionCache implements ExpressionCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+    private static final int MAXIMUM_SEGMENTS = 16;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<String, Cache>();
+    private final Map<String, Integer> maximumSizes;
+    private final int defaultMaximumSize;
+
+    public BoundedExpressionCache() {
+        this(DEFAULT_MAXIMUM_SIZE, Collections.<String, Integer>emptyMap());
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param defaultMaximumSize The maximum size for caches that have no explicit maximum size
+     * @param maximumSizes The maximum sizes by cache name
+     */
+    public BoundedExpressionCache(int defaultMaximumSize, Map<String, Integer> maximumSizes) {
+        if (defaultMaximumSize < 1) {
+            throw new IllegalArgumentException("Invalid default maximum size: " + defaultMaximumSize);
+        }
+        for (Map.Entry<String, Integer> entry : maximumSizes.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() < 1) {
+                throw new IllegalArgumentException("Invalid maximum size for cache '" + entry.getKey() + "': " + entry.getValue());
+            }
+        }
+
+        this.defaultMaximumSize = defaultMaximumSize;
+        this.maximumSizes = new HashMap<String, Integer>(maximumSizes);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E extends Expression> E get(String cacheName, String expression) {
+        return (E) getCache(cacheName).get(expression);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E extends Expression> E putIfAbsent(String cacheName, String expression, E value) {
+        return (E) getCache(cacheName).putIfAbsent(expression, value);
+    }
+
+    @Override
+    public ExpressionCacheStatistics getStatistics(String cacheName) {
+        return getCache(cacheName).getStatistics();
+    }
+
+    private Cache getCache(String cacheName) {
+        Cache cache = caches.get(cacheName);
+
+        if (cache == null) {
+            Integer maximumSize = maximumSizes.get(cacheName);
+            cache = new Cache(maximumSize == null ? defaultMaximumSize : maximumSize);
+            Cache oldCache = caches.putIfAbsent(cacheName, cache);
+
+            if (oldCache != null) {
+                cache = oldCache;
+            }
+        }
+
+        return cache;
+    }
+
+    private static final class Cache {
+
+        private final Segment[] segments;
+        private final int maximumSize;
+        private final AtomicLong hitCount = new AtomicLong();
+        private final AtomicLong missCount = new AtomicLong();
+        private final AtomicLong evictionCount = new AtomicLong();
+
+        public Cache(int maximumSize) {
+            int segmentCount = 1;
+            // Only split up the cache if every segment can hold a reasonable amount of entries
+            while (segmentCount < MAXIMUM_SEGMENTS && segmentCount * 2 * MAXIMUM_SEGMENTS <= maximumSize) {
+                segmentCount <<= 1;
+            }
+
+            this.segments = new Segment[segmentCount];
+            this.maximumSize = maximumSize;
+            int segmentSize = maximumSize / segmentCount;
+            int remainder = maximumSize % segmentCount;
+
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = new Segment(i < remainder ? segmentSize + 1 : segmentSize, evictionCount);
+            }
+        }
+
+        public Expression get(String key) {
+            Expression value = segmentFor(key).get(key);
+
+            if (value == null) {
+                missCount.incrementAndGet();
+            } else {
+                hitCount.incrementAndGet();
+            }
+
+            return value;
+        }
+
+        public Expression putIfAbsent(String key, Expression value) {
+            return segmentFor(key).putIfAbsent(key, value);
+        }
+
+        public ExpressionCacheStatistics getStatistics() {
+            int size = 0;
+
+            for (int i = 0; i < segments.length; i++) {
+                size += segments[i].size();
+            }
+
+            return new ExpressionCacheStatistics(hitCount.get(), missCount.get(), evictionCount.get(), size, maximumSize);
+        }
+
+        private Segment segmentFor(String key) {
+            int hash = key.hashCode();
+            // Spread the higher bits so that similar expression strings end up in different segments
+            hash ^= (hash >>> 16);
+            return segments[hash & (segments.length - 1)];
+        }
+    }
+
+    private static final class Segment {
+
+        private final Map<String, Expression> entries;
+
+        public Segment(final int maximumSize, final AtomicLong evictionCount) {
+            this.entries = new LinkedHashMap<String, Expression>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+                    if (size() > maximumSize) {
+                        evictionCount.incrementAndGet();
+                        return true;
+                    }
+
+                    return false;
+                }
+
+            };
+        }
+
+        public synchronized Expression get(String key) {
+            return entries.get(key);
+        }
+
+        public synchronized Expression putIfAbsent(String key, Expression value) {
+            Expression oldValue = entries.get(key);
+
+            if (oldValue == null) {
+                entries.put(key, value);
+            }
+
+            return oldValue;
+        }
+
+        public synchronized int size() {
+            return entries.size();
+        }
+    }
+}
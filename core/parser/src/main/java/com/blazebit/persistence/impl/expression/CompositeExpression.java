@@ -15,7 +15,6 @@
  */
 package com.blazebit.persistence.impl.expression;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,13 +31,17 @@ public class CompositeExpression implements Expression {
         this.expressions = expressions;
     }
 
+    /**
+     * Returns this instance if all sub expressions are immutable, otherwise a copy that shares the immutable sub expressions.
+     *
+     * @return A copy of this expression or this instance
+     */
     @Override
     public CompositeExpression clone() {
-        int size = expressions.size();
-        List<Expression> newExpressions = new ArrayList<Expression>(size);
+        List<Expression> newExpressions = ExpressionCopyUtils.cloneAll(expressions);
         
-        for (int i = 0; i < size; i++) {
-            newExpressions.add(expressions.get(i).clone());
+        if (newExpressions == null) {
+            return this;
         }
         
         return new CompositeExpression(newExpressions);
@@ -66,7 +69,7 @@ public class CompositeExpression implements Expression {
                 append(subexpr);
             }
         } else if (!expressions.isEmpty() && expr instanceof FooExpression && (lastExpr = expressions.get(expressions.size() - 1)) instanceof FooExpression) {
-            ((FooExpression) lastExpr).getStringBuilder().append(((FooExpression) expr).getStringBuilder());
+            expressions.set(expressions.size() - 1, new FooExpression(lastExpr.toString() + expr.toString()));
         } else {
             expressions.add(expr);
         }
@@ -76,7 +79,7 @@ public class CompositeExpression implements Expression {
         if (!str.isEmpty()) {
             Expression lastExpr;
             if (!expressions.isEmpty() && (lastExpr = expressions.get(expressions.size() - 1)) instanceof FooExpression) {
-                ((FooExpression) lastExpr).getStringBuilder().insert(0, str);
+                expressions.set(expressions.size() - 1, new FooExpression(str + lastExpr.toString()));
             } else {
                 expressions.add(0, new FooExpression(str));
             }
@@ -87,7 +90,7 @@ public class CompositeExpression implements Expression {
         if (str != null && !str.isEmpty()) {
             Expression lastExpr;
             if (!expressions.isEmpty() && (lastExpr = expressions.get(expressions.size() - 1)) instanceof FooExpression) {
-                ((FooExpression) lastExpr).getStringBuilder().append(str);
+                expressions.set(expressions.size() - 1, new FooExpression(lastExpr.toString() + str));
             } else {
                 expressions.add(new FooExpression(str));
             }
@@ -98,7 +101,7 @@ public class CompositeExpression implements Expression {
         if (sb != null && sb.length() > 0) {
             Expression lastExpr;
             if (!expressions.isEmpty() && (lastExpr = expressions.get(expressions.size() - 1)) instanceof FooExpression) {
-                ((FooExpression) lastExpr).getStringBuilder().append(sb);
+                expressions.set(expressions.size() - 1, new FooExpression(lastExpr.toString() + sb));
             } else {
                 expressions.add(new FooExpression(sb));
             }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.expression;
+
+/**
+ * A cache for parsed expressions that is used by {@link AbstractCachingExpressionFactory}.
+ * Implementations must be thread safe since a single cache is shared by all builders of a factory.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface ExpressionCache {
+
+    /**
+     * Returns the cached expression for the given expression string in the cache with the given name or null if there is none.
+     *
+     * @param cacheName The name of the cache
+     * @param expression The expression string
+     * @return The cached expression or null
+     */
+    public <E extends Expression> E get(String cacheName, String expression);
+
+    /**
+     * Puts the given expression into the cache with the given name if no expression is cached for the given expression string yet.
+     *
+     * @param cacheName The name of the cache
+     * @param expression The expression string
+     * @param value The parsed expression
+     * @return The previously cached expression or null if the given value has been put into the cache
+     */
+    public <E extends Expression> E putIfAbsent(String cacheName, String expression, E value);
+
+    /**
+     * Returns a snapshot of the statistics of the cache with the given name.
+     *
+     * @param cacheName The name of the cache
+     * @return The statistics of the cache
+     */
+    public ExpressionCacheStatistics getStatistics(String cacheName);
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for copying expression trees while sharing immutable sub expressions.
+ * Immutable expressions return themselves from {@link Expression#clone()}.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+final class ExpressionCopyUtils {
+
+    private ExpressionCopyUtils() {
+    }
+
+    /**
+     * Clones the given expressions.
+     *
+     * @param expressions The expressions to clone
+     * @return A new list containing the clones or null if all expressions are immutable
+     */
+    public static <E extends Expression> List<E> cloneAll(List<E> expressions) {
+        int size = expressions.size();
+        List<E> newExpressions = null;
+
+        for (int i = 0; i < size; i++) {
+            E expression = expressions.get(i);
+            @SuppressWarnings("unchecked")
+            E newExpression = (E) expression.clone();
+
+            if (newExpressions == null && newExpression != expression) {
+                newExpressions = new ArrayList<E>(size);
+                newExpressions.addAll(expressions.subList(0, i));
+            }
+            if (newExpressions != null) {
+                newExpressions.add(newExpression);
+            }
+        }
+
+        return newExpressions;
+    }
+}
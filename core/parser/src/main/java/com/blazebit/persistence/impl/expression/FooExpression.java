@@ -23,19 +23,16 @@ package com.blazebit.persistence.impl.expression;
  */
 public class FooExpression implements Expression {
 
-    private final StringBuilder stringBuilder;
+    private final String string;
 
     public FooExpression(CharSequence string) {
-        this.stringBuilder = new StringBuilder(string);
-    }
-    
-    public FooExpression(StringBuilder sb) {
-        this.stringBuilder = sb;
+        this.string = string.toString();
     }
 
     @Override
     public FooExpression clone() {
-        return new FooExpression(stringBuilder);
+        // We can do this since this is immutable
+        return this;
     }
 
     @Override
@@ -48,20 +45,15 @@ public class FooExpression implements Expression {
         return visitor.visit(this);
     }
 
-    StringBuilder getStringBuilder() {
-        return stringBuilder;
-    }
-    
-    
     @Override
     public String toString() {
-        return stringBuilder.toString();
+        return string;
     }
 
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 19 * hash + (this.stringBuilder.toString() != null ? this.stringBuilder.toString().hashCode() : 0);
+        hash = 19 * hash + (this.string != null ? this.string.hashCode() : 0);
         return hash;
     }
 
@@ -74,7 +66,7 @@ public class FooExpression implements Expression {
             return false;
         }
         final FooExpression other = (FooExpression) obj;
-        if (this.stringBuilder != other.stringBuilder && (this.stringBuilder == null || !this.stringBuilder.toString().equals(other.stringBuilder.toString()))) {
+        if ((this.string == null) ? (other.string != null) : !this.string.equals(other.string)) {
             return false;
         }
         return true;
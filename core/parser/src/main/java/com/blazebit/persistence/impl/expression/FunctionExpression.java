@@ -16,7 +16,6 @@
 package com.blazebit.persistence.impl.expression;
 
 import com.blazebit.persistence.impl.SimpleQueryGenerator;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,11 +36,11 @@ public class FunctionExpression implements Expression  {
 
     @Override
     public FunctionExpression clone() {
-        int size = expressions.size();
-        List<Expression> newExpressions = new ArrayList<Expression>(size);
+        List<Expression> newExpressions = ExpressionCopyUtils.cloneAll(expressions);
         
-        for (int i = 0; i < size; i++) {
-            newExpressions.add(expressions.get(i).clone());
+        if (newExpressions == null) {
+            // The arguments are never modified in place but only replaced via setExpressions
+            newExpressions = expressions;
         }
         
         return new FunctionExpression(functionName, newExpressions);
@@ -16,6 +16,7 @@
 package com.blazebit.persistence.impl.expression;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -26,7 +27,8 @@ import java.util.List;
  */
 public class PathExpression implements Expression, Cloneable {
 
-    private final List<PathElementExpression> pathProperties;
+    private List<PathElementExpression> pathProperties;
+    private boolean pathPropertiesShared;
     // Although this node will always be a JoinNode we will use casting at use site to be able to reuse the parser
     private Object baseNode;
     private String field;
@@ -54,13 +56,20 @@ public class PathExpression implements Expression, Cloneable {
         this.collectionKeyPath = collectionKeyPath;
     }
 
+    /**
+     * Returns a copy of this path expression. If all path elements are immutable, the copy shares the path elements
+     * with this expression and the path elements can only be changed via {@link #setExpressions(java.util.List)}.
+     *
+     * @return A copy of this path expression
+     */
     @Override
-    public Expression clone() {
-        int size = pathProperties.size();
-        List<PathElementExpression> newPathProperties = new ArrayList<PathElementExpression>(size);
+    public PathExpression clone() {
+        List<PathElementExpression> newPathProperties = ExpressionCopyUtils.cloneAll(pathProperties);
         
-        for (int i = 0; i < size; i++) {
-            newPathProperties.add(pathProperties.get(i).clone());
+        if (newPathProperties == null) {
+            PathExpression clone = new PathExpression(pathPropertiesShared ? pathProperties : Collections.unmodifiableList(pathProperties), baseNode, field, usedInCollectionFunction, collectionKeyPath);
+            clone.pathPropertiesShared = true;
+            return clone;
         }
         
         return new PathExpression(newPathProperties, baseNode, field, usedInCollectionFunction, collectionKeyPath);
@@ -80,6 +89,11 @@ public class PathExpression implements Expression, Cloneable {
         return pathProperties;
     }
 
+    public void setExpressions(List<PathElementExpression> pathProperties) {
+        this.pathProperties = pathProperties;
+        this.pathPropertiesShared = false;
+    }
+
     public Object getBaseNode() {
         return baseNode;
     }
@@ -15,47 +15,26 @@
  */
 package com.blazebit.persistence.impl.expression;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
 /**
+ * A caching expression factory that hands out copies of the cached expressions.
+ * The copies share all immutable parts like literals and path elements with the cached expression,
+ * so only nodes that are bound or transformed per query builder are allocated.
  *
  * @author cpbec
  */
 public class SimpleCachingExpressionFactory extends AbstractCachingExpressionFactory {
-    
-    private final ConcurrentMap<String, ConcurrentMap<String, Expression>> cacheManager;
 
     public SimpleCachingExpressionFactory(ExpressionFactory delegate) {
         super(delegate);
-        this.cacheManager = new ConcurrentHashMap<String, ConcurrentMap<String, Expression>>();
+    }
+
+    public SimpleCachingExpressionFactory(ExpressionFactory delegate, ExpressionCache cache) {
+        super(delegate, cache);
     }
 
     @Override
     protected <E extends Expression> E getOrDefault(String cacheName, String cacheKey, Supplier<E> defaultSupplier) {
-        ConcurrentMap<String, Expression> cache = cacheManager.get(cacheName);
-        
-        if (cache == null) {
-            cache = new ConcurrentHashMap<String, Expression>();
-            ConcurrentMap<String, Expression> oldCache = cacheManager.putIfAbsent(cacheKey, cache);
-            
-            if (oldCache != null) {
-                cache = oldCache;
-            }
-        }
-        
-        E expr = (E) cache.get(cacheKey);
-        
-        if (expr == null) {
-            expr = defaultSupplier.get();
-            E oldExpr = (E) cache.putIfAbsent(cacheKey, expr);
-            
-            if (oldExpr != null) {
-                expr = oldExpr;
-            }
-        }
-        
-        return (E) expr.clone();
+        return (E) super.getOrDefault(cacheName, cacheKey, defaultSupplier).clone();
     }
     
 }
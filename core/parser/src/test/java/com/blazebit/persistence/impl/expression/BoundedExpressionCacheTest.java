@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.expression;
+
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class BoundedExpressionCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        BoundedExpressionCache cache = new BoundedExpressionCache(2, Collections.<String, Integer>emptyMap());
+        String cacheName = AbstractCachingExpressionFactory.SIMPLE_EXPRESSION_CACHE;
+        ExpressionFactory ef = new ExpressionFactoryImpl();
+
+        cache.putIfAbsent(cacheName, "a", ef.createSimpleExpression("a"));
+        cache.putIfAbsent(cacheName, "b", ef.createSimpleExpression("b"));
+        Assert.assertNotNull(cache.get(cacheName, "a"));
+        cache.putIfAbsent(cacheName, "c", ef.createSimpleExpression("c"));
+
+        Assert.assertNotNull(cache.get(cacheName, "a"));
+        Assert.assertNull(cache.get(cacheName, "b"));
+        Assert.assertNotNull(cache.get(cacheName, "c"));
+
+        ExpressionCacheStatistics statistics = cache.getStatistics(cacheName);
+        Assert.assertEquals(3, statistics.getHitCount());
+        Assert.assertEquals(1, statistics.getMissCount());
+        Assert.assertEquals(1, statistics.getEvictionCount());
+        Assert.assertEquals(2, statistics.getSize());
+        Assert.assertEquals(2, statistics.getMaximumSize());
+    }
+
+    @Test
+    public void testMaximumSizePerCacheName() {
+        String pathCache = AbstractCachingExpressionFactory.PATH_EXPRESSION_CACHE;
+        String simpleCache = AbstractCachingExpressionFactory.SIMPLE_EXPRESSION_CACHE;
+        BoundedExpressionCache cache = new BoundedExpressionCache(5000, Collections.singletonMap(pathCache, 10));
+
+        Assert.assertEquals(10, cache.getStatistics(pathCache).getMaximumSize());
+        Assert.assertEquals(5000, cache.getStatistics(simpleCache).getMaximumSize());
+    }
+
+    @Test
+    public void testCachingFactoryStaysBounded() {
+        BoundedExpressionCache cache = new BoundedExpressionCache(64, Collections.<String, Integer>emptyMap());
+        AbstractCachingExpressionFactory ef = new SimpleCachingExpressionFactory(new ExpressionFactoryImpl(), cache);
+
+        for (int i = 0; i < 1000; i++) {
+            ef.createSimpleExpression("a.b + " + i);
+        }
+
+        ExpressionCacheStatistics statistics = ef.getCache().getStatistics(AbstractCachingExpressionFactory.SIMPLE_EXPRESSION_CACHE);
+        Assert.assertTrue(statistics.getSize() <= 64);
+        Assert.assertEquals(1000 - statistics.getSize(), statistics.getEvictionCount());
+        Assert.assertEquals(1000, statistics.getMissCount());
+        Assert.assertEquals(0, cache.getStatistics(AbstractCachingExpressionFactory.PATH_EXPRESSION_CACHE).getSize());
+    }
+}
@@ -16,6 +16,8 @@
 package com.blazebit.persistence.impl.expression;
 
 import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import java.util.ArrayList;
+import java.util.Arrays;
 import com.carrotsearch.junitbenchmarks.BenchmarkRule;
 import org.junit.Assert;
 import org.junit.Before;
@@ -41,4 +43,33 @@ public class SimpleCachingExpressionFactoryTest {
         Assert.assertFalse(expr1 == expr2);
         Assert.assertEquals(expr1, expr2);
     }
+
+    @Test
+    public void testCachedExpressionSharesImmutableParts() {
+        ExpressionFactory ef = new SimpleCachingExpressionFactory(new ExpressionFactoryImpl());
+        String expressionString = "a.b.c + 1";
+
+        CompositeExpression expr1 = (CompositeExpression) ef.createSimpleExpression(expressionString);
+        CompositeExpression expr2 = (CompositeExpression) ef.createSimpleExpression(expressionString);
+        PathExpression path1 = (PathExpression) expr1.getExpressions().get(0);
+        PathExpression path2 = (PathExpression) expr2.getExpressions().get(0);
+
+        Assert.assertFalse(path1 == path2);
+        Assert.assertSame(path1.getExpressions().get(0), path2.getExpressions().get(0));
+        Assert.assertSame(expr1.getExpressions().get(1), expr2.getExpressions().get(1));
+    }
+
+    @Test
+    public void testModifyingCopyDoesNotAffectCache() {
+        ExpressionFactory ef = new SimpleCachingExpressionFactory(new ExpressionFactoryImpl());
+        String expressionString = "a.b";
+
+        PathExpression expr1 = ef.createPathExpression(expressionString);
+        expr1.setField("b");
+        expr1.setExpressions(new ArrayList<PathElementExpression>(Arrays.asList(new PropertyExpression("x"), new PropertyExpression("y"))));
+        PathExpression expr2 = ef.createPathExpression(expressionString);
+
+        Assert.assertNull(expr2.getField());
+        Assert.assertEquals("a.b", expr2.toString());
+    }
 }
@@ -62,7 +62,7 @@ public abstract class AbstractCoreTest extends AbstractPersistenceTest {
     protected Set<String> getRegisteredFunctions() {
         return new HashSet<String>(Arrays.asList(
                 // internal functions
-                "page_position",
+                "page_position", "count_over",
                 // test functions
                 "zero", "concatenate"
         ));
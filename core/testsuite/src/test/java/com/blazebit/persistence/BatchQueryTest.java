@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import com.blazebit.persistence.entity.Document;
+import com.blazebit.persistence.entity.Person;
+import com.blazebit.persistence.impl.ConfigurationProperties;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Tuple;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class BatchQueryTest extends AbstractCoreTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private Person owner1;
+    private Person owner2;
+    private Person owner3;
+
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        config = super.configure(config);
+        config.setProperty(ConfigurationProperties.IN_LIST_PADDING, "true");
+        config.setProperty(ConfigurationProperties.IN_LIST_CHUNK_SIZE, "2");
+        return config;
+    }
+
+    @Before
+    public void setUp() {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            owner1 = new Person("owner1");
+            owner2 = new Person("owner2");
+            owner3 = new Person("owner3");
+            em.persist(owner1);
+            em.persist(owner2);
+            em.persist(owner3);
+
+            Document doc1 = new Document("doc1", owner1);
+            Document doc2 = new Document("doc2", owner1);
+            Document doc3 = new Document("doc3", owner2);
+            doc1.setLastModified(new Date(DAY));
+            doc2.setLastModified(new Date(DAY));
+            doc3.setLastModified(new Date(2 * DAY));
+            em.persist(doc1);
+            em.persist(doc2);
+            em.persist(doc3);
+
+            em.flush();
+            tx.commit();
+            em.clear();
+        } catch (Exception e) {
+            tx.rollback();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testBatchedEntities() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .where("d.owner.id").eqExpression(":ownerId")
+            .orderByAsc("d.name");
+        String queryString = criteria.getQueryString();
+
+        Map<Long, List<Document>> results = criteria.getResultLists("ownerId", Arrays.asList(owner2.getId(), owner1.getId(), owner3.getId()));
+
+        Iterator<Map.Entry<Long, List<Document>>> iter = results.entrySet().iterator();
+        assertEquals(owner2.getId(), iter.next().getKey());
+        assertEquals(owner1.getId(), iter.next().getKey());
+        assertEquals(owner3.getId(), iter.next().getKey());
+        assertNames(results.get(owner1.getId()), "doc1", "doc2");
+        assertNames(results.get(owner2.getId()), "doc3");
+        assertNames(results.get(owner3.getId()));
+        assertEquals(queryString, criteria.getQueryString());
+        assertFalse(criteria.isParameterSet("ownerId"));
+    }
+
+    @Test
+    public void testBatchedScalars() {
+        CriteriaBuilder<String> criteria = cbf.create(em, String.class)
+            .from(Document.class, "d")
+            .select("d.name")
+            .where("d.owner.id").eqExpression(":ownerId")
+            .orderByDesc("d.name");
+
+        Map<Long, List<String>> results = criteria.getResultLists("ownerId", Arrays.asList(owner1.getId(), owner2.getId(), owner1.getId()));
+
+        assertEquals(2, results.size());
+        assertEquals(Arrays.asList("doc2", "doc1"), results.get(owner1.getId()));
+        assertEquals(Arrays.asList("doc3"), results.get(owner2.getId()));
+    }
+
+    @Test
+    public void testReboundForStringValues() {
+        // Strings are not batched since the database might compare them case insensitive
+        CriteriaBuilder<String> criteria = cbf.create(em, String.class)
+            .from(Document.class, "d")
+            .select("d.name")
+            .where("d.owner.name").eqExpression(":ownerName")
+            .orderByDesc("d.name");
+
+        Map<String, List<String>> results = criteria.getResultLists("ownerName", Arrays.asList("owner1", "owner2", "owner1"));
+
+        assertEquals(2, results.size());
+        assertEquals(Arrays.asList("doc2", "doc1"), results.get("owner1"));
+        assertEquals(Arrays.asList("doc3"), results.get("owner2"));
+    }
+
+    @Test
+    public void testBatchedTuples() {
+        CriteriaBuilder<Tuple> criteria = cbf.create(em, Tuple.class)
+            .from(Document.class, "d")
+            .select("d.name", "name")
+            .select("d.owner.name", "ownerName")
+            .where("d.owner.id").eqExpression(":ownerId")
+            .orderByAsc("d.name");
+
+        Map<Long, List<Tuple>> results = criteria.getResultLists("ownerId", Arrays.asList(owner1.getId(), owner2.getId()));
+
+        List<Tuple> owner1Tuples = results.get(owner1.getId());
+        assertEquals(2, owner1Tuples.size());
+        assertEquals("doc1", owner1Tuples.get(0).get("name"));
+        assertEquals("owner1", owner1Tuples.get(0).get("ownerName"));
+        assertEquals("doc3", results.get(owner2.getId()).get(0).get("name"));
+    }
+
+    @Test
+    public void testReboundForNestedPredicate() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .whereOr()
+                .where("d.owner.id").eqExpression(":ownerId")
+                .where("d.name").eq("doc3")
+            .endOr()
+            .orderByAsc("d.name");
+
+        Map<Long, List<Document>> results = criteria.getResultLists("ownerId", Arrays.asList(owner1.getId(), owner3.getId()));
+
+        assertNames(results.get(owner1.getId()), "doc1", "doc2", "doc3");
+        assertNames(results.get(owner3.getId()), "doc3");
+    }
+
+    @Test
+    public void testReboundForEntityValues() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .where("d.owner").eqExpression(":owner")
+            .orderByAsc("d.name");
+
+        Map<Person, List<Document>> results = criteria.getResultLists("owner", Arrays.asList(owner1, owner2));
+
+        assertNames(results.get(owner1), "doc1", "doc2");
+        assertNames(results.get(owner2), "doc3");
+    }
+
+    @Test
+    public void testReboundForDateValues() {
+        // The query returns timestamps which are never equal to the given dates
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .where("d.lastModified").eqExpression(":lastModified")
+            .orderByAsc("d.name");
+
+        Map<Date, List<Document>> results = criteria.getResultLists("lastModified", Arrays.asList(new Date(DAY), new Date(2 * DAY)));
+
+        assertNames(results.get(new Date(DAY)), "doc1", "doc2");
+        assertNames(results.get(new Date(2 * DAY)), "doc3");
+    }
+
+    @Test
+    public void testPaginated() {
+        PaginatedCriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .where("d.owner.id").eqExpression(":ownerId")
+            .orderByAsc("d.name")
+            .orderByAsc("d.id")
+            .page(0, 1);
+
+        Map<Long, List<Document>> results = criteria.getResultLists("ownerId", Arrays.asList(owner1.getId(), owner2.getId()));
+
+        assertNames(results.get(owner1.getId()), "doc1");
+        assertEquals(2, ((PagedList<Document>) results.get(owner1.getId())).getTotalSize());
+        assertNames(results.get(owner2.getId()), "doc3");
+        assertEquals(1, ((PagedList<Document>) results.get(owner2.getId())).getTotalSize());
+        assertFalse(criteria.isParameterSet("ownerId"));
+    }
+
+    private static void assertNames(List<Document> documents, String... names) {
+        assertEquals(names.length, documents.size());
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], documents.get(i).getName());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import com.blazebit.persistence.impl.builder.object.CountExtractionObjectBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class CountExtractionObjectBuilderTest {
+
+    @Test
+    public void testBuildWithoutDelegate() {
+        CountExtractionObjectBuilder<Object> objectBuilder = new CountExtractionObjectBuilder<Object>(null);
+        assertEquals(-1, objectBuilder.getTotalSize());
+
+        // A single remaining element is unwrapped like the JPA provider would do for a single select item
+        assertEquals(1L, objectBuilder.build(new Object[]{ 1L, 7L }));
+        assertArrayEquals(new Object[]{ 2L, "doc2" }, (Object[]) objectBuilder.build(new Object[]{ 2L, "doc2", 7L }));
+        assertEquals(7, objectBuilder.getTotalSize());
+    }
+
+    @Test
+    public void testBuildWithDelegate() {
+        final List<Object[]> builtTuples = new ArrayList<Object[]>();
+        ObjectBuilder<String> delegate = new ObjectBuilder<String>() {
+
+            @Override
+            public void applySelects(SelectBuilder<?, ?> selectBuilder) {
+            }
+
+            @Override
+            public String build(Object[] tuple) {
+                builtTuples.add(tuple);
+                return (String) tuple[0];
+            }
+
+            @Override
+            public List<String> buildList(List<String> list) {
+                return list;
+            }
+        };
+        CountExtractionObjectBuilder<String> objectBuilder = new CountExtractionObjectBuilder<String>(delegate);
+
+        assertEquals("doc1", objectBuilder.build(new Object[]{ "doc1", 3L }));
+        // The total size is the same for all tuples, so only the first one is read
+        assertEquals("doc2", objectBuilder.build(new Object[]{ "doc2", 4L }));
+
+        assertEquals(2, builtTuples.size());
+        assertArrayEquals(new Object[]{ "doc1" }, builtTuples.get(0));
+        assertArrayEquals(new Object[]{ "doc2" }, builtTuples.get(1));
+        assertEquals(3, objectBuilder.getTotalSize());
+    }
+
+    @Test
+    public void testStripCount() {
+        List<Object[]> rows = Arrays.asList(new Object[]{ 1L, "a", 2L }, new Object[]{ 2L, "b", 2L });
+
+        List<Object> ids = CountExtractionObjectBuilder.stripCount(rows, false);
+        assertEquals(Arrays.<Object>asList(1L, 2L), ids);
+
+        List<Object> tuples = CountExtractionObjectBuilder.stripCount(rows, true);
+        assertEquals(2, tuples.size());
+        assertArrayEquals(new Object[]{ 1L, "a" }, (Object[]) tuples.get(0));
+        assertArrayEquals(new Object[]{ 2L, "b" }, (Object[]) tuples.get(1));
+    }
+}
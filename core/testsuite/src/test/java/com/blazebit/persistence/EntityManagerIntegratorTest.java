@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import com.blazebit.persistence.entity.Document;
+import com.blazebit.persistence.impl.CriteriaBuilderFactoryImpl;
+import com.blazebit.persistence.impl.JPAInfo;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import com.blazebit.persistence.spi.EntityManagerIntegrator;
+import com.blazebit.persistence.spi.JpqlFunction;
+import com.blazebit.persistence.spi.WrappingEntityManagerIntegrator;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class EntityManagerIntegratorTest extends AbstractCoreTest {
+
+    private final CountingEntityManagerIntegrator countingIntegrator = new CountingEntityManagerIntegrator();
+    private final ProxyingEntityManagerIntegrator wrappingIntegrator = new ProxyingEntityManagerIntegrator();
+    private final LegacyProxyingEntityManagerIntegrator legacyWrappingIntegrator = new LegacyProxyingEntityManagerIntegrator();
+
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        config = super.configure(config);
+        config.registerEntityManagerIntegrator(countingIntegrator);
+        config.registerEntityManagerIntegrator(wrappingIntegrator);
+        config.registerEntityManagerIntegrator(legacyWrappingIntegrator);
+        return config;
+    }
+
+    @Test
+    public void testFunctionsAreRegisteredOncePerEntityManagerFactory() {
+        for (int i = 0; i < 3; i++) {
+            cbf.create(em, Document.class, "d").getResultList();
+        }
+
+        assertEquals(1, countingIntegrator.registrations);
+    }
+
+    @Test
+    public void testWrappedEntityManagerIsUsed() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+
+        assertTrue(Proxy.isProxyClass(criteria.getEntityManager().getClass()));
+        EntityManager wrappedEm = ((WrappingInvocationHandler) Proxy.getInvocationHandler(criteria.getEntityManager())).delegate;
+        assertSame(em, ((WrappingInvocationHandler) Proxy.getInvocationHandler(wrappedEm)).delegate);
+        assertEquals(0, criteria.getResultList().size());
+
+        int wraps = wrappingIntegrator.wraps;
+        cbf.create(em, Document.class, "d");
+        // The functions are registered once, only the wrapper is created for every builder
+        assertEquals(1, wrappingIntegrator.registrations);
+        assertEquals(wraps + 1, wrappingIntegrator.wraps);
+        // Once for the persistence unit and once for every further builder since the wrapper can't be created otherwise
+        assertEquals(3, legacyWrappingIntegrator.registrations);
+    }
+
+    @Test
+    public void testIntegratorsWithoutDbmsSupport() {
+        // The counting and proxying integrators don't determine the dbms but the hibernate integrator does
+        assertEquals("h2", ((CriteriaBuilderFactoryImpl) cbf).getJpaInfo(em).dbms);
+    }
+
+    @Test
+    public void testDbmsForJdbcUrl() {
+        assertEquals("h2", JPAInfo.getDbmsForJdbcUrl("jdbc:h2:mem:test"));
+        assertEquals("mysql", JPAInfo.getDbmsForJdbcUrl("jdbc:mysql://localhost/test"));
+        assertEquals("microsoft", JPAInfo.getDbmsForJdbcUrl("jdbc:jtds:sqlserver://localhost/test"));
+        assertEquals("postgresql", JPAInfo.getDbmsForJdbcUrl("jdbc:postgresql://localhost/test"));
+        assertEquals("oracle", JPAInfo.getDbmsForJdbcUrl("jdbc:oracle:thin:@localhost:1521:test"));
+        assertEquals("h2", JPAInfo.getDbms(em.getEntityManagerFactory().getProperties()));
+        assertNull(JPAInfo.getDbmsForJdbcUrl("jdbc:unknown:test"));
+    }
+
+    private static class CountingEntityManagerIntegrator implements EntityManagerIntegrator {
+
+        protected int registrations;
+
+        @Override
+        public EntityManager registerFunctions(EntityManager entityManager, Map<String, Map<String, JpqlFunction>> dbmsFunctions) {
+            registrations++;
+            return entityManager;
+        }
+
+        @Override
+        public Set<String> getRegisteredFunctions(EntityManager entityManager) {
+            return Collections.emptySet();
+        }
+    }
+
+    private static class ProxyingEntityManagerIntegrator extends CountingEntityManagerIntegrator implements WrappingEntityManagerIntegrator {
+
+        protected int wraps;
+
+        @Override
+        public EntityManager wrap(EntityManager entityManager) {
+            wraps++;
+            return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ EntityManager.class }, new WrappingInvocationHandler(entityManager));
+        }
+    }
+
+    private static class LegacyProxyingEntityManagerIntegrator extends CountingEntityManagerIntegrator {
+
+        @Override
+        public EntityManager registerFunctions(EntityManager entityManager, Map<String, Map<String, JpqlFunction>> dbmsFunctions) {
+            super.registerFunctions(entityManager, dbmsFunctions);
+            return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ EntityManager.class }, new WrappingInvocationHandler(entityManager));
+        }
+    }
+
+    private static class WrappingInvocationHandler implements InvocationHandler {
+
+        private final EntityManager delegate;
+
+        public WrappingInvocationHandler(EntityManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import com.blazebit.persistence.entity.Document;
+import com.blazebit.persistence.entity.Person;
+import com.blazebit.persistence.impl.ConfigurationProperties;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class InListChunkingTest extends AbstractCoreTest {
+
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        config = super.configure(config);
+        config.setProperty(ConfigurationProperties.IN_LIST_PADDING, "true");
+        config.setProperty(ConfigurationProperties.IN_LIST_CHUNK_SIZE, "4");
+        return config;
+    }
+
+    @Before
+    public void setUp() {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Person owner = new Person("owner");
+            em.persist(owner);
+
+            for (int i = 1; i <= 7; i++) {
+                Document doc = new Document("doc" + i);
+                doc.setOwner(owner);
+                em.persist(doc);
+            }
+
+            em.flush();
+            tx.commit();
+        } catch (Exception e) {
+            tx.rollback();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testChunkedIn() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+        criteria.where("d.name").in(Arrays.asList("doc1", "doc2", "doc3", "doc4", "doc5"));
+
+        assertEquals("SELECT d FROM Document d WHERE (d.name IN " + listParameter("param_0_chunk0")
+            + " OR d.name IN " + listParameter("param_0_chunk1") + ")", criteria.getQueryString());
+        assertEquals(5, criteria.getResultList().size());
+    }
+
+    @Test
+    public void testChunkedNotIn() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+        criteria.where("d.name").notIn(Arrays.asList("doc1", "doc2", "doc3", "doc4", "doc5"));
+
+        assertEquals("SELECT d FROM Document d WHERE (d.name NOT IN " + listParameter("param_0_chunk0")
+            + " AND d.name NOT IN " + listParameter("param_0_chunk1") + ")", criteria.getQueryString());
+        assertEquals(2, criteria.getResultList().size());
+    }
+
+    @Test
+    public void testPaddedIn() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+        criteria.where("d.name").in(Arrays.asList("doc1", "doc2", "doc3"));
+
+        assertEquals("SELECT d FROM Document d WHERE d.name IN " + listParameter("param_0"), criteria.getQueryString());
+        assertEquals(3, criteria.getResultList().size());
+    }
+
+    @Test
+    public void testOnlyInListParametersArePadded() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+        criteria.where("d.name").in(Arrays.asList("doc1", "doc2", "doc3"))
+            .where(":otherNames").isNotNull()
+            .setParameter("otherNames", Arrays.asList("doc1", "doc2", "doc3"));
+
+        TypedQuery<Document> query = criteria.getQuery();
+        assertEquals(Arrays.asList("doc1", "doc2", "doc3", "doc3"), new ArrayList<Object>((Collection<?>) query.getParameterValue("param_0")));
+        assertEquals(Arrays.asList("doc1", "doc2", "doc3"), new ArrayList<Object>((Collection<?>) query.getParameterValue("otherNames")));
+    }
+
+    @Test
+    public void testChunkedPaginatedIdQuery() {
+        PaginatedCriteriaBuilder<Tuple> criteria = cbf.create(em, Tuple.class).from(Document.class, "d")
+            .select("d.name")
+            .select("contacts.name")
+            .orderByAsc("d.id")
+            .page(0, 5);
+
+        assertEquals("SELECT d.name, contacts_1.name FROM Document d LEFT JOIN d.contacts contacts_1 "
+            + "WHERE (d.id IN :ids_chunk0 OR d.id IN :ids_chunk1) ORDER BY d.id ASC NULLS LAST", criteria.getQueryString());
+        PagedList<Tuple> result = criteria.getResultList();
+        assertEquals(5, result.size());
+        assertEquals(7, result.getTotalSize());
+        assertEquals("doc5", result.get(4).get(0));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import com.blazebit.persistence.entity.Document;
+import com.blazebit.persistence.entity.Person;
+import com.blazebit.persistence.impl.ConfigurationProperties;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import java.util.Arrays;
+import java.util.List;
+import javax.persistence.EntityTransaction;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class KeySetPagePositionTest extends AbstractCoreTest {
+
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        config = super.configure(config);
+        config.setProperty(ConfigurationProperties.KEYSET_PAGE_POSITION, "true");
+        return config;
+    }
+
+    @Before
+    public void setUp() {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Person owner = new Person("owner");
+            em.persist(owner);
+
+            String[] nonJoinables = { "b", null, "a", null, "c", "a", null };
+
+            for (int i = 0; i < nonJoinables.length; i++) {
+                Document doc = new Document("doc" + (i + 1));
+                doc.setOwner(owner);
+                doc.setNonJoinable(nonJoinables[i]);
+                em.persist(doc);
+            }
+
+            em.flush();
+            tx.commit();
+        } catch (Exception e) {
+            tx.rollback();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testPagePositionQueries() {
+        Document reference = getDocument("doc1");
+        PaginatedCriteriaBuilder<Document> cb = cbf.create(em, Document.class, "d")
+            .orderByAsc("name")
+            .orderByAsc("id")
+            .page(reference.getId(), 2);
+
+        assertEquals("SELECT COUNT(DISTINCT d.id) FROM Document d", cb.getPageCountQueryString());
+        PagedList<Document> list = cb.getResultList();
+        assertEquals(0, list.getFirstResult());
+        assertEquals(7, list.getTotalSize());
+        assertEquals(Arrays.asList(getDocument("doc1"), getDocument("doc2")), list);
+    }
+
+    @Test
+    public void testPagePositionNullsLast() {
+        assertPagePositions(Arrays.asList("doc3", "doc6", "doc1", "doc5", "doc2", "doc4", "doc7"), true, false);
+    }
+
+    @Test
+    public void testPagePositionNullsFirst() {
+        assertPagePositions(Arrays.asList("doc2", "doc4", "doc7", "doc3", "doc6", "doc1", "doc5"), true, true);
+    }
+
+    @Test
+    public void testPagePositionDescending() {
+        assertPagePositions(Arrays.asList("doc5", "doc1", "doc3", "doc6", "doc2", "doc4", "doc7"), false, false);
+    }
+
+    @Test
+    public void testPagePositionWithNotExistingReferenceObject() {
+        Document reference = getDocument("doc5");
+        PagedList<Document> list = cbf.create(em, Document.class, "d")
+            .where("name").notEq("doc5")
+            .orderByAsc("nonJoinable")
+            .orderByAsc("id")
+            .page(reference.getId(), 2)
+            .getResultList();
+
+        assertEquals(-1, list.getFirstResult());
+        assertEquals(6, list.getTotalSize());
+        assertEquals(Arrays.asList(getDocument("doc3"), getDocument("doc6")), list);
+    }
+
+    private void assertPagePositions(List<String> orderedNames, boolean ascending, boolean nullFirst) {
+        for (int i = 0; i < orderedNames.size(); i++) {
+            Document reference = getDocument(orderedNames.get(i));
+            PagedList<Document> list = cbf.create(em, Document.class, "d")
+                .orderBy("nonJoinable", ascending, nullFirst)
+                .orderByAsc("id")
+                .page(reference.getId(), 2)
+                .getResultList();
+
+            assertEquals(i - (i % 2), list.getFirstResult());
+            assertEquals(7, list.getTotalSize());
+            assertEquals(reference, list.get(i % 2));
+        }
+    }
+
+    private Document getDocument(String name) {
+        return cbf.create(em, Document.class).where("name").eq(name).getSingleResult();
+    }
+}
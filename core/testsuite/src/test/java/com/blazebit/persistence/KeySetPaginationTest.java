@@ -17,6 +17,7 @@ package com.blazebit.persistence;
 
 import com.blazebit.persistence.entity.Document;
 import com.blazebit.persistence.entity.Person;
+import java.util.Arrays;
 import java.util.List;
 import javax.persistence.EntityTransaction;
 import javax.persistence.Tuple;
@@ -238,4 +239,67 @@ public class KeySetPaginationTest extends AbstractCoreTest {
         assertEquals(1, result.size());
         assertEquals("doc2 - Karl2", result.get(0));
     }
+
+    @Test
+    public void keySetPaginationBackwardsAndJumpTest() {
+        persistAdditionalDocuments();
+        CriteriaBuilder<String> crit = cbf.create(em, String.class).from(Document.class, "d")
+            .select("d.name")
+            .orderByAsc("d.id");
+
+        PagedList<String> result = crit.page(null, 4, 2).getResultList();
+        assertEquals(Arrays.asList("doc5", "doc6"), result);
+
+        // Previous pages are fetched in inverse order but returned in the natural order
+        PaginatedCriteriaBuilder<String> pcb = crit.page(result.getKeySet(), 2, 2);
+        assertEquals("SELECT d.name, d.id FROM Document d WHERE (d.id < :_keySetParameter_0) ORDER BY d.id DESC NULLS FIRST", pcb.getQueryString());
+        result = pcb.getResultList();
+        assertEquals(Arrays.asList("doc3", "doc4"), result);
+
+        result = crit.page(result.getKeySet(), 0, 2).getResultList();
+        assertEquals(Arrays.asList("doc1", "doc2"), result);
+
+        // Jumping over a page seeks from the highest key and only skips the page in between
+        pcb = crit.page(result.getKeySet(), 4, 2);
+        assertEquals("SELECT d.name, d.id FROM Document d WHERE (d.id > :_keySetParameter_0) ORDER BY d.id ASC NULLS LAST", pcb.getQueryString());
+        result = pcb.getResultList();
+        assertEquals(Arrays.asList("doc5", "doc6"), result);
+        assertEquals(4, result.getFirstResult());
+        assertEquals(3, result.getPage());
+    }
+
+    @Test
+    public void keySetPaginationLastPageTest() {
+        persistAdditionalDocuments();
+        CriteriaBuilder<String> crit = cbf.create(em, String.class).from(Document.class, "d")
+            .select("d.name")
+            .orderByAsc("d.id");
+
+        PaginatedCriteriaBuilder<String> pcb = crit.pageLast(4);
+        assertEquals("SELECT d.name, d.id FROM Document d ORDER BY d.id DESC NULLS FIRST", pcb.getQueryString());
+        PagedList<String> result = pcb.getResultList();
+        assertEquals(Arrays.asList("doc5", "doc6"), result);
+        assertEquals(4, result.getFirstResult());
+        assertEquals(2, result.getPage());
+        assertEquals(2, result.getTotalPages());
+
+        // The key set of the last page can be used to go back
+        result = crit.page(result.getKeySet(), 0, 4).getResultList();
+        assertEquals(Arrays.asList("doc1", "doc2", "doc3", "doc4"), result);
+    }
+
+    private void persistAdditionalDocuments() {
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        Person owner = new Person("Karl4");
+        em.persist(owner);
+
+        for (int i = 4; i <= 6; i++) {
+            Document doc = new Document("doc" + i);
+            doc.setOwner(owner);
+            em.persist(doc);
+        }
+
+        tx.commit();
+    }
 }
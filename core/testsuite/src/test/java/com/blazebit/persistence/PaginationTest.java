@@ -18,14 +18,20 @@ package com.blazebit.persistence;
 import com.blazebit.persistence.entity.Document;
 import com.blazebit.persistence.entity.Person;
 import com.blazebit.persistence.entity.Workflow;
+import com.blazebit.persistence.impl.CriteriaBuilderFactoryImpl;
+import com.blazebit.persistence.impl.metrics.HistogramQueryMetrics;
 import com.blazebit.persistence.model.DocumentViewModel;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import com.blazebit.persistence.spi.QueryMetric;
 import static com.googlecode.catchexception.CatchException.verifyException;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import javax.persistence.EntityTransaction;
 import javax.persistence.Tuple;
 import org.junit.Assert;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -38,6 +44,13 @@ import org.junit.Test;
  */
 public class PaginationTest extends AbstractCoreTest {
 
+    private final HistogramQueryMetrics queryMetrics = new HistogramQueryMetrics();
+
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        return super.configure(config).setQueryMetrics(queryMetrics);
+    }
+
     @Before
     public void setUp() {
         EntityTransaction tx = em.getTransaction();
@@ -473,4 +486,119 @@ public class PaginationTest extends AbstractCoreTest {
         assertEquals(objectQuery, cb.getQueryString());
         cb.getResultList();
     }
+
+    @Test
+    public void testPaginationWithoutCount() {
+        PagedList<Document> result = cbf.create(em, Document.class, "d")
+                .orderByAsc("d.id")
+                .page(0, 5)
+                .withCountMode(PageCountMode.NONE)
+                .getResultList();
+
+        assertEquals(5, result.size());
+        assertEquals(-1, result.getTotalSize());
+        assertEquals(-1, result.getTotalPages());
+        assertEquals(1, result.getPage());
+    }
+
+    @Test
+    public void testPaginationWithInlineCountWithoutCollections() {
+        PaginatedCriteriaBuilder<Document> cb = cbf.create(em, Document.class, "d")
+                .orderByAsc("d.id")
+                .page(5, 5)
+                .withCountMode(PageCountMode.INLINE);
+
+        // Without collections and query transformers the total size can't be stripped from the results, so a count query is used
+        assertFalse(cb.getQueryString().contains("COUNT_OVER"));
+
+        PagedList<Document> result = cb.getResultList();
+        assertEquals(2, result.size());
+        assertEquals(7, result.getTotalSize());
+        assertEquals(2, result.getTotalPages());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.PAGE_COUNT_QUERY).getCount());
+    }
+
+    @Test
+    public void testPaginationWithInlineCount() {
+        PaginatedCriteriaBuilder<Tuple> cb = cbf.create(em, Tuple.class).from(Document.class, "d")
+                .select("d.name").select("c.name")
+                .leftJoinDefault("contacts", "c")
+                .orderByAsc("d.id")
+                .page(5, 5)
+                .withCountMode(PageCountMode.INLINE);
+
+        // The count is only inlined if the dbms supports window functions, otherwise a count query is used
+        boolean windowFunctions = ((CriteriaBuilderFactoryImpl) cbf).getJpaInfo(em).supportsWindowFunctions();
+        String idQuery = "SELECT d.id" + (windowFunctions ? ", " + function("COUNT_OVER", "d.id") : "")
+                + " FROM Document d GROUP BY d.id ORDER BY d.id ASC NULLS LAST";
+        assertEquals(idQuery, cb.getPageIdQueryString());
+
+        PagedList<Tuple> result = cb.getResultList();
+        assertEquals(2, result.size());
+        assertEquals("bdoc", result.get(0).get(0));
+        assertEquals("adoc", result.get(1).get(0));
+        assertEquals(7, result.getTotalSize());
+        assertEquals(2, result.getTotalPages());
+        assertEquals(windowFunctions ? 0 : 1, queryMetrics.getHistogram(QueryMetric.PAGE_COUNT_QUERY).getCount());
+    }
+
+    @Test
+    public void testPaginationWithInlineCountAfterLastPage() {
+        PaginatedCriteriaBuilder<Tuple> cb = cbf.create(em, Tuple.class).from(Document.class, "d")
+                .select("d.name").select("c.name")
+                .leftJoinDefault("contacts", "c")
+                .orderByAsc("d.id")
+                .page(10, 5)
+                .withCountMode(PageCountMode.INLINE);
+
+        // The window function can't tell the total size of an empty page, so the count query is used in any case
+        PagedList<Tuple> result = cb.getResultList();
+        assertEquals(0, result.size());
+        assertEquals(7, result.getTotalSize());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.PAGE_COUNT_QUERY).getCount());
+    }
+
+    @Test
+    public void testPaginationWithCachedCount() {
+        PagedList<Document> result = cbf.create(em, Document.class, "d")
+                .where("d.name").notEq("adoc")
+                .orderByAsc("d.id")
+                .page(0, 5)
+                .withCachedCount(1, TimeUnit.HOURS)
+                .getResultList();
+        assertEquals(6, result.getTotalSize());
+
+        Person owner = cbf.create(em, Person.class).where("name").eq("Karl1").getSingleResult();
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        Document doc8 = new Document("doc8");
+        doc8.setOwner(owner);
+        em.persist(doc8);
+        tx.commit();
+
+        // The count is reused although there is a new document
+        result = cbf.create(em, Document.class, "d")
+                .where("d.name").notEq("adoc")
+                .orderByAsc("d.id")
+                .page(0, 5)
+                .withCachedCount(1, TimeUnit.HOURS)
+                .getResultList();
+        assertEquals(6, result.getTotalSize());
+
+        // Different parameter values lead to a different count
+        result = cbf.create(em, Document.class, "d")
+                .where("d.name").notEq("bdoc")
+                .orderByAsc("d.id")
+                .page(0, 5)
+                .withCachedCount(1, TimeUnit.HOURS)
+                .getResultList();
+        assertEquals(7, result.getTotalSize());
+
+        result = cbf.create(em, Document.class, "d")
+                .where("d.name").notEq("adoc")
+                .orderByAsc("d.id")
+                .page(0, 5)
+                .getResultList();
+        assertEquals(7, result.getTotalSize());
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import com.blazebit.persistence.entity.Document;
+import com.blazebit.persistence.entity.Person;
+import com.blazebit.persistence.impl.CriteriaBuilderFactoryImpl;
+import com.blazebit.persistence.impl.metrics.Histogram;
+import com.blazebit.persistence.impl.metrics.HistogramQueryMetrics;
+import com.blazebit.persistence.model.DocumentViewModel;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import com.blazebit.persistence.spi.QueryMetric;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Tuple;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class QueryMetricsTest extends AbstractCoreTest {
+
+    private final HistogramQueryMetrics queryMetrics = new HistogramQueryMetrics();
+
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        return super.configure(config).setQueryMetrics(queryMetrics);
+    }
+
+    @Before
+    public void setUp() {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Person owner = new Person("owner");
+            em.persist(owner);
+
+            for (int i = 1; i <= 3; i++) {
+                Document doc = new Document("doc" + i);
+                doc.setOwner(owner);
+                em.persist(doc);
+            }
+
+            em.flush();
+            tx.commit();
+        } catch (Exception e) {
+            tx.rollback();
+            throw new RuntimeException(e);
+        }
+
+        queryMetrics.reset();
+    }
+
+    @Test
+    public void testBuilderMetrics() {
+        String queryString = null;
+
+        for (int i = 0; i < 2; i++) {
+            CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+                .where("d.owner.name").eq("owner")
+                .orderByAsc("d.id");
+            queryString = criteria.getQueryString();
+            criteria.getResultList();
+        }
+
+        assertTrue(queryMetrics.getHistogram(QueryMetric.EXPRESSION_CACHE_MISS).getCount() > 0);
+        assertTrue(queryMetrics.getHistogram(QueryMetric.EXPRESSION_CACHE_HIT).getCount() > 0);
+        assertEquals(queryMetrics.getHistogram(QueryMetric.EXPRESSION_CACHE_MISS).getCount(), queryMetrics.getHistogram(QueryMetric.EXPRESSION_PARSING).getCount());
+        assertTrue(queryMetrics.getHistogram(QueryMetric.BUILDER_FINALIZATION).getCount() > 0);
+        assertEquals(queryString.length(), queryMetrics.getHistogram(QueryMetric.QUERY_STRING_LENGTH).getMax());
+    }
+
+    @Test
+    public void testPaginationMetrics() {
+        PagedList<Tuple> result = cbf.create(em, Tuple.class).from(Document.class, "d")
+            .select("d.name")
+            .select("contacts.name")
+            .orderByAsc("d.id")
+            .page(0, 2)
+            .getResultList();
+
+        assertEquals(2, result.size());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.PAGE_COUNT_QUERY).getCount());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.PAGE_ID_QUERY).getCount());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.PAGE_OBJECT_QUERY).getCount());
+        assertEquals(3, queryMetrics.getHistogram(QueryMetric.QUERY_STRING_GENERATION).getCount());
+    }
+
+    @Test
+    public void testInlineCountPaginationMetrics() {
+        PaginatedCriteriaBuilder<Tuple> cb = cbf.create(em, Tuple.class).from(Document.class, "d")
+            .select("d.name")
+            .select("contacts.name")
+            .orderByAsc("d.id")
+            .page(0, 2)
+            .withCountMode(PageCountMode.INLINE);
+        PagedList<Tuple> result = cb.getResultList();
+
+        assertEquals(2, result.size());
+        assertEquals(3, result.getTotalSize());
+        // Without window function support the total size is determined by a separate count query
+        boolean inline = ((CriteriaBuilderFactoryImpl) cbf).getJpaInfo(em).supportsWindowFunctions();
+        assertEquals(inline ? 0 : 1, queryMetrics.getHistogram(QueryMetric.PAGE_COUNT_QUERY).getCount());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.PAGE_ID_QUERY).getCount());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.PAGE_OBJECT_QUERY).getCount());
+    }
+
+    @Test
+    public void testObjectBuilderMetrics() {
+        CriteriaBuilder<DocumentViewModel> criteria = cbf.create(em, Document.class, "d")
+            .selectNew(DocumentViewModel.class)
+                .with("d.name")
+            .end();
+
+        assertEquals(3, criteria.getResultList().size());
+        assertEquals(3, queryMetrics.getHistogram(QueryMetric.OBJECT_BUILDER_BUILD).getCount());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.OBJECT_BUILDER_BUILD_LIST).getCount());
+    }
+
+    @Test
+    public void testHistogram() {
+        HistogramQueryMetrics metrics = new HistogramQueryMetrics();
+
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordValue(QueryMetric.QUERY_STRING_LENGTH, i);
+        }
+
+        Histogram histogram = metrics.getHistogram(QueryMetric.QUERY_STRING_LENGTH);
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.0);
+        // Percentiles are upper bounds of power of two buckets
+        assertEquals(63, histogram.getPercentile(0.5));
+        assertEquals(100, histogram.getPercentile(0.99));
+        assertEquals(0, metrics.getHistogram(QueryMetric.PAGE_ID_QUERY).getCount());
+    }
+}
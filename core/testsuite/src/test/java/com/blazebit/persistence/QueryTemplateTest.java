@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import com.blazebit.persistence.entity.Document;
+import com.blazebit.persistence.entity.Person;
+import com.blazebit.persistence.impl.CriteriaBuilderFactoryImpl;
+import com.blazebit.persistence.impl.QueryTemplate;
+import com.blazebit.persistence.impl.QueryTemplateCache;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import javax.persistence.EntityTransaction;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class QueryTemplateTest extends AbstractCoreTest {
+
+    @Test
+    public void testSameStructureReusesQueryString() {
+        QueryTemplateCache cache = ((CriteriaBuilderFactoryImpl) cbf).getQueryTemplateCache(em);
+        String expected = "SELECT d FROM Document d JOIN d.owner owner_1 WHERE owner_1.name = :param_0 ORDER BY d.id ASC NULLS LAST";
+
+        for (int i = 0; i < 3; i++) {
+            CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+            criteria.where("owner.name").eq("Person " + i).orderByAsc("d.id");
+
+            assertEquals(expected, criteria.getQueryString());
+            criteria.getResultList();
+        }
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testDifferentStructureDoesNotReuseQueryString() {
+        QueryTemplateCache cache = ((CriteriaBuilderFactoryImpl) cbf).getQueryTemplateCache(em);
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+        criteria.where("owner.name").eq("Person");
+        assertEquals("SELECT d FROM Document d JOIN d.owner owner_1 WHERE owner_1.name = :param_0", criteria.getQueryString());
+
+        criteria = cbf.create(em, Document.class, "d");
+        criteria.where("owner.age").eq(1L);
+        assertEquals("SELECT d FROM Document d JOIN d.owner owner_1 WHERE owner_1.age = :param_0", criteria.getQueryString());
+
+        criteria = cbf.create(em, Document.class, "d");
+        criteria.where("owner.name").notEq("Person");
+        assertEquals("SELECT d FROM Document d JOIN d.owner owner_1 WHERE owner_1.name <> :param_0", criteria.getQueryString());
+
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testMutationAfterQueryStringIsRespected() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+        criteria.where("owner.name").eq("Person");
+        assertEquals("SELECT d FROM Document d JOIN d.owner owner_1 WHERE owner_1.name = :param_0", criteria.getQueryString());
+
+        CriteriaBuilder<Document> otherCriteria = cbf.create(em, Document.class, "d");
+        otherCriteria.where("owner.name").eq("Other person");
+        assertEquals("SELECT d FROM Document d JOIN d.owner owner_1 WHERE owner_1.name = :param_0", otherCriteria.getQueryString());
+        otherCriteria.orderByAsc("d.id");
+        assertEquals("SELECT d FROM Document d JOIN d.owner owner_1 WHERE owner_1.name = :param_0 ORDER BY d.id ASC NULLS LAST", otherCriteria.getQueryString());
+    }
+
+    @Test
+    public void testTemplateHitBindsParameters() {
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        Person p = new Person("Karl");
+        em.persist(p);
+        em.persist(new Document("Doc1", p));
+        em.persist(new Document("Doc2", p));
+        em.flush();
+        tx.commit();
+        em.clear();
+
+        QueryTemplateCache cache = ((CriteriaBuilderFactoryImpl) cbf).getQueryTemplateCache(em);
+        long hitCount = cache.getHitCount();
+
+        for (String name : Arrays.asList("Doc1", "Doc2", "Doc3")) {
+            CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+            criteria.where("name").eqExpression(":name")
+                .where("owner.name").eq("Karl")
+                .orderByAsc("d.id")
+                .setParameter("name", name);
+
+            List<Document> result = criteria.getResultList();
+            assertEquals(name.equals("Doc3") ? 0 : 1, result.size());
+        }
+
+        assertEquals(hitCount + 2, cache.getHitCount());
+    }
+
+    @Test
+    public void testTemplateHitCanBePaginated() {
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+        criteria.where("owner.name").eq("Karl").orderByAsc("d.id");
+        criteria.getQueryString();
+
+        criteria = cbf.create(em, Document.class, "d");
+        criteria.where("owner.name").eq("Karl").orderByAsc("d.id");
+        criteria.getQueryString();
+
+        // The paginated builder prepares the managers that were skipped on the template hit
+        PagedList<Document> result = criteria.page(0, 10).getResultList();
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void testTemplateParameterNames() {
+        QueryTemplate template = new QueryTemplate("SELECT d FROM Document d WHERE d.name = 'a:b' AND d.id IN (:ids) AND d.age > :param_0 AND d.age < :param_0");
+        assertEquals(new LinkedHashSet<String>(Arrays.asList("ids", "param_0")), template.getParameterNames());
+    }
+
+    @Test
+    public void testBoundedCache() {
+        QueryTemplateCache cache = new QueryTemplateCache(2);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, new QueryTemplate("SELECT " + i));
+        }
+
+        assertTrue(cache.getSize() <= 2);
+        assertEquals("SELECT 9", cache.get("key9").getQueryString());
+    }
+}
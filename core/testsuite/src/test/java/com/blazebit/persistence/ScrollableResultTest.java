@@ -0,0 +1,167 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence;
+
+import com.blazebit.persistence.entity.Document;
+import com.blazebit.persistence.entity.Person;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import com.blazebit.persistence.spi.QueryTransformer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.persistence.EntityTransaction;
+import javax.persistence.TypedQuery;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class ScrollableResultTest extends AbstractCoreTest {
+
+    private CountingQueryTransformer queryTransformer;
+
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        config = super.configure(config);
+        List<QueryTransformer> queryTransformers = config.getQueryTransformers();
+        queryTransformer = new CountingQueryTransformer(queryTransformers.get(queryTransformers.size() - 1));
+        return config.registerQueryTransformer(queryTransformer);
+    }
+
+    @Before
+    public void setUp() {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Person p = new Person("Karl");
+            em.persist(p);
+
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Document("Doc" + i, p));
+            }
+
+            em.flush();
+            tx.commit();
+        } catch (Exception e) {
+            tx.rollback();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testScrollEntities() {
+        ScrollableResult<Document> result = cbf.create(em, Document.class, "d")
+            .orderByAsc("d.name")
+            .scroll(2);
+        List<String> names = new ArrayList<String>();
+
+        while (result.hasNext()) {
+            names.add(result.next().getName());
+        }
+
+        assertEquals(Arrays.asList("Doc1", "Doc2", "Doc3", "Doc4", "Doc5"), names);
+        assertFalse(result.hasNext());
+        result.close();
+    }
+
+    @Test
+    public void testScrollWithObjectBuilder() {
+        final List<Object[]> builtTuples = new ArrayList<Object[]>();
+        ScrollableResult<String> result = cbf.create(em, Document.class, "d")
+            .selectNew(new ObjectBuilder<String>() {
+
+                @Override
+                public void applySelects(SelectBuilder<?, ?> queryBuilder) {
+                    queryBuilder
+                        .select("name")
+                        .select("owner.name");
+                }
+
+                @Override
+                public String build(Object[] tuple) {
+                    builtTuples.add(tuple);
+                    return tuple[0] + " - " + tuple[1];
+                }
+
+                @Override
+                public List<String> buildList(List<String> list) {
+                    throw new UnsupportedOperationException("The list must not be materialized");
+                }
+            })
+            .orderByAsc("d.name")
+            .getResultStream();
+
+        assertEquals("Doc1 - Karl", result.next());
+        // Rows are only built when they are fetched
+        assertEquals(1, builtTuples.size());
+        result.close();
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    public void testScrollUsesLastQueryTransformer() {
+        int scrollCount = queryTransformer.scrollCount;
+        ScrollableResult<Document> result = cbf.create(em, Document.class, "d")
+            .orderByAsc("d.name")
+            .getResultStream();
+
+        assertEquals("Doc1", result.next().getName());
+        assertEquals(scrollCount + 1, queryTransformer.scrollCount);
+        result.close();
+    }
+
+    @Test
+    public void testScrollPage() {
+        ScrollableResult<String> result = cbf.create(em, String.class).from(Document.class, "d")
+            .select("d.name")
+            .orderByAsc("d.id")
+            .page(1, 2)
+            .scroll(10);
+        List<String> names = new ArrayList<String>();
+
+        while (result.hasNext()) {
+            names.add(result.next());
+        }
+
+        assertEquals(Arrays.asList("Doc2", "Doc3"), names);
+    }
+
+    private static class CountingQueryTransformer implements QueryTransformer {
+
+        private final QueryTransformer delegate;
+        private int scrollCount;
+
+        public CountingQueryTransformer(QueryTransformer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T> TypedQuery<T> transformQuery(TypedQuery<?> query, ObjectBuilder<T> objectBuilder) {
+            return delegate.transformQuery(query, objectBuilder);
+        }
+
+        @Override
+        public <T> ScrollableResult<T> scroll(TypedQuery<?> query, ObjectBuilder<T> objectBuilder, int fetchSize) {
+            scrollCount++;
+            return delegate.scroll(query, objectBuilder, fetchSize);
+        }
+    }
+}
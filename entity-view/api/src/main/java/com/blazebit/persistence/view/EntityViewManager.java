@@ -19,6 +19,7 @@ import com.blazebit.persistence.CriteriaBuilder;
 import com.blazebit.persistence.PaginatedCriteriaBuilder;
 import com.blazebit.persistence.QueryBuilder;
 import com.blazebit.persistence.view.metamodel.ViewMetamodel;
+import javax.persistence.EntityManagerFactory;
 
 /**
  * An interface that gives access to the metamodel and object builders.
@@ -46,4 +47,16 @@ public interface EntityViewManager {
      *         {@linkplain CriteriaBuilder} otherwise
      */
     public <T, Q extends QueryBuilder<T, Q>> Q applySetting(EntityViewSetting<T, Q> setting, CriteriaBuilder<?> criteriaBuilder);
+
+    /**
+     * Prepares the given entity view setting so that settings of the same shape can be applied repeatedly
+     * without resolving attribute paths, filters and object builders again.
+     *
+     * @param setting              The setting that should be prepared
+     * @param entityManagerFactory The entity manager factory of the criteria builders on which the plan will be applied
+     * @param <T>                  The type of the entity view
+     * @param <Q>                  {@linkplain PaginatedCriteriaBuilder} if paginated, {@linkplain CriteriaBuilder} otherwise
+     * @return The prepared setting
+     */
+    public <T, Q extends QueryBuilder<T, Q>> PreparedEntityViewSetting<T, Q> prepareSetting(EntityViewSetting<T, Q> setting, EntityManagerFactory entityManagerFactory);
 }
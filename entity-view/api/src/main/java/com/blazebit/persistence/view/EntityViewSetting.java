@@ -19,6 +19,7 @@ import com.blazebit.persistence.CriteriaBuilder;
 import com.blazebit.persistence.KeySet;
 import com.blazebit.persistence.PaginatedCriteriaBuilder;
 import com.blazebit.persistence.QueryBuilder;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -50,6 +51,7 @@ public final class EntityViewSetting<T, Q extends QueryBuilder<T, Q>> {
     private final Map<String, Sorter> attributeSorters = new LinkedHashMap<String, Sorter>();
     private final Map<String, Object> attributeFilters = new LinkedHashMap<String, Object>();
     private final Map<String, Object> optionalParameters = new HashMap<String, Object>();
+    private final Set<String> fetches = new LinkedHashSet<String>();
     
     private KeySet keySet;
     private boolean keySetPaginated;
@@ -416,4 +418,38 @@ public final class EntityViewSetting<T, Q extends QueryBuilder<T, Q>> {
     public Map<String, Object> getOptionalParameters() {
         return optionalParameters;
     }
+
+    /**
+     * Restricts the attributes that are fetched to the given attribute paths. An attribute path is the name of an attribute
+     * of the entity view or the name of a subview attribute followed by a dot and an attribute path of the subview e.g. <code>owner.name</code>.
+     * A subview attribute that is given without a sub-path is fetched with all of its attributes.
+     * Attributes that are not fetched are not selected by the query and their values are left unset in the resulting entity views.
+     * The id attributes, attributes with primitive types and the parameters of the view constructor are always fetched.
+     * If this method is never invoked, all attributes are fetched.
+     *
+     * @param attributePaths The attribute paths to fetch
+     * @return this setting for chaining
+     */
+    public EntityViewSetting<T, Q> fetch(String... attributePaths) {
+        Collections.addAll(this.fetches, attributePaths);
+        return this;
+    }
+
+    /**
+     * Returns true if the fetched attributes have been restricted, otherwise false.
+     *
+     * @return true if the fetched attributes have been restricted, otherwise false
+     */
+    public boolean hasFetches() {
+        return !fetches.isEmpty();
+    }
+
+    /**
+     * Returns the attribute paths to which the fetched attributes are restricted.
+     *
+     * @return The attribute paths to fetch
+     */
+    public Set<String> getFetches() {
+        return fetches;
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view;
+
+/**
+ * The strategy that is used to fetch an attribute of an entity view.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public enum FetchStrategy {
+
+    /**
+     * The collection is joined in the query of the entity view.
+     * This is the default and needs no additional queries, but every additional joined collection multiplies the number of result tuples.
+     */
+    JOIN,
+    /**
+     * The collections of the entity views of a query result are fetched by additional queries
+     * that are restricted by the ids of at most {@link Mapping#batchSize()} entity views which are passed as IN list.
+     * The parameters of the query of the entity views are also bound on the additional queries.
+     */
+    BATCH,
+    /**
+     * The attribute is not selected in the query of the entity view but loaded on first access.
+     * The first access loads the attribute for a batch of at most {@link Mapping#batchSize()} entity views of the same query result
+     * by an additional query, so the entity manager of the query must still be open at that time.
+     * This is only allowed for singular basic attributes of entity view getters.
+     */
+    LAZY;
+}
@@ -43,6 +43,9 @@ import java.lang.annotation.Target;
  * Example 1 shows a getter which is implicitly mapped to the attribute name which in this case is "name".
  * Example 2 shows that a mapping can contain arbitrary JPQL expressions.
  *
+ * Collection attributes are joined in the query of the entity view by default. Since every joined collection multiplies the number
+ * of result tuples, a collection can also be fetched by a separate query via {@link #fetch()}.
+ *
  * @author Christian Beikov
  * @since 1.0
  */
@@ -56,4 +59,21 @@ public @interface Mapping {
      * @return The JPQL expression mapping
      */
     String value();
+
+    /**
+     * The strategy that is used to fetch the attribute.
+     * The strategy {@link FetchStrategy#BATCH} is only allowed for collection attributes,
+     * {@link FetchStrategy#LAZY} is only allowed for singular attributes that are no subviews.
+     *
+     * @return The fetch strategy
+     */
+    FetchStrategy fetch() default FetchStrategy.JOIN;
+
+    /**
+     * The maximum number of entity views for which the attribute is fetched by a single query
+     * when using the fetch strategy {@link FetchStrategy#BATCH} or {@link FetchStrategy#LAZY}.
+     *
+     * @return The batch size
+     */
+    int batchSize() default 64;
 }
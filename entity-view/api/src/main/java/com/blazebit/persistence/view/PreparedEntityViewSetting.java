@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.PaginatedCriteriaBuilder;
+import com.blazebit.persistence.QueryBuilder;
+
+/**
+ * An immutable and thread safe plan for applying entity view settings of the same shape to criteria builders.
+ * The plan holds the resolved attribute expressions, filter factories and object builder template of an {@link EntityViewSetting},
+ * so applying a setting through the plan only has to create the filters for the actual values and bind parameters.
+ *
+ * @param <T> The type of the entity view
+ * @param <Q> {@linkplain PaginatedCriteriaBuilder} if paginated, {@linkplain CriteriaBuilder} otherwise
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface PreparedEntityViewSetting<T, Q extends QueryBuilder<T, Q>> {
+
+    /**
+     * Returns the entity view class for which this plan was prepared.
+     *
+     * @return The entity view class
+     */
+    public Class<T> getEntityViewClass();
+
+    /**
+     * Applies the given entity view setting to the given criteria builder.
+     * The setting must be for the same entity view and constructor as the setting which was prepared
+     * and may only use attribute filters, attribute sorters and named filters that were present in the prepared setting.
+     * The filter values, sorters, optional parameters and pagination information are taken from the given setting.
+     *
+     * @param setting         The setting that should be applied
+     * @param criteriaBuilder The criteria builder on which the setting should be applied
+     * @return {@linkplain PaginatedCriteriaBuilder} if paginated,
+     *         {@linkplain CriteriaBuilder} otherwise
+     * @throws IllegalArgumentException If the given setting does not fit to this plan
+     */
+    public Q apply(EntityViewSetting<T, Q> setting, CriteriaBuilder<?> criteriaBuilder);
+}
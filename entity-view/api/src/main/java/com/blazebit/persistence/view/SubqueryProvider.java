@@ -19,6 +19,8 @@ import com.blazebit.persistence.SubqueryInitiator;
 
 /**
  * Provides a subquery to a {@link SubqueryInitiator}.
+ * Implementations that declare no instance fields are considered stateless and a single instance is shared by an entity view manager,
+ * other implementations are instantiated whenever they are used.
  *
  * @author Christian Beikov
  * @since 1.0
@@ -21,6 +21,8 @@ import com.blazebit.persistence.WhereBuilder;
  * A view filter provider is an object that applies restrictions on a {@link WhereBuilder}.
  * 
  * View filter providers must have a no-arg constructor if they are used in conjunction with {@link ViewFilter}.
+ * Implementations that declare no instance fields are considered stateless and a single instance is shared by an entity view manager,
+ * other implementations are instantiated whenever they are applied.
  *
  * @author Christian Beikov
  * @since 1.0
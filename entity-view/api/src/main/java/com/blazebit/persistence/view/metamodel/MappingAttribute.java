@@ -15,6 +15,8 @@
  */
 package com.blazebit.persistence.view.metamodel;
 
+import com.blazebit.persistence.view.FetchStrategy;
+
 /**
  * Represents an attribute that has a mapping expression.
  *
@@ -31,4 +33,18 @@ public interface MappingAttribute<X, Y> extends Attribute<X, Y> {
      * @return The mapping of the attribute
      */
     public String getMapping();
+
+    /**
+     * Returns the strategy that is used to fetch the attribute which is either {@link FetchStrategy#JOIN} or {@link FetchStrategy#LAZY} for non-collection attributes.
+     *
+     * @return The fetch strategy of the attribute
+     */
+    public FetchStrategy getFetchStrategy();
+
+    /**
+     * Returns the batch size that is used when the fetch strategy is {@link FetchStrategy#BATCH} or {@link FetchStrategy#LAZY}.
+     *
+     * @return The batch size of the attribute
+     */
+    public int getBatchSize();
 }
@@ -16,6 +16,7 @@
 package com.blazebit.persistence.view.spi;
 
 import com.blazebit.persistence.view.EntityViewManager;
+import java.util.Properties;
 import java.util.Set;
 
 /**
@@ -47,4 +48,27 @@ public interface EntityViewConfiguration {
      */
     public Set<Class<?>> getEntityViews();
 
+    /**
+     * Returns all properties.
+     *
+     * @return All properties
+     */
+    public Properties getProperties();
+
+    /**
+     * Returns a property value by name.
+     *
+     * @param propertyName The name of the property
+     * @return The value currently associated with that property name; may be null.
+     */
+    public String getProperty(String propertyName);
+
+    /**
+     * Set a property value by name.
+     *
+     * @param propertyName The name of the property to set
+     * @param value        The new property value
+     */
+    public void setProperty(String propertyName, String value);
+
 }
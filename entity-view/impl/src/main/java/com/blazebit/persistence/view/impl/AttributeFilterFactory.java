@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl;
+
+import com.blazebit.persistence.view.AttributeFilterProvider;
+import com.blazebit.persistence.view.impl.proxy.ObjectInstantiator;
+
+/**
+ * Creates attribute filter instances through a constructor that was resolved once for a filter class.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+class AttributeFilterFactory {
+
+    private final Class<?> filterClass;
+    private final ObjectInstantiator<? extends AttributeFilterProvider> instantiator;
+    private final boolean passExpectedType;
+    private final boolean passArgument;
+
+    public AttributeFilterFactory(Class<?> filterClass, ObjectInstantiator<? extends AttributeFilterProvider> instantiator, boolean passExpectedType, boolean passArgument) {
+        this.filterClass = filterClass;
+        this.instantiator = instantiator;
+        this.passExpectedType = passExpectedType;
+        this.passArgument = passArgument;
+    }
+
+    public AttributeFilterProvider create(Class<?> expectedType, Object argument) {
+        Object[] arguments;
+
+        if (passExpectedType) {
+            if (passArgument) {
+                arguments = new Object[]{ expectedType, argument };
+            } else {
+                arguments = new Object[]{ expectedType };
+            }
+        } else if (passArgument) {
+            arguments = new Object[]{ argument };
+        } else {
+            arguments = new Object[0];
+        }
+
+        try {
+            return instantiator.newInstance(arguments);
+        } catch (Exception ex) {
+            throw new RuntimeException("Could not create an instance of the filter class '" + filterClass.getName() + "'", ex);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks that are necessary to bootstrap an entity view manager either in the calling thread
+ * or spread over a fixed number of worker threads.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class BootstrapExecutor {
+
+    private final ExecutorService executorService;
+
+    public BootstrapExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of bootstrap threads: " + threads);
+        }
+
+        if (threads == 1) {
+            this.executorService = null;
+        } else {
+            this.executorService = Executors.newFixedThreadPool(threads, new BootstrapThreadFactory());
+        }
+    }
+
+    /**
+     * Runs the given tasks and waits until all of them are finished.
+     * If a task fails, the exception of the first failed task in the list is rethrown.
+     *
+     * @param <T>   The result type of the tasks
+     * @param tasks The tasks to run
+     * @return The results of the tasks in the order of the tasks
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<T>(tasks.size());
+
+        if (executorService == null) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (RuntimeException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+
+            return results;
+        }
+
+        List<Future<T>> futures;
+
+        try {
+            futures = executorService.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while bootstrapping the entity views", ex);
+        }
+
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while bootstrapping the entity views", ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+
+                throw new RuntimeException(cause);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static class BootstrapThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "entity-view-bootstrap-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
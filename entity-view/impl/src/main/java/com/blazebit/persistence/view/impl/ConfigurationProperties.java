@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface ConfigurationProperties {
+
+    /**
+     * If set to <code>true</code>, the proxy classes of all entity views and the instantiators for their constructors
+     * are generated while the entity view manager is created instead of on first use. By default this is <code>false</code>.
+     */
+    public static final String PROXY_EAGER_LOADING = "com.blazebit.persistence.view.proxy.eager_loading";
+
+    /**
+     * The number of threads that are used to build the entity view metamodel while the entity view manager is created.
+     * The threads are only used during the creation. Proxy classes are always generated one after another since javassist
+     * class pools are not thread safe. By default everything is built by the creating thread.
+     */
+    public static final String BOOTSTRAP_THREADS = "com.blazebit.persistence.view.bootstrap.threads";
+
+    /**
+     * If set to <code>true</code>, subviews with the same id are only instantiated once per query and the instance is shared
+     * by all objects of the result that refer to it. The instances are shared for all results of the query builder to which
+     * an entity view setting was applied, so setting a value on a subview changes it for every object that refers to it.
+     * By default this is <code>false</code>.
+     */
+    public static final String SHARE_SUBVIEW_INSTANCES = "com.blazebit.persistence.view.subview.share_instances";
+
+    /**
+     * The maximum number of object builder templates for entity view settings that fetch only some attributes which are cached.
+     * Since the fetched attributes are usually chosen by clients, the least recently used templates are evicted
+     * when the cache is full. Templates for entity views without fetch restrictions are always cached. By default this is <code>256</code>.
+     */
+    public static final String FETCH_TEMPLATE_CACHE_SIZE = "com.blazebit.persistence.view.fetch.template_cache_size";
+}
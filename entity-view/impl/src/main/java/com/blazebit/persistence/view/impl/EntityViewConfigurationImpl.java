@@ -18,6 +18,7 @@ package com.blazebit.persistence.view.impl;
 import com.blazebit.persistence.view.EntityViewManager;
 import com.blazebit.persistence.view.spi.EntityViewConfiguration;
 import java.util.HashSet;
+import java.util.Properties;
 import java.util.Set;
 
 /**
@@ -28,6 +29,7 @@ import java.util.Set;
 public class EntityViewConfigurationImpl implements EntityViewConfiguration {
 
     private final Set<Class<?>> entityViewClasses = new HashSet<Class<?>>();
+    private final Properties properties = new Properties();
 
     @Override
     public void addEntityView(Class<?> clazz) {
@@ -39,6 +41,21 @@ public class EntityViewConfigurationImpl implements EntityViewConfiguration {
         return entityViewClasses;
     }
 
+    @Override
+    public Properties getProperties() {
+        return properties;
+    }
+
+    @Override
+    public String getProperty(String propertyName) {
+        return properties.getProperty(propertyName);
+    }
+
+    @Override
+    public void setProperty(String propertyName, String value) {
+        properties.setProperty(propertyName, value);
+    }
+
     @Override
     public EntityViewManager createEntityViewManager() {
         return new EntityViewManagerImpl(this);
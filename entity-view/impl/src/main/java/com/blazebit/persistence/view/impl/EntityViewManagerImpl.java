@@ -24,6 +24,8 @@ import com.blazebit.persistence.impl.expression.SimpleCachingExpressionFactory;
 import com.blazebit.persistence.view.EntityViewManager;
 import com.blazebit.persistence.view.AttributeFilterProvider;
 import com.blazebit.persistence.view.EntityViewSetting;
+import com.blazebit.persistence.view.PreparedEntityViewSetting;
+import com.blazebit.persistence.view.SubqueryProvider;
 import com.blazebit.persistence.view.ViewFilterProvider;
 import com.blazebit.persistence.view.filter.ContainsFilter;
 import com.blazebit.persistence.view.filter.ContainsIgnoreCaseFilter;
@@ -51,16 +53,29 @@ import com.blazebit.persistence.view.impl.filter.StartsWithFilterImpl;
 import com.blazebit.persistence.view.impl.filter.StartsWithIgnoreCaseFilterImpl;
 import com.blazebit.persistence.view.impl.metamodel.ViewMetamodelImpl;
 import com.blazebit.persistence.view.impl.objectbuilder.ViewTypeObjectBuilderTemplate;
+import com.blazebit.persistence.view.impl.proxy.ObjectInstantiator;
 import com.blazebit.persistence.view.impl.proxy.ProxyFactory;
+import com.blazebit.persistence.view.metamodel.Attribute;
+import com.blazebit.persistence.view.metamodel.AttributeFilterMapping;
 import com.blazebit.persistence.view.metamodel.MappingConstructor;
+import com.blazebit.persistence.view.metamodel.MethodAttribute;
+import com.blazebit.persistence.view.metamodel.ParameterAttribute;
+import com.blazebit.persistence.view.metamodel.SubqueryAttribute;
+import com.blazebit.persistence.view.metamodel.ViewFilterMapping;
 import com.blazebit.persistence.view.metamodel.ViewMetamodel;
 import com.blazebit.persistence.view.metamodel.ViewType;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.metamodel.Metamodel;
 
 /**
@@ -74,16 +89,40 @@ public class EntityViewManagerImpl implements EntityViewManager {
     private final ProxyFactory proxyFactory;
     private final ExpressionFactory expressionFactory;
     private final ConcurrentMap<ViewTypeObjectBuilderTemplate.Key<?>, ViewTypeObjectBuilderTemplate<?>> objectBuilderCache;
+    private final Map<ViewTypeObjectBuilderTemplate.Key<?>, ViewTypeObjectBuilderTemplate<?>> fetchObjectBuilderCache;
     private final Map<String, Class<? extends AttributeFilterProvider>> filterMappings;
+    private final ConcurrentMap<Class<?>, AttributeFilterFactory> attributeFilterFactories;
+    private final ConcurrentMap<Class<?>, ViewFilterProvider> viewFilterProviders;
+    private final ConcurrentMap<Class<?>, SubqueryProvider> subqueryProviders;
+    private final ConcurrentMap<Class<?>, Boolean> statelessProviderClasses;
+    private final boolean shareSubviewInstances;
 
     public EntityViewManagerImpl(EntityViewConfigurationImpl config) {
-        this.metamodel = new ViewMetamodelImpl(config.getEntityViews());
-        this.proxyFactory = new ProxyFactory();
-        // TODO: Would be nice if we could reuse the expression factory of
-        this.expressionFactory = new SimpleCachingExpressionFactory(new ExpressionFactoryImpl());
-        this.objectBuilderCache = new ConcurrentHashMap<ViewTypeObjectBuilderTemplate.Key<?>, ViewTypeObjectBuilderTemplate<?>>();
-        this.filterMappings = new HashMap<String, Class<? extends AttributeFilterProvider>>();
-        registerFilterMappings();
+        Properties properties = config.getProperties();
+        BootstrapExecutor executor = new BootstrapExecutor(getIntProperty(properties, ConfigurationProperties.BOOTSTRAP_THREADS, 1));
+
+        try {
+            this.metamodel = new ViewMetamodelImpl(config.getEntityViews(), executor);
+            this.shareSubviewInstances = Boolean.valueOf(properties.getProperty(ConfigurationProperties.SHARE_SUBVIEW_INSTANCES));
+            this.proxyFactory = new ProxyFactory();
+            // TODO: Would be nice if we could reuse the expression factory of
+            this.expressionFactory = new SimpleCachingExpressionFactory(new ExpressionFactoryImpl());
+            this.objectBuilderCache = new ConcurrentHashMap<ViewTypeObjectBuilderTemplate.Key<?>, ViewTypeObjectBuilderTemplate<?>>();
+            this.fetchObjectBuilderCache = createFetchObjectBuilderCache(getIntProperty(properties, ConfigurationProperties.FETCH_TEMPLATE_CACHE_SIZE, 256));
+            this.filterMappings = new HashMap<String, Class<? extends AttributeFilterProvider>>();
+            registerFilterMappings();
+            this.attributeFilterFactories = new ConcurrentHashMap<Class<?>, AttributeFilterFactory>();
+            this.viewFilterProviders = new ConcurrentHashMap<Class<?>, ViewFilterProvider>();
+            this.subqueryProviders = new ConcurrentHashMap<Class<?>, SubqueryProvider>();
+            this.statelessProviderClasses = new ConcurrentHashMap<Class<?>, Boolean>();
+            registerProviders();
+
+            if (Boolean.valueOf(properties.getProperty(ConfigurationProperties.PROXY_EAGER_LOADING))) {
+                createProxies();
+            }
+        } finally {
+            executor.shutdown();
+        }
     }
 
     @Override
@@ -96,23 +135,108 @@ public class EntityViewManagerImpl implements EntityViewManager {
         return EntityViewSettingHelper.apply(setting, this, criteriaBuilder);
     }
 
+    @Override
+    public <T, Q extends QueryBuilder<T, Q>> PreparedEntityViewSetting<T, Q> prepareSetting(EntityViewSetting<T, Q> setting, EntityManagerFactory entityManagerFactory) {
+        return EntityViewSettingHelper.prepare(setting, this, entityManagerFactory.getMetamodel());
+    }
+
     public ExpressionFactory getExpressionFactory() {
         return expressionFactory;
     }
-    
+
+    public boolean isShareSubviewInstances() {
+        return shareSubviewInstances;
+    }
+
+    public ProxyFactory getProxyFactory() {
+        return proxyFactory;
+    }
+
     /**
-     * Creates a new filter instance of the given filter class.
+     * Returns the view filter provider instance of the given filter class.
+     * The instance is shared if the filter class is stateless, otherwise a new instance is created.
      *
      * @param <T>         The filter type
      * @param filterClass The filter class
-     * @return An instance of the given filter class
+     * @return The instance of the given filter class
      */
-    public <T extends ViewFilterProvider> T createViewFilter(Class<T> filterClass) {
-        try {
-            return filterClass.newInstance();
-        } catch (Exception ex) {
-            throw new IllegalArgumentException("Could not instantiate the view filter class: " + filterClass.getName(), ex);
+    public <T extends ViewFilterProvider> T getViewFilter(Class<T> filterClass) {
+        ViewFilterProvider provider = viewFilterProviders.get(filterClass);
+
+        if (provider == null) {
+            try {
+                provider = filterClass.newInstance();
+            } catch (Exception ex) {
+                throw new IllegalArgumentException("Could not instantiate the view filter class: " + filterClass.getName(), ex);
+            }
+
+            if (isStateless(filterClass)) {
+                ViewFilterProvider oldProvider = viewFilterProviders.putIfAbsent(filterClass, provider);
+
+                if (oldProvider != null) {
+                    provider = oldProvider;
+                }
+            }
         }
+
+        return (T) provider;
+    }
+
+    /**
+     * Returns the subquery provider instance of the given subquery provider class.
+     * The instance is shared if the provider class is stateless, otherwise a new instance is created.
+     *
+     * @param <T>           The subquery provider type
+     * @param providerClass The subquery provider class
+     * @return The instance of the given subquery provider class
+     */
+    public <T extends SubqueryProvider> T getSubqueryProvider(Class<T> providerClass) {
+        SubqueryProvider provider = subqueryProviders.get(providerClass);
+
+        if (provider == null) {
+            try {
+                provider = providerClass.newInstance();
+            } catch (Exception ex) {
+                throw new IllegalArgumentException("Could not instantiate the subquery provider: " + providerClass.getName(), ex);
+            }
+
+            if (isStateless(providerClass)) {
+                SubqueryProvider oldProvider = subqueryProviders.putIfAbsent(providerClass, provider);
+
+                if (oldProvider != null) {
+                    provider = oldProvider;
+                }
+            }
+        }
+
+        return (T) provider;
+    }
+
+    /**
+     * Returns whether the given provider class declares no instance fields, so that a single instance can be shared safely.
+     *
+     * @param providerClass The filter or subquery provider class
+     * @return True if instances of the class can be shared, false otherwise
+     */
+    boolean isStateless(Class<?> providerClass) {
+        Boolean stateless = statelessProviderClasses.get(providerClass);
+
+        if (stateless == null) {
+            stateless = Boolean.TRUE;
+
+            for (Class<?> clazz = providerClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        stateless = Boolean.FALSE;
+                        break;
+                    }
+                }
+            }
+
+            statelessProviderClasses.putIfAbsent(providerClass, stateless);
+        }
+
+        return stateless;
     }
 
     /**
@@ -128,46 +252,66 @@ public class EntityViewManagerImpl implements EntityViewManager {
      * @return An instance of the given filter class
      */
     public <T extends AttributeFilterProvider> T createAttributeFilter(Class<T> filterClass, Class<?> expectedType, Object argument) {
-        Class<T> filterClassImpl = (Class<T>) filterMappings.get(filterClass.getName());
-
-        if (filterClassImpl == null) {
-            return createFilterInstance(filterClass, expectedType, argument);
-        } else {
-            return createFilterInstance(filterClassImpl, expectedType, argument);
-        }
+        return (T) getAttributeFilterFactory(filterClass).create(expectedType, argument);
     }
 
-    private <T extends AttributeFilterProvider> T createFilterInstance(Class<T> filterClass, Class<?> expectedType, Object argument) {
-        try {
-            Constructor<T>[] constructors = (Constructor<T>[]) filterClass.getDeclaredConstructors();
-            Constructor<T> filterConstructor = findConstructor(constructors, Class.class, Object.class);
+    AttributeFilterFactory getAttributeFilterFactory(Class<? extends AttributeFilterProvider> filterClass) {
+        AttributeFilterFactory factory = attributeFilterFactories.get(filterClass);
+
+        if (factory == null) {
+            Class<? extends AttributeFilterProvider> filterClassImpl = filterMappings.get(filterClass.getName());
 
-            if (filterConstructor != null) {
-                return filterConstructor.newInstance(expectedType, argument);
+            if (filterClassImpl == null) {
+                factory = createAttributeFilterFactory(filterClass);
             } else {
-                filterConstructor = findConstructor(constructors, Class.class);
+                factory = createAttributeFilterFactory(filterClassImpl);
+            }
 
-                if (filterConstructor != null) {
-                    return filterConstructor.newInstance(expectedType);
-                } else {
-                    filterConstructor = findConstructor(constructors, Object.class);
+            AttributeFilterFactory oldFactory = attributeFilterFactories.putIfAbsent(filterClass, factory);
+
+            if (oldFactory != null) {
+                factory = oldFactory;
+            }
+        }
+
+        return factory;
+    }
+
+    private <T extends AttributeFilterProvider> AttributeFilterFactory createAttributeFilterFactory(Class<T> filterClass) {
+        Constructor<T>[] constructors = (Constructor<T>[]) filterClass.getDeclaredConstructors();
+        Constructor<T> filterConstructor = findConstructor(constructors, Class.class, Object.class);
+        boolean passExpectedType = true;
+        boolean passArgument = true;
 
-                    if (filterConstructor != null) {
-                        return filterConstructor.newInstance(argument);
-                    } else {
-                        filterConstructor = findConstructor(constructors);
+        if (filterConstructor == null) {
+            filterConstructor = findConstructor(constructors, Class.class);
+            passArgument = false;
 
-                        if (filterConstructor == null) {
-                            throw new IllegalArgumentException("No suitable constructor found for filter class '" + filterClass.getName() + "'");
-                        }
+            if (filterConstructor == null) {
+                filterConstructor = findConstructor(constructors, Object.class);
+                passExpectedType = false;
+                passArgument = true;
 
-                        return filterConstructor.newInstance();
+                if (filterConstructor == null) {
+                    filterConstructor = findConstructor(constructors);
+                    passArgument = false;
+
+                    if (filterConstructor == null) {
+                        throw new IllegalArgumentException("No suitable constructor found for filter class '" + filterClass.getName() + "'");
                     }
                 }
             }
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create an instance of the filter class '" + filterClass.getName() + "'", ex);
         }
+
+        ObjectInstantiator<T> instantiator;
+
+        if (Modifier.isPublic(filterClass.getModifiers()) && Modifier.isPublic(filterConstructor.getModifiers())) {
+            instantiator = proxyFactory.getInstantiator(filterConstructor);
+        } else {
+            instantiator = new ConstructorInstantiator<T>(filterConstructor);
+        }
+
+        return new AttributeFilterFactory(filterClass, instantiator, passExpectedType, passArgument);
     }
 
     private <T> Constructor<T> findConstructor(Constructor<T>[] constructors, Class<?>... classes) {
@@ -194,17 +338,31 @@ public class EntityViewManagerImpl implements EntityViewManager {
         return (CriteriaBuilder<T>) criteriaBuilder;
     }
 
+    <T> CriteriaBuilder<T> applyObjectBuilder(ViewTypeObjectBuilderTemplate<T> template, CriteriaBuilder<?> criteriaBuilder, Map<String, Object> optionalParameters) {
+        applyObjectBuilder(template, (QueryBuilder<?, ?>) criteriaBuilder, optionalParameters);
+        return (CriteriaBuilder<T>) criteriaBuilder;
+    }
+
     private <T> void applyObjectBuilder(ViewType<T> viewType, MappingConstructor<T> mappingConstructor, QueryBuilder<?, ?> criteriaBuilder, Map<String, Object> optionalParameters) {
-        if (criteriaBuilder.getResultType() != viewType.getEntityClass()) {
-            throw new IllegalArgumentException("The given view type with the entity type '" + viewType.getEntityClass().getName()
+        applyObjectBuilder(getTemplate(criteriaBuilder.getMetamodel(), viewType, mappingConstructor, null), criteriaBuilder, optionalParameters);
+    }
+
+    private <T> void applyObjectBuilder(ViewTypeObjectBuilderTemplate<T> template, QueryBuilder<?, ?> criteriaBuilder, Map<String, Object> optionalParameters) {
+        if (criteriaBuilder.getResultType() != template.getEntityClass()) {
+            throw new IllegalArgumentException("The given view type with the entity type '" + template.getEntityClass().getName()
                 + "' can not be applied to the query builder with result type '" + criteriaBuilder.getResultType().getName() + "'");
         }
 
-        criteriaBuilder.selectNew(getTemplate(criteriaBuilder.getMetamodel(), viewType, mappingConstructor).createObjectBuilder(criteriaBuilder, new HashMap<String, Object>(optionalParameters)));
+        criteriaBuilder.selectNew(template.createObjectBuilder(criteriaBuilder, new HashMap<String, Object>(optionalParameters)));
     }
 
-    private <T> ViewTypeObjectBuilderTemplate<T> getTemplate(Metamodel metamodel, ViewType<T> viewType, MappingConstructor<T> mappingConstructor) {
-        ViewTypeObjectBuilderTemplate.Key<T> key = new ViewTypeObjectBuilderTemplate.Key<T>(viewType, mappingConstructor);
+    <T> ViewTypeObjectBuilderTemplate<T> getTemplate(Metamodel metamodel, ViewType<T> viewType, MappingConstructor<T> mappingConstructor, Set<String> fetches) {
+        ViewTypeObjectBuilderTemplate.Key<T> key = new ViewTypeObjectBuilderTemplate.Key<T>(viewType, mappingConstructor, fetches);
+
+        if (fetches != null) {
+            return getFetchTemplate(metamodel, key);
+        }
+
         ViewTypeObjectBuilderTemplate<?> value = objectBuilderCache.get(key);
 
         if (value == null) {
@@ -219,6 +377,49 @@ public class EntityViewManagerImpl implements EntityViewManager {
         return (ViewTypeObjectBuilderTemplate<T>) value;
     }
 
+    private <T> ViewTypeObjectBuilderTemplate<T> getFetchTemplate(Metamodel metamodel, ViewTypeObjectBuilderTemplate.Key<T> key) {
+        ViewTypeObjectBuilderTemplate<?> value;
+
+        synchronized (fetchObjectBuilderCache) {
+            value = fetchObjectBuilderCache.get(key);
+        }
+
+        if (value == null) {
+            // The template is created outside of the lock since that might take a while
+            value = key.createValue(metamodel, this, proxyFactory);
+
+            synchronized (fetchObjectBuilderCache) {
+                ViewTypeObjectBuilderTemplate<?> oldValue = fetchObjectBuilderCache.get(key);
+
+                if (oldValue == null) {
+                    fetchObjectBuilderCache.put(key, value);
+                } else {
+                    value = oldValue;
+                }
+            }
+        }
+
+        return (ViewTypeObjectBuilderTemplate<T>) value;
+    }
+
+    private static Map<ViewTypeObjectBuilderTemplate.Key<?>, ViewTypeObjectBuilderTemplate<?>> createFetchObjectBuilderCache(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid value for property '" + ConfigurationProperties.FETCH_TEMPLATE_CACHE_SIZE + "': " + maximumSize);
+        }
+
+        // The fetched attributes are chosen by clients, so the templates for them are evicted in least recently used order
+        return new LinkedHashMap<ViewTypeObjectBuilderTemplate.Key<?>, ViewTypeObjectBuilderTemplate<?>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ViewTypeObjectBuilderTemplate.Key<?>, ViewTypeObjectBuilderTemplate<?>> eldest) {
+                return size() > maximumSize;
+            }
+
+        };
+    }
+
     private void registerFilterMappings() {
         filterMappings.put(ContainsFilter.class.getName(), ContainsFilterImpl.class);
         filterMappings.put(ContainsIgnoreCaseFilter.class.getName(), ContainsIgnoreCaseFilterImpl.class);
@@ -234,4 +435,81 @@ public class EntityViewManagerImpl implements EntityViewManager {
         filterMappings.put(LessOrEqualFilter.class.getName(), LessOrEqualFilterImpl.class);
     }
 
+    /**
+     * Resolves the filter constructors and creates the stateless provider instances of all views up front,
+     * so that applying a setting does not have to use reflection. Stateful providers are only instantiated
+     * to fail early if that is not possible.
+     */
+    private void registerProviders() {
+        for (ViewType<?> viewType : metamodel.getViews()) {
+            for (ViewFilterMapping filterMapping : viewType.getViewFilters()) {
+                getViewFilter(filterMapping.getFilterClass());
+            }
+            for (AttributeFilterMapping filterMapping : viewType.getAttributeFilters()) {
+                getAttributeFilterFactory(filterMapping.getFilterClass());
+            }
+            for (MethodAttribute<?, ?> attribute : viewType.getAttributes()) {
+                registerSubqueryProvider(attribute);
+            }
+            for (MappingConstructor<?> constructor : viewType.getConstructors()) {
+                for (ParameterAttribute<?, ?> attribute : constructor.getParameterAttributes()) {
+                    registerSubqueryProvider(attribute);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the proxy classes of all views and the instantiators for their constructors
+     * so that the first query of a view does not have to generate bytecode.
+     * The proxy factory generates classes one after another, so this is not done by the bootstrap threads.
+     */
+    private void createProxies() {
+        for (ViewType<?> viewType : metamodel.getViews()) {
+            Class<?> proxyClass = proxyFactory.getProxy(viewType);
+
+            for (Constructor<?> constructor : proxyClass.getDeclaredConstructors()) {
+                proxyFactory.getInstantiator(constructor);
+            }
+        }
+    }
+
+    private static int getIntProperty(Properties properties, String propertyName, int defaultValue) {
+        String value = properties.getProperty(propertyName);
+
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid value for property '" + propertyName + "': " + value, ex);
+        }
+    }
+
+    private void registerSubqueryProvider(Attribute<?, ?> attribute) {
+        if (attribute.isSubquery()) {
+            getSubqueryProvider(((SubqueryAttribute<?, ?>) attribute).getSubqueryProvider());
+        }
+    }
+
+    private static class ConstructorInstantiator<T> implements ObjectInstantiator<T> {
+
+        private final Constructor<? extends T> constructor;
+
+        public ConstructorInstantiator(Constructor<? extends T> constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public T newInstance(Object[] tuple) {
+            try {
+                return constructor.newInstance(tuple);
+            } catch (Exception ex) {
+                throw new RuntimeException("Could not invoke the constructor: " + constructor, ex);
+            }
+        }
+    }
+
 }
@@ -19,13 +19,11 @@ import com.blazebit.persistence.CriteriaBuilder;
 import com.blazebit.persistence.QueryBuilder;
 import com.blazebit.persistence.impl.SimpleQueryGenerator;
 import com.blazebit.persistence.impl.expression.Expression;
-import com.blazebit.persistence.view.AttributeFilterProvider;
 import com.blazebit.persistence.view.EntityViewSetting;
-import com.blazebit.persistence.view.Sorter;
 import com.blazebit.persistence.view.SubqueryProvider;
-import com.blazebit.persistence.view.ViewFilterProvider;
 import com.blazebit.persistence.view.metamodel.AttributeFilterMapping;
 import com.blazebit.persistence.view.metamodel.MappingAttribute;
+import com.blazebit.persistence.view.metamodel.MappingConstructor;
 import com.blazebit.persistence.view.metamodel.MethodAttribute;
 import com.blazebit.persistence.view.metamodel.PluralAttribute;
 import com.blazebit.persistence.view.metamodel.SubqueryAttribute;
@@ -33,8 +31,12 @@ import com.blazebit.persistence.view.metamodel.ViewFilterMapping;
 import com.blazebit.persistence.view.metamodel.ViewMetamodel;
 import com.blazebit.persistence.view.metamodel.ViewType;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.ManagedType;
 import javax.persistence.metamodel.Metamodel;
@@ -46,73 +48,102 @@ import javax.persistence.metamodel.Metamodel;
 public final class EntityViewSettingHelper {
 
     public static <T, Q extends QueryBuilder<T, Q>> Q apply(EntityViewSetting<T, Q> setting, EntityViewManagerImpl evm, CriteriaBuilder<?> criteriaBuilder) {
-        applyAttributeFilters(setting, evm, criteriaBuilder);
-        applyAttributeSorters(setting, evm, criteriaBuilder);
-        CriteriaBuilder<T> normalCb = evm.applyObjectBuilder(setting.getEntityViewClass(), setting.getViewConstructorName(), criteriaBuilder, setting.getOptionalParameters());
-        applyOptionalParameters(setting, normalCb);
-
-        if (setting.isPaginated()) {
-            if (setting.isKeySetPaginated()) {
-                if (setting.getFirstResult() == -1) {
-                    return (Q) normalCb.page(setting.getKeySet(), setting.getEntityId(), setting.getMaxResults());
+        return prepare(setting, evm, criteriaBuilder.getMetamodel()).apply(setting, criteriaBuilder);
+    }
+
+    public static <T, Q extends QueryBuilder<T, Q>> PreparedEntityViewSettingImpl<T, Q> prepare(EntityViewSetting<T, Q> setting, EntityViewManagerImpl evm, Metamodel jpaMetamodel) {
+        ViewMetamodel metamodel = evm.getMetamodel();
+        ViewType<T> viewType = metamodel.view(setting.getEntityViewClass());
+
+        if (viewType == null) {
+            throw new IllegalArgumentException("There is no entity view for the class '" + setting.getEntityViewClass().getName() + "' registered!");
+        }
+
+        MappingConstructor<T> mappingConstructor = viewType.getConstructor(setting.getViewConstructorName());
+        Map<String, PreparedAttributeFilter> attributeFilters = prepareAttributeFilters(setting, evm, metamodel, jpaMetamodel, viewType);
+        Map<String, PreparedAttributeFilter> attributeNamedFilters = prepareAttributeNamedFilters(setting, evm, metamodel, jpaMetamodel, viewType);
+        Map<String, PreparedViewFilter> viewFilters = prepareViewFilters(setting, evm, viewType);
+        Map<String, String> attributeSorters = prepareAttributeSorters(setting, evm, metamodel, jpaMetamodel, viewType);
+
+        Set<String> fetches = prepareFetches(setting, metamodel, viewType);
+
+        return new PreparedEntityViewSettingImpl<T, Q>(evm, evm.getTemplate(jpaMetamodel, viewType, mappingConstructor, fetches), setting.getEntityViewClass(), setting.getViewConstructorName(),
+            setting.getFetches(), attributeFilters, attributeNamedFilters, viewFilters, attributeSorters);
+    }
+
+    private static Set<String> prepareFetches(EntityViewSetting<?, ?> setting, ViewMetamodel metamodel, ViewType<?> viewType) {
+        if (!setting.hasFetches()) {
+            return null;
+        }
+
+        Set<String> fetches = new HashSet<String>(setting.getFetches());
+
+        for (String attributePath : fetches) {
+            String[] parts = attributePath.split("\\.");
+            ViewType<?> currentViewType = viewType;
+
+            for (int i = 0; i < parts.length; i++) {
+                MethodAttribute<?, ?> attribute = getAttribute(currentViewType, parts[i], viewType, attributePath);
+
+                if (i + 1 == parts.length) {
+                    break;
+                } else if (!attribute.isSubview()) {
+                    throw new IllegalArgumentException("The given attribute path '" + attributePath
+                        + "' is accessing the property '" + parts[i + 1] + "' of the attribute '" + parts[i]
+                        + "' which is not a subview and can therefore not be fetched partially!");
+                }
+
+                if (attribute.isCollection()) {
+                    currentViewType = metamodel.view(((PluralAttribute<?, ?, ?>) attribute).getElementType());
                 } else {
-                    return (Q) normalCb.page(setting.getKeySet(), setting.getFirstResult(), setting.getMaxResults());
+                    currentViewType = metamodel.view(attribute.getJavaType());
                 }
-            } else {
-                return (Q) normalCb.page(setting.getFirstResult(), setting.getMaxResults());
             }
-        } else {
-            return (Q) criteriaBuilder;
         }
-    }
 
-    private static void applyOptionalParameters(EntityViewSetting<?, ?> setting, CriteriaBuilder<?> normalCb) {
-        // Add optional parameters
-        if (setting.hasOptionalParameters()) {
-            for (Map.Entry<String, Object> paramEntry : setting.getOptionalParameters().entrySet()) {
-                if (normalCb.containsParameter(paramEntry.getKey()) && !normalCb.isParameterSet(paramEntry.getKey())) {
-                    normalCb.setParameter(paramEntry.getKey(), paramEntry.getValue());
+        // Attribute sorters order by the select aliases, so the sorted attributes have to be fetched too
+        fetches.addAll(setting.getAttributeSorters().keySet());
+
+        // Paths below a fetched attribute are fetched anyway, removing them lets equivalent settings share a template
+        Iterator<String> iter = fetches.iterator();
+        while (iter.hasNext()) {
+            String attributePath = iter.next();
+            int dotIndex = attributePath.indexOf('.');
+
+            while (dotIndex != -1) {
+                if (fetches.contains(attributePath.substring(0, dotIndex))) {
+                    iter.remove();
+                    break;
                 }
+
+                dotIndex = attributePath.indexOf('.', dotIndex + 1);
             }
         }
+
+        return fetches;
     }
 
-    private static void applyFilter(Object key, AttributeFilterProvider filterProvider, CriteriaBuilder<?> cb) {
-        if (key instanceof SubqueryAttribute<?, ?>) {
-            SubqueryAttribute<?, ?> subqueryAttribute = (SubqueryAttribute<?, ?>) key;
-            SubqueryProvider provider;
-
-            try {
-                provider = subqueryAttribute.getSubqueryProvider()
-                    .newInstance();
-            } catch (Exception ex) {
-                throw new IllegalArgumentException("Could not instantiate the subquery provider: " + subqueryAttribute
-                    .getSubqueryProvider()
-                    .getName(), ex);
-            }
+    private static PreparedAttributeFilter prepareFilter(EntityViewManagerImpl evm, AttributeInfo attributeInfo, Class<?> filterClass, Class<?> expectedType) {
+        AttributeFilterFactory factory = evm.getAttributeFilterFactory((Class) filterClass);
+
+        if (attributeInfo.mapping instanceof SubqueryAttribute<?, ?>) {
+            SubqueryAttribute<?, ?> subqueryAttribute = (SubqueryAttribute<?, ?>) attributeInfo.mapping;
+            Class<? extends SubqueryProvider> providerClass = subqueryAttribute.getSubqueryProvider();
 
             if (subqueryAttribute.getSubqueryExpression().isEmpty()) {
-                filterProvider.apply(cb, null, null, provider);
+                return new PreparedAttributeFilter(factory, expectedType, null, null, null, evm, providerClass);
             } else {
-                filterProvider.apply(cb, subqueryAttribute.getSubqueryAlias(), subqueryAttribute.getSubqueryExpression(), provider);
+                return new PreparedAttributeFilter(factory, expectedType, null, subqueryAttribute.getSubqueryAlias(), subqueryAttribute.getSubqueryExpression(), evm, providerClass);
             }
         } else {
-            filterProvider.apply(cb, (String) key);
+            String expression = getPrefixedExpression(evm, attributeInfo.subviewPrefixParts, attributeInfo.mapping.toString());
+            return new PreparedAttributeFilter(factory, expectedType, expression, null, null, null, null);
         }
     }
 
-    private static void applyAttributeFilters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, CriteriaBuilder<?> cb) {
-        ViewMetamodel metamodel = evm.getMetamodel();
-        Metamodel jpaMetamodel = cb.getMetamodel();
-        ViewType<?> viewType = metamodel.view(setting.getEntityViewClass());
+    private static Map<String, PreparedViewFilter> prepareViewFilters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, ViewType<?> viewType) throws IllegalArgumentException {
+        Map<String, PreparedViewFilter> viewFilters = new HashMap<String, PreparedViewFilter>();
 
-        applyAttributeFilters(setting, evm, cb, metamodel, jpaMetamodel, viewType);
-        applyAttributeNamedFilters(setting, evm, cb, metamodel, jpaMetamodel, viewType);
-        applyViewFilters(setting, evm, cb, viewType);
-    }
-
-    private static void applyViewFilters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, CriteriaBuilder<?> cb, ViewType<?> viewType) throws IllegalArgumentException {
-        // Add named view filter
         for (String filterName : setting.getViewFilters()) {
             ViewFilterMapping filterMapping = viewType.getViewFilter(filterName);
 
@@ -122,58 +153,43 @@ public final class EntityViewSettingHelper {
                         .getName() + "'");
             }
             
-            ViewFilterProvider provider = evm.createViewFilter(filterMapping.getFilterClass());
-            provider.apply(cb);
+            viewFilters.put(filterName, new PreparedViewFilter(evm, filterMapping.getFilterClass()));
         }
+
+        return viewFilters;
     }
 
-    private static void applyAttributeFilters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, CriteriaBuilder<?> cb, ViewMetamodel metamodel, Metamodel jpaMetamodel, ViewType<?> viewType) throws IllegalArgumentException {
-        for (Map.Entry<String, Object> attributeFilterEntry : setting.getAttributeFilters().entrySet()) {
-            String attributeName = attributeFilterEntry.getKey();
-            Object filterValue = attributeFilterEntry.getValue();
-            AttributeInfo attributeInfo = resolveAttributeInfo(metamodel, jpaMetamodel, viewType, attributeName);
+    private static Map<String, PreparedAttributeFilter> prepareAttributeFilters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, ViewMetamodel metamodel, Metamodel jpaMetamodel, ViewType<?> viewType) throws IllegalArgumentException {
+        Map<String, PreparedAttributeFilter> attributeFilters = new HashMap<String, PreparedAttributeFilter>();
 
-            Class<? extends AttributeFilterProvider> filterClass;
-            Class<?> expectedType;
+        for (String attributeName : setting.getAttributeFilters().keySet()) {
+            AttributeInfo attributeInfo = resolveAttributeInfo(metamodel, jpaMetamodel, viewType, attributeName);
 
             if (attributeInfo.entityAttribute) {
                 // No filters available
-                filterClass = null;
-                expectedType = null;
-            } else {
-                MethodAttribute<?, ?> attribute = attributeInfo.attribute;
-                AttributeFilterMapping filterMapping = attribute.getFilter(attribute.getName());
-
-                if (filterMapping == null) {
-                    throw new IllegalArgumentException("Could not find view filter mapping with the name '" + attribute.getName()
-                        + "' in the entity view type '" + attribute.getDeclaringType().getJavaType()
-                            .getName() + "'");
-                }
-                
-                filterClass = filterMapping.getFilterClass();
-                expectedType = attribute.getJavaType();
-            }
-
-            if (filterClass == null) {
                 throw new IllegalArgumentException("No filter mapping given for the attribute '" + attributeName
                     + "' in the entity view type '" + viewType.getJavaType()
                         .getName() + "'");
             }
-            
-            Object expression;
-            
-            if (attributeInfo.mapping instanceof SubqueryAttribute) {
-                expression = attributeInfo.mapping;
-            } else {
-                expression = getPrefixedExpression(evm, attributeInfo.subviewPrefixParts, attributeInfo.mapping.toString());
+
+            MethodAttribute<?, ?> attribute = attributeInfo.attribute;
+            AttributeFilterMapping filterMapping = attribute.getFilter(attribute.getName());
+
+            if (filterMapping == null) {
+                throw new IllegalArgumentException("Could not find view filter mapping with the name '" + attribute.getName()
+                    + "' in the entity view type '" + attribute.getDeclaringType().getJavaType()
+                        .getName() + "'");
             }
 
-            AttributeFilterProvider filter = evm.createAttributeFilter(filterClass, expectedType, filterValue);
-            applyFilter(expression, filter, cb);
+            attributeFilters.put(attributeName, prepareFilter(evm, attributeInfo, filterMapping.getFilterClass(), attribute.getJavaType()));
         }
+
+        return attributeFilters;
     }
 
-    private static void applyAttributeNamedFilters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, CriteriaBuilder<?> cb, ViewMetamodel metamodel, Metamodel jpaMetamodel, ViewType<?> viewType) throws IllegalArgumentException {
+    private static Map<String, PreparedAttributeFilter> prepareAttributeNamedFilters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, ViewMetamodel metamodel, Metamodel jpaMetamodel, ViewType<?> viewType) throws IllegalArgumentException {
+        Map<String, PreparedAttributeFilter> attributeNamedFilters = new HashMap<String, PreparedAttributeFilter>();
+
         for (String filterName : setting.getAttributeNamedFilters()) {
             AttributeFilterMapping filterMapping = viewType.getAttributeFilter(filterName);
 
@@ -185,45 +201,34 @@ public final class EntityViewSettingHelper {
             
             MethodAttribute<?, ?> attribute = filterMapping.getDeclaringAttribute();
             AttributeInfo attributeInfo = resolveAttributeInfo(metamodel, jpaMetamodel, viewType, attribute.getName());
-            AttributeFilterProvider provider;
             
             if (attributeInfo.entityAttribute) {
                 throw new IllegalArgumentException("Attribute filter on entity attributes are not allowed!");
-            } else {
-                provider = evm.createAttributeFilter(filterMapping.getFilterClass(), attributeInfo.attribute.getJavaType(), null);
-            }
-            
-            Object expression;
-            
-            if (attributeInfo.mapping instanceof SubqueryAttribute) {
-                expression = attributeInfo.mapping;
-            } else {
-                expression = getPrefixedExpression(evm, attributeInfo.subviewPrefixParts, attributeInfo.mapping.toString());
             }
-            
-            applyFilter(expression, provider, cb);
+
+            attributeNamedFilters.put(filterName, prepareFilter(evm, attributeInfo, filterMapping.getFilterClass(), attributeInfo.attribute.getJavaType()));
         }
+
+        return attributeNamedFilters;
     }
     
-    private static void applyAttributeSorters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, CriteriaBuilder<?> cb) {
-        ViewMetamodel metamodel = evm.getMetamodel();
-        Metamodel jpaMetamodel = cb.getMetamodel();
-        ViewType<?> viewType = metamodel.view(setting.getEntityViewClass());
+    private static Map<String, String> prepareAttributeSorters(EntityViewSetting<?, ?> setting, EntityViewManagerImpl evm, ViewMetamodel metamodel, Metamodel jpaMetamodel, ViewType<?> viewType) {
+        Map<String, String> attributeSorters = new HashMap<String, String>();
 
-        for (Map.Entry<String, Sorter> attributeSorterEntry : setting.getAttributeSorters().entrySet()) {
-            String attributeName = attributeSorterEntry.getKey();
-            Sorter sorter = attributeSorterEntry.getValue();
+        for (String attributeName : setting.getAttributeSorters().keySet()) {
             AttributeInfo attributeInfo = resolveAttributeInfo(metamodel, jpaMetamodel, viewType, attributeName);
             String mapping;
 
             if (attributeInfo.entityAttribute) {
                 mapping = getPrefixedExpression(evm, attributeInfo.subviewPrefixParts, attributeInfo.mapping.toString());
             } else {
-                mapping = resolveAttributeAlias(viewType, attributeSorterEntry.getKey());
+                mapping = resolveAttributeAlias(viewType, attributeName);
             }
 
-            sorter.apply(cb, mapping);
+            attributeSorters.put(attributeName, mapping);
         }
+
+        return attributeSorters;
     }
 
     private static String resolveAttributeAlias(ViewType<?> viewType, String attributeName) {
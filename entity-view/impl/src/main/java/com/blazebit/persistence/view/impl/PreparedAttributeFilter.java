@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.view.AttributeFilterProvider;
+import com.blazebit.persistence.view.SubqueryProvider;
+
+/**
+ * An attribute filter of a prepared entity view setting with an already resolved expression or subquery.
+ * The subquery provider instance is only kept if the provider class is stateless, otherwise a new instance
+ * is obtained whenever the filter is applied.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+class PreparedAttributeFilter {
+
+    private final AttributeFilterFactory factory;
+    private final Class<?> expectedType;
+    private final String expression;
+    private final String subqueryAlias;
+    private final String subqueryExpression;
+    private final EntityViewManagerImpl evm;
+    private final Class<? extends SubqueryProvider> subqueryProviderClass;
+    private final SubqueryProvider sharedSubqueryProvider;
+
+    public PreparedAttributeFilter(AttributeFilterFactory factory, Class<?> expectedType, String expression, String subqueryAlias, String subqueryExpression, EntityViewManagerImpl evm, Class<? extends SubqueryProvider> subqueryProviderClass) {
+        this.factory = factory;
+        this.expectedType = expectedType;
+        this.expression = expression;
+        this.subqueryAlias = subqueryAlias;
+        this.subqueryExpression = subqueryExpression;
+        this.evm = evm;
+        this.subqueryProviderClass = subqueryProviderClass;
+
+        if (subqueryProviderClass != null && evm.isStateless(subqueryProviderClass)) {
+            this.sharedSubqueryProvider = evm.getSubqueryProvider(subqueryProviderClass);
+        } else {
+            this.sharedSubqueryProvider = null;
+        }
+    }
+
+    public void apply(CriteriaBuilder<?> cb, Object value) {
+        AttributeFilterProvider filter = factory.create(expectedType, value);
+
+        if (subqueryProviderClass == null) {
+            filter.apply(cb, expression);
+        } else {
+            SubqueryProvider subqueryProvider = sharedSubqueryProvider == null ? evm.getSubqueryProvider(subqueryProviderClass) : sharedSubqueryProvider;
+            filter.apply(cb, subqueryAlias, subqueryExpression, subqueryProvider);
+        }
+    }
+}
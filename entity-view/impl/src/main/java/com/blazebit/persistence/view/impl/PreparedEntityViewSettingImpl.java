@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.QueryBuilder;
+import com.blazebit.persistence.view.EntityViewSetting;
+import com.blazebit.persistence.view.PreparedEntityViewSetting;
+import com.blazebit.persistence.view.Sorter;
+import com.blazebit.persistence.view.impl.objectbuilder.ViewTypeObjectBuilderTemplate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class PreparedEntityViewSettingImpl<T, Q extends QueryBuilder<T, Q>> implements PreparedEntityViewSetting<T, Q> {
+
+    private final EntityViewManagerImpl evm;
+    private final ViewTypeObjectBuilderTemplate<T> template;
+    private final Class<T> entityViewClass;
+    private final String viewConstructorName;
+    private final Set<String> fetches;
+    private final Map<String, PreparedAttributeFilter> attributeFilters;
+    private final Map<String, PreparedAttributeFilter> attributeNamedFilters;
+    private final Map<String, PreparedViewFilter> viewFilters;
+    private final Map<String, String> attributeSorters;
+
+    PreparedEntityViewSettingImpl(EntityViewManagerImpl evm, ViewTypeObjectBuilderTemplate<T> template, Class<T> entityViewClass, String viewConstructorName, Set<String> fetches, Map<String, PreparedAttributeFilter> attributeFilters,
+        Map<String, PreparedAttributeFilter> attributeNamedFilters, Map<String, PreparedViewFilter> viewFilters, Map<String, String> attributeSorters) {
+        this.evm = evm;
+        this.template = template;
+        this.entityViewClass = entityViewClass;
+        this.viewConstructorName = viewConstructorName;
+        this.fetches = new HashSet<String>(fetches);
+        this.attributeFilters = attributeFilters;
+        this.attributeNamedFilters = attributeNamedFilters;
+        this.viewFilters = viewFilters;
+        this.attributeSorters = attributeSorters;
+    }
+
+    @Override
+    public Class<T> getEntityViewClass() {
+        return entityViewClass;
+    }
+
+    @Override
+    public Q apply(EntityViewSetting<T, Q> setting, CriteriaBuilder<?> criteriaBuilder) {
+        if (setting.getEntityViewClass() != entityViewClass) {
+            throw new IllegalArgumentException("The setting for the entity view '" + setting.getEntityViewClass().getName()
+                + "' can not be applied through the setting prepared for the entity view '" + entityViewClass.getName() + "'");
+        }
+        if (viewConstructorName == null ? setting.getViewConstructorName() != null : !viewConstructorName.equals(setting.getViewConstructorName())) {
+            throw new IllegalArgumentException("The setting for the view constructor '" + setting.getViewConstructorName()
+                + "' can not be applied through the setting prepared for the view constructor '" + viewConstructorName + "'");
+        }
+        if (!fetches.equals(new HashSet<String>(setting.getFetches()))) {
+            throw new IllegalArgumentException("The setting with the fetches " + setting.getFetches()
+                + " can not be applied through the setting prepared for the fetches " + fetches);
+        }
+
+        for (Map.Entry<String, Object> attributeFilterEntry : setting.getAttributeFilters().entrySet()) {
+            getPrepared(attributeFilters, attributeFilterEntry.getKey(), "attribute filter").apply(criteriaBuilder, attributeFilterEntry.getValue());
+        }
+        for (String filterName : setting.getAttributeNamedFilters()) {
+            getPrepared(attributeNamedFilters, filterName, "attribute named filter").apply(criteriaBuilder, null);
+        }
+        for (String filterName : setting.getViewFilters()) {
+            getPrepared(viewFilters, filterName, "view filter").apply(criteriaBuilder);
+        }
+        for (Map.Entry<String, Sorter> attributeSorterEntry : setting.getAttributeSorters().entrySet()) {
+            String mapping = getPrepared(attributeSorters, attributeSorterEntry.getKey(), "attribute sorter");
+            attributeSorterEntry.getValue().apply(criteriaBuilder, mapping);
+        }
+
+        CriteriaBuilder<T> normalCb = evm.applyObjectBuilder(template, criteriaBuilder, setting.getOptionalParameters());
+        applyOptionalParameters(setting, normalCb);
+
+        if (setting.isPaginated()) {
+            if (setting.isKeySetPaginated()) {
+                if (setting.getFirstResult() == -1) {
+                    return (Q) normalCb.page(setting.getKeySet(), setting.getEntityId(), setting.getMaxResults());
+                } else {
+                    return (Q) normalCb.page(setting.getKeySet(), setting.getFirstResult(), setting.getMaxResults());
+                }
+            } else {
+                return (Q) normalCb.page(setting.getFirstResult(), setting.getMaxResults());
+            }
+        } else {
+            return (Q) criteriaBuilder;
+        }
+    }
+
+    private <V> V getPrepared(Map<String, V> preparedElements, String name, String elementType) {
+        V element = preparedElements.get(name);
+
+        if (element == null) {
+            throw new IllegalArgumentException("The " + elementType + " '" + name + "' was not part of the prepared setting for the entity view '" + entityViewClass.getName() + "'");
+        }
+
+        return element;
+    }
+
+    private static void applyOptionalParameters(EntityViewSetting<?, ?> setting, CriteriaBuilder<?> normalCb) {
+        // Add optional parameters
+        if (setting.hasOptionalParameters()) {
+            for (Map.Entry<String, Object> paramEntry : setting.getOptionalParameters().entrySet()) {
+                if (normalCb.containsParameter(paramEntry.getKey()) && !normalCb.isParameterSet(paramEntry.getKey())) {
+                    normalCb.setParameter(paramEntry.getKey(), paramEntry.getValue());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.view.ViewFilterProvider;
+
+/**
+ * A view filter of a prepared entity view setting. Since a prepared setting is shared, the filter instance is only
+ * kept if the filter class is stateless, otherwise a new instance is obtained whenever the filter is applied.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+class PreparedViewFilter {
+
+    private final EntityViewManagerImpl evm;
+    private final Class<? extends ViewFilterProvider> filterClass;
+    private final ViewFilterProvider sharedFilter;
+
+    public PreparedViewFilter(EntityViewManagerImpl evm, Class<? extends ViewFilterProvider> filterClass) {
+        this.evm = evm;
+        this.filterClass = filterClass;
+        this.sharedFilter = evm.isStateless(filterClass) ? evm.getViewFilter(filterClass) : null;
+    }
+
+    public void apply(CriteriaBuilder<?> cb) {
+        ViewFilterProvider filter = sharedFilter == null ? evm.getViewFilter(filterClass) : sharedFilter;
+        filter.apply(cb);
+    }
+}
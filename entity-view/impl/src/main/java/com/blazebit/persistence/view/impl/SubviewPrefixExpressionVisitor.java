@@ -16,6 +16,7 @@
 
 package com.blazebit.persistence.view.impl;
 
+import com.blazebit.persistence.impl.expression.PathElementExpression;
 import com.blazebit.persistence.impl.expression.PathExpression;
 import com.blazebit.persistence.impl.expression.PropertyExpression;
 import com.blazebit.persistence.impl.expression.VisitorAdapter;
@@ -39,7 +40,11 @@ public class SubviewPrefixExpressionVisitor extends VisitorAdapter {
 
     @Override
     public void visit(PathExpression expression) {
-        expression.getExpressions().addAll(0, prefixElements);
+        // The path elements might be shared with other expressions so we replace them instead of modifying them
+        List<PathElementExpression> pathElements = new ArrayList<PathElementExpression>(prefixElements.size() + expression.getExpressions().size());
+        pathElements.addAll(prefixElements);
+        pathElements.addAll(expression.getExpressions());
+        expression.setExpressions(pathElements);
     }
     
 }
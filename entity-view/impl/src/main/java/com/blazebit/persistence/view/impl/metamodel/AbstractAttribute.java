@@ -15,6 +15,7 @@
  */
 package com.blazebit.persistence.view.impl.metamodel;
 
+import com.blazebit.persistence.view.FetchStrategy;
 import com.blazebit.persistence.view.IdMapping;
 import com.blazebit.persistence.view.Mapping;
 import com.blazebit.persistence.view.MappingParameter;
@@ -36,6 +37,8 @@ public abstract class AbstractAttribute<X, Y> implements Attribute<X, Y> {
     protected final ViewType<X> declaringType;
     protected final Class<Y> javaType;
     protected final String mapping;
+    protected final FetchStrategy fetchStrategy;
+    protected final int batchSize;
     protected final Class<? extends SubqueryProvider> subqueryProvider;
     protected final String subqueryExpression;
     protected final String subqueryAlias;
@@ -55,6 +58,8 @@ public abstract class AbstractAttribute<X, Y> implements Attribute<X, Y> {
 
         if (mapping instanceof IdMapping) {
             this.mapping = ((IdMapping) mapping).value();
+            this.fetchStrategy = FetchStrategy.JOIN;
+            this.batchSize = -1;
             this.subqueryProvider = null;
             this.id = true;
             this.queryParameter = false;
@@ -62,7 +67,10 @@ public abstract class AbstractAttribute<X, Y> implements Attribute<X, Y> {
             this.subqueryExpression = null;
             this.subqueryAlias = null;
         } else if (mapping instanceof Mapping) {
-            this.mapping = ((Mapping) mapping).value();
+            Mapping mappingAnnotation = (Mapping) mapping;
+            this.mapping = mappingAnnotation.value();
+            this.fetchStrategy = mappingAnnotation.fetch();
+            this.batchSize = mappingAnnotation.batchSize();
             this.subqueryProvider = null;
             this.id = false;
             this.queryParameter = false;
@@ -71,6 +79,8 @@ public abstract class AbstractAttribute<X, Y> implements Attribute<X, Y> {
             this.subqueryAlias = null;
         } else if (mapping instanceof MappingParameter) {
             this.mapping = ((MappingParameter) mapping).value();
+            this.fetchStrategy = FetchStrategy.JOIN;
+            this.batchSize = -1;
             this.subqueryProvider = null;
             this.id = false;
             this.queryParameter = true;
@@ -80,6 +90,8 @@ public abstract class AbstractAttribute<X, Y> implements Attribute<X, Y> {
         } else if (mapping instanceof MappingSubquery) {
             MappingSubquery mappingSubquery = (MappingSubquery) mapping;
             this.mapping = null;
+            this.fetchStrategy = FetchStrategy.JOIN;
+            this.batchSize = -1;
             this.subqueryProvider = mappingSubquery.value();
             this.id = false;
             this.queryParameter = false;
@@ -93,6 +105,10 @@ public abstract class AbstractAttribute<X, Y> implements Attribute<X, Y> {
         } else {
             throw new IllegalArgumentException("No mapping annotation could be found " + errorLocation);
         }
+
+        if ((fetchStrategy == FetchStrategy.BATCH || fetchStrategy == FetchStrategy.LAZY) && batchSize < 1) {
+            throw new IllegalArgumentException("Illegal batch size '" + batchSize + "' " + errorLocation);
+        }
     }
 
     public PluralAttribute.CollectionType getCollectionType() {
@@ -142,4 +158,12 @@ public abstract class AbstractAttribute<X, Y> implements Attribute<X, Y> {
     public String getMapping() {
         return mapping;
     }
+
+    public FetchStrategy getFetchStrategy() {
+        return fetchStrategy;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
 }
@@ -16,6 +16,7 @@
 package com.blazebit.persistence.view.impl.metamodel;
 
 import com.blazebit.lang.StringUtils;
+import com.blazebit.persistence.view.FetchStrategy;
 import com.blazebit.persistence.view.SubqueryProvider;
 import com.blazebit.persistence.view.metamodel.MappingAttribute;
 import com.blazebit.persistence.view.metamodel.PluralAttribute;
@@ -44,6 +45,10 @@ public abstract class AbstractMethodMappingPluralAttribute<X, C, Y> extends Abst
         }
         
         this.subview = entityViews.contains(elementType);
+
+        if (fetchStrategy == FetchStrategy.LAZY) {
+            throw new IllegalArgumentException("The fetch strategy '" + fetchStrategy + "' is not allowed for collections but was used " + "for the attribute '" + getName() + "' of the class '" + viewType.getJavaType().getName() + "'!");
+        }
     }
 
     @Override
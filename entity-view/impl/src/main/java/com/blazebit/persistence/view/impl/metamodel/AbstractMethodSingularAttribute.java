@@ -15,6 +15,7 @@
  */
 package com.blazebit.persistence.view.impl.metamodel;
 
+import com.blazebit.persistence.view.FetchStrategy;
 import com.blazebit.persistence.view.metamodel.SingularAttribute;
 import com.blazebit.persistence.view.metamodel.ViewType;
 import java.lang.annotation.Annotation;
@@ -30,6 +31,17 @@ public abstract class AbstractMethodSingularAttribute<X, Y> extends AbstractMeth
 
     public AbstractMethodSingularAttribute(ViewType<X> viewType, Method method, Annotation mapping, Set<Class<?>> entityViews) {
         super(viewType, method, mapping, entityViews);
+
+        if (fetchStrategy == FetchStrategy.LAZY) {
+            if (subview) {
+                throw new IllegalArgumentException("The fetch strategy '" + fetchStrategy + "' is not allowed for subviews but was used " + "for the attribute '" + getName() + "' of the class '" + viewType.getJavaType().getName() + "'!");
+            }
+            if (javaType.isPrimitive()) {
+                throw new IllegalArgumentException("The fetch strategy '" + fetchStrategy + "' is not allowed for primitive types but was used " + "for the attribute '" + getName() + "' of the class '" + viewType.getJavaType().getName() + "'! Please use the wrapper type instead.");
+            }
+        } else if (fetchStrategy != FetchStrategy.JOIN) {
+            throw new IllegalArgumentException("The fetch strategy '" + fetchStrategy + "' is only allowed for collections but was used " + "for the attribute '" + getName() + "' of the class '" + viewType.getJavaType().getName() + "'!");
+        }
     }
 
     @Override
@@ -15,6 +15,7 @@
  */
 package com.blazebit.persistence.view.impl.metamodel;
 
+import com.blazebit.persistence.view.FetchStrategy;
 import com.blazebit.persistence.view.SubqueryProvider;
 import com.blazebit.persistence.view.metamodel.MappingConstructor;
 import com.blazebit.persistence.view.metamodel.ParameterAttribute;
@@ -40,6 +41,10 @@ public abstract class AbstractParameterMappingPluralAttribute<X, C, Y> extends A
         Class<?>[] typeArguments = ReflectionUtils.resolveTypeArguments(mappingConstructor.getDeclaringType().getJavaType(), parameterType);
         this.elementType = (Class<Y>) typeArguments[typeArguments.length - 1];
         this.subview = entityViews.contains(elementType);
+
+        if (fetchStrategy == FetchStrategy.LAZY) {
+            throw new IllegalArgumentException("The fetch strategy '" + fetchStrategy + "' is not allowed for constructor parameters but was used " + "for the parameter of the constructor '" + mappingConstructor.getJavaConstructor().toString() + "' at the index '" + index + "'!");
+        }
     }
 
     @Override
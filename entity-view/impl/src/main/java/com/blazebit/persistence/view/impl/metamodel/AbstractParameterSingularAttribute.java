@@ -15,6 +15,7 @@
  */
 package com.blazebit.persistence.view.impl.metamodel;
 
+import com.blazebit.persistence.view.FetchStrategy;
 import com.blazebit.persistence.view.metamodel.MappingConstructor;
 import com.blazebit.persistence.view.metamodel.SingularAttribute;
 import java.lang.annotation.Annotation;
@@ -29,6 +30,12 @@ public abstract class AbstractParameterSingularAttribute<X, Y> extends AbstractP
 
     public AbstractParameterSingularAttribute(MappingConstructor<X> constructor, int index, Annotation mapping, Set<Class<?>> entityViews) {
         super(constructor, index, mapping, entityViews);
+
+        if (fetchStrategy == FetchStrategy.LAZY) {
+            throw new IllegalArgumentException("The fetch strategy '" + fetchStrategy + "' is not allowed for constructor parameters but was used " + "for the parameter of the constructor '" + constructor.getJavaConstructor().toString() + "' at the index '" + index + "'!");
+        } else if (fetchStrategy != FetchStrategy.JOIN) {
+            throw new IllegalArgumentException("The fetch strategy '" + fetchStrategy + "' is only allowed for collections but was used " + "for the parameter of the constructor '" + constructor.getJavaConstructor().toString() + "' at the index '" + index + "'!");
+        }
     }
 
     @Override
@@ -15,6 +15,7 @@
  */
 package com.blazebit.persistence.view.impl.metamodel;
 
+import com.blazebit.persistence.view.FetchStrategy;
 import com.blazebit.persistence.view.Mapping;
 import java.lang.annotation.Annotation;
 
@@ -36,6 +37,16 @@ public class MappingLiteral implements Mapping {
         return value;
     }
 
+    @Override
+    public FetchStrategy fetch() {
+        return FetchStrategy.JOIN;
+    }
+
+    @Override
+    public int batchSize() {
+        return 64;
+    }
+
     @Override
     public Class<? extends Annotation> annotationType() {
         return Mapping.class;
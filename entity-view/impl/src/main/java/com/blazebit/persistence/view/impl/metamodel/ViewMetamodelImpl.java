@@ -15,15 +15,19 @@
  */
 package com.blazebit.persistence.view.impl.metamodel;
 
+import com.blazebit.persistence.view.impl.BootstrapExecutor;
 import com.blazebit.persistence.view.metamodel.MethodAttribute;
 import com.blazebit.persistence.view.metamodel.PluralAttribute;
 import com.blazebit.persistence.view.metamodel.ViewMetamodel;
 import com.blazebit.persistence.view.metamodel.ViewType;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  *
@@ -35,10 +39,27 @@ public class ViewMetamodelImpl implements ViewMetamodel {
     private final Map<Class<?>, ViewType<?>> views;
 
     public ViewMetamodelImpl(Set<Class<?>> entityViews) {
+        this(entityViews, new BootstrapExecutor(1));
+    }
+
+    public ViewMetamodelImpl(final Set<Class<?>> entityViews, BootstrapExecutor executor) {
         this.views = new HashMap<Class<?>, ViewType<?>>(entityViews.size());
+        List<Callable<ViewType<?>>> tasks = new ArrayList<Callable<ViewType<?>>>(entityViews.size());
+
+        // The view types are independent of each other so they can be built concurrently
+        for (final Class<?> entityViewClass : entityViews) {
+            tasks.add(new Callable<ViewType<?>>() {
+
+                @Override
+                public ViewType<?> call() {
+                    return getViewType(entityViewClass, entityViews);
+                }
+
+            });
+        }
 
-        for (Class<?> entityViewClass : entityViews) {
-            views.put(entityViewClass, getViewType(entityViewClass, entityViews));
+        for (ViewType<?> viewType : executor.invokeAll(tasks)) {
+            views.put(viewType.getJavaType(), viewType);
         }
 
         // Check for circular dependencies
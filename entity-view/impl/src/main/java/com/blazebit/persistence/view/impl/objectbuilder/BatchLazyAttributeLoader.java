@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl.objectbuilder;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.QueryBuilder;
+import com.blazebit.persistence.view.impl.proxy.LazyAttributeLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+
+/**
+ * Loads lazy attributes with the same batch size for the entity views of a query. The first access to a lazy attribute loads the lazy attributes
+ * of the accessed entity view together with the ones of up to batch size - 1 other entity views of the query result that were not loaded yet.
+ * The loaded values are only retained until every entity view that was registered with the id has received them.
+ *
+ * The lazy attributes are loaded with the entity manager of the owner query and with the parameters that are set on the owner query at the time
+ * of the load. Since an entity manager is not thread-safe, lazy attributes must be accessed while the entity manager is open and not concurrently
+ * to other usages of it. The loader itself synchronizes the bookkeeping of loaded and pending ids.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class BatchLazyAttributeLoader implements LazyAttributeLoader {
+
+    private final ViewTypeObjectBuilderTemplate<Object[]> lazyAttributeTemplate;
+    private final int batchSize;
+    private final QueryBuilder<?, ?> queryBuilder;
+    private final Map<String, Object> optionalParameters;
+    private final Set<Object> pendingIds = new LinkedHashSet<Object>();
+    private final Map<Object, Object[]> loadedValues = new HashMap<Object, Object[]>();
+    private final Map<Object, Integer> unloadedViewCounts = new HashMap<Object, Integer>();
+
+    public BatchLazyAttributeLoader(ViewTypeObjectBuilderTemplate<Object[]> lazyAttributeTemplate, int batchSize, QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters) {
+        this.lazyAttributeTemplate = lazyAttributeTemplate;
+        this.batchSize = batchSize;
+        this.queryBuilder = queryBuilder;
+        this.optionalParameters = optionalParameters;
+    }
+
+    /**
+     * Registers the id of an entity view of the query result so that its lazy attributes are loaded together with the ones of other entity views.
+     *
+     * @param id The id of the entity view
+     */
+    public synchronized void add(Object id) {
+        Integer count = unloadedViewCounts.get(id);
+        unloadedViewCounts.put(id, count == null ? 1 : count + 1);
+
+        if (!loadedValues.containsKey(id)) {
+            pendingIds.add(id);
+        }
+    }
+
+    @Override
+    public synchronized Object[] load(Object id) {
+        Object[] values = loadedValues.get(id);
+
+        if (values == null) {
+            List<Object> ids = new ArrayList<Object>(Math.min(batchSize, pendingIds.size() + 1));
+            ids.add(id);
+            pendingIds.remove(id);
+
+            Iterator<Object> iter = pendingIds.iterator();
+            while (ids.size() < batchSize && iter.hasNext()) {
+                ids.add(iter.next());
+                iter.remove();
+            }
+
+            fetch(ids);
+            values = loadedValues.get(id);
+
+            if (values == null) {
+                throw new IllegalStateException("Could not load the lazy attributes of the entity view with the id '" + id + "' because the entity does not exist anymore!");
+            }
+        }
+
+        // Every entity view loads its lazy attributes only once, so the values can be released after the last one received them
+        Integer count = unloadedViewCounts.get(id);
+        if (count == null || count <= 1) {
+            unloadedViewCounts.remove(id);
+            loadedValues.remove(id);
+        } else {
+            unloadedViewCounts.put(id, count - 1);
+        }
+
+        return values;
+    }
+
+    private void fetch(List<Object> ids) {
+        EntityManager em = queryBuilder.getEntityManager();
+
+        if (!em.isOpen()) {
+            throw new IllegalStateException("Could not load the lazy attributes of the entity view with the id '" + ids.get(0)
+                + "' because the entity manager of the query is closed! Lazy attributes must be accessed before the entity manager is closed.");
+        }
+
+        // The mappings of the lazy attributes may refer to parameters of the owner query
+        Map<String, Object> parameters = new HashMap<String, Object>(optionalParameters);
+        for (Parameter<?> parameter : queryBuilder.getParameters()) {
+            if (queryBuilder.isParameterSet(parameter.getName())) {
+                parameters.put(parameter.getName(), queryBuilder.getParameterValue(parameter.getName()));
+            }
+        }
+
+        CriteriaBuilder<?> criteriaBuilder = queryBuilder.getCriteriaBuilderFactory().create(em, lazyAttributeTemplate.getEntityClass());
+        criteriaBuilder.where(lazyAttributeTemplate.getIdAttributeName()).in(ids);
+
+        TupleTransformator transformator = lazyAttributeTemplate.getTupleTransformator().init(criteriaBuilder, parameters);
+        CriteriaBuilder<Object[]> fetchCriteriaBuilder = criteriaBuilder.selectNew(new FetchObjectBuilder(lazyAttributeTemplate.getMappers(), transformator));
+
+        for (Map.Entry<String, Object> paramEntry : parameters.entrySet()) {
+            if (fetchCriteriaBuilder.containsParameter(paramEntry.getKey()) && !fetchCriteriaBuilder.isParameterSet(paramEntry.getKey())) {
+                fetchCriteriaBuilder.setParameter(paramEntry.getKey(), paramEntry.getValue());
+            }
+        }
+
+        // The tuples consist of the id and the values of the lazy attributes
+        List<Object[]> tuples = fetchCriteriaBuilder.getResultList();
+
+        for (Object[] tuple : tuples) {
+            Object[] values = new Object[tuple.length - 1];
+            System.arraycopy(tuple, 1, values, 0, values.length);
+            loadedValues.put(tuple[0], values);
+        }
+    }
+}
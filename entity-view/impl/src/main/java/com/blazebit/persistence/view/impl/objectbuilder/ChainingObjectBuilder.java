@@ -15,6 +15,7 @@
  */
 package com.blazebit.persistence.view.impl.objectbuilder;
 
+import com.blazebit.persistence.FoldingObjectBuilder;
 import com.blazebit.persistence.ObjectBuilder;
 import com.blazebit.persistence.QueryBuilder;
 import com.blazebit.persistence.SelectBuilder;
@@ -23,19 +24,23 @@ import java.util.List;
 import java.util.Map;
 
 /**
+ * An object builder that applies the tuple transformators before building the objects.
+ * When scrolling through the results, the tuples of a single root object are collected and transformed together,
+ * so only the tuples of one root object have to be held in memory at once.
  *
  * @author Christian Beikov
  * @since 1.0
  */
-public class ChainingObjectBuilder<T> implements ObjectBuilder<T> {
+public class ChainingObjectBuilder<T> implements FoldingObjectBuilder<T> {
 
     private final TupleTransformator transformator;
     private final ObjectBuilder<T> objectBuilder;
+    private final int[] idPositions;
 
-    public ChainingObjectBuilder(TupleTransformator transformator, ObjectBuilder<T> objectBuilder, QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters, int startIndex) {
-        this.transformator = transformator;
+    public ChainingObjectBuilder(TupleTransformator transformator, ObjectBuilder<T> objectBuilder, QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters, int[] idPositions) {
+        this.transformator = transformator.init(queryBuilder, optionalParameters);
         this.objectBuilder = objectBuilder;
-        transformator.init(queryBuilder, optionalParameters);
+        this.idPositions = idPositions;
     }
 
     @Override
@@ -50,7 +55,17 @@ public class ChainingObjectBuilder<T> implements ObjectBuilder<T> {
 
     @Override
     public List<T> buildList(List<T> list) {
-        List<Object[]> currentTuples = transformator.transformAll((List<Object[]>) list);
+        return buildGroup((List<Object[]>) list);
+    }
+
+    @Override
+    public boolean isSameGroup(Object[] groupTuple, Object[] tuple) {
+        return new TupleId(idPositions, groupTuple).equals(new TupleId(idPositions, tuple));
+    }
+
+    @Override
+    public List<T> buildGroup(List<Object[]> tuples) {
+        List<Object[]> currentTuples = transformator.transformAll(tuples);
         List<T> resultList = new ArrayList<T>(currentTuples.size());
         for (Object[] tuple : currentTuples) {
             resultList.add(objectBuilder.build(tuple));
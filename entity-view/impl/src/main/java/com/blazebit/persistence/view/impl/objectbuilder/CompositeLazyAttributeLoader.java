@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl.objectbuilder;
+
+import com.blazebit.persistence.view.impl.proxy.LazyAttributeLoader;
+
+/**
+ * Loads the lazy attributes of an entity view by one {@link BatchLazyAttributeLoader} per batch size,
+ * so that every lazy attribute is fetched for at most as many entity views as its batch size allows.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class CompositeLazyAttributeLoader implements LazyAttributeLoader {
+
+    private final BatchLazyAttributeLoader[] loaders;
+    private final int[][] attributeIndices;
+    private final int attributeCount;
+
+    public CompositeLazyAttributeLoader(BatchLazyAttributeLoader[] loaders, int[][] attributeIndices, int attributeCount) {
+        this.loaders = loaders;
+        this.attributeIndices = attributeIndices;
+        this.attributeCount = attributeCount;
+    }
+
+    /**
+     * Registers the id of an entity view of the query result at all loaders.
+     *
+     * @param id The id of the entity view
+     */
+    public void add(Object id) {
+        for (int i = 0; i < loaders.length; i++) {
+            loaders[i].add(id);
+        }
+    }
+
+    @Override
+    public Object[] load(Object id) {
+        Object[] values = new Object[attributeCount];
+
+        for (int i = 0; i < loaders.length; i++) {
+            Object[] loadedValues = loaders[i].load(id);
+            int[] indices = attributeIndices[i];
+
+            for (int j = 0; j < indices.length; j++) {
+                values[indices[j]] = loadedValues[j];
+            }
+        }
+
+        return values;
+    }
+}
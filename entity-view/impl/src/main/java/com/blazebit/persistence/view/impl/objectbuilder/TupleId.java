@@ -15,28 +15,43 @@
  */
 package com.blazebit.persistence.view.impl.objectbuilder;
 
-import java.util.Arrays;
-
 /**
+ * The id of the parent object of a tuple, formed by the tuple elements at the id positions.
+ * The id elements are not copied but read from the tuple, which is fine because a tuple list transformer never replaces the id elements it groups by.
+ * To avoid allocating an id for every tuple, an instance can be pointed to another tuple via {@link #reset(java.lang.Object[])}
+ * and only be retained when it is put into an index.
  *
  * @author Christian Beikov
  * @since 1.0
  */
 public class TupleId {
 
-    private final Object[] id;
+    private final int[] idPositions;
+    private Object[] tuple;
+    private int hash;
+
+    public TupleId(int[] idPositions) {
+        this.idPositions = idPositions;
+    }
 
     public TupleId(int[] idPositions, Object[] tuple) {
-        id = new Object[idPositions.length];
+        this.idPositions = idPositions;
+        reset(tuple);
+    }
+
+    public TupleId reset(Object[] tuple) {
+        int result = 1;
         for (int i = 0; i < idPositions.length; i++) {
-            id[i] = tuple[idPositions[i]];
+            result = 31 * result + TupleRestPlan.hashCode0(tuple[idPositions[i]]);
         }
+
+        this.tuple = tuple;
+        this.hash = 53 * 7 + result;
+        return this;
     }
 
     @Override
     public int hashCode() {
-        int hash = 7;
-        hash = 53 * hash + Arrays.deepHashCode(this.id);
         return hash;
     }
 
@@ -49,9 +64,20 @@ public class TupleId {
             return false;
         }
         final TupleId other = (TupleId) obj;
-        if (!Arrays.deepEquals(this.id, other.id)) {
+        if (this.hash != other.hash || this.idPositions.length != other.idPositions.length) {
             return false;
         }
+        for (int i = 0; i < idPositions.length; i++) {
+            Object e1 = tuple[idPositions[i]];
+            Object e2 = other.tuple[other.idPositions[i]];
+
+            if (e1 == e2) {
+                continue;
+            }
+            if (e1 == null || !TupleRestPlan.deepEquals0(e1, e2)) {
+                return false;
+            }
+        }
         return true;
     }
 }
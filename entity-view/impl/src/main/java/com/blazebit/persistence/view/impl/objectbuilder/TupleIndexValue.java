@@ -15,9 +15,6 @@
  */
 package com.blazebit.persistence.view.impl.objectbuilder;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  *
  * @author Christian Beikov
@@ -26,19 +23,20 @@ import java.util.Set;
 public class TupleIndexValue {
 
     private final Object[] tuple;
-    private final Set<TupleRest> restTuples = new HashSet<TupleRest>();
+    private final TupleRestSet restTuples;
 
-    public TupleIndexValue(Object[] tuple, int restTupleIndex) {
+    public TupleIndexValue(Object[] tuple, TupleRestPlan restTuplePlan) {
         this.tuple = tuple;
-        restTuples.add(new TupleRest(tuple, restTupleIndex));
+        this.restTuples = new TupleRestSet(restTuplePlan);
+        restTuples.add(tuple);
     }
 
     public Object[] getTuple() {
         return tuple;
     }
 
-    public boolean addRestTuple(Object[] tuple, int tupleIndex) {
-        return restTuples.add(new TupleRest(tuple, tupleIndex));
+    public boolean addRestTuple(Object[] tuple) {
+        return restTuples.add(tuple);
     }
 
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl.objectbuilder;
+
+import java.util.Arrays;
+
+/**
+ * A plan for hashing and comparing the rest of tuples, i.e. the tuple elements from a start index to the end.
+ * The plan is created from a sample tuple and assumes that all tuples it is used for have the same layout,
+ * which holds for the tuples that are transformed together. Elements that were consumed by a transformer
+ * are skipped and every other element is compared by a comparison that is chosen by the type of the sample element.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public final class TupleRestPlan {
+
+    private static final int OBJECT = 0;
+    private static final int BYTE_ARRAY = 1;
+    private static final int CHAR_ARRAY = 2;
+    private static final int ANY = 3;
+
+    private final int[] positions;
+    private final int[] kinds;
+
+    private TupleRestPlan(int[] positions, int[] kinds) {
+        this.positions = positions;
+        this.kinds = kinds;
+    }
+
+    /**
+     * Creates a plan for the elements of tuples that have the layout of the given sample tuple starting at the given index.
+     *
+     * @param sampleTuple The sample tuple
+     * @param restIndex   The index of the first element of the rest
+     * @return The plan
+     */
+    public static TupleRestPlan create(Object[] sampleTuple, int restIndex) {
+        int length = Math.max(0, sampleTuple.length - restIndex);
+        int[] positions = new int[length];
+        int[] kinds = new int[length];
+        int count = 0;
+
+        for (int i = restIndex; i < sampleTuple.length; i++) {
+            Object element = sampleTuple[i];
+
+            // Consumed elements are the same in every tuple
+            if (element == TupleReuse.CONSUMED) {
+                continue;
+            }
+
+            positions[count] = i;
+
+            if (element == null) {
+                // We don't know the type so we have to check it for every element
+                kinds[count] = ANY;
+            } else if (element instanceof byte[]) {
+                kinds[count] = BYTE_ARRAY;
+            } else if (element instanceof char[]) {
+                kinds[count] = CHAR_ARRAY;
+            } else if (element.getClass().isArray()) {
+                kinds[count] = ANY;
+            } else {
+                kinds[count] = OBJECT;
+            }
+
+            count++;
+        }
+
+        return new TupleRestPlan(Arrays.copyOf(positions, count), Arrays.copyOf(kinds, count));
+    }
+
+    public int hashCode(Object[] tuple) {
+        int result = 1;
+
+        for (int i = 0; i < positions.length; i++) {
+            Object element = tuple[positions[i]];
+            int elementHash;
+
+            if (element == null) {
+                elementHash = 0;
+            } else {
+                switch (kinds[i]) {
+                    case OBJECT:
+                        elementHash = element.hashCode();
+                        break;
+                    case BYTE_ARRAY:
+                        elementHash = Arrays.hashCode((byte[]) element);
+                        break;
+                    case CHAR_ARRAY:
+                        elementHash = Arrays.hashCode((char[]) element);
+                        break;
+                    default:
+                        elementHash = hashCode0(element);
+                        break;
+                }
+            }
+
+            result = 31 * result + elementHash;
+        }
+
+        return result;
+    }
+
+    public boolean equals(Object[] tuple1, Object[] tuple2) {
+        if (tuple1 == tuple2) {
+            return true;
+        }
+
+        for (int i = 0; i < positions.length; i++) {
+            int position = positions[i];
+            Object e1 = tuple1[position];
+            Object e2 = tuple2[position];
+
+            if (e1 == e2) {
+                continue;
+            }
+            if (e1 == null || e2 == null) {
+                return false;
+            }
+
+            boolean eq;
+
+            switch (kinds[i]) {
+                case OBJECT:
+                    eq = e1.equals(e2);
+                    break;
+                case BYTE_ARRAY:
+                    eq = Arrays.equals((byte[]) e1, (byte[]) e2);
+                    break;
+                case CHAR_ARRAY:
+                    eq = Arrays.equals((char[]) e1, (char[]) e2);
+                    break;
+                default:
+                    eq = deepEquals0(e1, e2);
+                    break;
+            }
+
+            if (!eq) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static int hashCode0(Object element) {
+        if (element == null) {
+            return 0;
+        } else if (!element.getClass().isArray()) {
+            return element.hashCode();
+        } else if (element instanceof Object[]) {
+            return Arrays.deepHashCode((Object[]) element);
+        } else if (element instanceof byte[]) {
+            return Arrays.hashCode((byte[]) element);
+        } else if (element instanceof short[]) {
+            return Arrays.hashCode((short[]) element);
+        } else if (element instanceof int[]) {
+            return Arrays.hashCode((int[]) element);
+        } else if (element instanceof long[]) {
+            return Arrays.hashCode((long[]) element);
+        } else if (element instanceof char[]) {
+            return Arrays.hashCode((char[]) element);
+        } else if (element instanceof float[]) {
+            return Arrays.hashCode((float[]) element);
+        } else if (element instanceof double[]) {
+            return Arrays.hashCode((double[]) element);
+        } else {
+            return Arrays.hashCode((boolean[]) element);
+        }
+    }
+
+    static boolean deepEquals0(Object e1, Object e2) {
+        assert e1 != null;
+        if (!e1.getClass().isArray()) {
+            return e1.equals(e2);
+        } else if (e1 instanceof Object[] && e2 instanceof Object[]) {
+            return Arrays.deepEquals((Object[]) e1, (Object[]) e2);
+        } else if (e1 instanceof byte[] && e2 instanceof byte[]) {
+            return Arrays.equals((byte[]) e1, (byte[]) e2);
+        } else if (e1 instanceof short[] && e2 instanceof short[]) {
+            return Arrays.equals((short[]) e1, (short[]) e2);
+        } else if (e1 instanceof int[] && e2 instanceof int[]) {
+            return Arrays.equals((int[]) e1, (int[]) e2);
+        } else if (e1 instanceof long[] && e2 instanceof long[]) {
+            return Arrays.equals((long[]) e1, (long[]) e2);
+        } else if (e1 instanceof char[] && e2 instanceof char[]) {
+            return Arrays.equals((char[]) e1, (char[]) e2);
+        } else if (e1 instanceof float[] && e2 instanceof float[]) {
+            return Arrays.equals((float[]) e1, (float[]) e2);
+        } else if (e1 instanceof double[] && e2 instanceof double[]) {
+            return Arrays.equals((double[]) e1, (double[]) e2);
+        } else if (e1 instanceof boolean[] && e2 instanceof boolean[]) {
+            return Arrays.equals((boolean[]) e1, (boolean[]) e2);
+        }
+        return e1.equals(e2);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl.objectbuilder;
+
+/**
+ * A set of tuples that are distinct regarding the elements of a {@link TupleRestPlan}.
+ * The set uses open addressing with linear probing on plain arrays, so adding a tuple does not allocate an entry object.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class TupleRestSet {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final TupleRestPlan plan;
+    private Object[][] tuples;
+    private int[] hashes;
+    private int size;
+
+    public TupleRestSet(TupleRestPlan plan) {
+        this.plan = plan;
+        this.tuples = new Object[INITIAL_CAPACITY][];
+        this.hashes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds the given tuple to the set if no equal tuple is contained yet.
+     *
+     * @param tuple The tuple to add
+     * @return true if the tuple was added, false if an equal tuple is already contained
+     */
+    public boolean add(Object[] tuple) {
+        int hash = plan.hashCode(tuple);
+        int mask = tuples.length - 1;
+        int index = spread(hash) & mask;
+
+        while (tuples[index] != null) {
+            if (hashes[index] == hash && plan.equals(tuples[index], tuple)) {
+                return false;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        tuples[index] = tuple;
+        hashes[index] = hash;
+
+        // Keep the load factor below 0.75 so that probe sequences stay short
+        if (++size * 4 > tuples.length * 3) {
+            resize();
+        }
+
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        Object[][] oldTuples = tuples;
+        int[] oldHashes = hashes;
+        tuples = new Object[oldTuples.length << 1][];
+        hashes = new int[oldTuples.length << 1];
+        int mask = tuples.length - 1;
+
+        for (int i = 0; i < oldTuples.length; i++) {
+            if (oldTuples[i] != null) {
+                int index = spread(oldHashes[i]) & mask;
+
+                while (tuples[index] != null) {
+                    index = (index + 1) & mask;
+                }
+
+                tuples[index] = oldTuples[i];
+                hashes[index] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -19,9 +19,7 @@ import com.blazebit.persistence.QueryBuilder;
 import com.blazebit.persistence.view.impl.objectbuilder.transformer.TupleListTransformer;
 import com.blazebit.persistence.view.impl.objectbuilder.transformer.TupleTransformer;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 
 /**
@@ -47,21 +45,28 @@ public class TupleTransformator {
         List<Object[]> newTupleList;
 
         // Performance optimization
-        // LinkedList can remove elements from the list very fast
-        // This is important because transformers avoid copying of tuples and instead remove elements from the tupleList
-        if (tupleList instanceof LinkedList<?>) {
+        // Transformers avoid copying of tuples and instead compact the tuple list in place
+        // which is only fast if the list supports random access like an ArrayList
+        if (tupleList instanceof ArrayList<?>) {
             newTupleList = tupleList;
         } else {
-            newTupleList = new LinkedList(tupleList);
+            newTupleList = new ArrayList<Object[]>(tupleList);
         }
 
         for (int i = 0; i < transformatorLevels.size(); i++) {
-                if (!transformatorLevels.get(i).tupleTransformers.isEmpty()) {
-                ListIterator<Object[]> newTupleListIter = newTupleList.listIterator();
+            List<TupleTransformer> tupleTransformers = transformatorLevels.get(i).tupleTransformers;
 
-                while (newTupleListIter.hasNext()) {
-                    Object[] tuple = newTupleListIter.next();
-                    newTupleListIter.set(transform(i, tuple));
+            for (int j = 0; j < tupleTransformers.size(); j++) {
+                tupleTransformers.get(j).reset();
+            }
+        }
+
+        for (int i = 0; i < transformatorLevels.size(); i++) {
+            if (!transformatorLevels.get(i).tupleTransformers.isEmpty()) {
+                int size = newTupleList.size();
+
+                for (int j = 0; j < size; j++) {
+                    newTupleList.set(j, transform(i, newTupleList.get(j)));
                 }
             }
             newTupleList = transform(i, newTupleList);
@@ -118,12 +123,33 @@ public class TupleTransformator {
         transformatorLevels.get(currentLevel).tupleTransformers.add(tupleTransformer);
     }
 
-    public void init(QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters) {
+    /**
+     * Returns a tuple transformator with transformers that are initialized for the given query.
+     * Since tuple transformators are shared by all queries of an entity view, the transformators themselves are never modified.
+     *
+     * @param queryBuilder The query builder for which the transformators are used
+     * @param optionalParameters The optional parameters of the query
+     * @return The initialized tuple transformator
+     */
+    public TupleTransformator init(QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters) {
+        TupleTransformator initialized = new TupleTransformator();
+        initialized.transformatorLevels.clear();
+
         for (TupleTransformatorLevel thisLevel : transformatorLevels) {
+            TupleTransformatorLevel initializedLevel = new TupleTransformatorLevel();
+
             for (TupleTransformer t : thisLevel.tupleTransformers) {
-                t.init(queryBuilder, optionalParameters);
+                initializedLevel.tupleTransformers.add(t.init(queryBuilder, optionalParameters));
+            }
+            for (TupleListTransformer t : thisLevel.tupleListTransformers) {
+                initializedLevel.tupleListTransformers.add(t.init(queryBuilder, optionalParameters));
             }
+
+            initialized.transformatorLevels.add(initializedLevel);
         }
+
+        initialized.currentLevel = currentLevel;
+        return initialized;
     }
 
     private static class TupleTransformatorLevel {
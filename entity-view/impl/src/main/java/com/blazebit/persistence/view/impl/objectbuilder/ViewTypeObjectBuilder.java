@@ -18,7 +18,8 @@ package com.blazebit.persistence.view.impl.objectbuilder;
 import com.blazebit.persistence.ObjectBuilder;
 import com.blazebit.persistence.SelectBuilder;
 import com.blazebit.persistence.view.impl.objectbuilder.mapper.TupleElementMapper;
-import java.lang.reflect.Constructor;
+import com.blazebit.persistence.view.impl.proxy.LazyAttributeLoadingProxy;
+import com.blazebit.persistence.view.impl.proxy.ObjectInstantiator;
 import java.util.Arrays;
 import java.util.List;
 
@@ -29,12 +30,20 @@ import java.util.List;
  */
 public class ViewTypeObjectBuilder<T> implements ObjectBuilder<T> {
 
-    protected final Constructor<? extends T> proxyConstructor;
+    protected final ObjectInstantiator<T> objectInstantiator;
+    protected final Class<?> viewClass;
+    protected final Class<?>[] constructorParameterTypes;
+    protected final String[] constructorParameterNames;
     protected final TupleElementMapper[] mappers;
+    protected final CompositeLazyAttributeLoader lazyAttributeLoader;
 
-    public ViewTypeObjectBuilder(ViewTypeObjectBuilderTemplate<T> template) {
-        this.proxyConstructor = template.getProxyConstructor();
+    public ViewTypeObjectBuilder(ViewTypeObjectBuilderTemplate<T> template, CompositeLazyAttributeLoader lazyAttributeLoader) {
+        this.objectInstantiator = template.getObjectInstantiator();
+        this.viewClass = template.getViewClass();
+        this.constructorParameterTypes = template.getConstructorParameterTypes();
+        this.constructorParameterNames = template.getConstructorParameterNames();
         this.mappers = template.getMappers();
+        this.lazyAttributeLoader = lazyAttributeLoader;
     }
 
     @Override
@@ -43,11 +52,37 @@ public class ViewTypeObjectBuilder<T> implements ObjectBuilder<T> {
             return null;
         }
 
+        T result;
+
         try {
-            return proxyConstructor.newInstance(tuple);
+            result = objectInstantiator.newInstance(tuple);
         } catch (Exception ex) {
-            throw new RuntimeException("Could not invoke the proxy constructor '" + proxyConstructor + "' with the given tuple: " + Arrays.toString(tuple), ex);
+            throw createInstantiationException(tuple, ex);
+        }
+
+        if (lazyAttributeLoader != null) {
+            lazyAttributeLoader.add(tuple[0]);
+            ((LazyAttributeLoadingProxy) result).$$_setLazyAttributeLoader(lazyAttributeLoader);
+        }
+
+        return result;
+    }
+
+    private RuntimeException createInstantiationException(Object[] tuple, Exception ex) {
+        if (ex instanceof NullPointerException) {
+            // A null value can't be unboxed for an attribute of a primitive type
+            for (int i = 0; i < constructorParameterTypes.length && i < tuple.length; i++) {
+                if (tuple[i] == null && constructorParameterTypes[i].isPrimitive()) {
+                    return new IllegalArgumentException("The value for the attribute '" + constructorParameterNames[i] + "' of the entity view '"
+                        + viewClass.getName() + "' is null but the attribute is of the primitive type '" + constructorParameterTypes[i].getName()
+                        + "'. Use the wrapper type or make sure the mapping never results in null. Tuple: " + Arrays.toString(tuple), ex);
+                }
+            }
         }
+
+        // Like the reflective invocation did, exceptions of the view constructor and type mismatches are wrapped
+        return new RuntimeException("Could not invoke the proxy constructor of the entity view '" + viewClass.getName() + "' with the given tuple: "
+            + Arrays.toString(tuple), ex);
     }
 
     @Override
@@ -21,6 +21,7 @@ import com.blazebit.persistence.QueryBuilder;
 import com.blazebit.persistence.impl.SimpleQueryGenerator;
 import com.blazebit.persistence.impl.expression.Expression;
 import com.blazebit.persistence.view.EntityViewManager;
+import com.blazebit.persistence.view.FetchStrategy;
 import com.blazebit.persistence.view.SubqueryProvider;
 import com.blazebit.persistence.view.impl.EntityViewManagerImpl;
 import com.blazebit.persistence.view.impl.SubviewPrefixExpressionVisitor;
@@ -32,10 +33,12 @@ import com.blazebit.persistence.view.impl.objectbuilder.mapper.ExpressionTupleEl
 import com.blazebit.persistence.view.impl.objectbuilder.mapper.SubqueryTupleElementMapper;
 import com.blazebit.persistence.view.impl.objectbuilder.mapper.TupleElementMapper;
 import com.blazebit.persistence.view.impl.objectbuilder.mapper.TupleParameterMapper;
+import com.blazebit.persistence.view.impl.objectbuilder.transformer.CollectionFetchTupleListTransformer;
 import com.blazebit.persistence.view.impl.objectbuilder.transformer.ListTupleListTransformer;
 import com.blazebit.persistence.view.impl.objectbuilder.transformer.MapTupleListTransformer;
 import com.blazebit.persistence.view.impl.objectbuilder.transformer.SetTupleListTransformer;
 import com.blazebit.persistence.view.impl.objectbuilder.transformer.SubviewTupleTransformer;
+import com.blazebit.persistence.view.impl.proxy.ObjectInstantiator;
 import com.blazebit.persistence.view.impl.proxy.ProxyFactory;
 import com.blazebit.persistence.view.metamodel.Attribute;
 import com.blazebit.persistence.view.metamodel.ListAttribute;
@@ -55,6 +58,8 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -70,7 +75,10 @@ import javax.persistence.metamodel.Metamodel;
  */
 public class ViewTypeObjectBuilderTemplate<T> {
 
-    private final Constructor<? extends T> proxyConstructor;
+    private final ObjectInstantiator<T> objectInstantiator;
+    private final Class<?> viewClass;
+    private final Class<?>[] constructorParameterTypes;
+    private final String[] constructorParameterNames;
     private final TupleElementMapper[] mappers;
     private final TupleParameterMapper parameterMapper;
     private final int effectiveTupleSize;
@@ -83,12 +91,19 @@ public class ViewTypeObjectBuilderTemplate<T> {
     private final String idPrefix;
     private final int[] idPositions;
     private final int tupleOffset;
+    private final Class<?> entityClass;
+    private final String idAttributeName;
     private final Metamodel metamodel;
     private final EntityViewManagerImpl evm;
     private final ProxyFactory proxyFactory;
+    private final Set<String> fetches;
     private final TupleTransformator tupleTransformator = new TupleTransformator();
+    private final List<ViewTypeObjectBuilderTemplate<Object[]>> lazyAttributeTemplates;
+    private final int[] lazyAttributeBatchSizes;
+    private final int[][] lazyAttributeIndices;
+    private final int lazyAttributeCount;
 
-    private ViewTypeObjectBuilderTemplate(String aliasPrefix, List<String> mappingPrefix, String idPrefix, int[] idPositions, int tupleOffset, Metamodel metamodel, EntityViewManagerImpl evm, ViewType<T> viewType, MappingConstructor<T> mappingConstructor, ProxyFactory proxyFactory) {
+    private ViewTypeObjectBuilderTemplate(String aliasPrefix, List<String> mappingPrefix, String idPrefix, int[] idPositions, int tupleOffset, Metamodel metamodel, EntityViewManagerImpl evm, ViewType<T> viewType, MappingConstructor<T> mappingConstructor, ProxyFactory proxyFactory, Set<String> fetches) {
         if (mappingConstructor == null) {
             if (viewType.getConstructors().size() > 1) {
                 throw new IllegalArgumentException("The given view type '" + viewType.getJavaType().getName() + "' has multiple constructors but the given constructor was null.");
@@ -105,6 +120,7 @@ public class ViewTypeObjectBuilderTemplate<T> {
         this.metamodel = metamodel;
         this.evm = evm;
         this.proxyFactory = proxyFactory;
+        this.fetches = fetches;
 
         Class<?> proxyClass = proxyFactory.getProxy(viewType);
         Constructor<?>[] constructors = proxyClass.getDeclaredConstructors();
@@ -140,7 +156,8 @@ public class ViewTypeObjectBuilderTemplate<T> {
             throw new IllegalArgumentException("The id attribute type is not resolvable " + "for the attribute '" + jpaIdAttr.getName() + "' of the class '" + viewType.getEntityClass().getName() + "'!");
         }
         
-        String idAttributeName = jpaIdAttr.getName();
+        this.entityClass = viewType.getEntityClass();
+        this.idAttributeName = jpaIdAttr.getName();
         MethodAttribute<?, ?> idAttribute = viewType.getIdAttribute();
         MappingAttribute<?, ?> idMappingAttribute = (MappingAttribute) idAttribute;
         
@@ -155,7 +172,8 @@ public class ViewTypeObjectBuilderTemplate<T> {
         Class<?>[] parameterTypes = new Class<?>[length];
         boolean[] featuresFound = new boolean[3];
         
-        parameterTypes[0] = idAttributeType;
+        // The proxy stores the id with the type of the view's id attribute which might be a primitive type
+        parameterTypes[0] = idAttribute.getJavaType();
         mappingList.add(0, new Object[]{ idMapping, getAlias(aliasPrefix, idAttribute) });
         parameterMappingList.add(0, null);
         
@@ -166,6 +184,16 @@ public class ViewTypeObjectBuilderTemplate<T> {
             parameterTypes[i + attributes.length + 1] = parameterAttributes[i].getJavaType();
         }
         
+        // The names are only used to report which attribute a tuple element could not be assigned to
+        String[] parameterNames = new String[length];
+        parameterNames[0] = idAttribute.getName();
+        for (int i = 0; i < attributes.length; i++) {
+            parameterNames[i + 1] = attributes[i].getName();
+        }
+        for (int i = 0; i < parameterAttributes.length; i++) {
+            parameterNames[i + attributes.length + 1] = "parameter " + parameterAttributes[i].getIndex() + " of constructor " + mappingConstructor.getName();
+        }
+        
         try {
             javaConstructor = (Constructor<? extends T>) proxyClass.getDeclaredConstructor(parameterTypes);
         } catch (NoSuchMethodException ex) {
@@ -182,7 +210,11 @@ public class ViewTypeObjectBuilderTemplate<T> {
         }
         
         for (int i = 0; i < attributes.length; i++) {
-            applyMapping(attributes[i], mappingList, parameterMappingList, featuresFound);
+            if (isFetched(attributes[i])) {
+                applyMapping(attributes[i], mappingList, parameterMappingList, featuresFound);
+            } else {
+                applyNullMapping(mappingList, parameterMappingList);
+            }
         }
         for (int i = 0; i < parameterAttributes.length; i++) {
             applyMapping(parameterAttributes[i], mappingList, parameterMappingList, featuresFound);
@@ -192,12 +224,142 @@ public class ViewTypeObjectBuilderTemplate<T> {
         this.hasIndexedCollections = featuresFound[1];
         this.hasSubviews = featuresFound[2];
         this.effectiveTupleSize = length;
-        this.proxyConstructor = javaConstructor;
+        this.objectInstantiator = proxyFactory.getInstantiator(javaConstructor);
+        this.viewClass = viewType.getJavaType();
+        this.constructorParameterTypes = parameterTypes;
+        this.constructorParameterNames = parameterNames;
         this.mappers = getMappers(mappingList);
         this.parameterMapper = new TupleParameterMapper(parameterMappingList, tupleOffset);
+
+        List<MethodAttribute<? super T, ?>> lazyAttributes = ProxyFactory.getLazyAttributes(viewType);
+
+        if (lazyAttributes.isEmpty()) {
+            this.lazyAttributeTemplates = null;
+            this.lazyAttributeBatchSizes = null;
+            this.lazyAttributeIndices = null;
+            this.lazyAttributeCount = 0;
+        } else {
+            // Lazy attributes with the same batch size are loaded by the same query
+            Map<Integer, List<Integer>> batchSizeIndices = new LinkedHashMap<Integer, List<Integer>>();
+
+            for (int i = 0; i < lazyAttributes.size(); i++) {
+                Integer batchSize = ((MappingAttribute<?, ?>) lazyAttributes.get(i)).getBatchSize();
+                List<Integer> indices = batchSizeIndices.get(batchSize);
+
+                if (indices == null) {
+                    indices = new ArrayList<Integer>();
+                    batchSizeIndices.put(batchSize, indices);
+                }
+
+                indices.add(i);
+            }
+
+            List<ViewTypeObjectBuilderTemplate<Object[]>> templates = new ArrayList<ViewTypeObjectBuilderTemplate<Object[]>>(batchSizeIndices.size());
+            int[] batchSizes = new int[batchSizeIndices.size()];
+            int[][] attributeIndices = new int[batchSizeIndices.size()][];
+            int group = 0;
+
+            for (Map.Entry<Integer, List<Integer>> entry : batchSizeIndices.entrySet()) {
+                List<Integer> indices = entry.getValue();
+                List<MethodAttribute<?, ?>> groupAttributes = new ArrayList<MethodAttribute<?, ?>>(indices.size());
+                attributeIndices[group] = new int[indices.size()];
+
+                for (int i = 0; i < indices.size(); i++) {
+                    attributeIndices[group][i] = indices.get(i);
+                    groupAttributes.add(lazyAttributes.get(indices.get(i)));
+                }
+
+                templates.add(new ViewTypeObjectBuilderTemplate<Object[]>(this, groupAttributes));
+                batchSizes[group] = Math.max(1, entry.getKey());
+                group++;
+            }
+
+            this.lazyAttributeTemplates = templates;
+            this.lazyAttributeBatchSizes = batchSizes;
+            this.lazyAttributeIndices = attributeIndices;
+            this.lazyAttributeCount = lazyAttributes.size();
+        }
     }
 
-    private static TupleElementMapper[] getMappers(List<Object> mappingList) {
+    private ViewTypeObjectBuilderTemplate(ViewTypeObjectBuilderTemplate<?> ownerTemplate, MappingAttribute<? super T, ?> mappingAttribute) {
+        this.aliasPrefix = ownerTemplate.aliasPrefix;
+        this.mappingPrefix = null;
+        this.idPrefix = null;
+        this.idPositions = new int[]{ 0 };
+        this.tupleOffset = 0;
+        this.entityClass = ownerTemplate.entityClass;
+        this.idAttributeName = ownerTemplate.idAttributeName;
+        this.metamodel = ownerTemplate.metamodel;
+        this.evm = ownerTemplate.evm;
+        this.proxyFactory = ownerTemplate.proxyFactory;
+        this.fetches = ownerTemplate.fetches;
+
+        // The tuples of a fetch query consist of the owner id and the collection
+        List<Object> mappingList = new ArrayList<Object>();
+        List<String> parameterMappingList = new ArrayList<String>();
+        boolean[] featuresFound = new boolean[3];
+
+        mappingList.add(new Object[]{ idAttributeName, null });
+        parameterMappingList.add(null);
+        applyCollectionMapping(mappingAttribute, mappingAttribute, mappingList, parameterMappingList, featuresFound);
+
+        this.hasParameters = featuresFound[0];
+        this.hasIndexedCollections = featuresFound[1];
+        this.hasSubviews = featuresFound[2];
+        this.effectiveTupleSize = 2;
+        this.objectInstantiator = null;
+        this.viewClass = null;
+        this.constructorParameterTypes = null;
+        this.constructorParameterNames = null;
+        this.mappers = getMappers(mappingList);
+        this.parameterMapper = new TupleParameterMapper(parameterMappingList, tupleOffset);
+        this.lazyAttributeTemplates = null;
+        this.lazyAttributeBatchSizes = null;
+        this.lazyAttributeIndices = null;
+        this.lazyAttributeCount = 0;
+    }
+
+    private ViewTypeObjectBuilderTemplate(ViewTypeObjectBuilderTemplate<?> ownerTemplate, List<? extends MethodAttribute<?, ?>> lazyAttributes) {
+        this.aliasPrefix = ownerTemplate.aliasPrefix;
+        this.mappingPrefix = null;
+        this.idPrefix = null;
+        this.idPositions = new int[]{ 0 };
+        this.tupleOffset = 0;
+        this.entityClass = ownerTemplate.entityClass;
+        this.idAttributeName = ownerTemplate.idAttributeName;
+        this.metamodel = ownerTemplate.metamodel;
+        this.evm = ownerTemplate.evm;
+        this.proxyFactory = ownerTemplate.proxyFactory;
+        this.fetches = null;
+
+        // The tuples of a lazy attribute query consist of the id and the lazy attributes
+        List<Object> mappingList = new ArrayList<Object>(lazyAttributes.size() + 1);
+        List<String> parameterMappingList = new ArrayList<String>(lazyAttributes.size() + 1);
+
+        mappingList.add(new Object[]{ idAttributeName, null });
+        parameterMappingList.add(null);
+
+        for (MethodAttribute<?, ?> lazyAttribute : lazyAttributes) {
+            applyBasicMapping((MappingAttribute<? super T, ?>) lazyAttribute, lazyAttribute, mappingList, parameterMappingList);
+        }
+
+        this.hasParameters = false;
+        this.hasIndexedCollections = false;
+        this.hasSubviews = false;
+        this.effectiveTupleSize = mappingList.size();
+        this.objectInstantiator = null;
+        this.viewClass = null;
+        this.constructorParameterTypes = null;
+        this.constructorParameterNames = null;
+        this.mappers = getMappers(mappingList);
+        this.parameterMapper = new TupleParameterMapper(parameterMappingList, tupleOffset);
+        this.lazyAttributeTemplates = null;
+        this.lazyAttributeBatchSizes = null;
+        this.lazyAttributeIndices = null;
+        this.lazyAttributeCount = 0;
+    }
+
+    private TupleElementMapper[] getMappers(List<Object> mappingList) {
         TupleElementMapper[] mappers = new TupleElementMapper[mappingList.size()];
 
         for (int i = 0; i < mappers.length; i++) {
@@ -212,13 +374,7 @@ public class ViewTypeObjectBuilderTemplate<T> {
 
             if (mapping[0] instanceof Class) {
                 Class<? extends SubqueryProvider> subqueryProviderClass = (Class<? extends SubqueryProvider>) mapping[0];
-                SubqueryProvider provider;
-
-                try {
-                    provider = subqueryProviderClass.newInstance();
-                } catch (Exception ex) {
-                    throw new IllegalArgumentException("Could not instantiate the subquery provider: " + subqueryProviderClass.getName(), ex);
-                }
+                SubqueryProvider provider = evm.getSubqueryProvider(subqueryProviderClass);
 
                 String subqueryAlias = (String) mapping[2];
                 String subqueryExpression = (String) mapping[3];
@@ -254,50 +410,10 @@ public class ViewTypeObjectBuilderTemplate<T> {
         } else {
             MappingAttribute<? super T, ?> mappingAttribute = (MappingAttribute<? super T, ?>) attribute;
             if (attribute.isCollection()) {
-                boolean listKey = attribute instanceof ListAttribute<?, ?>;
-                boolean mapKey = attribute instanceof MapAttribute<?, ?, ?>;
-                int startIndex = tupleOffset + mappingList.size();
-
-                if (listKey) {
-                    featuresFound[1] = true;
-                    applyCollectionKeyMapping("INDEX", mappingAttribute, attribute, mappingList);
-                    parameterMappingList.add(null);
-                } else if (mapKey) {
-                    featuresFound[1] = true;
-                    applyCollectionKeyMapping("KEY", mappingAttribute, attribute, mappingList);
-                    parameterMappingList.add(null);
-                }
-
-                if (attribute.isSubview()) {
-                    featuresFound[2] = true;
-
-                    PluralAttribute<?, ?, ?> pluralAttribute = (PluralAttribute<?, ?, ?>) attribute;
-                    int[] newIdPositions;
-
-                    if (listKey || mapKey) {
-                        newIdPositions = new int[idPositions.length + 1];
-                        System.arraycopy(idPositions, 0, newIdPositions, 0, idPositions.length);
-                        newIdPositions[idPositions.length] = mappingList.size();
-                    } else {
-                        newIdPositions = idPositions;
-                    }
-
-                    applySubviewMapping(attribute, newIdPositions, pluralAttribute.getElementType(), mappingAttribute, mappingList, parameterMappingList);
-                } else {
-                    applyBasicMapping(mappingAttribute, attribute, mappingList, parameterMappingList);
-                }
-
-                if (listKey) {
-                    tupleTransformator.add(new ListTupleListTransformer(idPositions, startIndex));
-                } else if (mapKey) {
-                    tupleTransformator.add(new MapTupleListTransformer(idPositions, startIndex));
+                if (mappingAttribute.getFetchStrategy() == FetchStrategy.JOIN) {
+                    applyCollectionMapping(mappingAttribute, attribute, mappingList, parameterMappingList, featuresFound);
                 } else {
-                    if (attribute instanceof SetAttribute<?, ?>) {
-                        tupleTransformator.add(new SetTupleListTransformer(idPositions, startIndex));
-                    } else {
-                        // Collection
-                        throw new IllegalArgumentException("Collection types are not supported. Please use a Set or a List instead.");
-                    }
+                    applyCollectionFetchMapping(mappingAttribute, mappingList, parameterMappingList);
                 }
             } else if (((SingularAttribute) attribute).isQueryParameter()) {
                 featuresFound[0] = true;
@@ -305,12 +421,73 @@ public class ViewTypeObjectBuilderTemplate<T> {
             } else if (attribute.isSubview()) {
                 featuresFound[2] = true;
                 applySubviewMapping(attribute, idPositions, attribute.getJavaType(), mappingAttribute, mappingList, parameterMappingList);
+            } else if (mappingAttribute.getFetchStrategy() == FetchStrategy.LAZY) {
+                // The attribute is loaded by the proxy on first access
+                applyNullMapping(mappingList, parameterMappingList);
             } else {
                 applyBasicMapping(mappingAttribute, attribute, mappingList, parameterMappingList);
             }
         }
     }
 
+    private void applyCollectionMapping(MappingAttribute<? super T, ?> mappingAttribute, Attribute<?, ?> attribute, List<Object> mappingList, List<String> parameterMappingList, boolean[] featuresFound) {
+        boolean listKey = attribute instanceof ListAttribute<?, ?>;
+        boolean mapKey = attribute instanceof MapAttribute<?, ?, ?>;
+        int startIndex = tupleOffset + mappingList.size();
+
+        if (listKey) {
+            featuresFound[1] = true;
+            applyCollectionKeyMapping("INDEX", mappingAttribute, attribute, mappingList);
+            parameterMappingList.add(null);
+        } else if (mapKey) {
+            featuresFound[1] = true;
+            applyCollectionKeyMapping("KEY", mappingAttribute, attribute, mappingList);
+            parameterMappingList.add(null);
+        }
+
+        if (attribute.isSubview()) {
+            featuresFound[2] = true;
+
+            PluralAttribute<?, ?, ?> pluralAttribute = (PluralAttribute<?, ?, ?>) attribute;
+            int[] newIdPositions;
+
+            if (listKey || mapKey) {
+                newIdPositions = new int[idPositions.length + 1];
+                System.arraycopy(idPositions, 0, newIdPositions, 0, idPositions.length);
+                newIdPositions[idPositions.length] = mappingList.size();
+            } else {
+                newIdPositions = idPositions;
+            }
+
+            applySubviewMapping(attribute, newIdPositions, pluralAttribute.getElementType(), mappingAttribute, mappingList, parameterMappingList);
+        } else {
+            applyBasicMapping(mappingAttribute, attribute, mappingList, parameterMappingList);
+        }
+
+        if (listKey) {
+            tupleTransformator.add(new ListTupleListTransformer(idPositions, startIndex));
+        } else if (mapKey) {
+            tupleTransformator.add(new MapTupleListTransformer(idPositions, startIndex));
+        } else {
+            if (attribute instanceof SetAttribute<?, ?>) {
+                tupleTransformator.add(new SetTupleListTransformer(idPositions, startIndex));
+            } else {
+                // Collection
+                throw new IllegalArgumentException("Collection types are not supported. Please use a Set or a List instead.");
+            }
+        }
+    }
+
+    private void applyCollectionFetchMapping(MappingAttribute<? super T, ?> mappingAttribute, List<Object> mappingList, List<String> parameterMappingList) {
+        int startIndex = tupleOffset + mappingList.size();
+        // The collection is fetched by a separate query, so we only reserve its place in the tuple
+        mappingList.add(new Object[]{ "NULLIF(1,1)", null });
+        parameterMappingList.add(null);
+
+        ViewTypeObjectBuilderTemplate<Object[]> fetchTemplate = new ViewTypeObjectBuilderTemplate<Object[]>(this, (MappingAttribute<Object[], ?>) mappingAttribute);
+        tupleTransformator.add(new CollectionFetchTupleListTransformer(fetchTemplate, tupleOffset, startIndex, mappingAttribute.getBatchSize()));
+    }
+
     private void applyCollectionKeyMapping(String keyFunction, MappingAttribute<? super T, ?> mappingAttribute, Attribute<?, ?> attribute, List<Object> mappingList) {
         Object[] mapping = new Object[2];
         mapping[0] = keyFunction + "(" + getMapping(mappingPrefix, mappingAttribute) + ")";
@@ -329,14 +506,55 @@ public class ViewTypeObjectBuilderTemplate<T> {
         subviewIdPositions[idPositions.length] = mappingList.size();
         int startIndex = tupleOffset + mappingList.size();
         ViewTypeObjectBuilderTemplate<Object[]> template = new ViewTypeObjectBuilderTemplate<Object[]>(subviewAliasPrefix, subviewMappingPrefix, subviewIdPrefix, subviewIdPositions,
-                                                                                                       startIndex, metamodel, evm, subviewType, null, proxyFactory);
+                                                                                                       startIndex, metamodel, evm, subviewType, null, proxyFactory, getSubviewFetches(attribute));
         Collections.addAll(mappingList, template.mappers);
         // We do not copy because the subview object builder will populate the subview's parameters
         for (int i = 0; i < template.mappers.length; i++) {
             parameterMappingList.add(null);
         }
         tupleTransformator.add(template.tupleTransformator);
-        tupleTransformator.add(new SubviewTupleTransformer(template));
+        tupleTransformator.add(new SubviewTupleTransformer(template, evm.isShareSubviewInstances()));
+    }
+
+    private boolean isFetched(MethodAttribute<?, ?> attribute) {
+        // Primitive values can't be left unset, so they are always fetched
+        if (fetches == null || attribute.getJavaType().isPrimitive() || fetches.contains(attribute.getName())) {
+            return true;
+        }
+
+        String prefix = attribute.getName() + ".";
+
+        for (String fetch : fetches) {
+            if (fetch.startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Set<String> getSubviewFetches(Attribute<?, ?> attribute) {
+        // Subviews of constructor parameters and subviews that were requested as a whole are fetched completely
+        if (fetches == null || !(attribute instanceof MethodAttribute<?, ?>)) {
+            return null;
+        }
+
+        String attributeName = ((MethodAttribute<?, ?>) attribute).getName();
+
+        if (fetches.contains(attributeName)) {
+            return null;
+        }
+
+        String prefix = attributeName + ".";
+        Set<String> subviewFetches = new HashSet<String>();
+
+        for (String fetch : fetches) {
+            if (fetch.startsWith(prefix)) {
+                subviewFetches.add(fetch.substring(prefix.length()));
+            }
+        }
+
+        return subviewFetches;
     }
 
     private void applyBasicMapping(MappingAttribute<? super T, ?> mappingAttribute, Attribute<?, ?> attribute, List<Object> mappingList, List<String> parameterMappingList) {
@@ -347,6 +565,14 @@ public class ViewTypeObjectBuilderTemplate<T> {
         parameterMappingList.add(null);
     }
 
+    private void applyNullMapping(List<Object> mappingList, List<String> parameterMappingList) {
+        // The attribute is not selected by the query, so we only reserve its place in the tuple
+        Object[] mapping = new Object[2];
+        mapping[0] = "NULLIF(1,1)";
+        mappingList.add(mapping);
+        parameterMappingList.add(null);
+    }
+
     private void applyQueryParameterMapping(MappingAttribute<? super T, ?> mappingAttribute, List<Object> mappingList, List<String> parameterMappingList) {
         Object[] mapping = new Object[2];
         mapping[0] = "NULLIF(1,1)";
@@ -434,7 +660,17 @@ public class ViewTypeObjectBuilderTemplate<T> {
         boolean hasOffset = tupleOffset != 0;
         ObjectBuilder<T> result;
 
-        result = new ViewTypeObjectBuilder<T>(this);
+        if (lazyAttributeTemplates == null) {
+            result = new ViewTypeObjectBuilder<T>(this, null);
+        } else {
+            BatchLazyAttributeLoader[] loaders = new BatchLazyAttributeLoader[lazyAttributeTemplates.size()];
+
+            for (int i = 0; i < loaders.length; i++) {
+                loaders[i] = new BatchLazyAttributeLoader(lazyAttributeTemplates.get(i), lazyAttributeBatchSizes[i], queryBuilder, optionalParameters);
+            }
+
+            result = new ViewTypeObjectBuilder<T>(this, new CompositeLazyAttributeLoader(loaders, lazyAttributeIndices, lazyAttributeCount));
+        }
 
         if (hasOffset || isSubview || hasIndexedCollections || hasSubviews) {
             result = new ReducerViewTypeObjectBuilder<T>(result, tupleOffset, mappers.length);
@@ -445,14 +681,26 @@ public class ViewTypeObjectBuilderTemplate<T> {
         }
 
         if (tupleTransformator.hasTransformers() && !isSubview) {
-            result = new ChainingObjectBuilder<T>(tupleTransformator, result, queryBuilder, optionalParameters, tupleOffset);
+            result = new ChainingObjectBuilder<T>(tupleTransformator, result, queryBuilder, optionalParameters, idPositions);
         }
 
         return result;
     }
 
-    public Constructor<? extends T> getProxyConstructor() {
-        return proxyConstructor;
+    public ObjectInstantiator<T> getObjectInstantiator() {
+        return objectInstantiator;
+    }
+
+    public Class<?> getViewClass() {
+        return viewClass;
+    }
+
+    public Class<?>[] getConstructorParameterTypes() {
+        return constructorParameterTypes;
+    }
+
+    public String[] getConstructorParameterNames() {
+        return constructorParameterNames;
     }
 
     public TupleElementMapper[] getMappers() {
@@ -475,19 +723,33 @@ public class ViewTypeObjectBuilderTemplate<T> {
         return effectiveTupleSize;
     }
 
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public String getIdAttributeName() {
+        return idAttributeName;
+    }
+
+    public TupleTransformator getTupleTransformator() {
+        return tupleTransformator;
+    }
+
     public static class Key<T> {
 
         private final ViewType<T> viewType;
         private final MappingConstructor<T> constructor;
+        private final Set<String> fetches;
 
-        public Key(ViewType<T> viewType, MappingConstructor<T> constructor) {
+        public Key(ViewType<T> viewType, MappingConstructor<T> constructor, Set<String> fetches) {
             this.viewType = viewType;
             this.constructor = constructor;
+            this.fetches = fetches;
         }
 
         public ViewTypeObjectBuilderTemplate<T> createValue(Metamodel metamodel, EntityViewManagerImpl evm, ProxyFactory proxyFactory) {
             int[] idPositions = new int[]{ 0 };
-            return new ViewTypeObjectBuilderTemplate<T>(viewType.getName(), null, null, idPositions, 0, metamodel, evm, viewType, constructor, proxyFactory);
+            return new ViewTypeObjectBuilderTemplate<T>(viewType.getName(), null, null, idPositions, 0, metamodel, evm, viewType, constructor, proxyFactory, fetches);
         }
 
         @Override
@@ -495,6 +757,7 @@ public class ViewTypeObjectBuilderTemplate<T> {
             int hash = 3;
             hash = 83 * hash + (this.viewType != null ? this.viewType.hashCode() : 0);
             hash = 83 * hash + (this.constructor != null ? this.constructor.hashCode() : 0);
+            hash = 83 * hash + (this.fetches != null ? this.fetches.hashCode() : 0);
             return hash;
         }
 
@@ -513,6 +776,9 @@ public class ViewTypeObjectBuilderTemplate<T> {
             if (this.constructor != other.constructor && (this.constructor == null || !this.constructor.equals(other.constructor))) {
                 return false;
             }
+            if (this.fetches != other.fetches && (this.fetches == null || !this.fetches.equals(other.fetches))) {
+                return false;
+            }
             return true;
         }
     }
@@ -17,9 +17,9 @@ package com.blazebit.persistence.view.impl.objectbuilder.transformer;
 
 import com.blazebit.persistence.view.impl.objectbuilder.TupleId;
 import com.blazebit.persistence.view.impl.objectbuilder.TupleIndexValue;
+import com.blazebit.persistence.view.impl.objectbuilder.TupleRestPlan;
 import com.blazebit.persistence.view.impl.objectbuilder.TupleReuse;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -39,36 +39,44 @@ public abstract class AbstractIndexedTupleListTransformer<C, K> extends TupleLis
 
     @Override
     public List<Object[]> transform(List<Object[]> tuples) {
-        Map<TupleId, TupleIndexValue> tupleIndex = new HashMap<TupleId, TupleIndexValue>(tuples.size());
-        // Implementation detail: the tuple list is a LinkedList
-        Iterator<Object[]> tupleListIter = tuples.iterator();
+        int size = tuples.size();
+        Map<TupleId, TupleIndexValue> tupleIndex = new HashMap<TupleId, TupleIndexValue>(size);
+        TupleId id = new TupleId(parentIdPositions);
+        TupleRestPlan restPlan = null;
+        // Implementation detail: the tuple list is an ArrayList which we compact in place
+        int writeIndex = 0;
 
-        while (tupleListIter.hasNext()) {
-            Object[] tuple = tupleListIter.next();
-            TupleId id = new TupleId(parentIdPositions, tuple);
-            TupleIndexValue tupleIndexValue = tupleIndex.get(id);
+        for (int i = 0; i < size; i++) {
+            Object[] tuple = tuples.get(i);
+            TupleIndexValue tupleIndexValue = tupleIndex.get(id.reset(tuple));
 
             if (tupleIndexValue == null) {
+                if (restPlan == null) {
+                    restPlan = TupleRestPlan.create(tuple, startIndex + 2);
+                }
+
                 Object key = tuple[startIndex];
                 tuple[startIndex] = createCollection();
                 add(tuple[startIndex], key, tuple[startIndex + 1]);
                 tuple[startIndex + 1] = TupleReuse.CONSUMED;
-                tupleIndexValue = new TupleIndexValue(tuple, startIndex + 2);
+                tupleIndexValue = new TupleIndexValue(tuple, restPlan);
                 tupleIndex.put(id, tupleIndexValue);
-            } else if (tupleIndexValue.addRestTuple(tuple, startIndex + 2)) {
+                id = new TupleId(parentIdPositions);
+                tuples.set(writeIndex++, tuple);
+            } else if (tupleIndexValue.addRestTuple(tuple)) {
                 Object key = tuple[startIndex];
                 tuple[startIndex] = tupleIndexValue.getTuple()[startIndex];
                 add(tuple[startIndex], key, tuple[startIndex + 1]);
                 tuple[startIndex + 1] = TupleReuse.CONSUMED;
+                tuples.set(writeIndex++, tuple);
             } else {
                 Object key = tuple[startIndex];
                 add(tupleIndexValue.getTuple()[startIndex], key, tuple[startIndex + 1]);
                 tuple[startIndex + 1] = TupleReuse.CONSUMED;
-                tupleListIter.remove();
             }
         }
 
-        return tuples;
+        return truncate(tuples, writeIndex);
     }
 
     protected abstract Object createCollection();
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl.objectbuilder.transformer;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.QueryBuilder;
+import com.blazebit.persistence.view.impl.objectbuilder.FetchObjectBuilder;
+import com.blazebit.persistence.view.impl.objectbuilder.TupleTransformator;
+import com.blazebit.persistence.view.impl.objectbuilder.ViewTypeObjectBuilderTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.Parameter;
+
+/**
+ * Fetches a collection by separate queries that are restricted by the ids of the owners in the tuples,
+ * instead of joining the collection in the query of the entity view.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class CollectionFetchTupleListTransformer extends TupleListTransformer {
+
+    private final ViewTypeObjectBuilderTemplate<Object[]> fetchTemplate;
+    private final int ownerIdIndex;
+    private final int batchSize;
+    private final QueryBuilder<?, ?> queryBuilder;
+    private final Map<String, Object> optionalParameters;
+
+    public CollectionFetchTupleListTransformer(ViewTypeObjectBuilderTemplate<Object[]> fetchTemplate, int ownerIdIndex, int startIndex, int batchSize) {
+        this(fetchTemplate, ownerIdIndex, startIndex, batchSize, null, null);
+    }
+
+    private CollectionFetchTupleListTransformer(ViewTypeObjectBuilderTemplate<Object[]> fetchTemplate, int ownerIdIndex, int startIndex, int batchSize, QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters) {
+        super(startIndex);
+        this.fetchTemplate = fetchTemplate;
+        this.ownerIdIndex = ownerIdIndex;
+        this.batchSize = batchSize;
+        this.queryBuilder = queryBuilder;
+        this.optionalParameters = optionalParameters;
+    }
+
+    @Override
+    public TupleListTransformer init(QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters) {
+        return new CollectionFetchTupleListTransformer(fetchTemplate, ownerIdIndex, startIndex, batchSize, queryBuilder, optionalParameters);
+    }
+
+    @Override
+    public List<Object[]> transform(List<Object[]> tuples) {
+        Map<Object, Object> collections = new HashMap<Object, Object>();
+        List<Object> ownerIds = new ArrayList<Object>();
+        int size = tuples.size();
+
+        for (int i = 0; i < size; i++) {
+            Object ownerId = tuples.get(i)[ownerIdIndex];
+
+            if (ownerId != null && !collections.containsKey(ownerId)) {
+                collections.put(ownerId, null);
+                ownerIds.add(ownerId);
+            }
+        }
+
+        int ownerCount = ownerIds.size();
+        if (ownerCount == 0) {
+            return tuples;
+        }
+
+        // The mappings of the collection may refer to parameters of the owner query or to optional parameters
+        Map<String, Object> parameters = new HashMap<String, Object>(optionalParameters);
+        for (Parameter<?> parameter : queryBuilder.getParameters()) {
+            if (queryBuilder.isParameterSet(parameter.getName())) {
+                parameters.put(parameter.getName(), queryBuilder.getParameterValue(parameter.getName()));
+            }
+        }
+
+        int end;
+        for (int start = 0; start < ownerCount; start = end) {
+            end = (int) Math.min((long) start + batchSize, ownerCount);
+            fetch(ownerIds.subList(start, end), parameters, collections);
+        }
+
+        for (int i = 0; i < size; i++) {
+            Object[] tuple = tuples.get(i);
+            Object ownerId = tuple[ownerIdIndex];
+
+            if (ownerId != null) {
+                tuple[startIndex] = collections.get(ownerId);
+            }
+        }
+
+        return tuples;
+    }
+
+    private void fetch(List<Object> ownerIds, Map<String, Object> parameters, Map<Object, Object> collections) {
+        CriteriaBuilder<?> criteriaBuilder = queryBuilder.getCriteriaBuilderFactory().create(queryBuilder.getEntityManager(), fetchTemplate.getEntityClass());
+        criteriaBuilder.where(fetchTemplate.getIdAttributeName()).in(ownerIds);
+
+        TupleTransformator transformator = fetchTemplate.getTupleTransformator().init(criteriaBuilder, parameters);
+        CriteriaBuilder<Object[]> fetchCriteriaBuilder = criteriaBuilder.selectNew(new FetchObjectBuilder(fetchTemplate.getMappers(), transformator));
+
+        for (Map.Entry<String, Object> paramEntry : parameters.entrySet()) {
+            if (fetchCriteriaBuilder.containsParameter(paramEntry.getKey()) && !fetchCriteriaBuilder.isParameterSet(paramEntry.getKey())) {
+                fetchCriteriaBuilder.setParameter(paramEntry.getKey(), paramEntry.getValue());
+            }
+        }
+
+        List<Object[]> fetchedTuples = fetchCriteriaBuilder.getResultList();
+
+        // The fetched tuples consist of the owner id and the collection after the transformation
+        for (Object[] tuple : fetchedTuples) {
+            collections.put(tuple[0], tuple[1]);
+        }
+    }
+}
@@ -17,9 +17,9 @@ package com.blazebit.persistence.view.impl.objectbuilder.transformer;
 
 import com.blazebit.persistence.view.impl.objectbuilder.TupleId;
 import com.blazebit.persistence.view.impl.objectbuilder.TupleIndexValue;
+import com.blazebit.persistence.view.impl.objectbuilder.TupleRestPlan;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -40,32 +40,40 @@ public class SetTupleListTransformer extends TupleListTransformer {
 
     @Override
     public List<Object[]> transform(List<Object[]> tuples) {
-        Map<TupleId, TupleIndexValue> tupleIndex = new HashMap<TupleId, TupleIndexValue>(tuples.size());
-        // Implementation detail: the tuple list is a LinkedList
-        Iterator<Object[]> tupleListIter = tuples.iterator();
+        int size = tuples.size();
+        Map<TupleId, TupleIndexValue> tupleIndex = new HashMap<TupleId, TupleIndexValue>(size);
+        TupleId id = new TupleId(parentIdPositions);
+        TupleRestPlan restPlan = null;
+        // Implementation detail: the tuple list is an ArrayList which we compact in place
+        int writeIndex = 0;
 
-        while (tupleListIter.hasNext()) {
-            Object[] tuple = tupleListIter.next();
-            TupleId id = new TupleId(parentIdPositions, tuple);
-            TupleIndexValue tupleIndexValue = tupleIndex.get(id);
+        for (int i = 0; i < size; i++) {
+            Object[] tuple = tuples.get(i);
+            TupleIndexValue tupleIndexValue = tupleIndex.get(id.reset(tuple));
 
             if (tupleIndexValue == null) {
-                tupleIndexValue = new TupleIndexValue(tuple, startIndex + 1);
+                if (restPlan == null) {
+                    restPlan = TupleRestPlan.create(tuple, startIndex + 1);
+                }
+
+                tupleIndexValue = new TupleIndexValue(tuple, restPlan);
                 Object collection = createCollection();
                 add(collection, tuple[startIndex]);
                 tuple[startIndex] = collection;
                 tupleIndex.put(id, tupleIndexValue);
-            } else if (tupleIndexValue.addRestTuple(tuple, startIndex + 1)) {
+                id = new TupleId(parentIdPositions);
+                tuples.set(writeIndex++, tuple);
+            } else if (tupleIndexValue.addRestTuple(tuple)) {
                 Object collection = tupleIndexValue.getTuple()[startIndex];
                 add(collection, tuple[startIndex]);
                 tuple[startIndex] = collection;
+                tuples.set(writeIndex++, tuple);
             } else {
                 add(tupleIndexValue.getTuple()[startIndex], tuple[startIndex]);
-                tupleListIter.remove();
             }
         }
 
-        return tuples;
+        return truncate(tuples, writeIndex);
     }
 
     private Object createCollection() {
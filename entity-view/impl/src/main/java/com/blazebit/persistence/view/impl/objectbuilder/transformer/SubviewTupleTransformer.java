@@ -19,6 +19,7 @@ import com.blazebit.persistence.ObjectBuilder;
 import com.blazebit.persistence.QueryBuilder;
 import com.blazebit.persistence.view.impl.objectbuilder.TupleReuse;
 import com.blazebit.persistence.view.impl.objectbuilder.ViewTypeObjectBuilderTemplate;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -31,27 +32,67 @@ public class SubviewTupleTransformer extends TupleTransformer {
     private final ViewTypeObjectBuilderTemplate<Object[]> template;
     private final int consumeStartIndex;
     private final int consumeEndIndex;
-    private ObjectBuilder<Object[]> objectBuilder;
+    private final boolean shareInstances;
+    private final ObjectBuilder<Object[]> objectBuilder;
+    private final Map<Object, Object> instances;
 
-    public SubviewTupleTransformer(ViewTypeObjectBuilderTemplate<Object[]> template) {
+    public SubviewTupleTransformer(ViewTypeObjectBuilderTemplate<Object[]> template, boolean shareInstances) {
+        this(template, shareInstances, null);
+    }
+
+    private SubviewTupleTransformer(ViewTypeObjectBuilderTemplate<Object[]> template, boolean shareInstances, ObjectBuilder<Object[]> objectBuilder) {
         this.template = template;
         this.consumeStartIndex = template.getTupleOffset() + 1;
         this.consumeEndIndex = template.getTupleOffset() + template.getMappers().length;
+        this.shareInstances = shareInstances;
+        this.objectBuilder = objectBuilder;
+
+        if (shareInstances && objectBuilder != null) {
+            this.instances = new HashMap<Object, Object>();
+        } else {
+            this.instances = null;
+        }
     }
 
     @Override
     public TupleTransformer init(QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters) {
-        this.objectBuilder = template.createObjectBuilder(queryBuilder, optionalParameters, true);
-        return this;
+        return new SubviewTupleTransformer(template, shareInstances, template.createObjectBuilder(queryBuilder, optionalParameters, true));
+    }
+
+    @Override
+    public void reset() {
+        // Instances are only shared within a result, otherwise we would return stale instances and the map would grow
+        // with every execution of the query or every group of a scrolled result
+        if (instances != null) {
+            instances.clear();
+        }
     }
 
     @Override
     public Object[] transform(Object[] tuple) {
-        tuple[template.getTupleOffset()] = objectBuilder.build(tuple);
+        tuple[template.getTupleOffset()] = build(tuple);
         for (int i = consumeStartIndex; i < consumeEndIndex; i++) {
             tuple[i] = TupleReuse.CONSUMED;
         }
         return tuple;
     }
 
+    private Object build(Object[] tuple) {
+        Object id = tuple[template.getTupleOffset()];
+
+        if (instances == null || id == null) {
+            return objectBuilder.build(tuple);
+        }
+
+        // Subviews with the same id are built from the same data within a query, so we only build them once
+        Object instance = instances.get(id);
+
+        if (instance == null) {
+            instance = objectBuilder.build(tuple);
+            instances.put(id, instance);
+        }
+
+        return instance;
+    }
+
 }
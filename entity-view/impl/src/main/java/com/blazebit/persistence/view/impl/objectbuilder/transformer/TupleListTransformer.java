@@ -17,6 +17,7 @@ package com.blazebit.persistence.view.impl.objectbuilder.transformer;
 
 import com.blazebit.persistence.QueryBuilder;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -31,9 +32,39 @@ public abstract class TupleListTransformer {
         this.startIndex = startIndex;
     }
 
+    /**
+     * Folds the tuples that belong to the same parent object into a single tuple.
+     * The given list is expected to support fast random access, so that the transformer can compact it in place.
+     *
+     * @param tuples The tuples to transform
+     * @return The transformed tuples
+     */
     public abstract List<Object[]> transform(List<Object[]> tuples);
 
-    public TupleListTransformer init(QueryBuilder<?, ?> queryBuilder) {
+    /**
+     * Removes the stale tuples that are left at the end of the list after compacting it.
+     *
+     * @param tuples The compacted tuples
+     * @param size The new size of the list
+     * @return The given list
+     */
+    protected static List<Object[]> truncate(List<Object[]> tuples, int size) {
+        if (size < tuples.size()) {
+            tuples.subList(size, tuples.size()).clear();
+        }
+
+        return tuples;
+    }
+
+    /**
+     * Returns a transformer that is initialized for the given query.
+     * Since transformers are shared by all queries of an entity view, transformers that need query specific state must return a new instance.
+     *
+     * @param queryBuilder The query builder for which the transformer is used
+     * @param optionalParameters The optional parameters of the query
+     * @return The initialized transformer
+     */
+    public TupleListTransformer init(QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters) {
         return this;
     }
 }
@@ -30,4 +30,10 @@ public abstract class TupleTransformer {
     public TupleTransformer init(QueryBuilder<?, ?> queryBuilder, Map<String, Object> optionalParameters) {
         return this;
     }
+
+    /**
+     * Discards the state of a previous transformation. It is invoked before every list of tuples is transformed.
+     */
+    public void reset() {
+    }
 }
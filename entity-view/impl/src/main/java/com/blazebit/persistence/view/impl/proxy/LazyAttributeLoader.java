@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl.proxy;
+
+/**
+ * Loads the values of the lazy attributes of entity view proxies.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface LazyAttributeLoader {
+
+    /**
+     * Returns the values of the lazy attributes of the entity view with the given id in the order of
+     * {@link ProxyFactory#getLazyAttributes(com.blazebit.persistence.view.metamodel.ViewType)}.
+     *
+     * @param id The id of the entity view
+     * @return The values of the lazy attributes
+     */
+    public Object[] load(Object id);
+}
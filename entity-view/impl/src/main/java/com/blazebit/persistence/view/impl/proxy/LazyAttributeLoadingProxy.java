@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl.proxy;
+
+/**
+ * Is implemented by entity view proxies that have lazy attributes.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface LazyAttributeLoadingProxy {
+
+    /**
+     * Sets the loader that is used to load the lazy attributes on first access.
+     * If no loader is set, the lazy attributes keep the values that were passed to the constructor.
+     *
+     * @param loader The loader of the lazy attributes
+     */
+    public void $$_setLazyAttributeLoader(LazyAttributeLoader loader);
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.impl.proxy;
+
+/**
+ * Creates instances of a proxy class by invoking a specific constructor with the elements of a tuple as arguments.
+ * Implementations are generated by the {@link ProxyFactory} so that the constructor is invoked directly instead of reflectively.
+ *
+ * @param <T> The type of the created instances
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public interface ObjectInstantiator<T> {
+
+    /**
+     * Creates a new instance by passing the elements of the given tuple as arguments to the constructor.
+     * Unlike {@link java.lang.reflect.Constructor#newInstance(java.lang.Object...)}, exceptions thrown by the constructor
+     * and a {@link ClassCastException} for a tuple element of the wrong type are not wrapped, so callers have to wrap them.
+     *
+     * @param tuple The constructor arguments
+     * @return The new instance
+     */
+    public T newInstance(Object[] tuple);
+}
@@ -15,13 +15,19 @@
  */
 package com.blazebit.persistence.view.impl.proxy;
 
+import com.blazebit.persistence.view.FetchStrategy;
+import com.blazebit.persistence.view.metamodel.MappingAttribute;
 import com.blazebit.persistence.view.metamodel.MappingConstructor;
 import com.blazebit.persistence.view.metamodel.MethodAttribute;
 import com.blazebit.persistence.view.metamodel.ParameterAttribute;
 import com.blazebit.persistence.view.metamodel.SingularAttribute;
 import com.blazebit.persistence.view.metamodel.ViewType;
 import com.blazebit.reflection.ReflectionUtils;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -55,6 +61,7 @@ public class ProxyFactory {
 
     private static final AtomicInteger classCounter = new AtomicInteger();
     private final ConcurrentMap<Class<?>, Class<?>> proxyClasses = new ConcurrentHashMap<Class<?>, Class<?>>();
+    private final ConcurrentMap<Constructor<?>, ObjectInstantiator<?>> instantiators = new ConcurrentHashMap<Constructor<?>, ObjectInstantiator<?>>();
     private final ClassPool pool;
     private final CtClass objectCc;
 
@@ -83,7 +90,90 @@ public class ProxyFactory {
         return proxyClass;
     }
 
-    private <T> Class<? extends T> createProxyClass(ViewType<T> viewType) {
+    /**
+     * Returns the proxy class of the given entity view class if it was already created, otherwise <code>null</code>.
+     *
+     * @param <T>   The type of the view
+     * @param clazz The entity view class
+     * @return The created proxy class or <code>null</code>
+     */
+    public <T> Class<? extends T> getCreatedProxy(Class<T> clazz) {
+        return (Class<? extends T>) proxyClasses.get(clazz);
+    }
+
+    public <T> ObjectInstantiator<T> getInstantiator(Constructor<? extends T> constructor) {
+        ObjectInstantiator<T> instantiator = (ObjectInstantiator<T>) instantiators.get(constructor);
+
+        if (instantiator == null) {
+            instantiator = createInstantiator(constructor);
+            ObjectInstantiator<T> oldInstantiator = (ObjectInstantiator<T>) instantiators.putIfAbsent(constructor, instantiator);
+
+            if (oldInstantiator != null) {
+                instantiator = oldInstantiator;
+            }
+        }
+
+        return instantiator;
+    }
+
+    // The class pool is not thread safe, so classes are generated one after another
+    private synchronized <T> ObjectInstantiator<T> createInstantiator(Constructor<? extends T> constructor) {
+        Class<?> clazz = constructor.getDeclaringClass();
+        CtClass cc = pool.makeClass(clazz.getName() + "_$$_javassist_instantiator_" + classCounter.getAndIncrement());
+
+        ClassPath classPath = new ClassClassPath(clazz);
+        pool.insertClassPath(classPath);
+
+        try {
+            cc.addInterface(pool.get(ObjectInstantiator.class.getName()));
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            StringBuilder sb = new StringBuilder();
+
+            // Invoke the constructor directly and cast the tuple elements to the parameter types
+            sb.append("public Object newInstance(Object[] tuple) {\n");
+            sb.append("\treturn new ").append(clazz.getName()).append('(');
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+
+                appendCast(sb, parameterTypes[i], "tuple[" + i + "]");
+            }
+            sb.append(");\n");
+            sb.append('}');
+
+            cc.addMethod(CtNewMethod.make(sb.toString(), cc));
+            Class<?> instantiatorClass = cc.toClass(clazz.getClassLoader(), clazz.getProtectionDomain());
+            return (ObjectInstantiator<T>) instantiatorClass.newInstance();
+        } catch (Exception ex) {
+            throw new RuntimeException("Probably we did something wrong, please contact us if you see this message.", ex);
+        } finally {
+            pool.removeClassPath(classPath);
+        }
+    }
+
+    private static void appendCast(StringBuilder sb, Class<?> type, String expression) {
+        if (type.isPrimitive()) {
+            Class<?> wrapperType = ReflectionUtils.getObjectClassOfPrimitve(type);
+            sb.append("((").append(wrapperType.getName()).append(") ").append(expression).append(").");
+            sb.append(type.getName()).append("Value()");
+        } else {
+            sb.append('(');
+            appendTypeName(sb, type);
+            sb.append(") ").append(expression);
+        }
+    }
+
+    private static void appendTypeName(StringBuilder sb, Class<?> type) {
+        if (type.isArray()) {
+            appendTypeName(sb, type.getComponentType());
+            sb.append("[]");
+        } else {
+            sb.append(type.getName());
+        }
+    }
+
+    private synchronized <T> Class<? extends T> createProxyClass(ViewType<T> viewType) {
         Class<?> clazz = viewType.getJavaType();
         CtClass cc = pool.makeClass(clazz.getName() + "_$$_javassist_entityview_" + classCounter.getAndIncrement());
         CtClass superCc;
@@ -100,6 +190,13 @@ public class ProxyFactory {
                 cc.setSuperclass(superCc);
             }
 
+            List<MethodAttribute<? super T, ?>> lazyAttributes = getLazyAttributes(viewType);
+            CtMethod loadLazyAttributes = null;
+
+            if (!lazyAttributes.isEmpty()) {
+                loadLazyAttributes = addLazyAttributeLoading(cc);
+            }
+
             Set<MethodAttribute<? super T, ?>> attributes = viewType.getAttributes();
             CtField[] attributeFields = new CtField[attributes.size()];
             CtClass[] attributeTypes = new CtClass[attributes.size()];
@@ -107,7 +204,7 @@ public class ProxyFactory {
 
             // Create the id field
             MethodAttribute<? super T, ?> idAttribute = viewType.getIdAttribute();
-            CtField idField = addMembersForAttribute(idAttribute, clazz, cc);
+            CtField idField = addMembersForAttribute(idAttribute, clazz, cc, false);
             attributeFields[0] = idField;
             attributeTypes[0] = idField.getType();
             attributes.remove(idAttribute);
@@ -117,12 +214,16 @@ public class ProxyFactory {
                     continue;
                 }
                 
-                CtField attributeField = addMembersForAttribute(attribute, clazz, cc);
+                CtField attributeField = addMembersForAttribute(attribute, clazz, cc, lazyAttributes.contains(attribute));
                 attributeFields[i] = attributeField;
                 attributeTypes[i] = attributeField.getType();
                 i++;
             }
 
+            if (loadLazyAttributes != null) {
+                loadLazyAttributes.setBody(createLoadLazyAttributesBody(idField, lazyAttributes));
+            }
+
             CtClass equalsDeclaringClass = superCc.getMethod("equals", getEqualsDesc()).getDeclaringClass();
             if (equalsDeclaringClass != objectCc) {
                 throw new IllegalArgumentException("The class '" + equalsDeclaringClass.getName() + "' declares 'boolean equals(java.lang.Object)' but is not allowed to!");
@@ -163,13 +264,87 @@ public class ProxyFactory {
         }
     }
 
-    private CtField addMembersForAttribute(MethodAttribute<?, ?> attribute, Class<?> clazz, CtClass cc) throws CannotCompileException, NotFoundException {
+    /**
+     * Returns the attributes of the given view type that are loaded lazily, ordered by their names.
+     *
+     * @param <T>      The type of the view
+     * @param viewType The view type
+     * @return The lazy attributes
+     */
+    public static <T> List<MethodAttribute<? super T, ?>> getLazyAttributes(ViewType<T> viewType) {
+        List<MethodAttribute<? super T, ?>> lazyAttributes = new ArrayList<MethodAttribute<? super T, ?>>();
+
+        for (MethodAttribute<? super T, ?> attribute : viewType.getAttributes()) {
+            if (attribute instanceof MappingAttribute<?, ?> && ((MappingAttribute<?, ?>) attribute).getFetchStrategy() == FetchStrategy.LAZY) {
+                lazyAttributes.add(attribute);
+            }
+        }
+
+        Collections.sort(lazyAttributes, new Comparator<MethodAttribute<?, ?>>() {
+
+            @Override
+            public int compare(MethodAttribute<?, ?> o1, MethodAttribute<?, ?> o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+
+        return lazyAttributes;
+    }
+
+    private CtMethod addLazyAttributeLoading(CtClass cc) throws CannotCompileException, NotFoundException {
+        cc.addInterface(pool.get(LazyAttributeLoadingProxy.class.getName()));
+
+        CtField loaderField = new CtField(pool.get(LazyAttributeLoader.class.getName()), "$$_lazyAttributeLoader", cc);
+        loaderField.setModifiers(Modifier.PRIVATE | Modifier.TRANSIENT);
+        cc.addField(loaderField);
+
+        // The loader is transient, so the pending state has to be serialized separately to detect views that were serialized before loading
+        CtField pendingField = new CtField(CtClass.booleanType, "$$_lazyAttributesPending", cc);
+        pendingField.setModifiers(Modifier.PRIVATE | Modifier.VOLATILE);
+        cc.addField(pendingField);
+
+        String setterBody = "{ $0.$$_lazyAttributeLoader = $1; $0.$$_lazyAttributesPending = $1 != null; }";
+        cc.addMethod(CtNewMethod.make(CtClass.voidType, "$$_setLazyAttributeLoader", new CtClass[]{ loaderField.getType() }, new CtClass[0], setterBody, cc));
+
+        // The body is set after all attribute fields have been added
+        CtMethod loadLazyAttributes = CtNewMethod.make("private synchronized void $$_loadLazyAttributes() { }", cc);
+        cc.addMethod(loadLazyAttributes);
+        return loadLazyAttributes;
+    }
+
+    private String createLoadLazyAttributesBody(CtField idField, List<? extends MethodAttribute<?, ?>> lazyAttributes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("\tif (!$0.$$_lazyAttributesPending) {\n");
+        sb.append("\t\treturn;\n");
+        sb.append("\t}\n");
+        sb.append("\t").append(LazyAttributeLoader.class.getName()).append(" loader = $0.$$_lazyAttributeLoader;\n");
+        sb.append("\tif (loader == null) {\n");
+        sb.append("\t\tthrow new IllegalStateException(\"The lazy attributes of the entity view can not be loaded because it was serialized before they were loaded!\");\n");
+        sb.append("\t}\n");
+        sb.append("\tObject[] values = loader.load(($w) $0.").append(idField.getName()).append(");\n");
+
+        for (int i = 0; i < lazyAttributes.size(); i++) {
+            MethodAttribute<?, ?> attribute = lazyAttributes.get(i);
+            sb.append("\t$0.").append(attribute.getName()).append(" = ");
+            appendCast(sb, attribute.getJavaType(), "values[" + i + "]");
+            sb.append(";\n");
+        }
+
+        // Only release the loader after a successful load so that a failed load can be retried
+        sb.append("\t$0.$$_lazyAttributeLoader = null;\n");
+        sb.append("\t$0.$$_lazyAttributesPending = false;\n");
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private CtField addMembersForAttribute(MethodAttribute<?, ?> attribute, Class<?> clazz, CtClass cc, boolean lazy) throws CannotCompileException, NotFoundException {
         Method getter = attribute.getJavaMethod();
         Method setter = ReflectionUtils.getSetter(clazz, attribute.getName());
         
         // Create the field from the attribute
         CtField attributeField = new CtField(getType(attribute), attribute.getName(), cc);
-        attributeField.setModifiers(getModifiers(setter != null));
+        attributeField.setModifiers(getModifiers(setter != null || lazy));
         String genericSignature = getGenericSignature(attribute, attributeField);
         if (genericSignature != null) {
             setGenericSignature(attributeField, genericSignature);
@@ -178,7 +353,14 @@ public class ProxyFactory {
         
         boolean createBridges = !attribute.getJavaType().equals(getter.getReturnType());
         
-        CtMethod attributeGetter = CtNewMethod.getter(getter.getName(), attributeField);
+        CtMethod attributeGetter;
+
+        if (lazy) {
+            String body = "{ if ($0.$$_lazyAttributesPending) { $0.$$_loadLazyAttributes(); } return $0." + attributeField.getName() + "; }";
+            attributeGetter = CtNewMethod.make(attributeField.getType(), getter.getName(), new CtClass[0], new CtClass[0], body, cc);
+        } else {
+            attributeGetter = CtNewMethod.getter(getter.getName(), attributeField);
+        }
         
         if (genericSignature != null) {
             String getterGenericSignature = "()" + genericSignature;
@@ -192,7 +374,15 @@ public class ProxyFactory {
         cc.addMethod(attributeGetter);
         
         if (setter != null) {
-            CtMethod attributeSetter = CtNewMethod.setter(setter.getName(), attributeField);
+            CtMethod attributeSetter;
+
+            if (lazy) {
+                // Load the lazy attributes before so that the new value is not overwritten on the next access
+                String body = "{ if ($0.$$_lazyAttributesPending) { $0.$$_loadLazyAttributes(); } $0." + attributeField.getName() + " = $1; }";
+                attributeSetter = CtNewMethod.make(CtClass.voidType, setter.getName(), new CtClass[]{ attributeField.getType() }, new CtClass[0], body, cc);
+            } else {
+                attributeSetter = CtNewMethod.setter(setter.getName(), attributeField);
+            }
             if (genericSignature != null) {
                 String setterGenericSignature = "(" + genericSignature + ")V";
                 setGenericSignature(attributeSetter, setterGenericSignature);
@@ -237,9 +427,20 @@ public class ProxyFactory {
         sb.append("\tfinal ").append(cc.getName()).append(" other = (").append(cc.getName()).append(") $1;\n");
 
         for (CtField field : fields) {
-            sb.append("\tif ($0.").append(field.getName()).append(" != other.").append(field.getName());
-            sb.append(" && ($0.").append(field.getName()).append(" == null");
-            sb.append(" || !$0.").append(field.getName()).append(".equals(other.").append(field.getName()).append("))) {\n");
+            CtClass type = field.getType();
+
+            if (type == CtClass.doubleType) {
+                sb.append("\tif (Double.doubleToLongBits($0.").append(field.getName()).append(") != Double.doubleToLongBits(other.").append(field.getName()).append(")) {\n");
+            } else if (type == CtClass.floatType) {
+                sb.append("\tif (Float.floatToIntBits($0.").append(field.getName()).append(") != Float.floatToIntBits(other.").append(field.getName()).append(")) {\n");
+            } else if (type.isPrimitive()) {
+                sb.append("\tif ($0.").append(field.getName()).append(" != other.").append(field.getName()).append(") {\n");
+            } else {
+                sb.append("\tif ($0.").append(field.getName()).append(" != other.").append(field.getName());
+                sb.append(" && ($0.").append(field.getName()).append(" == null");
+                sb.append(" || !$0.").append(field.getName()).append(".equals(other.").append(field.getName()).append("))) {\n");
+            }
+
             sb.append("\t\treturn false;\n\t}\n");
         }
 
@@ -267,8 +468,9 @@ public class ProxyFactory {
         sb.append("\tint hash = 3;\n");
 
         for (CtField field : fields) {
-            sb.append("\thash = 83 * hash + ($0.").append(field.getName()).append(" != null ? ");
-            sb.append("$0.").append(field.getName()).append(".hashCode() : 0);\n");
+            sb.append("\thash = 83 * hash + ");
+            appendHashCode(sb, field.getType(), "$0." + field.getName());
+            sb.append(";\n");
         }
 
         sb.append("\treturn hash;\n");
@@ -277,6 +479,23 @@ public class ProxyFactory {
         return m;
     }
 
+    private static void appendHashCode(StringBuilder sb, CtClass type, String expression) {
+        // Hash primitive values the same way as their wrapper types do, but without boxing them
+        if (type == CtClass.longType) {
+            sb.append("(int) (").append(expression).append(" ^ (").append(expression).append(" >>> 32))");
+        } else if (type == CtClass.doubleType) {
+            sb.append("(int) (Double.doubleToLongBits(").append(expression).append(") ^ (Double.doubleToLongBits(").append(expression).append(") >>> 32))");
+        } else if (type == CtClass.floatType) {
+            sb.append("Float.floatToIntBits(").append(expression).append(')');
+        } else if (type == CtClass.booleanType) {
+            sb.append('(').append(expression).append(" ? 1231 : 1237)");
+        } else if (type.isPrimitive()) {
+            sb.append("(int) ").append(expression);
+        } else {
+            sb.append('(').append(expression).append(" != null ? ").append(expression).append(".hashCode() : 0)");
+        }
+    }
+
     private CtMethod createGetterBridge(CtClass cc, Method getter, CtMethod attributeGetter) throws NotFoundException, CannotCompileException {
         ConstPool cp = cc.getClassFile2().getConstPool();
         CtClass bridgeReturnType = pool.get(getter.getReturnType().getName());
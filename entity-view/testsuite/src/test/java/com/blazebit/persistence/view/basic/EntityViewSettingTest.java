@@ -21,12 +21,15 @@ import com.blazebit.persistence.PaginatedCriteriaBuilder;
 import com.blazebit.persistence.view.AbstractEntityViewTest;
 import com.blazebit.persistence.view.EntityViewManager;
 import com.blazebit.persistence.view.EntityViewSetting;
+import com.blazebit.persistence.view.PreparedEntityViewSetting;
 import com.blazebit.persistence.view.Sorters;
 import com.blazebit.persistence.view.basic.model.DocumentWithEntityView;
 import com.blazebit.persistence.view.basic.model.FilteredDocument;
+import com.blazebit.persistence.view.basic.model.ProviderCountingDocument;
 import com.blazebit.persistence.view.entity.Document;
 import com.blazebit.persistence.view.entity.Person;
 import com.blazebit.persistence.view.impl.EntityViewConfigurationImpl;
+import java.util.List;
 import javax.persistence.EntityTransaction;
 import static org.junit.Assert.assertEquals;
 import org.junit.Assert;
@@ -112,6 +115,61 @@ public class EntityViewSettingTest extends AbstractEntityViewTest {
         assertEquals("pers2", result.get(0).getContactName());
     }
 
+    @Test
+    public void testProviderInstances() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(ProviderCountingDocument.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        int statelessFilterInstances = ProviderCountingDocument.StatelessFilter.INSTANCES.get();
+        int statefulFilterInstances = ProviderCountingDocument.StatefulFilter.INSTANCES.get();
+        int subqueryProviderInstances = ProviderCountingDocument.StatelessSubqueryProvider.INSTANCES.get();
+
+        for (int i = 0; i < 3; i++) {
+            EntityViewSetting<ProviderCountingDocument, CriteriaBuilder<ProviderCountingDocument>> setting = EntityViewSetting.create(ProviderCountingDocument.class);
+            setting.addViewFilter("statelessFilter");
+            List<ProviderCountingDocument> result = evm.applySetting(setting, cbf.create(em, Document.class)).getResultList();
+            assertEquals(2, result.size());
+
+            setting = EntityViewSetting.create(ProviderCountingDocument.class);
+            setting.addViewFilter("statefulFilter");
+            result = evm.applySetting(setting, cbf.create(em, Document.class)).getResultList();
+            assertEquals(1, result.size());
+            assertEquals("MyTest", result.get(0).getName());
+            assertEquals(Long.valueOf(1), result.get(0).getContactCount());
+        }
+
+        // Providers without instance fields are shared, the others are instantiated for every use
+        assertEquals(statelessFilterInstances, ProviderCountingDocument.StatelessFilter.INSTANCES.get());
+        assertEquals(statefulFilterInstances + 3, ProviderCountingDocument.StatefulFilter.INSTANCES.get());
+        assertEquals(subqueryProviderInstances, ProviderCountingDocument.StatelessSubqueryProvider.INSTANCES.get());
+    }
+
+    @Test
+    public void testPreparedSettingProviderInstances() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(ProviderCountingDocument.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        EntityViewSetting<ProviderCountingDocument, CriteriaBuilder<ProviderCountingDocument>> setting = EntityViewSetting.create(ProviderCountingDocument.class);
+        setting.addViewFilter("statelessFilter");
+        setting.addViewFilter("statefulFilter");
+        PreparedEntityViewSetting<ProviderCountingDocument, CriteriaBuilder<ProviderCountingDocument>> preparedSetting = evm.prepareSetting(setting, em.getEntityManagerFactory());
+
+        int statelessFilterInstances = ProviderCountingDocument.StatelessFilter.INSTANCES.get();
+        int statefulFilterInstances = ProviderCountingDocument.StatefulFilter.INSTANCES.get();
+
+        for (int i = 0; i < 3; i++) {
+            List<ProviderCountingDocument> result = preparedSetting.apply(setting, cbf.create(em, Document.class)).getResultList();
+            assertEquals(1, result.size());
+            assertEquals("MyTest", result.get(0).getName());
+        }
+
+        // The prepared setting must not share stateful filters between applications
+        assertEquals(statelessFilterInstances, ProviderCountingDocument.StatelessFilter.INSTANCES.get());
+        assertEquals(statefulFilterInstances + 3, ProviderCountingDocument.StatefulFilter.INSTANCES.get());
+    }
+
     @Test
     public void testEntityViewSettingWithEntityAttribute() {
         EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
@@ -158,5 +216,48 @@ public class EntityViewSettingTest extends AbstractEntityViewTest {
         }
     }
     
+    @Test
+    public void testPreparedEntityViewSetting() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(FilteredDocument.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        EntityViewSetting<FilteredDocument, PaginatedCriteriaBuilder<FilteredDocument>> setting = EntityViewSetting.create(
+            FilteredDocument.class, 0, 1);
+        setting.addAttributeFilter("name", "Test");
+        setting.addAttributeSorter("name", Sorters.descending());
+        setting.addAttributeSorter("id", Sorters.descending());
+        setting.addOptionalParameter("index", 1);
+        PreparedEntityViewSetting<FilteredDocument, PaginatedCriteriaBuilder<FilteredDocument>> preparedSetting = evm.prepareSetting(setting, em.getEntityManagerFactory());
+
+        PagedList<FilteredDocument> result = preparedSetting.apply(setting, cbf.create(em, Document.class)).getResultList();
+        assertEquals(1, result.size());
+        assertEquals(2, result.getTotalSize());
+        assertEquals("YourTest", result.get(0).getName());
+
+        // Same shape with different values
+        EntityViewSetting<FilteredDocument, PaginatedCriteriaBuilder<FilteredDocument>> otherSetting = EntityViewSetting.create(
+            FilteredDocument.class, 0, 10);
+        otherSetting.addAttributeFilter("name", "My");
+        otherSetting.addAttributeSorter("name", Sorters.ascending());
+        otherSetting.addAttributeSorter("id", Sorters.ascending());
+        otherSetting.addOptionalParameter("index", 1);
+
+        result = preparedSetting.apply(otherSetting, cbf.create(em, Document.class)).getResultList();
+        assertEquals(1, result.size());
+        assertEquals("MyTest", result.get(0).getName());
+        assertEquals("pers1", result.get(0).getContactName());
+
+        // Attributes that were not prepared can't be used
+        otherSetting.addAttributeFilter("contactCount", "1");
+
+        try {
+            preparedSetting.apply(otherSetting, cbf.create(em, Document.class));
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // Ok
+        }
+    }
+
     // TODO: needs more tests
 }
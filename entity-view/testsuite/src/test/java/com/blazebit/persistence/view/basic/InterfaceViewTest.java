@@ -24,10 +24,15 @@ import com.blazebit.persistence.view.basic.model.DocumentViewInterface;
 import com.blazebit.persistence.view.basic.model.PersonView1;
 import com.blazebit.persistence.view.entity.Document;
 import com.blazebit.persistence.view.entity.Person;
+import com.blazebit.persistence.view.impl.ConfigurationProperties;
 import com.blazebit.persistence.view.impl.EntityViewConfigurationImpl;
+import com.blazebit.persistence.view.impl.EntityViewManagerImpl;
+import com.blazebit.persistence.view.impl.proxy.ProxyFactory;
+import com.blazebit.persistence.view.metamodel.ViewType;
 import java.util.List;
 import javax.persistence.EntityTransaction;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -119,4 +124,45 @@ public class InterfaceViewTest extends AbstractEntityViewTest {
         assertEquals(Integer.valueOf(2), results.get(1).getContactPersonNumber2());
         assertEquals(Long.valueOf(1), results.get(1).getContactCount());
     }
+
+    @Test
+    public void testEagerParallelBootstrap() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentViewInterface.class);
+        cfg.addEntityView(DocumentViewAbstractClass.class);
+        cfg.addEntityView(PersonView1.class);
+        cfg.setProperty(ConfigurationProperties.PROXY_EAGER_LOADING, "true");
+        cfg.setProperty(ConfigurationProperties.BOOTSTRAP_THREADS, "4");
+        EntityViewManager eagerEvm = cfg.createEntityViewManager();
+
+        assertEquals(3, eagerEvm.getMetamodel().getViews().size());
+
+        // The proxy classes are generated while the entity view manager is created, before any view is queried
+        ProxyFactory proxyFactory = ((EntityViewManagerImpl) eagerEvm).getProxyFactory();
+        for (ViewType<?> viewType : eagerEvm.getMetamodel().getViews()) {
+            assertNotNull(proxyFactory.getCreatedProxy(viewType.getJavaType()));
+        }
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .orderByAsc("id");
+        List<DocumentViewInterface> results = eagerEvm.applySetting(EntityViewSetting.create(DocumentViewInterface.class), criteria)
+            .setParameter("contactPersonNumber", 2)
+            .getResultList();
+
+        assertEquals(2, results.size());
+        assertEquals(doc1.getId(), results.get(0).getId());
+        assertEquals(doc1.getName(), results.get(0).getName());
+        assertEquals(doc2.getId(), results.get(1).getId());
+        assertEquals(doc2.getName(), results.get(1).getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelBootstrapRethrowsInvalidView() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentViewInterface.class);
+        cfg.addEntityView(PersonView1.class);
+        cfg.addEntityView(Document.class);
+        cfg.setProperty(ConfigurationProperties.BOOTSTRAP_THREADS, "2");
+        cfg.createEntityViewManager();
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.basic;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.view.AbstractEntityViewTest;
+import com.blazebit.persistence.view.EntityViewManager;
+import com.blazebit.persistence.view.EntityViewSetting;
+import com.blazebit.persistence.view.basic.model.PrimitivePersonView;
+import com.blazebit.persistence.view.entity.Document;
+import com.blazebit.persistence.view.entity.Person;
+import com.blazebit.persistence.view.impl.EntityViewConfigurationImpl;
+import java.util.List;
+import javax.persistence.EntityTransaction;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class PrimitiveViewTest extends AbstractEntityViewTest {
+
+    protected static EntityViewManager evm;
+
+    @BeforeClass
+    public static void initEvm() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(PrimitivePersonView.class);
+        evm = cfg.createEntityViewManager();
+    }
+
+    private Person pers1;
+    private Person pers2;
+
+    @Before
+    public void setUp() {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Document doc1 = new Document("doc1");
+            doc1.setAge(10);
+
+            pers1 = new Person("pers1");
+            pers2 = new Person("pers2");
+            pers1.setPartnerDocument(doc1);
+            doc1.setOwner(pers1);
+
+            em.persist(pers1);
+            em.persist(pers2);
+            em.persist(doc1);
+
+            em.flush();
+            tx.commit();
+            em.clear();
+        } catch (Exception e) {
+            tx.rollback();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testPrimitiveAttribute() {
+        CriteriaBuilder<Person> criteria = cbf.create(em, Person.class, "p")
+            .where("id").eq(pers1.getId());
+        List<PrimitivePersonView> results = evm.applySetting(EntityViewSetting.create(PrimitivePersonView.class), criteria)
+            .getResultList();
+
+        assertEquals(1, results.size());
+        assertEquals(pers1.getId().longValue(), results.get(0).getId());
+        assertEquals(10L, results.get(0).getPartnerDocumentAge());
+    }
+
+    @Test
+    public void testNullForPrimitiveAttribute() {
+        // The partner document is joined with a left join so the age is null
+        CriteriaBuilder<Person> criteria = cbf.create(em, Person.class, "p")
+            .where("id").eq(pers2.getId());
+
+        try {
+            evm.applySetting(EntityViewSetting.create(PrimitivePersonView.class), criteria)
+                .getResultList();
+            fail("Expected an exception for the null value of the primitive attribute");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("'partnerDocumentAge'"));
+            assertTrue(ex.getMessage(), ex.getMessage().contains(PrimitivePersonView.class.getName()));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.basic.model;
+
+import com.blazebit.persistence.SubqueryInitiator;
+import com.blazebit.persistence.WhereBuilder;
+import com.blazebit.persistence.view.EntityView;
+import com.blazebit.persistence.view.IdMapping;
+import com.blazebit.persistence.view.MappingSubquery;
+import com.blazebit.persistence.view.SubqueryProvider;
+import com.blazebit.persistence.view.ViewFilter;
+import com.blazebit.persistence.view.ViewFilterProvider;
+import com.blazebit.persistence.view.ViewFilters;
+import com.blazebit.persistence.view.entity.Document;
+import com.blazebit.persistence.view.entity.Person;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+@EntityView(Document.class)
+@ViewFilters({
+    @ViewFilter(name = "statelessFilter", value = ProviderCountingDocument.StatelessFilter.class),
+    @ViewFilter(name = "statefulFilter", value = ProviderCountingDocument.StatefulFilter.class)
+})
+public interface ProviderCountingDocument {
+
+    @IdMapping("id")
+    public Long getId();
+
+    public String getName();
+
+    @MappingSubquery(StatelessSubqueryProvider.class)
+    public Long getContactCount();
+
+    public static class StatelessFilter extends ViewFilterProvider {
+
+        public static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        public StatelessFilter() {
+            INSTANCES.incrementAndGet();
+        }
+
+        @Override
+        public <T extends WhereBuilder<T>> T apply(T whereBuilder) {
+            return whereBuilder.where("name").notEq("NoContacts");
+        }
+    }
+
+    public static class StatefulFilter extends ViewFilterProvider {
+
+        public static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        private final String name = "MyTest";
+
+        public StatefulFilter() {
+            INSTANCES.incrementAndGet();
+        }
+
+        @Override
+        public <T extends WhereBuilder<T>> T apply(T whereBuilder) {
+            return whereBuilder.where("name").eq(name);
+        }
+    }
+
+    public static class StatelessSubqueryProvider implements SubqueryProvider {
+
+        public static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        public StatelessSubqueryProvider() {
+            INSTANCES.incrementAndGet();
+        }
+
+        @Override
+        public <T> T createSubquery(SubqueryInitiator<T> subqueryBuilder) {
+            return subqueryBuilder.from(Person.class)
+                .where("partnerDocument.id").eqExpression("OUTER(id)")
+                .select("COUNT(person.id)")
+                .end();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.blazebit.persistence.view.AbstractEntityViewTest;
 import com.blazebit.persistence.view.EntityViewManager;
 import com.blazebit.persistence.view.EntityViewSetting;
 import com.blazebit.persistence.view.collections.basic.model.BasicDocumentCollectionsView;
+import com.blazebit.persistence.view.collections.basic.model.BasicDocumentFetchStrategyView;
 import com.blazebit.persistence.view.collections.basic.model.BasicDocumentListMapSetView;
 import com.blazebit.persistence.view.collections.basic.model.BasicDocumentListSetMapView;
 import com.blazebit.persistence.view.collections.basic.model.BasicDocumentMapListSetView;
@@ -127,7 +128,8 @@ public class SimpleCollectionsTest<T extends BasicDocumentCollectionsView> exten
             { BasicDocumentMapListSetView.class },
             { BasicDocumentMapSetListView.class },
             { BasicDocumentSetListMapView.class },
-            { BasicDocumentSetMapListView.class }
+            { BasicDocumentSetMapListView.class },
+            { BasicDocumentFetchStrategyView.class }
         });
     }
 
@@ -16,6 +16,7 @@
 package com.blazebit.persistence.view.collections.subview;
 
 import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.ScrollableResult;
 import com.blazebit.persistence.view.AbstractEntityViewTest;
 import com.blazebit.persistence.view.EntityViewManager;
 import com.blazebit.persistence.view.EntityViewSetting;
@@ -183,6 +184,37 @@ public class NestedCollectionsTest<T extends PersonForCollectionsMasterView, U e
         assertSubviewCollectionEquals(pers2.getOwnedDocuments(), results.get(1).getOwnedDocuments());
     }
 
+    @Test
+    public void testScrollCollections() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(viewType);
+        cfg.addEntityView(subviewType);
+        cfg.addEntityView(SubviewPersonForCollectionsView.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<PersonForCollections> criteria = cbf.create(em, PersonForCollections.class, "p")
+            .where("id").in(pers1.getId(), pers2.getId())
+            .orderByAsc("id");
+        CriteriaBuilder<T> cb = evm.applySetting(EntityViewSetting.create(viewType), criteria);
+        ScrollableResult<T> results = cb.scroll(1);
+
+        try {
+            // Pers1
+            T result = results.next();
+            assertEquals(pers1.getName(), result.getName());
+            assertSubviewCollectionEquals(pers1.getOwnedDocuments(), result.getOwnedDocuments());
+
+            // Pers2
+            result = results.next();
+            assertEquals(pers2.getName(), result.getName());
+            assertSubviewCollectionEquals(pers2.getOwnedDocuments(), result.getOwnedDocuments());
+
+            Assert.assertFalse(results.hasNext());
+        } finally {
+            results.close();
+        }
+    }
+
     private void assertSubviewCollectionEquals(Set<DocumentForCollections> ownedDocuments, Set<? extends SubviewDocumentCollectionsView> ownedSubviewDocuments) {
         assertEquals(ownedDocuments.size(), ownedSubviewDocuments.size());
         for (DocumentForCollections doc : ownedDocuments) {
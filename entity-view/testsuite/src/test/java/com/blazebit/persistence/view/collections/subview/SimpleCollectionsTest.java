@@ -23,6 +23,7 @@ import com.blazebit.persistence.view.collections.entity.DocumentForCollections;
 import com.blazebit.persistence.view.collections.entity.PersonForCollections;
 import static com.blazebit.persistence.view.collections.subview.SubviewAssert.assertSubviewEquals;
 import com.blazebit.persistence.view.collections.subview.model.SubviewDocumentCollectionsView;
+import com.blazebit.persistence.view.collections.subview.model.SubviewDocumentFetchStrategyView;
 import com.blazebit.persistence.view.collections.subview.model.SubviewDocumentListMapSetView;
 import com.blazebit.persistence.view.collections.subview.model.SubviewDocumentListSetMapView;
 import com.blazebit.persistence.view.collections.subview.model.SubviewDocumentMapListSetView;
@@ -129,7 +130,8 @@ public class SimpleCollectionsTest<T extends SubviewDocumentCollectionsView> ext
             { SubviewDocumentMapListSetView.class },
             { SubviewDocumentMapSetListView.class },
             { SubviewDocumentSetListMapView.class },
-            { SubviewDocumentSetMapListView.class }
+            { SubviewDocumentSetMapListView.class },
+            { SubviewDocumentFetchStrategyView.class }
         });
     }
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.lazy;
+
+import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.view.AbstractEntityViewTest;
+import com.blazebit.persistence.view.EntityViewManager;
+import com.blazebit.persistence.view.EntityViewSetting;
+import com.blazebit.persistence.view.entity.Document;
+import com.blazebit.persistence.impl.metrics.HistogramQueryMetrics;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import com.blazebit.persistence.spi.QueryMetric;
+import com.blazebit.persistence.view.entity.Person;
+import com.blazebit.persistence.view.impl.EntityViewConfigurationImpl;
+import com.blazebit.persistence.view.lazy.model.DocumentLazyContactView;
+import com.blazebit.persistence.view.lazy.model.DocumentLazyView;
+import com.blazebit.persistence.view.lazy.model.PersonLazySubView;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class LazyAttributeTest extends AbstractEntityViewTest {
+
+    private final HistogramQueryMetrics queryMetrics = new HistogramQueryMetrics();
+
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        return super.configure(config).setQueryMetrics(queryMetrics);
+    }
+
+    @Before
+    public void setUp() {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Person o1 = new Person("pers1");
+            Person o2 = new Person("pers2");
+            em.persist(o1);
+            em.persist(o2);
+
+            for (int i = 1; i <= 5; i++) {
+                Document doc = new Document("doc" + i);
+                doc.setAge(i);
+                doc.setOwner(i % 2 == 0 ? o2 : o1);
+
+                Person contact = new Person("contact" + i);
+                contact.setAge(i * 10);
+                em.persist(contact);
+                doc.getContacts().put(1, contact);
+                em.persist(doc);
+            }
+
+            em.flush();
+            tx.commit();
+            em.clear();
+        } catch (Exception e) {
+            tx.rollback();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testLazyAttributes() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentLazyView.class);
+        cfg.addEntityView(PersonLazySubView.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .orderByAsc("id");
+        CriteriaBuilder<DocumentLazyView> cb = evm.applySetting(EntityViewSetting.create(DocumentLazyView.class), criteria);
+        List<DocumentLazyView> results = cb.getResultList();
+
+        // The lazy attributes are not selected by the query of the entity views
+        assertFalse(cb.getQueryString().contains("d.name"));
+        assertFalse(cb.getQueryString().contains("d.age"));
+        assertFalse(cb.getQueryString().contains("UPPER"));
+
+        assertEquals(5, results.size());
+        assertEquals(1, queryMetrics.getHistogram(QueryMetric.OBJECT_BUILDER_BUILD_LIST).getCount());
+
+        // Access the views in reverse order so that the first accesses load the lazy attributes of views that were not accessed yet
+        for (int i = results.size() - 1; i >= 0; i--) {
+            DocumentLazyView view = results.get(i);
+            assertEquals("doc" + (i + 1), view.getName());
+            assertEquals(Long.valueOf(i + 1), view.getAge());
+            assertEquals((i + 1) % 2 == 0 ? "PERS2" : "PERS1", view.getOwner().getName());
+        }
+
+        // The names are loaded in batches of 2 for the views 5 and 1, 4 and 2 and finally 3,
+        // the ages and the owner names of all views are loaded by a single query each
+        assertEquals(1 + 3 + 1 + 1, queryMetrics.getHistogram(QueryMetric.OBJECT_BUILDER_BUILD_LIST).getCount());
+    }
+
+    @Test
+    public void testSetLazyAttributeBeforeAccess() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentLazyView.class);
+        cfg.addEntityView(PersonLazySubView.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .orderByAsc("id");
+        List<DocumentLazyView> results = evm.applySetting(EntityViewSetting.create(DocumentLazyView.class), criteria)
+            .getResultList();
+
+        results.get(0).setName("newName");
+        assertEquals("newName", results.get(0).getName());
+        assertEquals(Long.valueOf(1), results.get(0).getAge());
+        assertEquals("doc2", results.get(1).getName());
+    }
+
+    @Test
+    public void testLazyAttributesWithOwnerQueryParameter() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentLazyContactView.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .orderByAsc("id");
+        CriteriaBuilder<DocumentLazyContactView> cb = evm.applySetting(EntityViewSetting.create(DocumentLazyContactView.class), criteria)
+            .setParameter("contactPersonNumber", 1);
+        List<DocumentLazyContactView> results = cb.getResultList();
+
+        assertEquals(5, results.size());
+
+        // The lazy attribute refers to the parameter that is only set on the owner query
+        for (int i = 0; i < results.size(); i++) {
+            DocumentLazyContactView view = results.get(i);
+            assertEquals("contact" + (i + 1), view.getContactName());
+            assertEquals(Long.valueOf((i + 1) * 10), view.getContactAge());
+        }
+    }
+
+    @Test
+    public void testLazyAttributesAfterEntityManagerClosed() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentLazyView.class);
+        cfg.addEntityView(PersonLazySubView.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        EntityManager otherEm = em.getEntityManagerFactory().createEntityManager();
+        List<DocumentLazyView> results;
+        try {
+            CriteriaBuilder<Document> criteria = cbf.create(otherEm, Document.class, "d")
+                .orderByAsc("id");
+            results = evm.applySetting(EntityViewSetting.create(DocumentLazyView.class), criteria)
+                .getResultList();
+        } finally {
+            otherEm.close();
+        }
+
+        try {
+            results.get(0).getName();
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage().contains("entity manager of the query is closed"));
+        }
+    }
+}
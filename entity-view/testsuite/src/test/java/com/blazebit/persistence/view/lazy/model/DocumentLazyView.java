@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.lazy.model;
+
+import com.blazebit.persistence.view.EntityView;
+import com.blazebit.persistence.view.FetchStrategy;
+import com.blazebit.persistence.view.IdMapping;
+import com.blazebit.persistence.view.Mapping;
+import com.blazebit.persistence.view.entity.Document;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+@EntityView(Document.class)
+public interface DocumentLazyView {
+
+    @IdMapping("id")
+    public Long getId();
+
+    @Mapping(value = "name", fetch = FetchStrategy.LAZY, batchSize = 2)
+    public String getName();
+
+    public void setName(String name);
+
+    @Mapping(value = "age", fetch = FetchStrategy.LAZY)
+    public Long getAge();
+
+    @Mapping("owner")
+    public PersonLazySubView getOwner();
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.view.objectbuilder;
+
+import com.blazebit.persistence.view.impl.objectbuilder.TupleRestPlan;
+import com.blazebit.persistence.view.impl.objectbuilder.TupleRestSet;
+import com.blazebit.persistence.view.impl.objectbuilder.TupleReuse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class TupleRestSetTest {
+
+    @Test
+    public void testDistinctRestTuples() {
+        Object[] tuple1 = { 1L, "a", new byte[]{ 1, 2 }, TupleReuse.CONSUMED };
+        Object[] tuple2 = { 2L, "a", new byte[]{ 1, 2 }, TupleReuse.CONSUMED };
+        Object[] tuple3 = { 1L, "a", new byte[]{ 1, 3 }, TupleReuse.CONSUMED };
+        Object[] tuple4 = { 1L, null, new byte[]{ 1, 3 }, TupleReuse.CONSUMED };
+        TupleRestSet set = new TupleRestSet(TupleRestPlan.create(tuple1, 1));
+
+        assertTrue(set.add(tuple1));
+        // The element before the rest index is not part of the rest
+        assertFalse(set.add(tuple2));
+        assertTrue(set.add(tuple3));
+        assertTrue(set.add(tuple4));
+        assertFalse(set.add(new Object[]{ 3L, null, new byte[]{ 1, 3 }, TupleReuse.CONSUMED }));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testUnknownTypesAndResize() {
+        Object[] sample = { 0, null };
+        TupleRestSet set = new TupleRestSet(TupleRestPlan.create(sample, 1));
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(set.add(new Object[]{ 0, new int[]{ i } }));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertFalse(set.add(new Object[]{ 1, new int[]{ i } }));
+        }
+
+        assertTrue(set.add(new Object[]{ 0, null }));
+        assertFalse(set.add(new Object[]{ 0, null }));
+        assertEquals(101, set.size());
+    }
+}
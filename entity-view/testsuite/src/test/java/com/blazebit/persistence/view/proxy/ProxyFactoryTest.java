@@ -17,11 +17,13 @@ package com.blazebit.persistence.view.proxy;
 
 import com.blazebit.persistence.view.entity.Person;
 import com.blazebit.persistence.view.impl.EntityViewConfigurationImpl;
+import com.blazebit.persistence.view.impl.proxy.ObjectInstantiator;
 import com.blazebit.persistence.view.impl.proxy.ProxyFactory;
 import com.blazebit.persistence.view.metamodel.ViewMetamodel;
 import com.blazebit.persistence.view.metamodel.ViewType;
 import com.blazebit.persistence.view.proxy.model.DocumentClassView;
 import com.blazebit.persistence.view.proxy.model.DocumentInterfaceView;
+import com.blazebit.persistence.view.proxy.model.PrimitiveDocumentView;
 import com.blazebit.reflection.ReflectionUtils;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -31,6 +33,7 @@ import java.util.HashMap;
 import java.util.Map;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
@@ -48,6 +51,7 @@ public class ProxyFactoryTest {
         EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
         cfg.addEntityView(DocumentInterfaceView.class);
         cfg.addEntityView(DocumentClassView.class);
+        cfg.addEntityView(PrimitiveDocumentView.class);
         return cfg.createEntityViewManager().getMetamodel();
     }
 
@@ -125,6 +129,76 @@ public class ProxyFactoryTest {
         assertTrue(expectedId == instance.getId());
     }
 
+    @Test
+    public void testClassInstantiator() throws Exception {
+        ViewType<DocumentClassView> viewType = getViewMetamodel().view(DocumentClassView.class);
+        Class<? extends DocumentClassView> proxyClass = proxyFactory.getProxy(viewType);
+
+        // The parameter order is id, contacts, firstContactPerson, myContactPerson, name followed by age and contactPersonNumber of the view constructor
+        Constructor<? extends DocumentClassView> constructor = proxyClass.getConstructor(Long.class, Map.class, Person.class,
+                                                                                         Person.class, String.class,
+                                                                                         Long.class, Integer.class);
+        ObjectInstantiator<DocumentClassView> instantiator = proxyFactory.getInstantiator(constructor);
+
+        Map<Integer, Person> expectedContacts = new HashMap<Integer, Person>();
+        Person expectedFirstContactPerson = new Person("pers");
+        Long expectedId = 1L;
+        String expectedName = "doc";
+        long expectedAge = 10;
+        Person expectedMyContactPerson = new Person("my-pers");
+        Integer expectedContactPersonNumber = 2;
+
+        DocumentClassView instance = instantiator.newInstance(new Object[]{ expectedId, expectedContacts, expectedFirstContactPerson,
+                                                                            expectedMyContactPerson, expectedName, expectedAge,
+                                                                            expectedContactPersonNumber });
+
+        assertTrue(proxyClass == instance.getClass());
+        assertTrue(expectedContacts == instance.getContacts());
+        assertTrue(expectedFirstContactPerson == instance.getFirstContactPerson());
+        assertTrue(expectedId == instance.getId());
+        assertTrue(expectedMyContactPerson == instance.getMyContactPerson());
+        assertTrue(expectedName == instance.getName());
+        assertTrue(expectedAge == instance.getAge());
+        assertTrue(expectedContactPersonNumber == instance.getContactPersonNumber());
+        assertTrue(instantiator == proxyFactory.getInstantiator(constructor));
+    }
+
+    @Test
+    public void testPrimitiveProxy() throws Exception {
+        ViewType<PrimitiveDocumentView> viewType = getViewMetamodel().view(PrimitiveDocumentView.class);
+        Class<? extends PrimitiveDocumentView> proxyClass = proxyFactory.getProxy(viewType);
+        Constructor<? extends PrimitiveDocumentView> constructor = (Constructor<? extends PrimitiveDocumentView>) proxyClass.getDeclaredConstructors()[0];
+        ObjectInstantiator<PrimitiveDocumentView> instantiator = proxyFactory.getInstantiator(constructor);
+
+        assertEquals(long.class, proxyClass.getDeclaredField("id").getType());
+        assertEquals(long.class, proxyClass.getDeclaredField("age").getType());
+
+        PrimitiveDocumentView instance1 = instantiator.newInstance(createPrimitiveDocumentTuple(constructor, 1L, 10L, "doc1"));
+        PrimitiveDocumentView instance2 = instantiator.newInstance(createPrimitiveDocumentTuple(constructor, 1L, 20L, "doc2"));
+        PrimitiveDocumentView instance3 = instantiator.newInstance(createPrimitiveDocumentTuple(constructor, 2L, 10L, "doc1"));
+
+        assertEquals(1L, instance1.getId());
+        assertEquals(10L, instance1.getAge());
+        assertEquals("doc1", instance1.getName());
+        assertEquals(instance1, instance2);
+        assertEquals(instance1.hashCode(), instance2.hashCode());
+        assertEquals(83 * 3 + Long.valueOf(1L).hashCode(), instance1.hashCode());
+        assertFalse(instance1.equals(instance3));
+    }
+
+    private static Object[] createPrimitiveDocumentTuple(Constructor<?> constructor, Long id, Long age, String name) {
+        // The id comes first, the order of the other attributes is not defined
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        Object[] tuple = new Object[parameterTypes.length];
+        tuple[0] = id;
+
+        for (int i = 1; i < parameterTypes.length; i++) {
+            tuple[i] = parameterTypes[i] == long.class ? age : name;
+        }
+
+        return tuple;
+    }
+
     @Test
     public void testInterfaceEqualsHashCode() throws Exception {
         ViewType<DocumentInterfaceView> viewType = getViewMetamodel().view(DocumentInterfaceView.class);
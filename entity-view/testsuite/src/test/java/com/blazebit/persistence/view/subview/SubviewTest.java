@@ -16,23 +16,32 @@
 package com.blazebit.persistence.view.subview;
 
 import com.blazebit.persistence.CriteriaBuilder;
+import com.blazebit.persistence.impl.metrics.HistogramQueryMetrics;
+import com.blazebit.persistence.spi.CriteriaBuilderConfiguration;
+import com.blazebit.persistence.spi.QueryMetric;
 import com.blazebit.persistence.view.AbstractEntityViewTest;
 import com.blazebit.persistence.view.EntityViewManager;
 import com.blazebit.persistence.view.EntityViewSetting;
 import com.blazebit.persistence.view.entity.Document;
 import com.blazebit.persistence.view.entity.Person;
+import com.blazebit.persistence.view.impl.ConfigurationProperties;
 import com.blazebit.persistence.view.impl.EntityViewConfigurationImpl;
+import com.blazebit.persistence.view.subview.model.DocumentFetchedPartnersView;
 import com.blazebit.persistence.view.subview.model.DocumentMasterView;
 import com.blazebit.persistence.view.subview.model.PersonSubView;
 import com.blazebit.persistence.view.subview.model.PersonSubViewFiltered;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.persistence.EntityTransaction;
 import org.junit.Assert;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -43,9 +52,15 @@ import org.junit.Test;
  */
 public class SubviewTest extends AbstractEntityViewTest {
 
+    private final HistogramQueryMetrics queryMetrics = new HistogramQueryMetrics();
     private Document doc1;
     private Document doc2;
 
+    @Override
+    protected CriteriaBuilderConfiguration configure(CriteriaBuilderConfiguration config) {
+        return super.configure(config).setQueryMetrics(queryMetrics);
+    }
+
     @Before
     public void setUp() {
         EntityTransaction tx = em.getTransaction();
@@ -148,6 +163,201 @@ public class SubviewTest extends AbstractEntityViewTest {
         assertSubviewEquals(doc2.getPersonList(), results.get(1).getPersonList());
     }
 
+    @Test
+    public void testShareSubviewInstances() {
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        doc2.setOwner(doc1.getOwner());
+        doc2 = em.merge(doc2);
+        em.flush();
+        tx.commit();
+        em.clear();
+
+        doc1 = em.find(Document.class, doc1.getId());
+        doc2 = em.find(Document.class, doc2.getId());
+
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentMasterView.class);
+        cfg.addEntityView(PersonSubView.class);
+        cfg.addEntityView(PersonSubViewFiltered.class);
+        cfg.setProperty(ConfigurationProperties.SHARE_SUBVIEW_INSTANCES, "true");
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .orderByAsc("id");
+        CriteriaBuilder<DocumentMasterView> cb = evm.applySetting(EntityViewSetting.create(DocumentMasterView.class), criteria)
+            .setParameter("contactPersonNumber", 2);
+        List<DocumentMasterView> results = cb.getResultList();
+
+        assertEquals(2, results.size());
+        assertEquals("PERS1", results.get(0).getOwner().getName());
+        assertSame(results.get(0).getOwner(), results.get(1).getOwner());
+        assertSubviewEquals(doc1.getContacts2(), results.get(0).getContacts());
+        assertSubviewEquals(doc2.getContacts2(), results.get(1).getContacts());
+        assertSubviewEquals(doc1.getPersonList(), results.get(0).getPersonList());
+        assertSubviewEquals(doc2.getPersonList(), results.get(1).getPersonList());
+
+        // Instances are only shared within the result of a single execution
+        List<DocumentMasterView> secondResults = cb.getResultList();
+        assertEquals(2, secondResults.size());
+        assertSame(secondResults.get(0).getOwner(), secondResults.get(1).getOwner());
+        assertNotSame(results.get(0).getOwner(), secondResults.get(0).getOwner());
+    }
+
+    @Test
+    public void testFetchSubset() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentMasterView.class);
+        cfg.addEntityView(PersonSubView.class);
+        cfg.addEntityView(PersonSubViewFiltered.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .orderByAsc("id");
+        EntityViewSetting<DocumentMasterView, CriteriaBuilder<DocumentMasterView>> setting = EntityViewSetting.create(DocumentMasterView.class)
+            .fetch("name", "owner", "personList.name");
+        CriteriaBuilder<DocumentMasterView> cb = evm.applySetting(setting, criteria);
+        List<DocumentMasterView> results = cb.getResultList();
+
+        assertFalse(cb.getQueryString().contains("contacts2"));
+        assertFalse(cb.getQueryString().contains("partners"));
+        assertEquals(2, results.size());
+        // Doc1
+        assertEquals(doc1.getId(), results.get(0).getId());
+        assertEquals(doc1.getName(), results.get(0).getName());
+        assertEquals("PERS1", results.get(0).getOwner().getName());
+        assertNull(results.get(0).getMyContactPerson());
+        assertNull(results.get(0).getContactPersonNumber());
+        assertNull(results.get(0).getContacts());
+        assertNull(results.get(0).getPartners());
+        assertSubviewEquals(doc1.getPersonList(), results.get(0).getPersonList());
+        // Doc2
+        assertEquals(doc2.getId(), results.get(1).getId());
+        assertEquals(doc2.getName(), results.get(1).getName());
+        assertEquals("PERS2", results.get(1).getOwner().getName());
+        assertNull(results.get(1).getContacts());
+        assertSubviewEquals(doc2.getPersonList(), results.get(1).getPersonList());
+    }
+
+    @Test
+    public void testBatchFetchWithParameters() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentFetchedPartnersView.class);
+        cfg.addEntityView(PersonSubView.class);
+        cfg.addEntityView(PersonSubViewFiltered.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .orderByAsc("id");
+        CriteriaBuilder<DocumentFetchedPartnersView> cb = evm.applySetting(EntityViewSetting.create(DocumentFetchedPartnersView.class), criteria)
+            .setParameter("contactPersonNumber", 2);
+        List<DocumentFetchedPartnersView> results = cb.getResultList();
+
+        assertEquals(2, results.size());
+        assertFetchedPartners(doc1, results.get(0));
+        assertFetchedPartners(doc2, results.get(1));
+        assertBatchFetchQueries();
+    }
+
+    @Test
+    public void testBatchFetchWithOptionalParameters() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentFetchedPartnersView.class);
+        cfg.addEntityView(PersonSubView.class);
+        cfg.addEntityView(PersonSubViewFiltered.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+            .orderByAsc("id");
+        EntityViewSetting<DocumentFetchedPartnersView, CriteriaBuilder<DocumentFetchedPartnersView>> setting = EntityViewSetting.create(DocumentFetchedPartnersView.class);
+        setting.addOptionalParameter("contactPersonNumber", 2);
+        List<DocumentFetchedPartnersView> results = evm.applySetting(setting, criteria).getResultList();
+
+        assertEquals(2, results.size());
+        assertFetchedPartners(doc1, results.get(0));
+        assertFetchedPartners(doc2, results.get(1));
+        assertBatchFetchQueries();
+    }
+
+    private void assertBatchFetchQueries() {
+        // One query for the documents, one per document for the partners with a batch size of 1
+        // and a single one for the partners of the contact persons of both documents
+        assertEquals(1 + 2 + 1, queryMetrics.getHistogram(QueryMetric.OBJECT_BUILDER_BUILD_LIST).getCount());
+        // Joining both collections would result in 2 * 2 tuples per document, but the query of the documents
+        // only returns one tuple per document and each fetch query returns one tuple per fetched partner
+        assertEquals(2 + 2 * 2 + 2 * 2, queryMetrics.getHistogram(QueryMetric.OBJECT_BUILDER_BUILD).getCount());
+    }
+
+    private static void assertFetchedPartners(Document doc, DocumentFetchedPartnersView view) {
+        assertEquals(doc.getName(), view.getName());
+        assertEquals(doc.getContacts().get(2).getName().toUpperCase(), view.getMyContactPerson().getName());
+        assertEquals(doc.getPartners().size(), view.getPartners().size());
+
+        Set<String> partnerNames = new HashSet<String>();
+        for (Person partner : doc.getPartners()) {
+            partnerNames.add(partner.getName());
+        }
+
+        Set<String> fetchedPartnerNames = new HashSet<String>();
+        for (PersonSubViewFiltered partner : view.getPartners()) {
+            fetchedPartnerNames.add(partner.getName());
+            // The mapping parameter of the fetched subviews is bound to the parameter of the entity view query
+            assertEquals(Integer.valueOf(2), partner.getContactPersonNumber());
+        }
+        assertEquals(partnerNames, fetchedPartnerNames);
+
+        // The collection is reached through a join that is restricted by the parameter
+        Set<String> contactPartnerNames = new HashSet<String>();
+        for (Person partner : doc.getContacts().get(2).getPartnerDocument().getPartners()) {
+            contactPartnerNames.add(partner.getName().toUpperCase());
+        }
+
+        Set<String> fetchedContactPartnerNames = new HashSet<String>();
+        for (PersonSubView partner : view.getContactPartners()) {
+            fetchedContactPartnerNames.add(partner.getName());
+        }
+        assertEquals(contactPartnerNames, fetchedContactPartnerNames);
+    }
+
+    @Test
+    public void testFetchTemplateCacheEviction() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentMasterView.class);
+        cfg.addEntityView(PersonSubView.class);
+        cfg.addEntityView(PersonSubViewFiltered.class);
+        cfg.setProperty(ConfigurationProperties.FETCH_TEMPLATE_CACHE_SIZE, "1");
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        for (int i = 0; i < 2; i++) {
+            CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d")
+                .orderByAsc("id");
+            List<DocumentMasterView> results = evm.applySetting(EntityViewSetting.create(DocumentMasterView.class).fetch("name"), criteria)
+                .getResultList();
+            assertEquals(doc1.getName(), results.get(0).getName());
+            assertNull(results.get(0).getOwner());
+
+            // The paths below the owner are fetched anyway
+            criteria = cbf.create(em, Document.class, "d")
+                .orderByAsc("id");
+            results = evm.applySetting(EntityViewSetting.create(DocumentMasterView.class).fetch("owner", "owner.name"), criteria)
+                .getResultList();
+            assertNull(results.get(0).getName());
+            assertEquals("PERS1", results.get(0).getOwner().getName());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchInvalidAttributePath() {
+        EntityViewConfigurationImpl cfg = new EntityViewConfigurationImpl();
+        cfg.addEntityView(DocumentMasterView.class);
+        cfg.addEntityView(PersonSubView.class);
+        cfg.addEntityView(PersonSubViewFiltered.class);
+        EntityViewManager evm = cfg.createEntityViewManager();
+
+        CriteriaBuilder<Document> criteria = cbf.create(em, Document.class, "d");
+        evm.applySetting(EntityViewSetting.create(DocumentMasterView.class).fetch("name.length"), criteria);
+    }
+
     public static void assertSubviewEquals(Map<Integer, Person> persons, Map<Integer, PersonSubView> personSubviews) {
         if (persons == null) {
             assertNull(personSubviews);
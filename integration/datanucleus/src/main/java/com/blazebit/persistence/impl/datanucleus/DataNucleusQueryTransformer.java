@@ -18,9 +18,11 @@ package com.blazebit.persistence.impl.datanucleus;
 import com.blazebit.persistence.impl.jpa.ObjectBuilderJPAQueryAdapter;
 import com.blazebit.apt.service.ServiceProvider;
 import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.ScrollableResult;
 import com.blazebit.persistence.spi.QueryTransformer;
 import java.util.logging.Logger;
 import javax.persistence.TypedQuery;
+import org.datanucleus.store.query.Query;
 
 /**
  *
@@ -39,4 +41,16 @@ public class DataNucleusQueryTransformer implements QueryTransformer {
         return new ObjectBuilderJPAQueryAdapter<X>(query, objectBuilder);
     }
 
+    @Override
+    public <X> ScrollableResult<X> scroll(TypedQuery<?> query, ObjectBuilder<X> objectBuilder, int fetchSize) {
+        // DataNucleus loads the results of a query lazily if they are not cached
+        query.setHint("datanucleus.query.resultCacheType", "none");
+
+        if (fetchSize > 0) {
+            query.setHint("datanucleus.query.fetchSize", fetchSize);
+        }
+
+        return new DataNucleusScrollableResult<X>(query.unwrap(Query.class), query.getResultList().iterator(), objectBuilder);
+    }
+
 }
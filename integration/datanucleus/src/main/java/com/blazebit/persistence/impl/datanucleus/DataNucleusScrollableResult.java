@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.datanucleus;
+
+import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.impl.jpa.IteratorScrollableResult;
+import java.util.Iterator;
+import org.datanucleus.store.query.Query;
+
+/**
+ * A scrollable result that closes the lazily loaded query results of DataNucleus and thereby releases the underlying JDBC result set.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class DataNucleusScrollableResult<X> extends IteratorScrollableResult<X> {
+
+    private final Query query;
+
+    public DataNucleusScrollableResult(Query query, Iterator<?> iterator, ObjectBuilder<X> objectBuilder) {
+        super(iterator, objectBuilder);
+        this.query = query;
+    }
+
+    @Override
+    protected void closeCursor() {
+        super.closeCursor();
+        query.closeAll();
+    }
+}
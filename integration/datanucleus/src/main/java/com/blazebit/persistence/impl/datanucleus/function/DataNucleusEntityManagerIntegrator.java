@@ -16,6 +16,7 @@
 package com.blazebit.persistence.impl.datanucleus.function;
 
 import com.blazebit.apt.service.ServiceProvider;
+import com.blazebit.persistence.spi.DbmsAwareEntityManagerIntegrator;
 import com.blazebit.persistence.spi.EntityManagerIntegrator;
 import com.blazebit.persistence.spi.JpqlFunction;
 import java.util.HashSet;
@@ -27,13 +28,15 @@ import org.datanucleus.plugin.Bundle;
 import org.datanucleus.plugin.ConfigurationElement;
 import org.datanucleus.plugin.Extension;
 import org.datanucleus.plugin.ExtensionPoint;
+import org.datanucleus.store.StoreManager;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
 
 /**
  *
  * @author Christian
  */
 @ServiceProvider(EntityManagerIntegrator.class)
-public class DataNucleusEntityManagerIntegrator implements EntityManagerIntegrator {
+public class DataNucleusEntityManagerIntegrator implements DbmsAwareEntityManagerIntegrator {
 
     @Override
     public EntityManager registerFunctions(EntityManager entityManager, Map<String, Map<String, JpqlFunction>> dbmsFunctions) {
@@ -61,6 +64,37 @@ public class DataNucleusEntityManagerIntegrator implements EntityManagerIntegrat
         return new HashSet<String>();
     }
 
+    @Override
+    public String getDbms(EntityManager entityManager) {
+        StoreManager storeManager = entityManager.unwrap(StoreManager.class);
+
+        if (!(storeManager instanceof RDBMSStoreManager)) {
+            return null;
+        }
+
+        return getDbms(((RDBMSStoreManager) storeManager).getDatastoreAdapter().getVendorID());
+    }
+
+    private String getDbms(String vendorId) {
+        if ("mysql".equals(vendorId)) {
+            return "mysql";
+        } else if ("oracle".equals(vendorId)) {
+            return "oracle";
+        } else if ("sqlserver".equals(vendorId)) {
+            return "microsoft";
+        } else if ("sybase".equals(vendorId)) {
+            return "sybase";
+        } else if ("postgresql".equals(vendorId)) {
+            return "postgresql";
+        } else if ("db2".equals(vendorId)) {
+            return "db2";
+        } else if ("h2".equals(vendorId)) {
+            return "h2";
+        }
+
+        return null;
+    }
+
     private ConfigurationElement newMethod(Extension extension, String name, String datastore, Class<?> clazz) {
         ConfigurationElement elem = new ConfigurationElement(extension, "sql-method", null);
         elem.putAttribute("datastore", datastore);
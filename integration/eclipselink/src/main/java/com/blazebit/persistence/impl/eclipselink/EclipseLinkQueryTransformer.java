@@ -17,11 +17,15 @@ package com.blazebit.persistence.impl.eclipselink;
 
 import com.blazebit.apt.service.ServiceProvider;
 import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.ScrollableResult;
 import com.blazebit.persistence.impl.jpa.ObjectBuilderJPAQueryAdapter;
 import com.blazebit.persistence.spi.QueryTransformer;
 import java.util.logging.Logger;
 import javax.persistence.TypedQuery;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.queries.CursoredStream;
 import org.eclipse.persistence.queries.DatabaseQuery;
 
 /**
@@ -31,6 +35,8 @@ import org.eclipse.persistence.queries.DatabaseQuery;
  */
 @ServiceProvider(QueryTransformer.class)
 public class EclipseLinkQueryTransformer implements QueryTransformer {
+
+    private static final int DEFAULT_CURSOR_PAGE_SIZE = 100;
     
     public EclipseLinkQueryTransformer() {
         Logger.getLogger(EclipseLinkQueryTransformer.class.getName()).warning("The EclipseLink integration is experimental and should not be used in production yet!");
@@ -45,4 +51,19 @@ public class EclipseLinkQueryTransformer implements QueryTransformer {
 //        return (TypedQuery<X>) query;
     }
 
+    @Override
+    public <X> ScrollableResult<X> scroll(TypedQuery<?> query, ObjectBuilder<X> objectBuilder, int fetchSize) {
+        query.setHint(QueryHints.CURSOR, HintValues.TRUE);
+        int pageSize = DEFAULT_CURSOR_PAGE_SIZE;
+
+        if (fetchSize > 0) {
+            pageSize = fetchSize;
+            query.setHint(QueryHints.JDBC_FETCH_SIZE, fetchSize);
+        }
+
+        query.setHint(QueryHints.CURSOR_PAGE_SIZE, pageSize);
+        CursoredStream cursor = (CursoredStream) query.getSingleResult();
+        return new EclipseLinkScrollableResult<X>(cursor, objectBuilder, pageSize);
+    }
+
 }
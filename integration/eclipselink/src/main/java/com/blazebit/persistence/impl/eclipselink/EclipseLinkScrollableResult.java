@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.eclipselink;
+
+import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.impl.jpa.AbstractScrollableResult;
+import org.eclipse.persistence.queries.CursoredStream;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class EclipseLinkScrollableResult<X> extends AbstractScrollableResult<X> {
+
+    private final CursoredStream cursor;
+    private final int pageSize;
+    private int rowCount;
+
+    public EclipseLinkScrollableResult(CursoredStream cursor, ObjectBuilder<X> objectBuilder, int pageSize) {
+        super(objectBuilder);
+        this.cursor = cursor;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    protected boolean hasNextRow() {
+        return cursor.hasNext();
+    }
+
+    @Override
+    protected Object nextRow() {
+        Object row = cursor.next();
+
+        if (++rowCount == pageSize) {
+            // The cursor keeps all objects that were read so far unless we release them
+            cursor.releasePrevious();
+            rowCount = 0;
+        }
+
+        return row;
+    }
+
+    @Override
+    protected void closeCursor() {
+        cursor.close();
+    }
+}
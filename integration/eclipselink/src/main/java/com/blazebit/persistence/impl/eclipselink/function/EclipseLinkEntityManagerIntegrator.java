@@ -16,6 +16,7 @@
 package com.blazebit.persistence.impl.eclipselink.function;
 
 import com.blazebit.apt.service.ServiceProvider;
+import com.blazebit.persistence.spi.DbmsAwareEntityManagerIntegrator;
 import com.blazebit.persistence.spi.EntityManagerIntegrator;
 import com.blazebit.persistence.spi.JpqlFunction;
 import java.util.HashSet;
@@ -35,7 +36,7 @@ import org.eclipse.persistence.platform.database.DatabasePlatform;
  * @since 1.0
  */
 @ServiceProvider(EntityManagerIntegrator.class)
-public class EclipseLinkEntityManagerIntegrator implements EntityManagerIntegrator {
+public class EclipseLinkEntityManagerIntegrator implements DbmsAwareEntityManagerIntegrator {
     
     private static final Logger LOG = Logger.getLogger(EntityManagerIntegrator.class.getName());
     
@@ -69,19 +70,7 @@ public class EclipseLinkEntityManagerIntegrator implements EntityManagerIntegrat
         JpaEntityManager jpaEntityManager = JpaHelper.getEntityManager(entityManager);
         DatabasePlatform platform = jpaEntityManager.getDatabaseSession().getPlatform();
         Map<Integer, ExpressionOperator> platformOperators = platform.getPlatformOperators();
-        String dbms;
-        
-        if (platform.isMySQL()) {
-            dbms = "mysql";
-        } else if (platform.isOracle()) {
-            dbms = "oracle";
-        } else if (platform.isSQLServer()) {
-            dbms = "microsoft";
-        } else if (platform.isSybase()) {
-            dbms = "sybase";
-        } else {
-            dbms = null;
-        }
+        String dbms = getDbms(platform);
         
         for (Map.Entry<String, Map<String, JpqlFunction>> functionEntry : dbmsFunctions.entrySet()) {
             String functionName = functionEntry.getKey();
@@ -101,6 +90,32 @@ public class EclipseLinkEntityManagerIntegrator implements EntityManagerIntegrat
         return entityManager;
     }
     
+    @Override
+    public String getDbms(EntityManager entityManager) {
+        JpaEntityManager jpaEntityManager = JpaHelper.getEntityManager(entityManager);
+        return getDbms(jpaEntityManager.getDatabaseSession().getPlatform());
+    }
+    
+    private String getDbms(DatabasePlatform platform) {
+        if (platform.isMySQL()) {
+            return "mysql";
+        } else if (platform.isOracle()) {
+            return "oracle";
+        } else if (platform.isSQLServer()) {
+            return "microsoft";
+        } else if (platform.isSybase()) {
+            return "sybase";
+        } else if (platform.isPostgreSQL()) {
+            return "postgresql";
+        } else if (platform.isDB2()) {
+            return "db2";
+        } else if (platform.isH2()) {
+            return "h2";
+        }
+        
+        return null;
+    }
+    
     private void addFunction(Map platformOperators, String name, JpqlFunction function) {
         ExpressionOperator operator = createOperator(name, function);
         ExpressionOperator.registerOperator(operator.getSelector(), name);
@@ -17,9 +17,11 @@ package com.blazebit.persistence.impl.hibernate;
 
 import com.blazebit.apt.service.ServiceProvider;
 import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.ScrollableResult;
 import com.blazebit.persistence.spi.QueryTransformer;
 import javax.persistence.TypedQuery;
 import org.hibernate.Query;
+import org.hibernate.ScrollMode;
 
 /**
  *
@@ -36,4 +38,15 @@ public class HibernateQueryTransformer implements QueryTransformer {
         return (TypedQuery<X>) query;
     }
 
+    @Override
+    public <X> ScrollableResult<X> scroll(TypedQuery<?> query, ObjectBuilder<X> objectBuilder, int fetchSize) {
+        Query hQuery = query.unwrap(Query.class);
+
+        if (fetchSize > 0) {
+            hQuery.setFetchSize(fetchSize);
+        }
+
+        return new HibernateScrollableResult<X>(hQuery.scroll(ScrollMode.FORWARD_ONLY), objectBuilder);
+    }
+
 }
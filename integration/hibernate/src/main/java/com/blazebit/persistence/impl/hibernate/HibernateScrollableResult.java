@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.hibernate;
+
+import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.impl.jpa.AbstractScrollableResult;
+import org.hibernate.ScrollableResults;
+
+/**
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class HibernateScrollableResult<X> extends AbstractScrollableResult<X> {
+
+    private final ScrollableResults results;
+    private boolean advanced;
+    private boolean hasRow;
+
+    public HibernateScrollableResult(ScrollableResults results, ObjectBuilder<X> objectBuilder) {
+        super(objectBuilder);
+        this.results = results;
+    }
+
+    @Override
+    protected boolean hasNextRow() {
+        if (!advanced) {
+            hasRow = results.next();
+            advanced = true;
+        }
+
+        return hasRow;
+    }
+
+    @Override
+    protected Object nextRow() {
+        advanced = false;
+        Object[] row = results.get();
+
+        if (objectBuilder == null && row.length == 1) {
+            return row[0];
+        }
+
+        return row;
+    }
+
+    @Override
+    protected void closeCursor() {
+        results.close();
+    }
+}
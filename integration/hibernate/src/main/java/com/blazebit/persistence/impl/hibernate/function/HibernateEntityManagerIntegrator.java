@@ -16,6 +16,7 @@
 package com.blazebit.persistence.impl.hibernate.function;
 
 import com.blazebit.apt.service.ServiceProvider;
+import com.blazebit.persistence.spi.DbmsAwareEntityManagerIntegrator;
 import com.blazebit.persistence.spi.EntityManagerIntegrator;
 import com.blazebit.persistence.spi.JpqlFunction;
 import java.util.Map;
@@ -23,9 +24,12 @@ import java.util.Set;
 import java.util.logging.Logger;
 import javax.persistence.EntityManager;
 import org.hibernate.Session;
+import org.hibernate.dialect.DB2Dialect;
 import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
 import org.hibernate.dialect.MySQLDialect;
 import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
 import org.hibernate.dialect.SQLServerDialect;
 import org.hibernate.dialect.SybaseDialect;
 import org.hibernate.dialect.function.SQLFunction;
@@ -37,27 +41,14 @@ import org.hibernate.engine.spi.SessionFactoryImplementor;
  * @since 1.0
  */
 @ServiceProvider(EntityManagerIntegrator.class)
-public class HibernateEntityManagerIntegrator implements EntityManagerIntegrator {
+public class HibernateEntityManagerIntegrator implements DbmsAwareEntityManagerIntegrator {
     
     private static final Logger LOG = Logger.getLogger(EntityManagerIntegrator.class.getName());
     
     @Override
     public EntityManager registerFunctions(EntityManager em, Map<String, Map<String, JpqlFunction>> dbmsFunctions) {
         Dialect dialect = getDialect(em);
-
-        String dbms;
-        
-        if (dialect instanceof MySQLDialect) {
-            dbms = "mysql";
-        } else if (dialect instanceof Oracle8iDialect) {
-            dbms = "oracle";
-        } else if (dialect instanceof SQLServerDialect) {
-            dbms = "microsoft";
-        } else if (dialect instanceof SybaseDialect) {
-            dbms = "sybase";
-        } else {
-            dbms = null;
-        }
+        String dbms = getDbms(dialect);
         
         // Implementation detail: Hibernate uses a mutable map, so we can do this
         Map<String, SQLFunction> functions = dialect.getFunctions();
@@ -84,6 +75,31 @@ public class HibernateEntityManagerIntegrator implements EntityManagerIntegrator
     public Set<String> getRegisteredFunctions(EntityManager em) {
         return getDialect(em).getFunctions().keySet();
     }
+
+    @Override
+    public String getDbms(EntityManager em) {
+        return getDbms(getDialect(em));
+    }
+    
+    private String getDbms(Dialect dialect) {
+        if (dialect instanceof MySQLDialect) {
+            return "mysql";
+        } else if (dialect instanceof Oracle8iDialect) {
+            return "oracle";
+        } else if (dialect instanceof SQLServerDialect) {
+            return "microsoft";
+        } else if (dialect instanceof SybaseDialect) {
+            return "sybase";
+        } else if (dialect instanceof PostgreSQL81Dialect) {
+            return "postgresql";
+        } else if (dialect instanceof DB2Dialect) {
+            return "db2";
+        } else if (dialect instanceof H2Dialect) {
+            return "h2";
+        }
+        
+        return null;
+    }
     
     private Dialect getDialect(EntityManager em) {
         Session s = em.unwrap(Session.class);
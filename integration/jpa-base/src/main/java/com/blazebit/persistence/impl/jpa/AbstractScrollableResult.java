@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.jpa;
+
+import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.ScrollableResult;
+import java.util.NoSuchElementException;
+
+/**
+ * A base class for scrollable results that applies the object builder to every row when it is fetched.
+ * Subclasses only have to provide the rows of the provider specific cursor.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public abstract class AbstractScrollableResult<X> implements ScrollableResult<X> {
+
+    protected final ObjectBuilder<X> objectBuilder;
+    private boolean closed;
+
+    public AbstractScrollableResult(ObjectBuilder<X> objectBuilder) {
+        this.objectBuilder = objectBuilder;
+    }
+
+    /**
+     * Returns whether the cursor has another row.
+     *
+     * @return True if there is another row, otherwise false
+     */
+    protected abstract boolean hasNextRow();
+
+    /**
+     * Returns the next row of the cursor which is either an <code>Object[]</code> or a single object.
+     *
+     * @return The next row
+     */
+    protected abstract Object nextRow();
+
+    /**
+     * Releases the resources of the cursor.
+     */
+    protected abstract void closeCursor();
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+
+        if (hasNextRow()) {
+            return true;
+        }
+
+        close();
+        return false;
+    }
+
+    @Override
+    public X next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Object row = nextRow();
+
+        if (objectBuilder == null) {
+            return (X) row;
+        } else if (row instanceof Object[]) {
+            return objectBuilder.build((Object[]) row);
+        } else {
+            return objectBuilder.build(new Object[]{ row });
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Scrollable results are read only");
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            closeCursor();
+        }
+    }
+}
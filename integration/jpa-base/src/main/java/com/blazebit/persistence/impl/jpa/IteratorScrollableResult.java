@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014 Blazebit.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.blazebit.persistence.impl.jpa;
+
+import com.blazebit.persistence.ObjectBuilder;
+import java.util.Iterator;
+
+/**
+ * A scrollable result for JPA providers that load the results of {@link javax.persistence.Query#getResultList()} lazily
+ * while iterating over them. Providers have to override {@link #closeCursor()} to close the lazily loaded results
+ * through their API, since JPA offers no way to release the underlying JDBC result set.
+ *
+ * @author Christian Beikov
+ * @since 1.0
+ */
+public class IteratorScrollableResult<X> extends AbstractScrollableResult<X> {
+
+    private Iterator<?> iterator;
+
+    public IteratorScrollableResult(Iterator<?> iterator, ObjectBuilder<X> objectBuilder) {
+        super(objectBuilder);
+        this.iterator = iterator;
+    }
+
+    @Override
+    protected boolean hasNextRow() {
+        return iterator.hasNext();
+    }
+
+    @Override
+    protected Object nextRow() {
+        return iterator.next();
+    }
+
+    @Override
+    protected void closeCursor() {
+        // Drop the reference so that the already loaded results can be garbage collected
+        iterator = null;
+    }
+}
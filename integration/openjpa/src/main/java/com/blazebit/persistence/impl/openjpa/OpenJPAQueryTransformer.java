@@ -17,9 +17,11 @@ package com.blazebit.persistence.impl.openjpa;
 
 import com.blazebit.apt.service.ServiceProvider;
 import com.blazebit.persistence.ObjectBuilder;
+import com.blazebit.persistence.ScrollableResult;
 import com.blazebit.persistence.spi.QueryTransformer;
 import java.util.logging.Logger;
 import javax.persistence.TypedQuery;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
 import org.apache.openjpa.persistence.OpenJPAQuerySPI;
 
 /**
@@ -29,6 +31,11 @@ import org.apache.openjpa.persistence.OpenJPAQuerySPI;
  */
 @ServiceProvider(QueryTransformer.class)
 public class OpenJPAQueryTransformer implements QueryTransformer {
+
+    /**
+     * The batch size that is used if no fetch size is given, since OpenJPA would load all results at once otherwise.
+     */
+    private static final int DEFAULT_FETCH_BATCH_SIZE = 100;
     
     public OpenJPAQueryTransformer() {
         Logger.getLogger(OpenJPAQueryTransformer.class.getName()).warning("The OpenJPA integration is experimental and should not be used in production yet!");
@@ -41,4 +48,12 @@ public class OpenJPAQueryTransformer implements QueryTransformer {
         return (TypedQuery<X>) query;
     }
 
+    @Override
+    public <X> ScrollableResult<X> scroll(TypedQuery<?> query, ObjectBuilder<X> objectBuilder, int fetchSize) {
+        // OpenJPA only loads the results of a query lazily if a fetch batch size is set
+        query.setHint("openjpa.FetchPlan.FetchBatchSize", fetchSize > 0 ? fetchSize : DEFAULT_FETCH_BATCH_SIZE);
+
+        return new OpenJPAScrollableResult<X>(OpenJPAPersistence.cast(query), query.getResultList().iterator(), objectBuilder);
+    }
+
 }
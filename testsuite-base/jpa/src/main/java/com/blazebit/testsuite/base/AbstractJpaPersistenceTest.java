@@ -62,10 +62,11 @@ public abstract class AbstractJpaPersistenceTest {
     @Before
     public void init() {
         Properties properties = new Properties();
-        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:test;INIT=CREATE SCHEMA IF NOT EXISTS TEST");
-        properties.put("javax.persistence.jdbc.user", "admin");
-        properties.put("javax.persistence.jdbc.password", "admin");
-        properties.put("javax.persistence.jdbc.driver", "org.h2.Driver");
+        // The dbms can be changed by system properties, e.g. to run the tests that need window functions
+        properties.put("javax.persistence.jdbc.url", System.getProperty("jdbc.url", "jdbc:h2:mem:test;INIT=CREATE SCHEMA IF NOT EXISTS TEST"));
+        properties.put("javax.persistence.jdbc.user", System.getProperty("jdbc.user", "admin"));
+        properties.put("javax.persistence.jdbc.password", System.getProperty("jdbc.password", "admin"));
+        properties.put("javax.persistence.jdbc.driver", System.getProperty("jdbc.driver", "org.h2.Driver"));
         properties.put("javax.persistence.sharedCache.mode", "NONE");
 
         EntityManagerFactory factory = createEntityManagerFactory("TestsuiteBase", applyProperties(properties));